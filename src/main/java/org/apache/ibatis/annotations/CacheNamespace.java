@@ -52,7 +52,8 @@ import org.apache.ibatis.cache.impl.PerpetualCache;
 public @interface CacheNamespace {
 
   /**
-   * Returns the cache implementation type to use.
+   * Returns the cache implementation type to use. {@link org.apache.ibatis.cache.impl.ConcurrentCache} selects the
+   * built-in cache for concurrent readers, which ignores {@link #eviction()}.
    *
    * @return the cache implementation type
    */
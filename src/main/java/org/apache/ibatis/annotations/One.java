@@ -66,4 +66,13 @@ public @interface One {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the number of rows whose nested statement is executed as one query.
+   *
+   * @return the batch size, or 0 to execute the nested statement for each row
+   *
+   * @since 3.5.12
+   */
+  int batchSize() default 0;
+
 }
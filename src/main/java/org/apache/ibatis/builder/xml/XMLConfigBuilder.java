@@ -24,8 +24,10 @@ import javax.sql.DataSource;
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.statement.SqlTracer;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -369,6 +371,27 @@ public class XMLConfigBuilder extends BaseBuilder {
         booleanValueOf(props.getProperty("argNameBasedConstructorAutoMapping"), false));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
     configuration.setNullableOnForEach(booleanValueOf(props.getProperty("nullableOnForEach"), false));
+    configuration
+        .setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), false));
+    configuration.setDynamicSqlCacheSize(integerValueOf(props.getProperty("dynamicSqlCacheSize"), 0));
+    configuration.setCompiledTestExpressionsEnabled(
+        booleanValueOf(props.getProperty("compiledTestExpressionsEnabled"), false));
+    configuration.setFastForEachEnabled(booleanValueOf(props.getProperty("fastForEachEnabled"), false));
+    configuration
+        .setStaticPluginPipelineEnabled(booleanValueOf(props.getProperty("staticPluginPipelineEnabled"), false));
+    configuration.setSqlTracer((SqlTracer) createInstance(props.getProperty("sqlTracer")));
+    configuration.setSqlTraceSampleRate(Double.parseDouble(props.getProperty("sqlTraceSampleRate", "1.0")));
+    configuration
+        .setIndexedColumnAccessEnabled(booleanValueOf(props.getProperty("indexedColumnAccessEnabled"), false));
+    configuration
+        .setDatabasePaginationEnabled(booleanValueOf(props.getProperty("databasePaginationEnabled"), false));
+    configuration.setPaginationDialect((Dialect) createInstance(props.getProperty("paginationDialect")));
+    configuration
+        .setDirectLazyLoadingProxyEnabled(booleanValueOf(props.getProperty("directLazyLoadingProxyEnabled"), false));
+    configuration.setParallelNestedQueryThreads(integerValueOf(props.getProperty("parallelNestedQueryThreads"), 0));
+    configuration.setBatchFlushStatementRows(integerValueOf(props.getProperty("batchFlushStatementRows"), 0));
+    configuration.setBatchFlushPendingRows(integerValueOf(props.getProperty("batchFlushPendingRows"), 0));
+    configuration.setBatchFlushPendingBytes(Long.parseLong(props.getProperty("batchFlushPendingBytes", "0")));
   }
 
   /**
@@ -72,15 +72,39 @@ public class CacheKey implements Cloneable, Serializable {
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+    updateHashCode(object == null ? 1 : ArrayUtil.hashCode(object));
+    updateList.add(object);
+  }
 
+  /**
+   * Updates the hash code and checksum as {@link #update(Object)} does, without keeping the object. Subclasses that
+   * store the objects themselves must also override {@link #getUpdate(int)} and {@link #getUpdateCount()}.
+   *
+   * @param baseHashCode
+   *          the hash code of the object, or 1 if it is null
+   */
+  void updateHashCode(int baseHashCode) {
     count++;
     checksum += baseHashCode;
     baseHashCode *= count;
 
     hashcode = multiplier * hashcode + baseHashCode;
+  }
 
-    updateList.add(object);
+  /**
+   * Gets an object that was passed to {@link #update(Object)}.
+   *
+   * @param index
+   *          the index of the update
+   *
+   * @return the object
+   */
+  Object getUpdate(int index) {
+    return updateList.get(index);
+  }
+
+  long getChecksum() {
+    return checksum;
   }
 
   public void updateAll(Object[] objects) {
@@ -104,9 +128,9 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
+    for (int i = 0; i < count; i++) {
+      Object thisObject = getUpdate(i);
+      Object thatObject = cacheKey.getUpdate(i);
       if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
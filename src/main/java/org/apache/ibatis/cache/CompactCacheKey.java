@@ -0,0 +1,218 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * A {@link CacheKey} for a statement execution that is built in one step.
+ * <p>
+ * The key holds the statement id, the SQL and the environment id in a {@link Shape} that is hashed once and shared by
+ * all keys of the same statement and SQL, the row bounds as plain ints and the parameter values in an array of the
+ * exact size. It has the same hash code and is equal to a {@link CacheKey} that is updated with the statement id, the
+ * offset, the limit, the SQL, the parameter values and the environment id in that order, so both kinds of keys can be
+ * used for the same cache. {@link #update(Object)} can still be used to add more objects.
+ *
+ * @since 3.5.12
+ */
+public class CompactCacheKey extends CacheKey {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Shape shape;
+  private final int offset;
+  private final int limit;
+  private final Object[] parameters;
+  private final int fixedUpdateCount;
+
+  /**
+   * Creates a key.
+   *
+   * @param shape
+   *          the statement id, SQL and environment id
+   * @param offset
+   *          the row bounds offset
+   * @param limit
+   *          the row bounds limit
+   * @param parameters
+   *          the parameter values, the array is not copied and must not be modified afterwards
+   */
+  public CompactCacheKey(Shape shape, int offset, int limit, Object[] parameters) {
+    this.shape = shape;
+    this.offset = offset;
+    this.limit = limit;
+    this.parameters = parameters;
+    this.fixedUpdateCount = 4 + parameters.length + (shape.environmentId == null ? 0 : 1);
+    updateHashCode(shape.idHashCode);
+    updateHashCode(offset);
+    updateHashCode(limit);
+    updateHashCode(shape.sqlHashCode);
+    for (Object parameter : parameters) {
+      updateHashCode(parameter == null ? 1 : ArrayUtil.hashCode(parameter));
+    }
+    if (shape.environmentId != null) {
+      updateHashCode(shape.environmentIdHashCode);
+    }
+  }
+
+  @Override
+  public int getUpdateCount() {
+    return fixedUpdateCount + super.getUpdateCount();
+  }
+
+  @Override
+  Object getUpdate(int index) {
+    if (index >= fixedUpdateCount) {
+      return super.getUpdate(index - fixedUpdateCount);
+    }
+    switch (index) {
+      case 0:
+        return shape.id;
+      case 1:
+        return offset;
+      case 2:
+        return limit;
+      case 3:
+        return shape.sql;
+      default:
+        int parameterIndex = index - 4;
+        return parameterIndex < parameters.length ? parameters[parameterIndex] : shape.environmentId;
+    }
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof CompactCacheKey)) {
+      return super.equals(object);
+    }
+
+    final CompactCacheKey cacheKey = (CompactCacheKey) object;
+
+    if (hashCode() != cacheKey.hashCode() || getChecksum() != cacheKey.getChecksum()
+        || getUpdateCount() != cacheKey.getUpdateCount() || fixedUpdateCount != cacheKey.fixedUpdateCount
+        || offset != cacheKey.offset || limit != cacheKey.limit) {
+      return false;
+    }
+    // the parameters are cheaper to compare and more likely to differ than the statement and the SQL
+    for (int i = 0; i < parameters.length; i++) {
+      if (!ArrayUtil.equals(parameters[i], cacheKey.parameters[i])) {
+        return false;
+      }
+    }
+    for (int i = fixedUpdateCount; i < getUpdateCount(); i++) {
+      if (!ArrayUtil.equals(getUpdate(i), cacheKey.getUpdate(i))) {
+        return false;
+      }
+    }
+    return shape == cacheKey.shape || shape.equals(cacheKey.shape);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner returnValue = new StringJoiner(":");
+    returnValue.add(String.valueOf(hashCode()));
+    returnValue.add(String.valueOf(getChecksum()));
+    for (int i = 0; i < getUpdateCount(); i++) {
+      returnValue.add(ArrayUtil.toString(getUpdate(i)));
+    }
+    return returnValue.toString();
+  }
+
+  @Override
+  public CompactCacheKey clone() throws CloneNotSupportedException {
+    return (CompactCacheKey) super.clone();
+  }
+
+  /**
+   * The part of a {@link CompactCacheKey} that only depends on the statement and the generated SQL.
+   */
+  public static final class Shape implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final String sql;
+    private final String environmentId;
+    private final int idHashCode;
+    private final int sqlHashCode;
+    private final int environmentIdHashCode;
+
+    /**
+     * Creates a shape.
+     *
+     * @param id
+     *          the statement id
+     * @param sql
+     *          the SQL
+     * @param environmentId
+     *          the environment id, may be null
+     */
+    public Shape(String id, String sql, String environmentId) {
+      this.id = id;
+      this.sql = sql;
+      this.environmentId = environmentId;
+      this.idHashCode = id.hashCode();
+      this.sqlHashCode = sql.hashCode();
+      this.environmentIdHashCode = environmentId == null ? 1 : environmentId.hashCode();
+    }
+
+    /**
+     * Returns whether this shape was created for exactly these instances, which allows reusing it without comparing the
+     * SQL text.
+     *
+     * @param sql
+     *          the SQL
+     * @param environmentId
+     *          the environment id
+     *
+     * @return true if the same instances were used to create this shape
+     */
+    public boolean isFor(String sql, String environmentId) {
+      return this.sql == sql && this.environmentId == environmentId;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof Shape)) {
+        return false;
+      }
+      Shape other = (Shape) object;
+      return idHashCode == other.idHashCode && sqlHashCode == other.sqlHashCode && id.equals(other.id)
+          && sql.equals(other.sql)
+          && (environmentId == null ? other.environmentId == null : environmentId.equals(other.environmentId));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * idHashCode + sqlHashCode;
+    }
+  }
+
+}
@@ -15,12 +15,19 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 
 /**
  * <p>
@@ -30,15 +37,31 @@ import org.apache.ibatis.cache.CacheException;
  * is not found in cache. This way, other threads will wait until this element is filled instead of hitting the
  * database.
  * <p>
+ * The lock is a single-flight load: the first thread that misses a key owns the load and every other reader of that key
+ * waits on its future until the owner puts the value or gives up with {@link #removeObject(Object)}. Hits take no lock
+ * and allocate nothing. {@link #computeIfAbsent(Object, Function)} runs the whole load in one call.
+ * <p>
+ * A load that is pending for longer than the {@link #setStuckLoadThreshold(long) stuck load threshold} is reported once
+ * and counted, which usually means a caller got a miss and never released the key.
+ * <p>
  * By its nature, this implementation can cause deadlock when used incorrectly.
  *
  * @author Eduardo Macarron
  */
 public class BlockingCache implements Cache {
 
+  private static final Log log = LogFactory.getLog(BlockingCache.class);
+
   private long timeout;
+  private long stuckLoadThreshold;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, CountDownLatch> locks;
+  private final ConcurrentHashMap<Object, Load> locks;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder waitCount = new LongAdder();
+  private final LongAdder timeoutCount = new LongAdder();
+  private final LongAdder stuckLoadCount = new LongAdder();
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -66,12 +89,41 @@ public class BlockingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    acquireLock(key);
     Object value = delegate.getObject(key);
     if (value != null) {
-      releaseLock(key);
+      hitCount.increment();
+      return value;
+    }
+    Load newLoad = null;
+    while (true) {
+      Load load = locks.get(key);
+      if (load == null) {
+        if (newLoad == null) {
+          newLoad = new Load();
+        }
+        load = locks.putIfAbsent(key, newLoad);
+        if (load == null) {
+          // the value may have been put since the first look up
+          value = delegate.getObject(key);
+          if (value != null) {
+            releaseLock(key);
+            hitCount.increment();
+          } else {
+            missCount.increment();
+          }
+          return value;
+        }
+      }
+      waitCount.increment();
+      await(key, load);
+      // read the value again instead of taking it from the load, the delegate may copy it on each read
+      value = delegate.getObject(key);
+      if (value != null) {
+        hitCount.increment();
+        return value;
+      }
+      // the owner gave up without a value, try to become the owner
     }
-    return value;
   }
 
   @Override
@@ -86,35 +138,90 @@ public class BlockingCache implements Cache {
     delegate.clear();
   }
 
-  private void acquireLock(Object key) {
-    CountDownLatch newLatch = new CountDownLatch(1);
-    while (true) {
-      CountDownLatch latch = locks.putIfAbsent(key, newLatch);
-      if (latch == null) {
-        break;
+  /**
+   * Gets the value of a key, loading it at most once when several threads miss the key at the same time.
+   *
+   * @param key
+   *          the key
+   * @param loader
+   *          computes the value of a missing key. A null value is not cached.
+   *
+   * @return the cached or loaded value
+   *
+   * @since 3.5.12
+   */
+  public Object computeIfAbsent(Object key, Function<Object, ?> loader) {
+    Object value = getObject(key);
+    if (value != null) {
+      return value;
+    }
+    boolean released = false;
+    try {
+      value = loader.apply(key);
+      if (value != null) {
+        released = true;
+        putObject(key, value);
+      }
+      return value;
+    } finally {
+      if (!released) {
+        releaseLock(key);
       }
-      try {
+    }
+  }
+
+  private void await(Object key, Load load) {
+    long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    try {
+      while (true) {
+        long waitNanos = Long.MAX_VALUE;
         if (timeout > 0) {
-          boolean acquired = latch.await(timeout, TimeUnit.MILLISECONDS);
-          if (!acquired) {
+          waitNanos = deadline - System.nanoTime();
+        }
+        if (stuckLoadThreshold > 0 && !load.reportedStuck.get()) {
+          waitNanos = Math.min(waitNanos,
+              load.startTime + TimeUnit.MILLISECONDS.toNanos(stuckLoadThreshold) - System.nanoTime());
+        }
+        try {
+          if (waitNanos == Long.MAX_VALUE) {
+            load.get();
+          } else {
+            load.get(Math.max(waitNanos, 0), TimeUnit.NANOSECONDS);
+          }
+          return;
+        } catch (TimeoutException e) {
+          reportIfStuck(key, load);
+          if (timeout > 0 && deadline - System.nanoTime() <= 0) {
+            timeoutCount.increment();
             throw new CacheException(
                 "Couldn't get a lock in " + timeout + " for the key " + key + " at the cache " + delegate.getId());
           }
-        } else {
-          latch.await();
         }
-      } catch (InterruptedException e) {
-        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
       }
+    } catch (InterruptedException e) {
+      throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+    } catch (ExecutionException e) {
+      // loads are never completed exceptionally
+      throw new CacheException("Error waiting for the lock for key " + key, e);
+    }
+  }
+
+  private void reportIfStuck(Object key, Load load) {
+    if (stuckLoadThreshold > 0 && !load.isDone()
+        && System.nanoTime() - load.startTime >= TimeUnit.MILLISECONDS.toNanos(stuckLoadThreshold)
+        && load.reportedStuck.compareAndSet(false, true)) {
+      stuckLoadCount.increment();
+      log.warn("The key " + key + " at the cache " + delegate.getId() + " has been locked for more than "
+          + stuckLoadThreshold + " ms. A miss may not have been followed by putObject or removeObject.");
     }
   }
 
   private void releaseLock(Object key) {
-    CountDownLatch latch = locks.remove(key);
-    if (latch == null) {
+    Load load = locks.remove(key);
+    if (load == null) {
       throw new IllegalStateException("Detected an attempt at releasing unacquired lock. This should never happen.");
     }
-    latch.countDown();
+    load.complete(null);
   }
 
   public long getTimeout() {
@@ -124,4 +231,99 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * Gets the time in milliseconds after which a pending load is reported as stuck.
+   *
+   * @return the threshold, 0 if stuck loads are not detected
+   *
+   * @since 3.5.12
+   */
+  public long getStuckLoadThreshold() {
+    return stuckLoadThreshold;
+  }
+
+  /**
+   * Sets the time in milliseconds after which a pending load is reported as stuck. Loads are checked by the threads
+   * waiting for them. The default is 0, which disables the detection.
+   *
+   * @param stuckLoadThreshold
+   *          the threshold
+   *
+   * @since 3.5.12
+   */
+  public void setStuckLoadThreshold(long stuckLoadThreshold) {
+    this.stuckLoadThreshold = stuckLoadThreshold;
+  }
+
+  /**
+   * Gets the number of reads that found a value, directly or after waiting for a load.
+   *
+   * @return the number of hits
+   *
+   * @since 3.5.12
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Gets the number of reads that did not find a value and became the owner of the load.
+   *
+   * @return the number of misses
+   *
+   * @since 3.5.12
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Gets the number of times a read had to wait for the load of another thread.
+   *
+   * @return the number of waits
+   *
+   * @since 3.5.12
+   */
+  public long getWaitCount() {
+    return waitCount.sum();
+  }
+
+  /**
+   * Gets the number of reads that gave up waiting because the timeout elapsed.
+   *
+   * @return the number of timeouts
+   *
+   * @since 3.5.12
+   */
+  public long getTimeoutCount() {
+    return timeoutCount.sum();
+  }
+
+  /**
+   * Gets the number of loads that were pending for longer than the stuck load threshold.
+   *
+   * @return the number of stuck loads
+   *
+   * @since 3.5.12
+   */
+  public long getStuckLoadCount() {
+    return stuckLoadCount.sum();
+  }
+
+  /**
+   * Gets the number of keys that are currently locked by a load.
+   *
+   * @return the number of pending loads
+   *
+   * @since 3.5.12
+   */
+  public int getPendingLoadCount() {
+    return locks.size();
+  }
+
+  private static final class Load extends CompletableFuture<Object> {
+    private final long startTime = System.nanoTime();
+    private final AtomicBoolean reportedStuck = new AtomicBoolean();
+  }
 }
@@ -26,7 +26,7 @@ public class ScheduledCache implements Cache {
 
   private final Cache delegate;
   protected long clearInterval;
-  protected long lastClear;
+  protected volatile long lastClear;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -84,7 +84,12 @@ public class ScheduledCache implements Cache {
 
   private boolean clearWhenStale() {
     if (System.currentTimeMillis() - lastClear > clearInterval) {
-      clear();
+      // the cache may not be synchronized, so only the first thread that finds it stale clears it
+      synchronized (this) {
+        if (System.currentTimeMillis() - lastClear > clearInterval) {
+          clear();
+        }
+      }
       return true;
     }
     return false;
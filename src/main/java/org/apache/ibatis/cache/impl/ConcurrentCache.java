@@ -0,0 +1,452 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A bounded, thread safe cache for high read concurrency.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so reads take no lock: a read only marks the entry as referenced and
+ * records the access in a {@link FrequencySketch}. Writes and eviction are serialized per shard of the key space.
+ * <p>
+ * Each shard follows the W-TinyLFU policy: new entries enter a small FIFO window. An entry leaving the window is
+ * admitted to the main area if it has room, otherwise it competes with the victim chosen by a CLOCK sweep over the main
+ * area and only the one that was accessed more often recently stays. This keeps entries that are read once from pushing
+ * out the frequently read ones.
+ * <p>
+ * The cache is bounded by the number of entries unless a {@link #setMaximumWeight(long) maximum weight} is set, in
+ * which case it is bounded by the estimated size of the entries in bytes. A value serialized by the read/write
+ * decorator weighs its length, a collection weighs its size times the {@link #setEstimatedRowSize(int) estimated row
+ * size} and any other value weighs one row.
+ * <p>
+ * The cache is selected with {@code <cache type="CONCURRENT"/>} or
+ * {@code @CacheNamespace(implementation = ConcurrentCache.class)}. It does its own eviction and needs no
+ * synchronization, so the eviction decorator and SynchronizedCache are not applied to it, but the other standard
+ * decorators are.
+ *
+ * @since 3.5.12
+ */
+public class ConcurrentCache implements Cache {
+
+  private static final int DEFAULT_SIZE = 1024;
+  private static final int MINIMUM_SHARD_SIZE = 64;
+  private static final int DEFAULT_ESTIMATED_ROW_SIZE = 256;
+  // array header and reference of a serialized value
+  private static final int BYTES_OVERHEAD = 24;
+
+  private final String id;
+  private final ConcurrentHashMap<Object, Node> cache = new ConcurrentHashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  private int size = DEFAULT_SIZE;
+  private long maximumWeight;
+  private int estimatedRowSize = DEFAULT_ESTIMATED_ROW_SIZE;
+  private int shards = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors() * 2));
+  private volatile Shard[] shardTable;
+  private volatile FrequencySketch sketch;
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+    rebuild();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Node node = new Node(key, value, spread(key.hashCode()), maximumWeight > 0 ? weigh(value) : 1);
+    Node replaced = cache.put(key, node);
+    Shard shard = shardFor(node.hash);
+    synchronized (shard) {
+      if (replaced != null) {
+        shard.unlink(replaced);
+      }
+      // a concurrent put or remove of the same key may already have replaced the node
+      if (cache.get(key) == node) {
+        shard.addToWindow(node);
+        evict(shard);
+      }
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Node node = cache.get(key);
+    int hash = node == null ? spread(key.hashCode()) : node.hash;
+    sketch.increment(hash);
+    if (node == null || node.value == null) {
+      missCount.increment();
+      return null;
+    }
+    if (!node.referenced) {
+      node.referenced = true;
+    }
+    hitCount.increment();
+    return node.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Node node = cache.remove(key);
+    if (node == null) {
+      return null;
+    }
+    Shard shard = shardFor(node.hash);
+    synchronized (shard) {
+      shard.unlink(node);
+    }
+    return node.value;
+  }
+
+  @Override
+  public void clear() {
+    for (Shard shard : shardTable) {
+      synchronized (shard) {
+        for (Node node = shard.window.next; node != shard.window; node = node.next) {
+          cache.remove(node.key, node);
+        }
+        for (Node node = shard.main.next; node != shard.main; node = node.next) {
+          cache.remove(node.key, node);
+        }
+        shard.reset();
+      }
+    }
+  }
+
+  /**
+   * Sets the maximum number of entries. Changing the size clears the cache.
+   *
+   * @param size
+   *          the maximum number of entries, 1024 by default
+   */
+  public void setSize(int size) {
+    if (size < 1) {
+      throw new CacheException("The size of the cache " + id + " must be positive but was " + size);
+    }
+    this.size = size;
+    rebuild();
+  }
+
+  public int getMaximumSize() {
+    return size;
+  }
+
+  /**
+   * Sets the number of shards that writes and eviction are serialized on. The number is rounded down to a power of two
+   * and reduced so that every shard holds at least 64 entries. Changing the number of shards clears the cache.
+   *
+   * @param shards
+   *          the number of shards, twice the number of processors up to 16 by default
+   */
+  public void setShards(int shards) {
+    if (shards < 1) {
+      throw new CacheException("The number of shards of the cache " + id + " must be positive but was " + shards);
+    }
+    this.shards = Integer.highestOneBit(shards);
+    rebuild();
+  }
+
+  public int getShards() {
+    return shardTable.length;
+  }
+
+  /**
+   * Sets the maximum estimated size of all entries in bytes. When set, it bounds the cache instead of the number of
+   * entries, which then only determines the number of shards. Every shard gets an equal part of the budget and an entry
+   * that is larger than its shard's part is not kept. Changing the maximum weight clears the cache.
+   *
+   * @param maximumWeight
+   *          the maximum weight in bytes, 0 (the default) to bound the cache by the number of entries
+   */
+  public void setMaximumWeight(long maximumWeight) {
+    if (maximumWeight < 0) {
+      throw new CacheException(
+          "The maximum weight of the cache " + id + " must not be negative but was " + maximumWeight);
+    }
+    this.maximumWeight = maximumWeight;
+    rebuild();
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Sets the estimated size in bytes of a row that is cached as an object, which is used to weigh values that are not
+   * serialized by the read/write decorator.
+   *
+   * @param estimatedRowSize
+   *          the estimated row size, 256 by default
+   */
+  public void setEstimatedRowSize(int estimatedRowSize) {
+    if (estimatedRowSize < 1) {
+      throw new CacheException(
+          "The estimated row size of the cache " + id + " must be positive but was " + estimatedRowSize);
+    }
+    this.estimatedRowSize = estimatedRowSize;
+  }
+
+  public int getEstimatedRowSize() {
+    return estimatedRowSize;
+  }
+
+  /**
+   * Gets the weight of all entries, the estimated size in bytes if a maximum weight is set or else the number of
+   * entries.
+   *
+   * @return the weight
+   */
+  public long getWeight() {
+    long weight = 0;
+    for (Shard shard : shardTable) {
+      synchronized (shard) {
+        weight += shard.windowWeight + shard.mainWeight;
+      }
+    }
+    return weight;
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void rebuild() {
+    if (shardTable != null) {
+      clear();
+    }
+    int count = Math.max(1, Math.min(shards, Integer.highestOneBit(Math.max(1, size / MINIMUM_SHARD_SIZE))));
+    long capacity = maximumWeight > 0 ? maximumWeight : size;
+    Shard[] table = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      table[i] = new Shard(capacity / count + (i < capacity % count ? 1 : 0));
+    }
+    sketch = new FrequencySketch(size);
+    shardTable = table;
+  }
+
+  private Shard shardFor(int hash) {
+    Shard[] table = shardTable;
+    return table[(hash >>> 16) & (table.length - 1)];
+  }
+
+  private void evict(Shard shard) {
+    while (shard.windowWeight > shard.windowCapacity) {
+      Node candidate = shard.window.next;
+      shard.unlink(candidate);
+      if (candidate.weight > shard.mainCapacity) {
+        evict(shard, candidate);
+        continue;
+      }
+      while (shard.mainWeight + candidate.weight > shard.mainCapacity) {
+        Node victim = shard.nextVictim();
+        if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+          break;
+        }
+        evict(shard, victim);
+      }
+      if (shard.mainWeight + candidate.weight <= shard.mainCapacity) {
+        shard.addToMain(candidate);
+      } else {
+        evict(shard, candidate);
+      }
+    }
+  }
+
+  private void evict(Shard shard, Node node) {
+    shard.unlink(node);
+    cache.remove(node.key, node);
+    evictionCount.increment();
+  }
+
+  private long weigh(Object value) {
+    if (value instanceof byte[]) {
+      return ((byte[]) value).length + BYTES_OVERHEAD;
+    }
+    if (value instanceof Collection) {
+      return Math.max(1, ((Collection<?>) value).size()) * (long) estimatedRowSize;
+    }
+    return estimatedRowSize;
+  }
+
+  private static int spread(int hash) {
+    return (hash ^ (hash >>> 16)) * 0x45d9f3b;
+  }
+
+  private static final class Node {
+    private static final int NONE = 0;
+    private static final int WINDOW = 1;
+    private static final int MAIN = 2;
+
+    private final Object key;
+    private final Object value;
+    private final int hash;
+    private final long weight;
+    private volatile boolean referenced;
+    private int queue;
+    private Node prev;
+    private Node next;
+
+    Node(Object key, Object value, int hash, long weight) {
+      this.key = key;
+      this.value = value;
+      this.hash = hash;
+      this.weight = weight;
+    }
+
+    Node() {
+      this(null, null, 0, 0);
+      prev = this;
+      next = this;
+    }
+  }
+
+  /**
+   * The window and main queues of a part of the key space, guarded by the shard's monitor.
+   */
+  private static final class Shard {
+    private final Node window = new Node();
+    private final Node main = new Node();
+    private final long windowCapacity;
+    private final long mainCapacity;
+    private long windowWeight;
+    private long mainWeight;
+    private int mainCount;
+
+    Shard(long capacity) {
+      this.windowCapacity = Math.max(1, capacity / 100);
+      this.mainCapacity = Math.max(0, capacity - windowCapacity);
+    }
+
+    void addToWindow(Node node) {
+      link(window, node);
+      node.queue = Node.WINDOW;
+      windowWeight += node.weight;
+    }
+
+    void addToMain(Node node) {
+      link(main, node);
+      node.queue = Node.MAIN;
+      mainWeight += node.weight;
+      mainCount++;
+    }
+
+    void unlink(Node node) {
+      if (node.queue == Node.NONE) {
+        return;
+      }
+      if (node.queue == Node.WINDOW) {
+        windowWeight -= node.weight;
+      } else {
+        mainWeight -= node.weight;
+        mainCount--;
+      }
+      node.prev.next = node.next;
+      node.next.prev = node.prev;
+      node.prev = null;
+      node.next = null;
+      node.queue = Node.NONE;
+    }
+
+    /**
+     * Sweeps the main queue like a clock hand: referenced entries get a second chance and move to the tail.
+     */
+    Node nextVictim() {
+      if (main.next == main) {
+        return null;
+      }
+      // readers may mark entries again while sweeping, so give up after one turn
+      for (int sweeps = 0;; sweeps++) {
+        Node node = main.next;
+        if (!node.referenced || sweeps >= mainCount) {
+          return node;
+        }
+        node.referenced = false;
+        unlink(node);
+        addToMain(node);
+      }
+    }
+
+    void reset() {
+      for (Node node = window.next; node != window;) {
+        Node next = node.next;
+        unlink(node);
+        node = next;
+      }
+      for (Node node = main.next; node != main;) {
+        Node next = node.next;
+        unlink(node);
+        node = next;
+      }
+    }
+
+    private void link(Node head, Node node) {
+      node.prev = head.prev;
+      node.next = head;
+      head.prev.next = node;
+      head.prev = node;
+    }
+  }
+
+}
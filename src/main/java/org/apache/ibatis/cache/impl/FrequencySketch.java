@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often a key was accessed recently.
+ * <p>
+ * Each key maps to one counter in four different words of the table and its frequency is the minimum of these counters.
+ * When the number of increments reaches ten times the capacity, all counters are halved so that old accesses fade away.
+ * Counters are updated with compare-and-set and saturated counters are never written, so hot keys cause no contention.
+ * The increments are counted in a striped {@link LongAdder} whose sum is only read for a sample of the increments, so
+ * concurrent readers do not contend on a shared counter either.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+      0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_COUNT = 15;
+  private static final int RESET_CHECK_INTERVAL = 16;
+
+  private final AtomicLongArray table;
+  private final int tableMask;
+  private final int sampleSize;
+  private final LongAdder size = new LongAdder();
+  private final AtomicBoolean resetting = new AtomicBoolean();
+
+  FrequencySketch(int capacity) {
+    int length = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 24)) - 1) << 1;
+    this.table = new AtomicLongArray(length);
+    this.tableMask = length - 1;
+    this.sampleSize = 10 * Math.max(capacity, 1);
+  }
+
+  int frequency(int hash) {
+    int start = (hash & 3) << 2;
+    int frequency = MAXIMUM_COUNT;
+    for (int i = 0; i < 4; i++) {
+      int shift = (start + i) << 2;
+      int count = (int) ((table.get(indexOf(hash, i)) >>> shift) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(int hash) {
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), (start + i) << 2);
+    }
+    if (added) {
+      size.increment();
+      if (ThreadLocalRandom.current().nextInt(RESET_CHECK_INTERVAL) == 0 && size.sum() >= sampleSize) {
+        reset();
+      }
+    }
+  }
+
+  private boolean incrementAt(int index, int shift) {
+    while (true) {
+      long word = table.get(index);
+      if (((word >>> shift) & 0xfL) == MAXIMUM_COUNT) {
+        return false;
+      }
+      if (table.compareAndSet(index, word, word + (1L << shift))) {
+        return true;
+      }
+    }
+  }
+
+  private void reset() {
+    if (!resetting.compareAndSet(false, true)) {
+      // another thread is resetting
+      return;
+    }
+    try {
+      long current = size.sum();
+      if (current < sampleSize) {
+        return;
+      }
+      for (int i = 0; i < table.length(); i++) {
+        long word;
+        do {
+          word = table.get(i);
+        } while (!table.compareAndSet(i, word, (word >>> 1) & RESET_MASK));
+      }
+      size.add(current / 2 - current);
+    } finally {
+      resetting.set(false);
+    }
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+}
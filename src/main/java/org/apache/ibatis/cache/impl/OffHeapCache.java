@@ -0,0 +1,420 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A cache that keeps the serialized values outside of the Java heap.
+ * <p>
+ * The values are stored in slabs of direct memory, or of a memory-mapped file if a {@link #setFile(String) file} is
+ * set, that are managed by a {@link SlabAllocator}. Only the keys and a small entry per key stay on the heap, so large
+ * caches add little to the old generation. Every size class keeps its entries in LRU order and the least recently used
+ * entry of the class is evicted when the class runs out of chunks and no slab is left. A class that has no slab at all
+ * takes one over from the class that holds the most slabs, evicting the entries stored in it.
+ * <p>
+ * The cache is selected with {@code <cache type="OFFHEAP"/>} or
+ * {@code @CacheNamespace(implementation = OffHeapCache.class)}. It only stores byte arrays, so the read/write decorator
+ * is always applied to it and readOnly has no effect. Like the concurrent cache it does its own eviction and is thread
+ * safe, so the eviction decorator and SynchronizedCache are not applied.
+ * <p>
+ * A cache that is no longer used should be {@link #close() closed} to release its file.
+ *
+ * @since 3.5.12
+ */
+public class OffHeapCache implements Cache, Closeable {
+
+  private static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+  private static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+  private final String id;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Object, Entry> entries = new HashMap<>();
+  private Entry[] lruHeads;
+  private SlabAllocator allocator;
+  private RandomAccessFile randomAccessFile;
+  private FileChannel channel;
+
+  private long capacity = DEFAULT_CAPACITY;
+  private int slabSize = DEFAULT_SLAB_SIZE;
+  private String file;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value != null && !(value instanceof byte[])) {
+      throw new CacheException("The off-heap cache " + id + " only stores serialized values but got " + value);
+    }
+    byte[] bytes = (byte[]) value;
+    lock.lock();
+    try {
+      Entry replaced = entries.remove(key);
+      if (replaced != null) {
+        release(replaced);
+      }
+      if (bytes == null) {
+        // TransactionalCache puts null for a miss, which is the same as no entry
+        return;
+      }
+      SlabAllocator slabAllocator = allocator();
+      int sizeClass = slabAllocator.sizeClass(bytes.length);
+      if (sizeClass < 0) {
+        // larger than a slab
+        evictionCount.increment();
+        return;
+      }
+      long address = allocate(sizeClass);
+      slabAllocator.write(address, bytes);
+      Entry entry = new Entry(key, address, bytes.length, sizeClass);
+      entries.put(key, entry);
+      link(entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    lock.lock();
+    try {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        missCount.increment();
+        return null;
+      }
+      // move to the most recently used end
+      unlink(entry);
+      link(entry);
+      hitCount.increment();
+      return allocator.read(entry.address, entry.length);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      Entry entry = entries.remove(key);
+      if (entry == null) {
+        return null;
+      }
+      byte[] value = allocator.read(entry.address, entry.length);
+      release(entry);
+      return value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      if (allocator != null) {
+        allocator.reset();
+        for (Entry head : lruHeads) {
+          head.prev = head;
+          head.next = head;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all entries and closes the file of the slabs. Direct memory and mapped slabs are released by the garbage
+   * collector once they are no longer referenced. The cache allocates new slabs and reopens its file if it is used
+   * again.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      entries.clear();
+      allocator = null;
+      lruHeads = null;
+      closeFile();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the maximum number of bytes of off-heap memory. Must be set before the cache is used.
+   *
+   * @param capacity
+   *          the capacity, 64 MiB by default
+   */
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the size of a slab in bytes, which is also the size of the largest value that can be cached. Must be set
+   * before the cache is used.
+   *
+   * @param slabSize
+   *          the slab size, 1 MiB by default
+   */
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  /**
+   * Sets the file that is mapped into memory to hold the slabs instead of direct memory. The file is created or
+   * overwritten and grows up to the capacity. Must be set before the cache is used.
+   *
+   * @param file
+   *          the path of the file
+   */
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Gets the number of bytes of off-heap memory in use by slabs.
+   *
+   * @return the allocated memory
+   */
+  public long getAllocatedMemory() {
+    lock.lock();
+    try {
+      return allocator == null ? 0 : (long) allocator.getSlabCount() * slabSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private SlabAllocator allocator() {
+    if (allocator == null) {
+      if (slabSize < 64 || capacity < slabSize) {
+        throw new CacheException("The off-heap cache " + id + " needs a slab size of at least 64 bytes and a capacity"
+            + " of at least one slab but has a slab size of " + slabSize + " and a capacity of " + capacity);
+      }
+      if (file == null) {
+        allocator = new SlabAllocator(capacity, slabSize, slab -> ByteBuffer.allocateDirect(slabSize));
+      } else {
+        openFile();
+        allocator = new SlabAllocator(capacity, slabSize, this::mapSlab);
+      }
+      lruHeads = new Entry[allocator.sizeClass(slabSize) + 1];
+      for (int i = 0; i < lruHeads.length; i++) {
+        lruHeads[i] = new Entry(null, SlabAllocator.NO_ADDRESS, 0, i);
+      }
+    }
+    return allocator;
+  }
+
+  private long allocate(int sizeClass) {
+    long address = allocator.allocate(sizeClass);
+    while (address == SlabAllocator.NO_ADDRESS) {
+      Entry head = lruHeads[sizeClass];
+      if (head.next != head) {
+        evict(head.next);
+      } else {
+        int slab = allocator.slabToReassign();
+        if (slab < 0) {
+          throw new CacheException("The off-heap cache " + id + " has no memory left for a value of size class "
+              + sizeClass + ". Increase the capacity or the slab size.");
+        }
+        evictSlab(slab);
+        allocator.reassign(slab, sizeClass);
+      }
+      address = allocator.allocate(sizeClass);
+    }
+    return address;
+  }
+
+  private void evictSlab(int slab) {
+    for (Entry head : lruHeads) {
+      for (Entry entry = head.next; entry != head;) {
+        Entry next = entry.next;
+        if (allocator.isInSlab(entry.address, slab)) {
+          evict(entry);
+        }
+        entry = next;
+      }
+    }
+  }
+
+  private void evict(Entry entry) {
+    entries.remove(entry.key);
+    release(entry);
+    evictionCount.increment();
+  }
+
+  private void release(Entry entry) {
+    unlink(entry);
+    allocator.free(entry.address);
+  }
+
+  private void link(Entry entry) {
+    Entry head = lruHeads[entry.sizeClass];
+    entry.prev = head.prev;
+    entry.next = head;
+    head.prev.next = entry;
+    head.prev = entry;
+  }
+
+  private void unlink(Entry entry) {
+    entry.prev.next = entry.next;
+    entry.next.prev = entry.prev;
+    entry.prev = null;
+    entry.next = null;
+  }
+
+  private void openFile() {
+    closeFile();
+    try {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      randomAccessFile.setLength(0);
+      channel = randomAccessFile.getChannel();
+    } catch (IOException e) {
+      closeFile();
+      throw new CacheException("Could not open the file " + file + " of the off-heap cache " + id + ". Cause: " + e, e);
+    }
+  }
+
+  private void closeFile() {
+    if (randomAccessFile == null) {
+      return;
+    }
+    try {
+      // closes the channel as well
+      randomAccessFile.close();
+    } catch (IOException e) {
+      throw new CacheException("Could not close the file " + file + " of the off-heap cache " + id + ". Cause: " + e,
+          e);
+    } finally {
+      randomAccessFile = null;
+      channel = null;
+    }
+  }
+
+  private ByteBuffer mapSlab(int slab) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, (long) slab * slabSize, slabSize);
+    } catch (IOException e) {
+      throw new CacheException("Could not map slab " + slab + " of the off-heap cache " + id + ". Cause: " + e, e);
+    }
+  }
+
+  private static final class Entry {
+    private final Object key;
+    private final long address;
+    private final int length;
+    private final int sizeClass;
+    private Entry prev;
+    private Entry next;
+
+    Entry(Object key, long address, int length, int sizeClass) {
+      this.key = key;
+      this.address = address;
+      this.length = length;
+      this.sizeClass = sizeClass;
+      if (key == null) {
+        prev = this;
+        next = this;
+      }
+    }
+  }
+
+}
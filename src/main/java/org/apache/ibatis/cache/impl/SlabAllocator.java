@@ -0,0 +1,243 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Allocates chunks of fixed size classes from large slabs of memory, in the way memcached does.
+ * <p>
+ * The memory is split into slabs of equal size that are created on demand up to the capacity. A slab is assigned to one
+ * size class and cut into chunks of that class, which grow by a factor of 1.25 from 64 bytes up to the slab size. A
+ * chunk is addressed by a long that holds the slab index in the upper and the offset in the lower half.
+ * <p>
+ * This class is not thread safe.
+ */
+final class SlabAllocator {
+
+  static final long NO_ADDRESS = -1L;
+
+  private static final int MINIMUM_CHUNK_SIZE = 64;
+  private static final double GROWTH_FACTOR = 1.25;
+
+  private final int slabSize;
+  private final int[] chunkSizes;
+  private final IntFunction<ByteBuffer> slabFactory;
+  private final ByteBuffer[] slabs;
+  private final int[] slabClasses;
+  private final int[] classSlabCounts;
+  private final long[][] freeChunks;
+  private final int[] freeChunkCounts;
+  private int slabCount;
+  private int[] unassignedSlabs = new int[0];
+  private int unassignedSlabCount;
+
+  /**
+   * Creates an allocator.
+   *
+   * @param capacity
+   *          the maximum number of bytes of all slabs
+   * @param slabSize
+   *          the size of a slab in bytes
+   * @param slabFactory
+   *          creates the slab with the given index
+   */
+  SlabAllocator(long capacity, int slabSize, IntFunction<ByteBuffer> slabFactory) {
+    this.slabSize = slabSize;
+    this.slabFactory = slabFactory;
+    this.chunkSizes = chunkSizes(slabSize);
+    int maximumSlabs = (int) Math.min(Integer.MAX_VALUE, Math.max(1, capacity / slabSize));
+    this.slabs = new ByteBuffer[maximumSlabs];
+    this.slabClasses = new int[maximumSlabs];
+    this.classSlabCounts = new int[chunkSizes.length];
+    this.freeChunks = new long[chunkSizes.length][];
+    this.freeChunkCounts = new int[chunkSizes.length];
+    for (int i = 0; i < chunkSizes.length; i++) {
+      freeChunks[i] = new long[0];
+    }
+  }
+
+  /**
+   * Gets the size class of a value.
+   *
+   * @param length
+   *          the length of the value
+   *
+   * @return the size class, or -1 if the value is larger than a slab
+   */
+  int sizeClass(int length) {
+    int index = Arrays.binarySearch(chunkSizes, length);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return index < chunkSizes.length ? index : -1;
+  }
+
+  /**
+   * Allocates a chunk, assigning a new or unassigned slab to the size class if it has no free chunk.
+   *
+   * @param sizeClass
+   *          the size class
+   *
+   * @return the address of the chunk, or {@link #NO_ADDRESS} if the class has no free chunk and no slab is left
+   */
+  long allocate(int sizeClass) {
+    if (freeChunkCounts[sizeClass] == 0) {
+      int slab;
+      if (unassignedSlabCount > 0) {
+        slab = unassignedSlabs[--unassignedSlabCount];
+      } else if (slabCount < slabs.length) {
+        slab = slabCount;
+        slabs[slabCount++] = slabFactory.apply(slab);
+      } else {
+        return NO_ADDRESS;
+      }
+      assign(slab, sizeClass);
+    }
+    return freeChunks[sizeClass][--freeChunkCounts[sizeClass]];
+  }
+
+  void free(long address) {
+    push(slabClasses[slabOf(address)], address);
+  }
+
+  /**
+   * Chooses a slab of the size class that holds the most slabs, to be reassigned to a class that has none.
+   *
+   * @return the slab index, or -1 if no slab has been assigned
+   */
+  int slabToReassign() {
+    int victimClass = -1;
+    for (int i = 0; i < classSlabCounts.length; i++) {
+      if (classSlabCounts[i] > 0 && (victimClass < 0 || classSlabCounts[i] > classSlabCounts[victimClass])) {
+        victimClass = i;
+      }
+    }
+    if (victimClass < 0) {
+      return -1;
+    }
+    for (int slab = slabCount - 1; slab >= 0; slab--) {
+      if (slabClasses[slab] == victimClass) {
+        return slab;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves a slab to another size class. All chunks of the slab must have been freed.
+   *
+   * @param slab
+   *          the slab index
+   * @param sizeClass
+   *          the new size class
+   */
+  void reassign(int slab, int sizeClass) {
+    int oldClass = slabClasses[slab];
+    long[] chunks = freeChunks[oldClass];
+    int count = 0;
+    for (int i = 0; i < freeChunkCounts[oldClass]; i++) {
+      if (slabOf(chunks[i]) != slab) {
+        chunks[count++] = chunks[i];
+      }
+    }
+    freeChunkCounts[oldClass] = count;
+    classSlabCounts[oldClass]--;
+    assign(slab, sizeClass);
+  }
+
+  boolean isInSlab(long address, int slab) {
+    return slabOf(address) == slab;
+  }
+
+  void write(long address, byte[] value) {
+    ByteBuffer slab = slabs[slabOf(address)];
+    slab.position(offsetOf(address));
+    slab.put(value);
+  }
+
+  byte[] read(long address, int length) {
+    ByteBuffer slab = slabs[slabOf(address)];
+    byte[] value = new byte[length];
+    slab.position(offsetOf(address));
+    slab.get(value);
+    return value;
+  }
+
+  /**
+   * Frees all chunks and unassigns all slabs, keeping their memory for later use.
+   */
+  void reset() {
+    Arrays.fill(classSlabCounts, 0);
+    Arrays.fill(freeChunkCounts, 0);
+    unassignedSlabs = new int[slabCount];
+    for (int i = 0; i < slabCount; i++) {
+      unassignedSlabs[i] = slabCount - 1 - i;
+    }
+    unassignedSlabCount = slabCount;
+  }
+
+  int getChunkSize(int sizeClass) {
+    return chunkSizes[sizeClass];
+  }
+
+  int getSlabCount() {
+    return slabCount;
+  }
+
+  private void assign(int slab, int sizeClass) {
+    slabClasses[slab] = sizeClass;
+    classSlabCounts[sizeClass]++;
+    int chunkSize = chunkSizes[sizeClass];
+    // push in reverse so that chunks are handed out in address order
+    for (int offset = (slabSize / chunkSize - 1) * chunkSize; offset >= 0; offset -= chunkSize) {
+      push(sizeClass, ((long) slab << 32) | offset);
+    }
+  }
+
+  private void push(int sizeClass, long address) {
+    long[] chunks = freeChunks[sizeClass];
+    if (freeChunkCounts[sizeClass] == chunks.length) {
+      chunks = Arrays.copyOf(chunks, Math.max(16, chunks.length * 2));
+      freeChunks[sizeClass] = chunks;
+    }
+    chunks[freeChunkCounts[sizeClass]++] = address;
+  }
+
+  private static int slabOf(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offsetOf(long address) {
+    return (int) address;
+  }
+
+  private static int[] chunkSizes(int slabSize) {
+    int[] sizes = new int[128];
+    int count = 0;
+    int size = Math.min(MINIMUM_CHUNK_SIZE, slabSize);
+    while (size < slabSize) {
+      sizes[count++] = size;
+      // keep chunks aligned to 8 bytes
+      size = Math.max(size + 8, (int) (size * GROWTH_FACTOR) + 7 & ~7);
+    }
+    sizes[count++] = slabSize;
+    return Arrays.copyOf(sizes, count);
+  }
+
+}
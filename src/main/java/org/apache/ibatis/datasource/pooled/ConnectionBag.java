@@ -0,0 +1,270 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Lock-free holder of the connections used by the concurrent checkout mode of {@link PooledDataSource}.
+ * <p>
+ * Idle connections are kept in a LIFO deque so the most recently returned (and therefore warmest) connection is handed
+ * out first. Ownership of a connection is decided by a compare-and-set on its state, so a connection can be visible to
+ * several threads at once but only one of them wins it. Threads that have to wait for a connection register themselves
+ * as waiters and returned connections are handed off to them directly.
+ */
+class ConnectionBag {
+
+  private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+  private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+  private final SynchronousQueue<PooledConnection> handoffQueue = new SynchronousQueue<>(true);
+
+  private final AtomicInteger totalCount = new AtomicInteger();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+
+  /**
+   * Tries to take an idle connection without blocking.
+   *
+   * @return an idle connection that is now owned by the caller, or null if there is none
+   */
+  PooledConnection pollIdle() {
+    PooledConnection conn;
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE)) {
+        idleCount.decrementAndGet();
+        return conn;
+      }
+      // a stale entry that was handed off to a waiter, just drop it
+    }
+    return null;
+  }
+
+  /**
+   * Takes the idle connections that match the given filter, starting with the connection that has been idle the
+   * longest.
+   *
+   * @param filter
+   *          the filter
+   * @param limit
+   *          the maximum number of connections to take
+   *
+   * @return the connections, now owned by the caller. They still hold their slots.
+   */
+  List<PooledConnection> takeIdle(Predicate<PooledConnection> filter, int limit) {
+    List<PooledConnection> taken = new ArrayList<>();
+    for (Iterator<PooledConnection> it = idleConnections.descendingIterator(); it.hasNext() && taken.size() < limit;) {
+      PooledConnection conn = it.next();
+      if (conn.getState() == PooledConnection.STATE_IDLE && filter.test(conn)
+          && conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE)) {
+        idleCount.decrementAndGet();
+        it.remove();
+        taken.add(conn);
+      }
+    }
+    return taken;
+  }
+
+  /**
+   * Waits for a connection that is returned to the bag.
+   *
+   * @param timeout
+   *          the maximum time to wait in milliseconds
+   *
+   * @return an idle connection that is now owned by the caller, or null if the time elapsed
+   *
+   * @throws InterruptedException
+   *           if the current thread was interrupted while waiting
+   */
+  PooledConnection awaitIdle(long timeout) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+      do {
+        PooledConnection conn = pollIdle();
+        if (conn != null) {
+          return conn;
+        }
+        conn = handoffQueue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (conn != null && conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE)) {
+          idleCount.decrementAndGet();
+          removeIdle(conn);
+          return conn;
+        }
+      } while (deadline - System.nanoTime() > 0);
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Adds a connection to the idle connections unless the bag already holds the maximum number of idle connections.
+   *
+   * @param conn
+   *          the connection to add, must be in the idle state
+   * @param maximumIdleConnections
+   *          the maximum number of idle connections
+   *
+   * @return True if the connection was added
+   */
+  boolean offerIdle(PooledConnection conn, int maximumIdleConnections) {
+    int count;
+    do {
+      count = idleCount.get();
+      if (count >= maximumIdleConnections) {
+        return false;
+      }
+    } while (!idleCount.compareAndSet(count, count + 1));
+    idleConnections.offerFirst(conn);
+    while (waiters.get() > 0) {
+      if (conn.getState() != PooledConnection.STATE_IDLE || handoffQueue.offer(conn)) {
+        break;
+      }
+      Thread.yield();
+    }
+    return true;
+  }
+
+  /**
+   * Reserves a slot for a new physical connection.
+   *
+   * @param maximumConnections
+   *          the maximum number of physical connections
+   *
+   * @return True if a slot was reserved. The caller must give the slot back with {@link #releaseSlot()} once the
+   *         physical connection is closed or could not be opened.
+   */
+  boolean reserveSlot(int maximumConnections) {
+    int count;
+    do {
+      count = totalCount.get();
+      if (count >= maximumConnections) {
+        return false;
+      }
+    } while (!totalCount.compareAndSet(count, count + 1));
+    return true;
+  }
+
+  void releaseSlot() {
+    totalCount.decrementAndGet();
+  }
+
+  /**
+   * Registers a connection that was checked out.
+   *
+   * @param conn
+   *          the connection
+   */
+  void addActive(PooledConnection conn) {
+    activeConnections.add(conn);
+    activeCount.incrementAndGet();
+  }
+
+  /**
+   * Unregisters a checked out connection. The caller must own the connection, i.e. it must have moved the connection
+   * out of the in-use state.
+   *
+   * @param conn
+   *          the connection
+   */
+  void removeActive(PooledConnection conn) {
+    activeConnections.remove(conn);
+    activeCount.decrementAndGet();
+  }
+
+  /**
+   * Takes over the connection that has been checked out for the longest time, if that time is longer than the given
+   * limit.
+   *
+   * @param maximumCheckoutTime
+   *          the maximum checkout time in milliseconds
+   *
+   * @return the overdue connection, which is unregistered but still holds its slot, or null if none is overdue
+   */
+  PooledConnection claimOverdue(long maximumCheckoutTime) {
+    PooledConnection oldest = null;
+    for (PooledConnection conn : activeConnections) {
+      if (conn.getState() == PooledConnection.STATE_IN_USE
+          && (oldest == null || conn.getCheckoutTimestamp() < oldest.getCheckoutTimestamp())) {
+        oldest = conn;
+      }
+    }
+    if (oldest == null || oldest.getCheckoutTime() <= maximumCheckoutTime
+        || !oldest.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      return null;
+    }
+    removeActive(oldest);
+    return oldest;
+  }
+
+  /**
+   * Removes every connection from the bag and gives their slots back.
+   *
+   * @return the removed connections, owned by the caller
+   */
+  List<PooledConnection> removeAll() {
+    List<PooledConnection> removed = new ArrayList<>();
+    PooledConnection conn;
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_REMOVED)) {
+        idleCount.decrementAndGet();
+        totalCount.decrementAndGet();
+        removed.add(conn);
+      }
+    }
+    for (PooledConnection active : activeConnections) {
+      if (active.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+        removeActive(active);
+        totalCount.decrementAndGet();
+        removed.add(active);
+      }
+    }
+    return removed;
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+
+  int getActiveCount() {
+    return activeCount.get();
+  }
+
+  int getTotalCount() {
+    return totalCount.get();
+  }
+
+  private void removeIdle(PooledConnection conn) {
+    // PooledConnection.equals() compares the real connections, so look the entry up by identity
+    for (Iterator<PooledConnection> it = idleConnections.iterator(); it.hasNext();) {
+      if (it.next() == conn) {
+        it.remove();
+        return;
+      }
+    }
+  }
+
+}
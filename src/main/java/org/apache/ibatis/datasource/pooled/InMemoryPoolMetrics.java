@@ -0,0 +1,148 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link PoolMetrics} that keeps lock-free histograms in memory.
+ *
+ * @since 3.5.12
+ */
+public class InMemoryPoolMetrics implements PoolMetrics {
+
+  private final LatencyHistogram acquireTime = new LatencyHistogram();
+  private final LatencyHistogram waitTime = new LatencyHistogram();
+  private final LatencyHistogram checkoutTime = new LatencyHistogram();
+  private final LatencyHistogram creationTime = new LatencyHistogram();
+  private final LatencyHistogram validationTime = new LatencyHistogram();
+  private final LongAdder failedValidationCount = new LongAdder();
+  private final LongAdder badConnectionCount = new LongAdder();
+  private volatile PoolState poolState;
+
+  @Override
+  public void bind(PoolState poolState) {
+    this.poolState = poolState;
+  }
+
+  @Override
+  public void recordAcquireTime(long nanos) {
+    acquireTime.record(nanos);
+  }
+
+  @Override
+  public void recordWaitTime(long nanos) {
+    waitTime.record(nanos);
+  }
+
+  @Override
+  public void recordCheckoutTime(long nanos) {
+    checkoutTime.record(nanos);
+  }
+
+  @Override
+  public void recordCreationTime(long nanos) {
+    creationTime.record(nanos);
+  }
+
+  @Override
+  public void recordValidationTime(long nanos, boolean valid) {
+    validationTime.record(nanos);
+    if (!valid) {
+      failedValidationCount.increment();
+    }
+  }
+
+  @Override
+  public void recordBadConnection() {
+    badConnectionCount.increment();
+  }
+
+  public LatencyHistogram getAcquireTime() {
+    return acquireTime;
+  }
+
+  public LatencyHistogram getWaitTime() {
+    return waitTime;
+  }
+
+  public LatencyHistogram getCheckoutTime() {
+    return checkoutTime;
+  }
+
+  public LatencyHistogram getCreationTime() {
+    return creationTime;
+  }
+
+  public LatencyHistogram getValidationTime() {
+    return validationTime;
+  }
+
+  public long getFailedValidationCount() {
+    return failedValidationCount.sum();
+  }
+
+  public long getBadConnectionCount() {
+    return badConnectionCount.sum();
+  }
+
+  public int getActiveConnectionCount() {
+    PoolState state = poolState;
+    return state == null ? 0 : state.getActiveConnectionCount();
+  }
+
+  public int getIdleConnectionCount() {
+    PoolState state = poolState;
+    return state == null ? 0 : state.getIdleConnectionCount();
+  }
+
+  public int getPendingConnectionCount() {
+    PoolState state = poolState;
+    return state == null ? 0 : state.getPendingConnectionCount();
+  }
+
+  /**
+   * Clears all recorded timings and counters.
+   */
+  public void reset() {
+    acquireTime.reset();
+    waitTime.reset();
+    checkoutTime.reset();
+    creationTime.reset();
+    validationTime.reset();
+    failedValidationCount.reset();
+    badConnectionCount.reset();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\n===POOL METRICS (ns)==========================================");
+    builder.append("\n activeConnections              ").append(getActiveConnectionCount());
+    builder.append("\n idleConnections                ").append(getIdleConnectionCount());
+    builder.append("\n pendingConnections             ").append(getPendingConnectionCount());
+    builder.append("\n acquireTime                    ").append(acquireTime);
+    builder.append("\n waitTime                       ").append(waitTime);
+    builder.append("\n checkoutTime                   ").append(checkoutTime);
+    builder.append("\n creationTime                   ").append(creationTime);
+    builder.append("\n validationTime                 ").append(validationTime);
+    builder.append("\n failedValidationCount          ").append(getFailedValidationCount());
+    builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
+    builder.append("\n===============================================================");
+    return builder.toString();
+  }
+
+}
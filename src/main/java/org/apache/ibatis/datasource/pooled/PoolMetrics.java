@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the timings measured by {@link PooledDataSource}.
+ * <p>
+ * Implementations are called from the threads that check out and return connections, so they must be thread-safe and
+ * should not block. All times are in nanoseconds. The active, idle and pending connection counts can be read as gauges
+ * from the {@link PoolState} passed to {@link #bind(PoolState)}.
+ *
+ * @since 3.5.12
+ *
+ * @see InMemoryPoolMetrics
+ */
+public interface PoolMetrics {
+
+  /**
+   * A metrics sink that ignores everything, used when no metrics are configured.
+   */
+  PoolMetrics NONE = new PoolMetrics() {
+  };
+
+  /**
+   * Called when this sink is set on a data source.
+   *
+   * @param poolState
+   *          the state of the pool, which provides the connection count gauges
+   */
+  default void bind(PoolState poolState) {
+    // NOP
+  }
+
+  /**
+   * Records the time a thread needed to get a connection from the pool, including any wait and connection creation.
+   *
+   * @param nanos
+   *          the time in nanoseconds
+   */
+  default void recordAcquireTime(long nanos) {
+    // NOP
+  }
+
+  /**
+   * Records the time a thread waited for a connection to be returned because the pool was exhausted.
+   *
+   * @param nanos
+   *          the time in nanoseconds
+   */
+  default void recordWaitTime(long nanos) {
+    // NOP
+  }
+
+  /**
+   * Records the time a connection was checked out before it was returned or claimed as overdue.
+   *
+   * @param nanos
+   *          the time in nanoseconds
+   */
+  default void recordCheckoutTime(long nanos) {
+    // NOP
+  }
+
+  /**
+   * Records the time it took to open a physical connection.
+   *
+   * @param nanos
+   *          the time in nanoseconds
+   */
+  default void recordCreationTime(long nanos) {
+    // NOP
+  }
+
+  /**
+   * Records the time it took to validate a connection.
+   *
+   * @param nanos
+   *          the time in nanoseconds
+   * @param valid
+   *          whether the connection turned out to be usable
+   */
+  default void recordValidationTime(long nanos, boolean valid) {
+    // NOP
+  }
+
+  /**
+   * Records a connection that was discarded because it was found to be unusable.
+   */
+  default void recordBadConnection() {
+    // NOP
+  }
+
+}
@@ -17,6 +17,8 @@ package org.apache.ibatis.datasource.pooled;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Clinton Begin
@@ -27,59 +29,89 @@ public class PoolState {
 
   protected final List<PooledConnection> idleConnections = new ArrayList<>();
   protected final List<PooledConnection> activeConnections = new ArrayList<>();
-  protected long requestCount;
-  protected long accumulatedRequestTime;
-  protected long accumulatedCheckoutTime;
-  protected long claimedOverdueConnectionCount;
-  protected long accumulatedCheckoutTimeOfOverdueConnections;
-  protected long accumulatedWaitTime;
-  protected long hadToWaitCount;
-  protected long badConnectionCount;
+  protected final ConnectionBag connectionBag = new ConnectionBag();
+  protected volatile int pendingConnectionCount;
+  protected final LongAdder requestCount = new LongAdder();
+  // the request and wait times are summed in nanoseconds, so requests that take less than a millisecond still count
+  protected final LongAdder accumulatedRequestTime = new LongAdder();
+  protected final LongAdder accumulatedCheckoutTime = new LongAdder();
+  protected final LongAdder claimedOverdueConnectionCount = new LongAdder();
+  protected final LongAdder accumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
+  protected final LongAdder accumulatedWaitTime = new LongAdder();
+  protected final LongAdder hadToWaitCount = new LongAdder();
+  protected final LongAdder badConnectionCount = new LongAdder();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    return requestCount.sum();
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageRequestTime() {
+    long count = requestCount.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(accumulatedRequestTime.sum() / count);
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getAverageWaitTime() {
+    long count = hadToWaitCount.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(accumulatedWaitTime.sum() / count);
+  }
 
+  public long getHadToWaitCount() {
+    return hadToWaitCount.sum();
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getBadConnectionCount() {
+    return badConnectionCount.sum();
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCount.sum();
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  public long getAverageOverdueCheckoutTime() {
+    long count = claimedOverdueConnectionCount.sum();
+    return count == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.sum() / count;
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0
-        : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  public long getAverageCheckoutTime() {
+    long count = requestCount.sum();
+    return count == 0 ? 0 : accumulatedCheckoutTime.sum() / count;
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+  public int getIdleConnectionCount() {
+    if (dataSource.isPoolConcurrentCheckoutEnabled()) {
+      return connectionBag.getIdleCount();
+    }
+    synchronized (this) {
+      return idleConnections.size();
+    }
   }
 
-  public synchronized int getIdleConnectionCount() {
-    return idleConnections.size();
+  public int getActiveConnectionCount() {
+    if (dataSource.isPoolConcurrentCheckoutEnabled()) {
+      return connectionBag.getActiveCount();
+    }
+    synchronized (this) {
+      return activeConnections.size();
+    }
   }
 
-  public synchronized int getActiveConnectionCount() {
-    return activeConnections.size();
+  /**
+   * Gets the number of physical connections that are being opened or validated and are therefore neither active nor
+   * idle.
+   *
+   * @return the number of pending connections
+   *
+   * @since 3.5.12
+   */
+  public int getPendingConnectionCount() {
+    if (dataSource.isPoolConcurrentCheckoutEnabled()) {
+      return Math.max(0, connectionBag.getTotalCount() - connectionBag.getActiveCount() - connectionBag.getIdleCount());
+    }
+    return pendingConnectionCount;
   }
 
   @Override
@@ -98,9 +130,15 @@ public class PoolState {
     builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
     builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
     builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+    builder.append("\n poolConcurrentCheckoutEnabled  ").append(dataSource.poolConcurrentCheckoutEnabled);
+    builder.append("\n poolMinimumIdle                ").append(dataSource.poolMinimumIdle);
+    builder.append("\n poolValidationInterval         ").append(dataSource.poolValidationInterval);
+    builder.append("\n poolMaximumLifetime            ").append(dataSource.poolMaximumLifetime);
+    builder.append("\n poolIdleTimeout                ").append(dataSource.poolIdleTimeout);
     builder.append("\n ---STATUS-----------------------------------------------------");
     builder.append("\n activeConnections              ").append(getActiveConnectionCount());
     builder.append("\n idleConnections                ").append(getIdleConnectionCount());
+    builder.append("\n pendingConnections             ").append(getPendingConnectionCount());
     builder.append("\n requestCount                   ").append(getRequestCount());
     builder.append("\n averageRequestTime             ").append(getAverageRequestTime());
     builder.append("\n averageCheckoutTime            ").append(getAverageCheckoutTime());
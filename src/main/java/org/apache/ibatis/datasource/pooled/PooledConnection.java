@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -31,6 +32,13 @@ class PooledConnection implements InvocationHandler {
   private static final String CLOSE = "close";
   private static final Class<?>[] IFACES = { Connection.class };
 
+  static final int STATE_IDLE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_REMOVED = -1;
+
+  private static final AtomicIntegerFieldUpdater<PooledConnection> STATE_UPDATER = AtomicIntegerFieldUpdater
+      .newUpdater(PooledConnection.class, "state");
+
   private final int hashCode;
   private final PooledDataSource dataSource;
   private final Connection realConnection;
@@ -38,8 +46,10 @@ class PooledConnection implements InvocationHandler {
   private long checkoutTimestamp;
   private long createdTimestamp;
   private long lastUsedTimestamp;
+  private final long pooledTimestamp;
   private int connectionTypeCode;
-  private boolean valid;
+  private volatile boolean valid;
+  private volatile int state;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -55,6 +65,7 @@ class PooledConnection implements InvocationHandler {
     this.dataSource = dataSource;
     this.createdTimestamp = System.currentTimeMillis();
     this.lastUsedTimestamp = System.currentTimeMillis();
+    this.pooledTimestamp = System.currentTimeMillis();
     this.valid = true;
     this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
   }
@@ -75,6 +86,29 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /**
+   * Atomically changes the checkout state of this connection. Used by the concurrent checkout mode to decide which
+   * thread owns an idle or an overdue connection without holding the pool lock.
+   *
+   * @param expect
+   *          the expected state
+   * @param update
+   *          the new state
+   *
+   * @return True if the state was changed
+   */
+  boolean compareAndSetState(int expect, int update) {
+    return STATE_UPDATER.compareAndSet(this, expect, update);
+  }
+
+  int getState() {
+    return state;
+  }
+
+  void setState(int state) {
+    this.state = state;
+  }
+
   /**
    * Getter for the *real* connection that this wraps.
    *
@@ -168,6 +202,16 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - lastUsedTimestamp;
   }
 
+  /**
+   * Getter for the time since this connection was put into the pool. As a new instance is created each time a
+   * connection is returned to the pool, this is the time the connection has been idle.
+   *
+   * @return the time since the connection was put into the pool
+   */
+  public long getIdleTime() {
+    return System.currentTimeMillis() - pooledTimestamp;
+  }
+
   /**
    * Getter for the age of the connection.
    *
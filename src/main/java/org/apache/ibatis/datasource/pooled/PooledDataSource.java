@@ -16,14 +16,22 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -31,7 +39,9 @@ import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.DataSourceException;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -44,6 +54,11 @@ public class PooledDataSource implements DataSource {
 
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
+  private static final long DEFAULT_HOUSEKEEPING_PERIOD = 30000;
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+  /** At most a quarter of the idle connections (but at least one) is taken out of the pool for validation at once. */
+  private static final int VALIDATION_BATCH_DIVISOR = 4;
+
   private final PoolState state = new PoolState(this);
 
   private final UnpooledDataSource dataSource;
@@ -57,12 +72,22 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected boolean poolConcurrentCheckoutEnabled;
+  protected int poolMinimumIdle;
+  protected int poolValidationInterval;
+  protected int poolMaximumLifetime;
+  protected int poolIdleTimeout;
+  protected PoolMetrics poolMetrics = PoolMetrics.NONE;
 
   private int expectedConnectionTypeCode;
 
   private final Lock lock = new ReentrantLock();
   private final Condition condition = lock.newCondition();
 
+  private final AtomicBoolean fillRequested = new AtomicBoolean();
+  private volatile ScheduledExecutorService maintenanceExecutor;
+  private volatile ScheduledFuture<?> housekeeper;
+
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
   }
@@ -265,6 +290,112 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Enables the concurrent checkout mode. In this mode connections are checked out and returned without taking the pool
+   * lock, which removes the lock contention when many threads use the pool at the same time.
+   *
+   * @param poolConcurrentCheckoutEnabled
+   *          True to check out connections without the pool lock
+   *
+   * @since 3.5.12
+   */
+  public void setPoolConcurrentCheckoutEnabled(boolean poolConcurrentCheckoutEnabled) {
+    this.poolConcurrentCheckoutEnabled = poolConcurrentCheckoutEnabled;
+    forceCloseAll();
+  }
+
+  /**
+   * The number of idle connections that a background thread tries to keep in the pool, so that threads checking out a
+   * connection do not have to wait for a new physical connection. The total number of connections is still limited by
+   * <code>poolMaximumActiveConnections</code> and the idle connections by <code>poolMaximumIdleConnections</code>.
+   *
+   * @param poolMinimumIdle
+   *          the minimum number of idle connections, 0 disables the background filling
+   *
+   * @since 3.5.12
+   */
+  public void setPoolMinimumIdle(int poolMinimumIdle) {
+    this.poolMinimumIdle = poolMinimumIdle;
+    forceCloseAll();
+  }
+
+  /**
+   * If set, a background thread validates the idle connections every this many milliseconds, using the ping query if
+   * <code>poolPingEnabled</code> is true or {@link Connection#isValid(int)} otherwise. The ping query is then no longer
+   * executed when a connection is checked out or returned.
+   *
+   * @param milliseconds
+   *          the validation interval in milliseconds, 0 disables the background validation
+   *
+   * @since 3.5.12
+   */
+  public void setPoolValidationInterval(int milliseconds) {
+    this.poolValidationInterval = milliseconds;
+    stopHousekeeper();
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a physical connection is kept in the pool. Older connections are closed when they are returned or
+   * by the background thread while they are idle. A small random variance is subtracted per connection so that
+   * connections opened at the same time are not all replaced at once.
+   *
+   * @param milliseconds
+   *          the maximum lifetime in milliseconds, 0 means connections are never retired because of their age
+   *
+   * @since 3.5.12
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+    stopHousekeeper();
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a connection can stay idle in the pool before it is closed by the background thread. The pool
+   * keeps at least <code>poolMinimumIdle</code> idle connections.
+   *
+   * @param milliseconds
+   *          the idle timeout in milliseconds, 0 means idle connections are never retired
+   *
+   * @since 3.5.12
+   */
+  public void setPoolIdleTimeout(int milliseconds) {
+    this.poolIdleTimeout = milliseconds;
+    stopHousekeeper();
+    forceCloseAll();
+  }
+
+  /**
+   * Sets the sink that receives the wait, checkout, creation and validation timings of this pool.
+   *
+   * @param poolMetrics
+   *          the metrics sink, or null to disable the metrics
+   *
+   * @since 3.5.12
+   */
+  public void setPoolMetrics(PoolMetrics poolMetrics) {
+    this.poolMetrics = poolMetrics == null ? PoolMetrics.NONE : poolMetrics;
+    this.poolMetrics.bind(state);
+  }
+
+  /**
+   * Sets the sink that receives the timings of this pool by its class name. The class must have a public no-argument
+   * constructor.
+   *
+   * @param poolMetricsType
+   *          the fully qualified class name of a {@link PoolMetrics} implementation
+   *
+   * @since 3.5.12
+   */
+  public void setPoolMetricsType(String poolMetricsType) {
+    try {
+      setPoolMetrics((PoolMetrics) Resources.classForName(poolMetricsType).getDeclaredConstructor().newInstance());
+    } catch (Exception e) {
+      throw new DataSourceException("Error creating pool metrics of type " + poolMetricsType + ". Cause: " + e, e);
+    }
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -336,6 +467,44 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  /**
+   * Gets whether the concurrent checkout mode is enabled.
+   *
+   * @return True if connections are checked out without the pool lock
+   *
+   * @since 3.5.12
+   */
+  public boolean isPoolConcurrentCheckoutEnabled() {
+    return poolConcurrentCheckoutEnabled;
+  }
+
+  /**
+   * Gets the minimum number of idle connections kept by the background thread.
+   *
+   * @return the minimum number of idle connections
+   *
+   * @since 3.5.12
+   */
+  public int getPoolMinimumIdle() {
+    return poolMinimumIdle;
+  }
+
+  public int getPoolValidationInterval() {
+    return poolValidationInterval;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolIdleTimeout() {
+    return poolIdleTimeout;
+  }
+
+  public PoolMetrics getPoolMetrics() {
+    return poolMetrics;
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
@@ -363,6 +532,19 @@ public class PooledDataSource implements DataSource {
           PooledConnection conn = state.idleConnections.remove(i - 1);
           conn.invalidate();
 
+          Connection realConn = conn.getRealConnection();
+          if (!realConn.getAutoCommit()) {
+            realConn.rollback();
+          }
+          realConn.close();
+        } catch (Exception e) {
+          // ignore
+        }
+      }
+      for (PooledConnection conn : state.connectionBag.removeAll()) {
+        try {
+          conn.invalidate();
+
           Connection realConn = conn.getRealConnection();
           if (!realConn.getAutoCommit()) {
             realConn.rollback();
@@ -389,14 +571,18 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    if (poolConcurrentCheckoutEnabled) {
+      pushConnectionToBag(conn);
+      return;
+    }
 
     lock.lock();
     try {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
         if (state.idleConnections.size() < poolMaximumIdleConnections
-            && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+            && conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+          recordCheckout(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -410,7 +596,7 @@ public class PooledDataSource implements DataSource {
           }
           condition.signal();
         } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+          recordCheckout(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -425,7 +611,7 @@ public class PooledDataSource implements DataSource {
           log.debug("A bad connection (" + conn.getRealHashCode()
               + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        recordBadConnection();
       }
     } finally {
       lock.unlock();
@@ -433,12 +619,16 @@ public class PooledDataSource implements DataSource {
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    if (poolConcurrentCheckoutEnabled) {
+      return popConnectionFromBag(username, password);
+    }
     boolean countedWait = false;
     PooledConnection conn = null;
-    long t = System.currentTimeMillis();
+    long t = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
+      boolean reservedSlot = false;
       lock.lock();
       try {
         if (!state.idleConnections.isEmpty()) {
@@ -447,21 +637,22 @@ public class PooledDataSource implements DataSource {
           if (log.isDebugEnabled()) {
             log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
           }
-        } else if (state.activeConnections.size() < poolMaximumActiveConnections) {
-          // Pool does not have available connection and can create a new connection
-          conn = new PooledConnection(dataSource.getConnection(), this);
-          if (log.isDebugEnabled()) {
-            log.debug("Created connection " + conn.getRealHashCode() + ".");
-          }
+        } else if (state.activeConnections.size() + state.pendingConnectionCount < poolMaximumActiveConnections) {
+          // Pool does not have available connection and can create a new connection.
+          // Reserve a slot here and open the physical connection after releasing the lock.
+          state.pendingConnectionCount++;
+          reservedSlot = true;
         } else {
           // Cannot create new connection
-          PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-          long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-          if (longestCheckoutTime > poolMaximumCheckoutTime) {
+          // every slot may be reserved by connections that are still being opened, then there is nothing to claim
+          PooledConnection oldestActiveConnection = state.activeConnections.isEmpty() ? null
+              : state.activeConnections.get(0);
+          long longestCheckoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
+          if (oldestActiveConnection != null && longestCheckoutTime > poolMaximumCheckoutTime) {
             // Can claim overdue connection
-            state.claimedOverdueConnectionCount++;
-            state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-            state.accumulatedCheckoutTime += longestCheckoutTime;
+            state.claimedOverdueConnectionCount.increment();
+            state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+            recordCheckout(longestCheckoutTime);
             state.activeConnections.remove(oldestActiveConnection);
             if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
               try {
@@ -487,15 +678,15 @@ public class PooledDataSource implements DataSource {
             // Must wait
             try {
               if (!countedWait) {
-                state.hadToWaitCount++;
+                state.hadToWaitCount.increment();
                 countedWait = true;
               }
               if (log.isDebugEnabled()) {
                 log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
               }
-              long wt = System.currentTimeMillis();
+              long wt = System.nanoTime();
               condition.await(poolTimeToWait, TimeUnit.MILLISECONDS);
-              state.accumulatedWaitTime += System.currentTimeMillis() - wt;
+              recordWait(wt);
             } catch (InterruptedException e) {
               // set interrupt flag
               Thread.currentThread().interrupt();
@@ -513,14 +704,13 @@ public class PooledDataSource implements DataSource {
             conn.setCheckoutTimestamp(System.currentTimeMillis());
             conn.setLastUsedTimestamp(System.currentTimeMillis());
             state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            recordRequest(t);
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode()
                   + ") was returned from the pool, getting another connection.");
             }
-            state.badConnectionCount++;
+            recordBadConnection();
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance) {
@@ -535,6 +725,188 @@ public class PooledDataSource implements DataSource {
         lock.unlock();
       }
 
+      if (reservedSlot) {
+        conn = createConnection(username, password, t);
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException(
+          "PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    if (poolMinimumIdle > 0) {
+      requestFill();
+    }
+    if (housekeeper == null && (poolValidationInterval > 0 || poolMaximumLifetime > 0 || poolIdleTimeout > 0)) {
+      startHousekeeper();
+    }
+    return conn;
+  }
+
+  private void pushConnectionToBag(PooledConnection conn) throws SQLException {
+    ConnectionBag bag = state.connectionBag;
+    if (!conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      // already returned, claimed as overdue or removed by forceCloseAll()
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode()
+            + ") attempted to return to the pool, discarding connection.");
+      }
+      recordBadConnection();
+      return;
+    }
+    bag.removeActive(conn);
+    boolean returned = false;
+    try {
+      if (conn.isValid()) {
+        recordCheckout(conn.getCheckoutTime());
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          conn.invalidate();
+          returned = bag.offerIdle(newConn, poolMaximumIdleConnections);
+          if (returned && log.isDebugEnabled()) {
+            log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+          }
+        }
+        if (!returned) {
+          conn.getRealConnection().close();
+          if (log.isDebugEnabled()) {
+            log.debug("Closed connection " + conn.getRealHashCode() + ".");
+          }
+          conn.invalidate();
+        }
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode()
+              + ") attempted to return to the pool, discarding connection.");
+        }
+        recordBadConnection();
+      }
+    } finally {
+      if (!returned) {
+        bag.releaseSlot();
+      }
+    }
+  }
+
+  private PooledConnection popConnectionFromBag(String username, String password) throws SQLException {
+    ConnectionBag bag = state.connectionBag;
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.nanoTime();
+    int localBadConnectionCount = 0;
+
+    while (conn == null) {
+      conn = bag.pollIdle();
+      if (conn != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (bag.reserveSlot(poolMaximumActiveConnections)) {
+        // Pool does not have available connection and can create a new connection
+        try {
+          conn = new PooledConnection(openConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          bag.releaseSlot();
+          throw e;
+        }
+        conn.setState(PooledConnection.STATE_IN_USE);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        // Cannot create new connection
+        PooledConnection oldestActiveConnection = bag.claimOverdue(poolMaximumCheckoutTime);
+        if (oldestActiveConnection != null) {
+          // Can claim overdue connection
+          long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+          state.claimedOverdueConnectionCount.increment();
+          state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+          recordCheckout(longestCheckoutTime);
+          if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+            try {
+              oldestActiveConnection.getRealConnection().rollback();
+            } catch (SQLException e) {
+              log.debug("Bad connection. Could not roll back");
+            }
+          }
+          conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+          conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+          conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+          conn.setState(PooledConnection.STATE_IN_USE);
+          oldestActiveConnection.invalidate();
+          if (log.isDebugEnabled()) {
+            log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+          }
+        } else {
+          // Must wait
+          try {
+            if (!countedWait) {
+              state.hadToWaitCount.increment();
+              countedWait = true;
+            }
+            if (log.isDebugEnabled()) {
+              log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+            }
+            long wt = System.nanoTime();
+            conn = bag.awaitIdle(poolTimeToWait);
+            recordWait(wt);
+          } catch (InterruptedException e) {
+            // set interrupt flag
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          try {
+            if (!conn.getRealConnection().getAutoCommit()) {
+              conn.getRealConnection().rollback();
+            }
+          } catch (SQLException e) {
+            conn.setState(PooledConnection.STATE_REMOVED);
+            bag.releaseSlot();
+            try {
+              conn.getRealConnection().close();
+            } catch (SQLException e2) {
+              // ignore
+            }
+            throw e;
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          bag.addActive(conn);
+          recordRequest(t);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode()
+                + ") was returned from the pool, getting another connection.");
+          }
+          conn.setState(PooledConnection.STATE_REMOVED);
+          bag.releaseSlot();
+          recordBadConnection();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance) {
+            if (log.isDebugEnabled()) {
+              log.debug("PooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
     }
 
     if (conn == null) {
@@ -545,9 +917,396 @@ public class PooledDataSource implements DataSource {
           "PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
     }
 
+    if (poolMinimumIdle > 0) {
+      requestFill();
+    }
+    if (housekeeper == null && (poolValidationInterval > 0 || poolMaximumLifetime > 0 || poolIdleTimeout > 0)) {
+      startHousekeeper();
+    }
     return conn;
   }
 
+  private PooledConnection createConnection(String username, String password, long requestStartNanos)
+      throws SQLException {
+    PooledConnection conn;
+    try {
+      conn = new PooledConnection(openConnection(), this);
+    } catch (SQLException | RuntimeException e) {
+      lock.lock();
+      try {
+        state.pendingConnectionCount--;
+        // let a waiting thread try to use the slot
+        condition.signal();
+      } finally {
+        lock.unlock();
+      }
+      throw e;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Created connection " + conn.getRealHashCode() + ".");
+    }
+    lock.lock();
+    try {
+      state.pendingConnectionCount--;
+      conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+      conn.setCheckoutTimestamp(System.currentTimeMillis());
+      conn.setLastUsedTimestamp(System.currentTimeMillis());
+      state.activeConnections.add(conn);
+      recordRequest(requestStartNanos);
+    } finally {
+      lock.unlock();
+    }
+    return conn;
+  }
+
+  private void requestFill() {
+    if (fillRequested.compareAndSet(false, true)) {
+      getMaintenanceExecutor().execute(() -> {
+        try {
+          fillPool();
+        } finally {
+          fillRequested.set(false);
+        }
+      });
+    }
+  }
+
+  /**
+   * Opens physical connections until the pool holds <code>poolMinimumIdle</code> idle connections or the maximum number
+   * of connections is reached. The connections are opened without holding the pool lock.
+   */
+  private void fillPool() {
+    while (poolMinimumIdle > 0) {
+      int typeCode;
+      if (poolConcurrentCheckoutEnabled) {
+        if (state.connectionBag.getIdleCount() >= poolMinimumIdle
+            || !state.connectionBag.reserveSlot(poolMaximumActiveConnections)) {
+          return;
+        }
+        typeCode = expectedConnectionTypeCode;
+      } else {
+        lock.lock();
+        try {
+          if (state.idleConnections.size() + state.pendingConnectionCount >= poolMinimumIdle
+              || state.activeConnections.size() + state.idleConnections.size()
+                  + state.pendingConnectionCount >= poolMaximumActiveConnections) {
+            return;
+          }
+          state.pendingConnectionCount++;
+          typeCode = expectedConnectionTypeCode;
+        } finally {
+          lock.unlock();
+        }
+      }
+      Connection realConn = null;
+      boolean added = false;
+      try {
+        realConn = openConnection();
+        added = addIdleConnection(realConn, typeCode);
+      } catch (Exception e) {
+        log.warn("Could not fill the pool with a new connection. Cause: " + e);
+      } finally {
+        if (!poolConcurrentCheckoutEnabled) {
+          lock.lock();
+          try {
+            state.pendingConnectionCount--;
+          } finally {
+            lock.unlock();
+          }
+        } else if (!added) {
+          state.connectionBag.releaseSlot();
+        }
+        if (!added && realConn != null) {
+          try {
+            realConn.close();
+          } catch (SQLException e) {
+            // ignore
+          }
+        }
+      }
+      if (!added) {
+        return;
+      }
+    }
+  }
+
+  private boolean addIdleConnection(Connection realConn, int typeCode) {
+    PooledConnection conn = new PooledConnection(realConn, this);
+    conn.setConnectionTypeCode(typeCode);
+    if (poolConcurrentCheckoutEnabled) {
+      return typeCode == expectedConnectionTypeCode && state.connectionBag.offerIdle(conn, poolMaximumIdleConnections);
+    }
+    lock.lock();
+    try {
+      if (typeCode != expectedConnectionTypeCode || state.idleConnections.size() >= poolMaximumIdleConnections) {
+        return false;
+      }
+      state.idleConnections.add(conn);
+      condition.signal();
+    } finally {
+      lock.unlock();
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+    }
+    return true;
+  }
+
+  private ScheduledExecutorService getMaintenanceExecutor() {
+    ScheduledExecutorService executor = maintenanceExecutor;
+    if (executor == null) {
+      lock.lock();
+      try {
+        executor = maintenanceExecutor;
+        if (executor == null) {
+          executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PooledDataSource-maintenance");
+            thread.setDaemon(true);
+            return thread;
+          });
+          maintenanceExecutor = executor;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return executor;
+  }
+
+  private void startHousekeeper() {
+    ScheduledExecutorService executor = getMaintenanceExecutor();
+    lock.lock();
+    try {
+      if (housekeeper == null) {
+        long period = poolValidationInterval > 0 ? poolValidationInterval : DEFAULT_HOUSEKEEPING_PERIOD;
+        housekeeper = executor.scheduleWithFixedDelay(new Housekeeper(this), period, period, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void stopHousekeeper() {
+    ScheduledFuture<?> future = housekeeper;
+    if (future != null) {
+      future.cancel(false);
+      housekeeper = null;
+    }
+  }
+
+  /**
+   * Closes the idle connections that are past <code>poolMaximumLifetime</code> or <code>poolIdleTimeout</code> and
+   * validates a batch of the remaining ones if <code>poolValidationInterval</code> is set. Connections are taken out of
+   * the pool while they are validated, so the database round trips happen without the pool lock and off the checkout
+   * path. Only the connections that have been idle the longest are validated in one run, the others stay available for
+   * checkouts. Validated connections go back behind the other idle connections, so the next runs validate the rest.
+   */
+  private void housekeep() {
+    List<PooledConnection> retired = new ArrayList<>();
+    List<PooledConnection> toValidate = new ArrayList<>();
+    if (poolConcurrentCheckoutEnabled) {
+      ConnectionBag bag = state.connectionBag;
+      retired.addAll(bag.takeIdle(this::isExpired, Integer.MAX_VALUE));
+      if (poolIdleTimeout > 0) {
+        retired
+            .addAll(bag.takeIdle(conn -> conn.getIdleTime() > poolIdleTimeout, bag.getIdleCount() - poolMinimumIdle));
+      }
+      if (poolValidationInterval > 0) {
+        toValidate.addAll(bag.takeIdle(conn -> true, validationBatchSize(bag.getIdleCount())));
+      }
+    } else {
+      lock.lock();
+      try {
+        int idleCount = state.idleConnections.size();
+        int batchSize = validationBatchSize(idleCount);
+        // the idle list is in the order the connections were returned, so the oldest come first
+        for (Iterator<PooledConnection> it = state.idleConnections.iterator(); it.hasNext();) {
+          PooledConnection conn = it.next();
+          if (isExpired(conn)
+              || (poolIdleTimeout > 0 && idleCount > poolMinimumIdle && conn.getIdleTime() > poolIdleTimeout)) {
+            it.remove();
+            idleCount--;
+            retired.add(conn);
+          } else if (poolValidationInterval > 0 && toValidate.size() < batchSize) {
+            // keep the slot reserved while the connection is out of the pool
+            it.remove();
+            state.pendingConnectionCount++;
+            // idle connections carry no type code here, it tells whether the pool was reset during the validation
+            conn.setConnectionTypeCode(expectedConnectionTypeCode);
+            toValidate.add(conn);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    for (PooledConnection conn : retired) {
+      if (log.isDebugEnabled()) {
+        log.debug("Retiring idle connection " + conn.getRealHashCode() + ".");
+      }
+      closeRemovedConnection(conn);
+    }
+    for (PooledConnection conn : toValidate) {
+      if (validateConnection(conn)) {
+        returnValidatedConnection(conn);
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("Connection " + conn.getRealHashCode() + " failed the background validation, discarding it.");
+        }
+        recordBadConnection();
+        if (!poolConcurrentCheckoutEnabled) {
+          releasePendingSlot();
+        }
+        closeRemovedConnection(conn);
+      }
+    }
+
+    if (poolMinimumIdle > 0) {
+      fillPool();
+    }
+  }
+
+  private static int validationBatchSize(int idleCount) {
+    return Math.max(1, idleCount / VALIDATION_BATCH_DIVISOR);
+  }
+
+  private boolean validateConnection(PooledConnection conn) {
+    Connection realConn = conn.getRealConnection();
+    long start = System.nanoTime();
+    boolean valid = false;
+    try {
+      if (!poolPingEnabled) {
+        valid = realConn.isValid(VALIDATION_TIMEOUT_SECONDS);
+      } else {
+        try (Statement statement = realConn.createStatement()) {
+          statement.executeQuery(poolPingQuery).close();
+        }
+        if (!realConn.getAutoCommit()) {
+          realConn.rollback();
+        }
+        valid = true;
+      }
+    } catch (Exception e) {
+      log.warn("Validation of connection " + conn.getRealHashCode() + " failed: " + e.getMessage());
+    }
+    poolMetrics.recordValidationTime(System.nanoTime() - start, valid);
+    return valid;
+  }
+
+  private Connection openConnection() throws SQLException {
+    long start = System.nanoTime();
+    Connection connection = dataSource.getConnection();
+    poolMetrics.recordCreationTime(System.nanoTime() - start);
+    return connection;
+  }
+
+  private void recordRequest(long requestStartNanos) {
+    long elapsed = System.nanoTime() - requestStartNanos;
+    state.requestCount.increment();
+    state.accumulatedRequestTime.add(elapsed);
+    poolMetrics.recordAcquireTime(elapsed);
+  }
+
+  private void recordWait(long waitStartNanos) {
+    long elapsed = System.nanoTime() - waitStartNanos;
+    state.accumulatedWaitTime.add(elapsed);
+    poolMetrics.recordWaitTime(elapsed);
+  }
+
+  private void recordCheckout(long checkoutTime) {
+    state.accumulatedCheckoutTime.add(checkoutTime);
+    poolMetrics.recordCheckoutTime(TimeUnit.MILLISECONDS.toNanos(checkoutTime));
+  }
+
+  private void recordBadConnection() {
+    state.badConnectionCount.increment();
+    poolMetrics.recordBadConnection();
+  }
+
+  private void returnValidatedConnection(PooledConnection conn) {
+    boolean returned;
+    if (poolConcurrentCheckoutEnabled) {
+      conn.setState(PooledConnection.STATE_IDLE);
+      returned = conn.getConnectionTypeCode() == expectedConnectionTypeCode
+          && state.connectionBag.offerIdle(conn, poolMaximumIdleConnections);
+    } else {
+      lock.lock();
+      try {
+        state.pendingConnectionCount--;
+        returned = conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && state.idleConnections.size() < poolMaximumIdleConnections;
+        if (returned) {
+          state.idleConnections.add(conn);
+          condition.signal();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    if (!returned) {
+      conn.setState(PooledConnection.STATE_REMOVED);
+      closeRemovedConnection(conn);
+    }
+  }
+
+  private void releasePendingSlot() {
+    lock.lock();
+    try {
+      state.pendingConnectionCount--;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes a connection that was taken out of the pool and gives its slot back in the concurrent checkout mode.
+   */
+  private void closeRemovedConnection(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      conn.getRealConnection().close();
+    } catch (SQLException e) {
+      // ignore
+    }
+    if (poolConcurrentCheckoutEnabled) {
+      state.connectionBag.releaseSlot();
+    }
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    if (poolMaximumLifetime <= 0) {
+      return false;
+    }
+    // subtract up to 2.5% per connection so that connections opened together do not expire together
+    long maxVariance = poolMaximumLifetime / 40;
+    long variance = maxVariance == 0 ? 0 : Math.floorMod(conn.getRealHashCode() * 0x9E3779B9L, maxVariance);
+    return conn.getAge() > poolMaximumLifetime - variance;
+  }
+
+  private static class Housekeeper implements Runnable {
+
+    // do not keep the data source reachable, finalize() stops the maintenance thread
+    private final WeakReference<PooledDataSource> dataSource;
+
+    Housekeeper(PooledDataSource dataSource) {
+      this.dataSource = new WeakReference<>(dataSource);
+    }
+
+    @Override
+    public void run() {
+      PooledDataSource ds = dataSource.get();
+      if (ds == null) {
+        return;
+      }
+      try {
+        ds.housekeep();
+      } catch (Exception e) {
+        log.warn("Pool housekeeping failed. Cause: " + e);
+      }
+    }
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -568,8 +1327,9 @@ public class PooledDataSource implements DataSource {
       result = false;
     }
 
-    if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
+    if (result && poolPingEnabled && poolValidationInterval <= 0 && poolPingConnectionsNotUsedFor >= 0
         && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+      long start = System.nanoTime();
       try {
         if (log.isDebugEnabled()) {
           log.debug("Testing connection " + conn.getRealHashCode() + " ...");
@@ -597,6 +1357,7 @@ public class PooledDataSource implements DataSource {
           log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
         }
       }
+      poolMetrics.recordValidationTime(System.nanoTime() - start, result);
     }
     return result;
   }
@@ -621,6 +1382,10 @@ public class PooledDataSource implements DataSource {
 
   @Override
   protected void finalize() throws Throwable {
+    ScheduledExecutorService executor = maintenanceExecutor;
+    if (executor != null) {
+      executor.shutdownNow();
+    }
     forceCloseAll();
     super.finalize();
   }
@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+/**
+ * Rewrites the SQL of a query so the database returns a single page of its rows, instead of skipping the rows before
+ * the {@link org.apache.ibatis.session.RowBounds} offset while reading the result set.
+ *
+ * @since 3.5.12
+ *
+ * @see org.apache.ibatis.session.Configuration#setDatabasePaginationEnabled(boolean)
+ */
+public interface Dialect {
+
+  /**
+   * Returns the SQL that only returns the given page of the rows of the original SQL. A query that cannot be paged
+   * safely, e.g. because it already pages or locks its rows, is not rewritten and its rows are skipped while reading
+   * the result set instead.
+   *
+   * @param sql
+   *          the original SQL
+   * @param offset
+   *          the number of rows to skip
+   * @param limit
+   *          the maximum number of rows to return, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} if there is
+   *          no limit
+   *
+   * @return the paged SQL, or {@code null} if the SQL cannot be paged
+   */
+  String getPagedSql(String sql, int offset, int limit);
+
+  /**
+   * Returns the dialect of a database product name as returned by
+   * {@link java.sql.DatabaseMetaData#getDatabaseProductName()}. H2, HSQLDB, Apache Derby, PostgreSQL, MySQL and MariaDB
+   * are recognized.
+   *
+   * @param productName
+   *          the database product name, may be null
+   *
+   * @return the dialect, or null if the database is not known
+   */
+  static Dialect forDatabaseProductName(String productName) {
+    if (productName == null) {
+      return null;
+    }
+    switch (productName) {
+      case "Apache Derby":
+        return OffsetFetchDialect.INSTANCE;
+      case "H2":
+      case "HSQL Database Engine":
+      case "PostgreSQL":
+        return LimitOffsetDialect.INSTANCE;
+      case "MySQL":
+      case "MariaDB":
+        return LimitOffsetDialect.MYSQL;
+      default:
+        return null;
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+/**
+ * Pages with {@code LIMIT n OFFSET m}, which is understood by H2, HSQLDB, PostgreSQL, MySQL and MariaDB.
+ *
+ * @since 3.5.12
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  static final LimitOffsetDialect INSTANCE = new LimitOffsetDialect();
+  static final LimitOffsetDialect MYSQL = new LimitOffsetDialect(true);
+
+  private final boolean backslashEscapes;
+
+  /**
+   * Creates a dialect for databases that follow the SQL standard for string literals.
+   */
+  public LimitOffsetDialect() {
+    this(false);
+  }
+
+  /**
+   * Creates a dialect.
+   *
+   * @param backslashEscapes
+   *          whether a backslash escapes the next character of a string literal, as it does in MySQL and MariaDB
+   */
+  public LimitOffsetDialect(boolean backslashEscapes) {
+    this.backslashEscapes = backslashEscapes;
+  }
+
+  @Override
+  public String getPagedSql(String sql, int offset, int limit) {
+    String pageableSql = PageableSql.trim(sql, backslashEscapes);
+    if (pageableSql == null) {
+      return null;
+    }
+    // MySQL does not accept an OFFSET without a LIMIT, so the limit is always given
+    StringBuilder pagedSql = new StringBuilder(pageableSql.length() + 32).append(pageableSql).append(" LIMIT ")
+        .append(limit);
+    if (offset > 0) {
+      pagedSql.append(" OFFSET ").append(offset);
+    }
+    return pagedSql.toString();
+  }
+
+}
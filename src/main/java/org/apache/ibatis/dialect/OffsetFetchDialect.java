@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Pages with the SQL:2008 {@code OFFSET m ROWS FETCH NEXT n ROWS ONLY} clause, which is understood by Apache Derby and
+ * most other databases.
+ *
+ * @since 3.5.12
+ */
+public class OffsetFetchDialect implements Dialect {
+
+  static final OffsetFetchDialect INSTANCE = new OffsetFetchDialect();
+
+  @Override
+  public String getPagedSql(String sql, int offset, int limit) {
+    String pageableSql = PageableSql.trim(sql, false);
+    if (pageableSql == null) {
+      return null;
+    }
+    StringBuilder pagedSql = new StringBuilder(pageableSql.length() + 48).append(pageableSql);
+    if (offset > 0) {
+      pagedSql.append(" OFFSET ").append(offset).append(" ROWS");
+    }
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pagedSql.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+    }
+    return pagedSql.toString();
+  }
+
+}
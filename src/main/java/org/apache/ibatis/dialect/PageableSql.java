@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Prepares the SQL of a query to have a paging clause appended.
+ *
+ * @since 3.5.12
+ */
+final class PageableSql {
+
+  /**
+   * Words that mean the query already pages or locks its rows, so a paging clause cannot simply be appended.
+   */
+  private static final Set<String> UNSAFE_WORDS = new HashSet<>(
+      Arrays.asList("limit", "offset", "fetch", "top", "rownum", "for", "lock"));
+
+  private PageableSql() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Returns the SQL without the statement terminator and the comments that follow the last token, so a clause appended
+   * to it is still part of the statement.
+   *
+   * @param sql
+   *          the SQL of a query
+   * @param backslashEscapes
+   *          whether a backslash escapes the next character of a quoted string
+   *
+   * @return the SQL to append the paging clause to, or {@code null} if the query already has a paging or locking
+   *         clause, holds several statements or cannot be read
+   */
+  static String trim(String sql, boolean backslashEscapes) {
+    int length = sql.length();
+    int end = 0;
+    boolean terminated = false;
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '-' && sql.startsWith("-", i + 1)) {
+        int lineEnd = sql.indexOf('\n', i);
+        i = lineEnd < 0 ? length : lineEnd + 1;
+      } else if (c == '/' && sql.startsWith("*", i + 1)) {
+        int commentEnd = sql.indexOf("*/", i + 2);
+        if (commentEnd < 0) {
+          return null;
+        }
+        i = commentEnd + 2;
+      } else if (terminated) {
+        // another statement follows the terminator
+        return null;
+      } else if (c == ';') {
+        terminated = true;
+        i++;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i, c, backslashEscapes);
+        if (i < 0) {
+          return null;
+        }
+        end = i;
+      } else if (Character.isLetter(c) || c == '_') {
+        int start = i;
+        while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+          i++;
+        }
+        if (UNSAFE_WORDS.contains(sql.substring(start, i).toLowerCase(Locale.ENGLISH))) {
+          return null;
+        }
+        end = i;
+      } else {
+        i++;
+        end = i;
+      }
+    }
+    return sql.substring(0, end);
+  }
+
+  private static int skipQuoted(String sql, int start, char quote, boolean backslashEscapes) {
+    // a doubled quote ends the quoted string and starts the next one, so it needs no special handling
+    for (int i = start + 1; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (backslashEscapes && c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+}
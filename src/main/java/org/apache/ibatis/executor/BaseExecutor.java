@@ -20,12 +20,15 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CompactCacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -42,7 +45,6 @@ import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
-import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
  * @author Clinton Begin
@@ -202,42 +204,40 @@ public abstract class BaseExecutor implements Executor {
     }
   }
 
+  @Override
+  public void putLocalCache(MappedStatement ms, CacheKey key, List<?> list) {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    // the OUT parameters of callable statements are cached with the rows, they cannot be put without them
+    if (ms.getStatementType() != StatementType.CALLABLE) {
+      localCache.putObject(key, list);
+    }
+  }
+
   @Override
   public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
     // 根据映射语句id,分页信息,jdbc规范化的预编译sql,所有映射参数的值以及环境id的值,计算出缓存Key
-    CacheKey cacheKey = new CacheKey();
-    cacheKey.update(ms.getId());
-    cacheKey.update(rowBounds.getOffset());
-    cacheKey.update(rowBounds.getLimit());
-    cacheKey.update(boundSql.getSql());
+    Object[] values = ms.getParameterValues(boundSql, parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
-    TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
-    // mimic DefaultParameterHandler logic
-    for (ParameterMapping parameterMapping : parameterMappings) {
-      if (parameterMapping.getMode() != ParameterMode.OUT) {
-        Object value;
-        String propertyName = parameterMapping.getProperty();
-        if (boundSql.hasAdditionalParameter(propertyName)) {
-          value = boundSql.getAdditionalParameter(propertyName);
-        } else if (parameterObject == null) {
-          value = null;
-        } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-          value = parameterObject;
-        } else {
-          MetaObject metaObject = configuration.newMetaObject(parameterObject);
-          value = metaObject.getValue(propertyName);
+    if (ms.getParameterExtractionPlan(parameterMappings, parameterObject).hasOutputParameters()) {
+      // OUT parameters are not part of the key
+      Object[] inputValues = new Object[values.length];
+      int valueCount = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (parameterMappings.get(i).getMode() != ParameterMode.OUT) {
+          inputValues[valueCount++] = values[i];
         }
-        cacheKey.update(value);
       }
+      values = Arrays.copyOf(inputValues, valueCount);
     }
-    if (configuration.getEnvironment() != null) {
-      // issue #176
-      cacheKey.update(configuration.getEnvironment().getId());
-    }
-    return cacheKey;
+    // issue #176
+    String environmentId = configuration.getEnvironment() == null ? null : configuration.getEnvironment().getId();
+    return new CompactCacheKey(ms.getCacheKeyShape(boundSql.getSql(), environmentId), rowBounds.getOffset(),
+        rowBounds.getLimit(), values);
   }
 
   @Override
@@ -363,6 +363,14 @@ public abstract class BaseExecutor implements Executor {
     return connection;
   }
 
+  protected Connection getConnection(Log statementLog, StatementHandler handler) throws SQLException {
+    // a traced execution is reported by the SQL tracer instead of the logging proxies
+    if (handler.getBoundSql().getSqlTrace() != null) {
+      return transaction.getConnection();
+    }
+    return getConnection(statementLog);
+  }
+
   @Override
   public void setExecutorWrapper(Executor wrapper) {
     this.wrapper = wrapper;
@@ -47,8 +47,19 @@ public class BatchExecutor extends BaseExecutor {
   private String currentSql;
   private MappedStatement currentStatement;
 
+  // auto-flush thresholds and the results of the auto-flushes that have not been returned yet
+  private final int flushStatementRows;
+  private final int flushPendingRows;
+  private final long flushPendingBytes;
+  private final List<BatchResult> autoFlushedResults = new ArrayList<>();
+  private int pendingRows;
+  private long pendingBytes;
+
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.flushStatementRows = configuration.getBatchFlushStatementRows();
+    this.flushPendingRows = configuration.getBatchFlushPendingRows();
+    this.flushPendingBytes = configuration.getBatchFlushPendingBytes();
   }
 
   @Override
@@ -59,26 +70,74 @@ public class BatchExecutor extends BaseExecutor {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
+    final BatchResult batchResult;
     if (sql.equals(currentSql) && ms.equals(currentStatement)) {
       int last = statementList.size() - 1;
       stmt = statementList.get(last);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);// fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+      batchResult = batchResultList.get(last);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
+      Connection connection = getConnection(ms.getStatementLog(), handler);
       stmt = handler.prepare(connection, transaction.getTimeout());
       handler.parameterize(stmt); // fix Issues 322
       currentSql = sql;
       currentStatement = ms;
       statementList.add(stmt);
-      batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      batchResult = new BatchResult(ms, sql, parameterObject);
+      batchResultList.add(batchResult);
     }
     handler.batch(stmt);
+    pendingRows++;
+    if (flushPendingBytes > 0) {
+      pendingBytes += estimateSize(ms.getParameterValues(boundSql, parameterObject));
+    }
+    if (isAutoFlushRequired(batchResult)) {
+      autoFlush();
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private boolean isAutoFlushRequired(BatchResult batchResult) {
+    return flushStatementRows > 0 && batchResult.getParameterObjects().size() >= flushStatementRows
+        || flushPendingRows > 0 && pendingRows >= flushPendingRows
+        || flushPendingBytes > 0 && pendingBytes >= flushPendingBytes;
+  }
+
+  /**
+   * Executes the pending statements in order and releases them. Only the update counts of the results are kept until
+   * the next flush returns them, the parameter objects have got their generated keys and are released as well.
+   */
+  private void autoFlush() throws SQLException {
+    final int start = autoFlushedResults.size();
+    try {
+      executeBatches(autoFlushedResults);
+    } finally {
+      clearBatches();
+    }
+    for (int i = start, n = autoFlushedResults.size(); i < n; i++) {
+      BatchResult batchResult = autoFlushedResults.get(i);
+      BatchResult releasedResult = new BatchResult(batchResult.getMappedStatement(), batchResult.getSql());
+      releasedResult.setUpdateCounts(batchResult.getUpdateCounts());
+      autoFlushedResults.set(i, releasedResult);
+    }
+  }
+
+  private static long estimateSize(Object[] parameterValues) {
+    long size = 0;
+    for (Object value : parameterValues) {
+      if (value instanceof CharSequence) {
+        size += 2L * ((CharSequence) value).length();
+      } else if (value instanceof byte[]) {
+        size += ((byte[]) value).length;
+      } else {
+        size += 8;
+      }
+    }
+    return size;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds,
       ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
@@ -88,7 +147,7 @@ public class BatchExecutor extends BaseExecutor {
       Configuration configuration = ms.getConfiguration();
       StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameterObject, rowBounds,
           resultHandler, boundSql);
-      Connection connection = getConnection(ms.getStatementLog());
+      Connection connection = getConnection(ms.getStatementLog(), handler);
       stmt = handler.prepare(connection, transaction.getTimeout());
       handler.parameterize(stmt);
       return handler.query(stmt, resultHandler);
@@ -103,7 +162,7 @@ public class BatchExecutor extends BaseExecutor {
     flushStatements();
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
-    Connection connection = getConnection(ms.getStatementLog());
+    Connection connection = getConnection(ms.getStatementLog(), handler);
     Statement stmt = handler.prepare(connection, transaction.getTimeout());
     handler.parameterize(stmt);
     Cursor<E> cursor = handler.queryCursor(stmt);
@@ -114,50 +173,61 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
       if (isRollback) {
         return Collections.emptyList();
       }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
-        try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { // issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
-          }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
-        } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId()).append(" (batch index #").append(i + 1).append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ").append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
-        }
-        results.add(batchResult);
-      }
+      List<BatchResult> results = new ArrayList<>(autoFlushedResults);
+      executeBatches(results);
       return results;
     } finally {
-      for (Statement stmt : statementList) {
+      autoFlushedResults.clear();
+      clearBatches();
+    }
+  }
+
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    for (int i = 0, n = statementList.size(); i < n; i++) {
+      Statement stmt = statementList.get(i);
+      applyTransactionTimeout(stmt);
+      BatchResult batchResult = batchResultList.get(i);
+      try {
+        batchResult.setUpdateCounts(stmt.executeBatch());
+        MappedStatement ms = batchResult.getMappedStatement();
+        List<Object> parameterObjects = batchResult.getParameterObjects();
+        KeyGenerator keyGenerator = ms.getKeyGenerator();
+        if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+          Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+          jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+        } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { // issue #141
+          for (Object parameter : parameterObjects) {
+            keyGenerator.processAfter(this, ms, stmt, parameter);
+          }
+        }
+        // Close statement to close cursor #1109
         closeStatement(stmt);
+      } catch (BatchUpdateException e) {
+        StringBuilder message = new StringBuilder();
+        message.append(batchResult.getMappedStatement().getId()).append(" (batch index #").append(results.size() + 1)
+            .append(")").append(" failed.");
+        if (!results.isEmpty()) {
+          message.append(" ").append(results.size())
+              .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+        }
+        throw new BatchExecutorException(message.toString(), e, new ArrayList<>(results), batchResult);
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      results.add(batchResult);
+    }
+  }
+
+  private void clearBatches() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
     }
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    pendingRows = 0;
+    pendingBytes = 0;
   }
 
 }
@@ -192,6 +192,11 @@ public class CachingExecutor implements Executor {
     delegate.deferLoad(ms, resultObject, property, key, targetType);
   }
 
+  @Override
+  public void putLocalCache(MappedStatement ms, CacheKey key, List<?> list) {
+    delegate.putLocalCache(ms, key, list);
+  }
+
   @Override
   public void clearLocalCache() {
     delegate.clearLocalCache();
@@ -58,6 +58,23 @@ public interface Executor {
 
   void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType);
 
+  /**
+   * Puts the rows of a query that was executed for this executor on another connection into the local cache, so they
+   * are found like the rows of the queries executed by this executor.
+   *
+   * @param ms
+   *          the mapped statement
+   * @param key
+   *          the cache key of the query
+   * @param list
+   *          the rows
+   *
+   * @since 3.5.12
+   */
+  default void putLocalCache(MappedStatement ms, CacheKey key, List<?> list) {
+    // no local cache
+  }
+
   Transaction getTransaction();
 
   void close(boolean forceRollback);
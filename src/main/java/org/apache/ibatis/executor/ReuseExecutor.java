@@ -88,7 +88,7 @@ public class ReuseExecutor extends BaseExecutor {
       stmt = getStatement(sql);
       applyTransactionTimeout(stmt);
     } else {
-      Connection connection = getConnection(statementLog);
+      Connection connection = getConnection(statementLog, handler);
       stmt = handler.prepare(connection, transaction.getTimeout());
       putStatement(sql, stmt);
     }
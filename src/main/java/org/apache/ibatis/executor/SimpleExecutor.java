@@ -91,7 +91,7 @@ public class SimpleExecutor extends BaseExecutor {
   private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
     Statement stmt;
     // 获取JDBC连接
-    Connection connection = getConnection(statementLog);
+    Connection connection = getConnection(statementLog, handler);
     // 调用语句处理器的prepare方法
     stmt = handler.prepare(connection, transaction.getTimeout());
     // 设置参数
@@ -0,0 +1,208 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * Runs the {@link ResultLoader}s of eager nested selects concurrently on a bounded number of threads.
+ * <p>
+ * A result loader that runs on another thread than the one that created it opens its own executor with a new
+ * transaction of the environment's data source, so each nested select that is loaded concurrently uses a separate
+ * connection. It does not see the uncommitted changes of the session, so the result set handler only submits nested
+ * selects of sessions whose connection is read-only or in auto-commit mode. The rows are put into the local cache of
+ * the session when the result is {@link #join(Future, ResultLoader) joined}, as if the session had loaded them.
+ * <p>
+ * The session waits for the nested selects while it holds its own connection, so it must never wait for a nested select
+ * whose thread waits for a connection that only the waiting sessions could give back. A nested select is only claimed
+ * by its thread once that thread got its connection, and a session that joins a nested select that has not been claimed
+ * yet loads it itself with its own connection. A result loader is also run by the calling thread right away when all
+ * the threads are busy, when the loader has been shut down, or when the data source is a {@link PooledDataSource} that
+ * has no free connection or whose other connections are all used by nested selects.
+ *
+ * @since 3.5.12
+ */
+public class ParallelResultLoader {
+
+  private static final AtomicInteger poolNumber = new AtomicInteger();
+
+  private final ThreadPoolExecutor threadPool;
+  private final AtomicInteger runningLoads = new AtomicInteger();
+
+  /**
+   * Creates a loader. The threads are started on demand and stop after they have been idle for a minute.
+   *
+   * @param maximumThreads
+   *          the maximum number of threads, and therefore of additional connections, used at a time
+   */
+  public ParallelResultLoader(int maximumThreads) {
+    final String namePrefix = "ParallelResultLoader-" + poolNumber.incrementAndGet() + "-";
+    final AtomicInteger threadNumber = new AtomicInteger();
+    this.threadPool = new ThreadPoolExecutor(0, maximumThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Starts loading the rows of a result loader.
+   *
+   * @param resultLoader
+   *          the result loader
+   *
+   * @return the future rows, which are already loaded if the calling thread had to load them
+   */
+  public Future<List<Object>> submit(ResultLoader resultLoader) {
+    if (hasFreeConnection(resultLoader.configuration.getEnvironment().getDataSource())) {
+      ParallelLoad load = new ParallelLoad(resultLoader);
+      runningLoads.incrementAndGet();
+      try {
+        threadPool.execute(() -> {
+          try {
+            load.runOnOwnConnection();
+          } finally {
+            runningLoads.decrementAndGet();
+          }
+        });
+        return load;
+      } catch (RejectedExecutionException e) {
+        runningLoads.decrementAndGet();
+      }
+    }
+    FutureTask<List<Object>> task = new FutureTask<>(resultLoader::selectList);
+    task.run();
+    return task;
+  }
+
+  private boolean hasFreeConnection(DataSource dataSource) {
+    if (!(dataSource instanceof PooledDataSource)) {
+      return true;
+    }
+    PooledDataSource pooledDataSource = (PooledDataSource) dataSource;
+    PoolState poolState = pooledDataSource.getPoolState();
+    // one connection is always left to the sessions that wait for the nested selects
+    int maximumConnections = pooledDataSource.getPoolMaximumActiveConnections();
+    return runningLoads.get() < maximumConnections - 1
+        && (poolState.getIdleConnectionCount() > 0 || poolState.getActiveConnectionCount() < maximumConnections);
+  }
+
+  /**
+   * Waits for the rows that were started with {@link #submit(ResultLoader)}, puts them into the local cache of the
+   * session of the result loader and extracts the result. Must be called by the thread that created the result loader.
+   * If no thread has started to load the rows yet, they are loaded by the calling thread.
+   *
+   * @param rows
+   *          the future rows
+   * @param resultLoader
+   *          the result loader that was submitted
+   *
+   * @return the loaded result
+   *
+   * @throws SQLException
+   *           if the nested select failed
+   */
+  public static Object join(Future<List<Object>> rows, ResultLoader resultLoader) throws SQLException {
+    try {
+      if (rows instanceof ParallelLoad) {
+        ((ParallelLoad) rows).runIfUnclaimed();
+      }
+      List<Object> list = rows.get();
+      resultLoader.executor.putLocalCache(resultLoader.mappedStatement, resultLoader.cacheKey, list);
+      return resultLoader.extractResult(list);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for a nested select.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ExecutorException("Error loading a nested select.", cause);
+    }
+  }
+
+  /**
+   * Stops the threads once they have finished the results that are being loaded. Results that are submitted afterwards
+   * are loaded by the calling thread.
+   */
+  public void shutdown() {
+    threadPool.shutdown();
+  }
+
+  /**
+   * The rows of a nested select, loaded by whichever of the loader thread and the session claims them first.
+   */
+  private static class ParallelLoad extends CompletableFuture<List<Object>> {
+
+    private final ResultLoader resultLoader;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    ParallelLoad(ResultLoader resultLoader) {
+      this.resultLoader = resultLoader;
+    }
+
+    void runOnOwnConnection() {
+      Executor executor = resultLoader.newExecutor();
+      try {
+        // wait for the connection before claiming the rows, so the session never waits for the pool
+        executor.getTransaction().getConnection();
+        if (claimed.compareAndSet(false, true)) {
+          complete(resultLoader.selectList(executor));
+        }
+      } catch (Throwable t) {
+        if (claimed.get()) {
+          completeExceptionally(t);
+        }
+        // otherwise the session loads the rows when it joins them
+      } finally {
+        executor.close(false);
+      }
+    }
+
+    void runIfUnclaimed() throws SQLException {
+      if (claimed.compareAndSet(false, true)) {
+        complete(resultLoader.selectList());
+      }
+    }
+  }
+
+}
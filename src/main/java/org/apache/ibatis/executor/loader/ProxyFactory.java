@@ -33,4 +33,30 @@ public interface ProxyFactory {
   Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration,
       ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
 
+  /**
+   * Creates a result object of the given type as a proxy, so its properties do not have to be copied from a result
+   * object to a proxy.
+   *
+   * @param type
+   *          the result type
+   * @param lazyLoader
+   *          the loaders of the lazy properties
+   * @param configuration
+   *          the configuration
+   * @param objectFactory
+   *          the object factory
+   * @param constructorArgTypes
+   *          the constructor argument types
+   * @param constructorArgs
+   *          the constructor arguments
+   *
+   * @return the proxy, or {@code null} if this factory can only create proxies for existing result objects
+   *
+   * @since 3.5.12
+   */
+  default Object createResultProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    return null;
+  }
+
 }
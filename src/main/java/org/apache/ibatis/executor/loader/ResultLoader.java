@@ -68,19 +68,21 @@ public class ResultLoader {
   }
 
   public Object loadResult() throws SQLException {
-    List<Object> list = selectList();
+    return extractResult(selectList());
+  }
+
+  Object extractResult(List<Object> list) {
     resultObject = resultExtractor.extractObjectFromList(list, targetType);
     return resultObject;
   }
 
-  private <E> List<E> selectList() throws SQLException {
+  <E> List<E> selectList() throws SQLException {
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
       localExecutor = newExecutor();
     }
     try {
-      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER,
-          cacheKey, boundSql);
+      return selectList(localExecutor);
     } finally {
       if (localExecutor != executor) {
         localExecutor.close(false);
@@ -88,7 +90,12 @@ public class ResultLoader {
     }
   }
 
-  private Executor newExecutor() {
+  <E> List<E> selectList(Executor localExecutor) throws SQLException {
+    return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER,
+        cacheKey, boundSql);
+  }
+
+  Executor newExecutor() {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
       throw new ExecutorException("ResultLoader could not load lazily.  Environment was not configured.");
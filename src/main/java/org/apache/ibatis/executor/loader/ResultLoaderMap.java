@@ -48,6 +48,8 @@ import org.apache.ibatis.session.RowBounds;
 public class ResultLoaderMap {
 
   private final Map<String, LoadPair> loaderMap = new HashMap<>();
+  // read by the lazy loading proxies without locking
+  private volatile boolean hasLoaders;
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
     String upperFirst = getUppercaseFirstProperty(property);
@@ -57,6 +59,7 @@ public class ResultLoaderMap {
           + " already exists in the result map. The leftmost property of all lazy loaded properties must be unique within a result map.");
     }
     loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
+    hasLoaders = true;
   }
 
   public final Map<String, LoadPair> getProperties() {
@@ -71,6 +74,18 @@ public class ResultLoaderMap {
     return loaderMap.size();
   }
 
+  /**
+   * Returns whether there are properties left to load. Unlike the other methods, this method can be called without
+   * holding the lock of this map, and once it returns {@code false} the loaded properties are visible to the caller.
+   *
+   * @return true if there are properties left to load
+   *
+   * @since 3.5.12
+   */
+  public boolean hasLoaders() {
+    return hasLoaders;
+  }
+
   public boolean hasLoader(String property) {
     return loaderMap.containsKey(property.toUpperCase(Locale.ENGLISH));
   }
@@ -78,7 +93,11 @@ public class ResultLoaderMap {
   public boolean load(String property) throws SQLException {
     LoadPair pair = loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
     if (pair != null) {
-      pair.load();
+      try {
+        pair.load();
+      } finally {
+        hasLoaders = !loaderMap.isEmpty();
+      }
       return true;
     }
     return false;
@@ -86,6 +105,7 @@ public class ResultLoaderMap {
 
   public void remove(String property) {
     loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
+    hasLoaders = !loaderMap.isEmpty();
   }
 
   public void loadAll() throws SQLException {
@@ -66,6 +66,13 @@ public class CglibProxyFactory implements ProxyFactory {
         constructorArgTypes, constructorArgs);
   }
 
+  @Override
+  public Object createResultProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    return EnhancedResultObjectProxyImpl.createProxy(type, lazyLoader, configuration, objectFactory,
+        constructorArgTypes, constructorArgs);
+  }
+
   public Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
       ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
     return EnhancedDeserializationProxyImpl.createProxy(target, unloadedProperties, objectFactory, constructorArgTypes,
@@ -124,43 +131,52 @@ public class CglibProxyFactory implements ProxyFactory {
     public static Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration,
         ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
       final Class<?> type = target.getClass();
-      EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, lazyLoader, configuration,
-          objectFactory, constructorArgTypes, constructorArgs);
-      Object enhanced = createStaticProxy(type, callback, constructorArgTypes, constructorArgs);
+      Object enhanced = createProxy(type, lazyLoader, configuration, objectFactory, constructorArgTypes,
+          constructorArgs);
       PropertyCopier.copyBeanProperties(type, target, enhanced);
       return enhanced;
     }
 
+    public static Object createProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration,
+        ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+      EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, lazyLoader, configuration,
+          objectFactory, constructorArgTypes, constructorArgs);
+      return createStaticProxy(type, callback, constructorArgTypes, constructorArgs);
+    }
+
     @Override
     public Object intercept(Object enhanced, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
       final String methodName = method.getName();
       try {
-        synchronized (lazyLoader) {
-          if (WRITE_REPLACE_METHOD.equals(methodName)) {
-            Object original;
-            if (constructorArgTypes.isEmpty()) {
-              original = objectFactory.create(type);
-            } else {
-              original = objectFactory.create(type, constructorArgTypes, constructorArgs);
-            }
-            PropertyCopier.copyBeanProperties(type, enhanced, original);
-            if (lazyLoader.size() > 0) {
-              return new CglibSerialStateHolder(original, lazyLoader.getProperties(), objectFactory,
-                  constructorArgTypes, constructorArgs);
-            } else {
-              return original;
+        // once all properties are loaded there is nothing to lock
+        if (lazyLoader.hasLoaders() || WRITE_REPLACE_METHOD.equals(methodName)) {
+          synchronized (lazyLoader) {
+            if (WRITE_REPLACE_METHOD.equals(methodName)) {
+              Object original;
+              if (constructorArgTypes.isEmpty()) {
+                original = objectFactory.create(type);
+              } else {
+                original = objectFactory.create(type, constructorArgTypes, constructorArgs);
+              }
+              PropertyCopier.copyBeanProperties(type, enhanced, original);
+              if (lazyLoader.size() > 0) {
+                return new CglibSerialStateHolder(original, lazyLoader.getProperties(), objectFactory,
+                    constructorArgTypes, constructorArgs);
+              } else {
+                return original;
+              }
             }
-          }
-          if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
-            if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
-              lazyLoader.loadAll();
-            } else if (PropertyNamer.isSetter(methodName)) {
-              final String property = PropertyNamer.methodToProperty(methodName);
-              lazyLoader.remove(property);
-            } else if (PropertyNamer.isGetter(methodName)) {
-              final String property = PropertyNamer.methodToProperty(methodName);
-              if (lazyLoader.hasLoader(property)) {
-                lazyLoader.load(property);
+            if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
+              if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
+                lazyLoader.loadAll();
+              } else if (PropertyNamer.isSetter(methodName)) {
+                final String property = PropertyNamer.methodToProperty(methodName);
+                lazyLoader.remove(property);
+              } else if (PropertyNamer.isGetter(methodName)) {
+                final String property = PropertyNamer.methodToProperty(methodName);
+                if (lazyLoader.hasLoader(property)) {
+                  lazyLoader.load(property);
+                }
               }
             }
           }
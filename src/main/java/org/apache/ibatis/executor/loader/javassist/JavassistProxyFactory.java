@@ -33,6 +33,7 @@ import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyCopier;
 import org.apache.ibatis.reflection.property.PropertyNamer;
@@ -46,6 +47,15 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
   private static final String FINALIZE_METHOD = "finalize";
   private static final String WRITE_REPLACE_METHOD = "writeReplace";
 
+  // the proxy classes are kept with the result types, so they do not prevent unloading them
+  private static final ClassValue<Class<?>> proxyClasses = new ClassValue<Class<?>>() {
+    @Override
+    protected Class<?> computeValue(Class<?> type) {
+      return createProxyClass(type);
+    }
+  };
+  private static final ObjectFactory proxyObjectFactory = new DefaultObjectFactory();
+
   public JavassistProxyFactory() {
     try {
       Resources.classForName("javassist.util.proxy.ProxyFactory");
@@ -62,6 +72,13 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         constructorArgTypes, constructorArgs);
   }
 
+  @Override
+  public Object createResultProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration,
+      ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    return EnhancedResultObjectProxyImpl.createProxy(type, lazyLoader, configuration, objectFactory,
+        constructorArgTypes, constructorArgs);
+  }
+
   public Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties,
       ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
     return EnhancedDeserializationProxyImpl.createProxy(target, unloadedProperties, objectFactory, constructorArgTypes,
@@ -70,7 +87,17 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
 
   static Object createStaticProxy(Class<?> type, MethodHandler callback, List<Class<?>> constructorArgTypes,
       List<Object> constructorArgs) {
+    Object enhanced;
+    try {
+      enhanced = proxyObjectFactory.create(proxyClasses.get(type), constructorArgTypes, constructorArgs);
+    } catch (Exception e) {
+      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+    }
+    ((Proxy) enhanced).setHandler(callback);
+    return enhanced;
+  }
 
+  private static Class<?> createProxyClass(Class<?> type) {
     ProxyFactory enhancer = new ProxyFactory();
     enhancer.setSuperclass(type);
 
@@ -86,16 +113,7 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
       // nothing to do here
     }
 
-    Object enhanced;
-    Class<?>[] typesArray = constructorArgTypes.toArray(new Class[constructorArgTypes.size()]);
-    Object[] valuesArray = constructorArgs.toArray(new Object[constructorArgs.size()]);
-    try {
-      enhanced = enhancer.create(typesArray, valuesArray);
-    } catch (Exception e) {
-      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
-    }
-    ((Proxy) enhanced).setHandler(callback);
-    return enhanced;
+    return enhancer.createClass();
   }
 
   private static class EnhancedResultObjectProxyImpl implements MethodHandler {
@@ -122,43 +140,52 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
     public static Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration,
         ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
       final Class<?> type = target.getClass();
-      EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, lazyLoader, configuration,
-          objectFactory, constructorArgTypes, constructorArgs);
-      Object enhanced = createStaticProxy(type, callback, constructorArgTypes, constructorArgs);
+      Object enhanced = createProxy(type, lazyLoader, configuration, objectFactory, constructorArgTypes,
+          constructorArgs);
       PropertyCopier.copyBeanProperties(type, target, enhanced);
       return enhanced;
     }
 
+    public static Object createProxy(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration,
+        ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+      EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, lazyLoader, configuration,
+          objectFactory, constructorArgTypes, constructorArgs);
+      return createStaticProxy(type, callback, constructorArgTypes, constructorArgs);
+    }
+
     @Override
     public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
       final String methodName = method.getName();
       try {
-        synchronized (lazyLoader) {
-          if (WRITE_REPLACE_METHOD.equals(methodName)) {
-            Object original;
-            if (constructorArgTypes.isEmpty()) {
-              original = objectFactory.create(type);
-            } else {
-              original = objectFactory.create(type, constructorArgTypes, constructorArgs);
-            }
-            PropertyCopier.copyBeanProperties(type, enhanced, original);
-            if (lazyLoader.size() > 0) {
-              return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory,
-                  constructorArgTypes, constructorArgs);
-            } else {
-              return original;
+        // once all properties are loaded there is nothing to lock
+        if (lazyLoader.hasLoaders() || WRITE_REPLACE_METHOD.equals(methodName)) {
+          synchronized (lazyLoader) {
+            if (WRITE_REPLACE_METHOD.equals(methodName)) {
+              Object original;
+              if (constructorArgTypes.isEmpty()) {
+                original = objectFactory.create(type);
+              } else {
+                original = objectFactory.create(type, constructorArgTypes, constructorArgs);
+              }
+              PropertyCopier.copyBeanProperties(type, enhanced, original);
+              if (lazyLoader.size() > 0) {
+                return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory,
+                    constructorArgTypes, constructorArgs);
+              } else {
+                return original;
+              }
             }
-          }
-          if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
-            if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
-              lazyLoader.loadAll();
-            } else if (PropertyNamer.isSetter(methodName)) {
-              final String property = PropertyNamer.methodToProperty(methodName);
-              lazyLoader.remove(property);
-            } else if (PropertyNamer.isGetter(methodName)) {
-              final String property = PropertyNamer.methodToProperty(methodName);
-              if (lazyLoader.hasLoader(property)) {
-                lazyLoader.load(property);
+            if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
+              if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
+                lazyLoader.loadAll();
+              } else if (PropertyNamer.isSetter(methodName)) {
+                final String property = PropertyNamer.methodToProperty(methodName);
+                lazyLoader.remove(property);
+              } else if (PropertyNamer.isGetter(methodName)) {
+                final String property = PropertyNamer.methodToProperty(methodName);
+                if (lazyLoader.hasLoader(property)) {
+                  lazyLoader.load(property);
+                }
               }
             }
           }
@@ -0,0 +1,356 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * A nested select that loads the rows of several keys with one query.
+ * <p>
+ * Only nested selects that provably return the same rows for a list of keys as for each key on its own are batched. The
+ * SQL must be static and of the form {@code select <columns> from
+ *
+<table>
+ *  where <column> = ?}, optionally followed by an {@code order by} of plain columns. A single table, no {@code or}, no
+ * paging, grouping, aggregates or other functions, no subqueries, literals or comments are allowed, and the result map
+ * must be a plain one without nested result maps or a discriminator. The comparison is replaced with an {@code IN} list
+ * of the keys and the rows are mapped one by one, so duplicate rows are kept. The key of each row is read from the key
+ * column and numbers are compared by value, so an {@code Integer} key matches a {@code Long} one.
+ * <p>
+ * Only numeric keys are batched. The database may match other keys in ways that {@code equals} does not, for example
+ * with a case insensitive collation or a padded {@code CHAR} column, so they are loaded one by one. If the key column
+ * is not in the result set, or a row has a key that was not asked for, the keys are loaded one by one and the query is
+ * no longer batched. The batched query does not use the second level cache of the nested select.
+ *
+ * @since 3.5.12
+ *
+ * @see MappedStatement#getBatchedNestedQuery(String)
+ */
+public final class BatchedNestedQuery {
+
+  private static final Pattern SIMPLE_SELECT = Pattern.compile(
+      "select\\s+(?<columns>.+?)\\s+from\\s+[\\w$.]+(?:\\s+(?:as\\s+)?[\\w$]+)?\\s+where\\s+(?<key>[\\w$.]+)\\s*=\\s*\\?"
+          + "(?:\\s+order\\s+by\\s+[\\w$.]+(?:\\s+(?:asc|desc))?(?:\\s*,\\s*[\\w$.]+(?:\\s+(?:asc|desc))?)*)?",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern UNSUPPORTED_SQL = Pattern.compile(
+      "\\b(?:or|not|distinct|top|union|intersect|except|minus|limit|offset|fetch|rownum|group|having|join|for)\\b"
+          + "|[();'\"`\\[]|--|/\\*",
+      Pattern.CASE_INSENSITIVE);
+  private static final Pattern COLUMN = Pattern.compile("(?<expression>[\\w$.*]+)(?:\\s+(?:as\\s+)?(?<alias>[\\w$]+))?",
+      Pattern.CASE_INSENSITIVE);
+  private static final BatchedNestedQuery UNSUPPORTED = new BatchedNestedQuery(null, null, null, null, null, null);
+
+  private final MappedStatement nestedQuery;
+  private final MappedStatement statement;
+  private final String keyColumn;
+  private final String sqlPrefix;
+  private final String sqlSuffix;
+  private final ParameterMapping keyParameterMapping;
+  private volatile boolean keyColumnMissing;
+  private volatile boolean keyMismatch;
+
+  private BatchedNestedQuery(MappedStatement nestedQuery, MappedStatement statement, String keyColumn, String sqlPrefix,
+      String sqlSuffix, ParameterMapping keyParameterMapping) {
+    this.nestedQuery = nestedQuery;
+    this.statement = statement;
+    this.keyColumn = keyColumn;
+    this.sqlPrefix = sqlPrefix;
+    this.sqlSuffix = sqlSuffix;
+    this.keyParameterMapping = keyParameterMapping;
+  }
+
+  /**
+   * Creates the batched form of a nested select.
+   *
+   * @param nestedQuery
+   *          the nested select
+   * @param keyColumn
+   *          the column of the rows that holds the key, or {@code null} to use the column that is compared with the
+   *          parameter
+   *
+   * @return the batched query, which is not {@link #isSupported() supported} if the nested select does not have the
+   *         expected form
+   */
+  public static BatchedNestedQuery create(MappedStatement nestedQuery, String keyColumn) {
+    if (!(nestedQuery.getSqlSource() instanceof RawSqlSource || nestedQuery.getSqlSource() instanceof StaticSqlSource)
+        || nestedQuery.getStatementType() == StatementType.CALLABLE || nestedQuery.getResultSets() != null
+        || nestedQuery.getResultMaps().size() != 1) {
+      return UNSUPPORTED;
+    }
+    final ResultMap resultMap = nestedQuery.getResultMaps().get(0);
+    if (resultMap.hasNestedResultMaps() || resultMap.getDiscriminator() != null) {
+      return UNSUPPORTED;
+    }
+    final BoundSql boundSql = nestedQuery.getBoundSql(null);
+    final String sql = boundSql.getSql().trim();
+    final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    if (parameterMappings.size() != 1 || parameterMappings.get(0).getMode() != ParameterMode.IN
+        || sql.indexOf('?') != sql.lastIndexOf('?')) {
+      return UNSUPPORTED;
+    }
+    final Matcher matcher = SIMPLE_SELECT.matcher(sql);
+    if (!matcher.matches() || UNSUPPORTED_SQL.matcher(sql).find()) {
+      return UNSUPPORTED;
+    }
+    final String comparedColumn = matcher.group("key");
+    final String column;
+    if (keyColumn != null) {
+      column = keyColumn;
+    } else {
+      column = comparedColumn.substring(comparedColumn.lastIndexOf('.') + 1);
+      if (!selectsColumn(matcher.group("columns"), column)) {
+        return UNSUPPORTED;
+      }
+    }
+    final MappedStatement statement = new MappedStatement.Builder(nestedQuery.getConfiguration(),
+        nestedQuery.getId() + "!batch-" + column, nestedQuery.getSqlSource(), SqlCommandType.SELECT)
+            .resource(nestedQuery.getResource()).statementType(nestedQuery.getStatementType())
+            .resultSetType(nestedQuery.getResultSetType()).fetchSize(nestedQuery.getFetchSize())
+            .timeout(nestedQuery.getTimeout()).databaseId(nestedQuery.getDatabaseId()).lang(nestedQuery.getLang())
+            .resultMaps(nestedQuery.getResultMaps()).build();
+    return new BatchedNestedQuery(nestedQuery, statement, column, sql.substring(0, matcher.end("key")),
+        sql.substring(matcher.end("key")).replaceFirst("^\\s*=\\s*\\?", ""), parameterMappings.get(0));
+  }
+
+  /**
+   * Returns whether the column list provably returns the column that is compared with the parameter under its own name.
+   */
+  private static boolean selectsColumn(String columns, String column) {
+    boolean found = false;
+    for (String item : columns.split(",")) {
+      final Matcher matcher = COLUMN.matcher(item.trim());
+      if (!matcher.matches()) {
+        return false;
+      }
+      final String expression = matcher.group("expression");
+      final String alias = matcher.group("alias");
+      final String name = expression.substring(expression.lastIndexOf('.') + 1);
+      if (alias == null && ("*".equals(name) || name.equalsIgnoreCase(column))) {
+        found = true;
+      } else if (alias != null && alias.equalsIgnoreCase(column)) {
+        // another expression is returned under the name of the key column
+        if (!name.equalsIgnoreCase(column)) {
+          return false;
+        }
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns whether the nested select can be executed for several keys at once.
+   *
+   * @return true if the nested select can be batched
+   */
+  public boolean isSupported() {
+    return statement != null && !keyColumnMissing && !keyMismatch;
+  }
+
+  /**
+   * Loads the rows of the given keys.
+   *
+   * @param executor
+   *          the executor
+   * @param keys
+   *          the parameters of the nested select, which must have distinct {@link #normalizeKey(Object) normalized}
+   *          values that are {@link #isBatchableKey(Object) batchable}
+   *
+   * @return the rows by normalized key, without the keys that have no rows, or {@code null} if the key column is not in
+   *         the result set or a row has a key that was not asked for, and the keys have to be loaded one by one
+   *
+   * @throws SQLException
+   *           if the query fails
+   */
+  Map<Object, List<Object>> query(Executor executor, Collection<Object> keys) throws SQLException {
+    final Configuration configuration = statement.getConfiguration();
+    final StringBuilder sql = new StringBuilder(sqlPrefix).append(" IN (");
+    final List<ParameterMapping> parameterMappings = new ArrayList<>(keys.size());
+    final Map<String, Object> parameterObject = new HashMap<>();
+    final Set<Object> requestedKeys = new HashSet<>();
+    for (Object key : keys) {
+      requestedKeys.add(normalizeKey(key));
+      final String property = "key" + parameterMappings.size();
+      sql.append(parameterMappings.isEmpty() ? "?" : ", ?");
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, keyParameterMapping.getTypeHandler())
+          .javaType(keyParameterMapping.getJavaType()).jdbcType(keyParameterMapping.getJdbcType())
+          .numericScale(keyParameterMapping.getNumericScale()).build());
+      parameterObject.put(property, key);
+    }
+    sql.append(')').append(sqlSuffix);
+    final BoundSql boundSql = new BoundSql(configuration, sql.toString(), parameterMappings, parameterObject);
+    final CacheKey cacheKey = executor.createCacheKey(statement, parameterObject, RowBounds.DEFAULT, boundSql);
+    final RowCollector rowCollector = new RowCollector(requestedKeys);
+    executor.query(statement, parameterObject, RowBounds.DEFAULT, rowCollector, cacheKey, boundSql);
+    if (rowCollector.keyColumnMissing) {
+      keyColumnMissing = true;
+      return null;
+    }
+    if (rowCollector.keyMismatch) {
+      // the database compares the keys differently, so the rows cannot be given back to the parents reliably
+      keyMismatch = true;
+      return null;
+    }
+    return rowCollector.rows;
+  }
+
+  /**
+   * Loads the rows of one key with the nested select.
+   *
+   * @param executor
+   *          the executor
+   * @param key
+   *          the parameter of the nested select
+   *
+   * @return the rows
+   *
+   * @throws SQLException
+   *           if the query fails
+   */
+  List<Object> queryOne(Executor executor, Object key) throws SQLException {
+    return executor.query(nestedQuery, key, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+  }
+
+  /**
+   * Returns the value that a key is matched by. Integral numbers are compared as {@code Long} or {@code BigInteger},
+   * other numbers as {@code BigDecimal} without trailing zeros, so keys that are read with different types still match.
+   *
+   * @param key
+   *          the key
+   *
+   * @return the normalized key
+   */
+  static Object normalizeKey(Object key) {
+    if (key instanceof Long) {
+      return key;
+    }
+    if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+      return ((Number) key).longValue();
+    }
+    if (key instanceof BigInteger) {
+      final BigInteger value = (BigInteger) key;
+      return value.bitLength() < 64 ? (Object) value.longValue() : value;
+    }
+    if (key instanceof Double && !Double.isFinite((Double) key)
+        || key instanceof Float && !Float.isFinite((Float) key)) {
+      return key;
+    }
+    if (key instanceof BigDecimal || key instanceof Double || key instanceof Float) {
+      final BigDecimal value = key instanceof BigDecimal ? (BigDecimal) key : new BigDecimal(key.toString());
+      try {
+        return normalizeKey(value.toBigIntegerExact());
+      } catch (ArithmeticException e) {
+        return value.stripTrailingZeros();
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Returns whether a key can be loaded with the batched query. Only numbers are, as the database compares them the way
+   * their normalized values are compared.
+   *
+   * @param normalizedKey
+   *          the {@link #normalizeKey(Object) normalized} key
+   *
+   * @return true if the key can be batched
+   */
+  static boolean isBatchableKey(Object normalizedKey) {
+    return normalizedKey instanceof Long || normalizedKey instanceof BigInteger || normalizedKey instanceof BigDecimal;
+  }
+
+  /**
+   * Collects the rows of the batched query by the key that is read from the current row of the result set.
+   */
+  final class RowCollector implements ResultHandler<Object> {
+
+    private final Set<Object> requestedKeys;
+    private final Map<Object, List<Object>> rows = new HashMap<>();
+    private boolean keyColumnMissing;
+    private boolean keyMismatch;
+    private String keyColumnLabel;
+    private Object key;
+
+    RowCollector(Set<Object> requestedKeys) {
+      this.requestedKeys = requestedKeys;
+    }
+
+    /**
+     * Reads the key of the current row, before the row is mapped.
+     *
+     * @param rsw
+     *          the result set
+     *
+     * @throws SQLException
+     *           if the key cannot be read
+     */
+    void readKey(ResultSetWrapper rsw) throws SQLException {
+      if (keyColumnLabel == null) {
+        for (String columnName : rsw.getColumnNames()) {
+          if (columnName.equalsIgnoreCase(keyColumn)) {
+            keyColumnLabel = columnName;
+            break;
+          }
+        }
+        if (keyColumnLabel == null) {
+          keyColumnMissing = true;
+          return;
+        }
+      }
+      key = normalizeKey(keyParameterMapping.getTypeHandler().getResult(rsw.getResultSet(), keyColumnLabel));
+      if (!requestedKeys.contains(key)) {
+        keyMismatch = true;
+      }
+    }
+
+    @Override
+    public void handleResult(ResultContext<?> resultContext) {
+      if (keyColumnMissing || keyMismatch) {
+        resultContext.stop();
+      } else {
+        rows.computeIfAbsent(key, k -> new ArrayList<>()).add(resultContext.getResultObject());
+      }
+    }
+  }
+
+}
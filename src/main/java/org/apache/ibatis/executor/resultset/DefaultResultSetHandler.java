@@ -18,19 +18,23 @@ package org.apache.ibatis.executor.resultset;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Parameter;
 import java.sql.CallableStatement;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.annotations.Param;
@@ -41,12 +45,15 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.executor.loader.ParallelResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.executor.statement.SqlTrace;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -56,8 +63,11 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -77,6 +87,7 @@ import org.apache.ibatis.util.MapUtil;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
+  private static final Object PARALLEL = new Object();
 
   private final Executor executor;
   private final Configuration configuration;
@@ -85,9 +96,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ParameterHandler parameterHandler;
   private final ResultHandler<?> resultHandler;
   private final BoundSql boundSql;
+  private final SqlTrace sqlTrace;
+  private final boolean indexedColumnAccess;
   private final TypeHandlerRegistry typeHandlerRegistry;
   private final ObjectFactory objectFactory;
   private final ReflectorFactory reflectorFactory;
+  private final ParallelResultLoader parallelResultLoader;
 
   // nested resultmaps
   private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
@@ -102,14 +116,46 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
   private final Map<String, List<String>> constructorAutoMappingColumns = new HashMap<>();
 
+  // Compiled row mappings of simple result maps
+  private final Map<ResultMap, RowMappingPlan> rowMappingPlans = new HashMap<>();
+
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
+  // lazy loader of the result object that is being created directly as a lazy loading proxy
+  private ResultLoaderMap lazyProxyLoader;
+
+  // batched nested selects, only set while the rows are collected for the returned list
+  private Map<ResultMapping, NestedQueryBatch> nestedQueryBatches;
+
+  // concurrently loaded nested selects, the list is only set while the property mappings of a row are applied
+  private final Map<ResultMap, Boolean> parallelNestedQueryResultMaps = new HashMap<>();
+  private final Map<CacheKey, ParallelLoad> parallelLoadsByKey = new HashMap<>();
+  private List<ParallelLoad> parallelLoads;
+  private Boolean sessionWithoutUncommittedChanges;
+
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
   }
 
+  private static class ParallelLoad {
+    private final MetaObject metaObject;
+    private final String property;
+    private final Class<?> targetType;
+    private final ResultLoader resultLoader;
+    private final Future<List<Object>> rows;
+
+    ParallelLoad(MetaObject metaObject, String property, Class<?> targetType, ResultLoader resultLoader,
+        Future<List<Object>> rows) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.targetType = targetType;
+      this.resultLoader = resultLoader;
+      this.rows = rows;
+    }
+  }
+
   private static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
@@ -132,9 +178,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     this.rowBounds = rowBounds;
     this.parameterHandler = parameterHandler;
     this.boundSql = boundSql;
+    this.sqlTrace = boundSql == null ? null : boundSql.getSqlTrace();
+    this.indexedColumnAccess = configuration.isIndexedColumnAccessEnabled();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
     this.reflectorFactory = configuration.getReflectorFactory();
+    // the nested selects that are loaded concurrently open their own transactions on the environment
+    this.parallelResultLoader = configuration.getEnvironment() == null ? null : configuration.getParallelResultLoader();
     this.resultHandler = resultHandler;
   }
 
@@ -220,6 +270,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    if (sqlTrace != null) {
+      sqlTrace.rowsRead();
+    }
     return collapseSingleResultList(multipleResults);
   }
 
@@ -253,7 +306,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         break;
       }
     }
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    return rs != null ? new ResultSetWrapper(rs, configuration, mappedStatement.getResultSetShapeCache()) : null;
   }
 
   private ResultSetWrapper getNextResultSet(Statement stmt) {
@@ -266,7 +319,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (rs == null) {
           return getNextResultSet(stmt);
         }
-        return new ResultSetWrapper(rs, configuration);
+        return new ResultSetWrapper(rs, configuration, mappedStatement.getResultSetShapeCache());
       }
     } catch (Exception e) {
       // Intentionally ignored.
@@ -303,7 +356,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         handleRowValues(rsw, resultMap, null, RowBounds.DEFAULT, parentMapping);
       } else if (resultHandler == null) {
         DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
-        handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+        // the rows are not handed out before all of them are read, so their nested selects can be batched
+        nestedQueryBatches = new IdentityHashMap<>();
+        try {
+          handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          loadNestedQueryBatches();
+        } finally {
+          nestedQueryBatches = null;
+        }
         multipleResults.add(defaultResultHandler.getResultList());
       } else {
         handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
@@ -356,8 +416,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
+    // the rows of a batched nested select are collected by the key that is read from each row
+    final BatchedNestedQuery.RowCollector rowCollector = resultHandler instanceof BatchedNestedQuery.RowCollector
+        ? (BatchedNestedQuery.RowCollector) resultHandler : null;
     skipRows(resultSet, rowBounds);
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      if (sqlTrace != null) {
+        sqlTrace.rowRead();
+      }
+      if (rowCollector != null) {
+        rowCollector.readKey(rsw);
+      }
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
@@ -403,6 +472,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    if (columnPrefix == null && configuration.isCompiledRowMappingEnabled()) {
+      final RowMappingPlan plan = getRowMappingPlan(rsw, resultMap);
+      if (plan.isApplicable()) {
+        this.useConstructorMappings = false;
+        final Object rowValue = objectFactory.create(resultMap.getType());
+        if (plan.isApplicableTo(rowValue)) {
+          final boolean foundValues = plan.apply(rsw.getResultSet(), rowValue);
+          return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+        }
+        // the object factory returned another class, map the remaining rows the regular way
+        rowMappingPlans.put(resultMap, new RowMappingPlan(rsw));
+      }
+    }
     final ResultLoaderMap lazyLoader = new ResultLoaderMap();
     Object rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
     if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
@@ -418,6 +500,80 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  //
+  // COMPILED ROW MAPPING FOR SIMPLE RESULT MAP
+  //
+
+  private RowMappingPlan getRowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    RowMappingPlan plan = rowMappingPlans.get(resultMap);
+    if (plan == null || !plan.isFor(rsw)) {
+      plan = compileRowMappingPlan(rsw, resultMap);
+      rowMappingPlans.put(resultMap, plan);
+    }
+    return plan;
+  }
+
+  private RowMappingPlan compileRowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final Class<?> resultType = resultMap.getType();
+    if (!configuration.isUseColumnLabel()
+        || configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class
+        || hasTypeHandlerForResultObject(rsw, resultType) || !resultMap.getConstructorResultMappings().isEmpty()
+        || !resultType.isInterface() && !MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor()) {
+      return new RowMappingPlan(rsw);
+    }
+    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+    for (ResultMapping propertyMapping : propertyMappings) {
+      if (propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null
+          || propertyMapping.getResultSet() != null || propertyMapping.isCompositeResult()) {
+        return new RowMappingPlan(rsw);
+      }
+    }
+    // an instance is needed to resolve the properties of map results the same way the regular mapping does
+    final Object prototype = objectFactory.create(resultType);
+    if (prototype instanceof Collection) {
+      return new RowMappingPlan(rsw);
+    }
+    final MetaObject metaObject = configuration.newMetaObject(prototype);
+    final Reflector reflector = prototype instanceof Map ? null : reflectorFactory.findForClass(prototype.getClass());
+    final List<RowMappingPlan.ColumnMapping> columnMappings = new ArrayList<>();
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+        if (!addColumnMapping(columnMappings, rsw, reflector, mapping.column, mapping.typeHandler, mapping.property,
+            mapping.primitive)) {
+          return new RowMappingPlan(rsw);
+        }
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : propertyMappings) {
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      if (column == null || property == null || !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        continue;
+      }
+      final boolean primitive = reflector != null && reflector.hasSetter(property)
+          && reflector.getSetterType(property).isPrimitive();
+      if (!addColumnMapping(columnMappings, rsw, reflector, column, propertyMapping.getTypeHandler(), property,
+          primitive)) {
+        return new RowMappingPlan(rsw);
+      }
+    }
+    return new RowMappingPlan(rsw, prototype.getClass(), columnMappings.toArray(new RowMappingPlan.ColumnMapping[0]));
+  }
+
+  private boolean addColumnMapping(List<RowMappingPlan.ColumnMapping> columnMappings, ResultSetWrapper rsw,
+      Reflector reflector, String column, TypeHandler<?> typeHandler, String property, boolean primitive) {
+    final int columnIndex = rsw.getColumnIndex(column);
+    if (columnIndex < 0 || property.indexOf('.') >= 0 || property.indexOf('[') >= 0
+        || reflector != null && !reflector.hasSetter(property)) {
+      return false;
+    }
+    final Invoker setter = reflector == null ? null : reflector.getSetInvoker(property);
+    columnMappings.add(new RowMappingPlan.ColumnMapping(columnIndex, typeHandler, property, setter,
+        configuration.isCallSettersOnNulls() && !primitive));
+    return true;
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -477,6 +633,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject,
       ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
     final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    if (!hasParallelNestedQueries(resultMap)) {
+      return applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix, mappedColumnNames);
+    }
+    // the nested selects of the row are started while the row is mapped and joined before it is returned
+    parallelLoads = new ArrayList<>();
+    try {
+      final boolean foundValues = applyPropertyMappings(rsw, resultMap, metaObject, lazyLoader, columnPrefix,
+          mappedColumnNames);
+      return applyParallelLoads() || foundValues;
+    } finally {
+      parallelLoads = null;
+    }
+  }
+
+  private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject,
+      ResultLoaderMap lazyLoader, String columnPrefix, List<String> mappedColumnNames) throws SQLException {
     boolean foundValues = false;
     final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
     for (ResultMapping propertyMapping : propertyMappings) {
@@ -488,8 +660,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (propertyMapping.isCompositeResult()
           || column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))
           || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader,
-            columnPrefix);
+        Object value = getPropertyMappingValue(rsw, metaObject, propertyMapping, lazyLoader, columnPrefix);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -499,34 +670,98 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           foundValues = true;
           continue;
         }
-        if (value != null) {
-          foundValues = true;
+        if (value == PARALLEL) {
+          continue;
         }
-        if (value != null
-            || configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive()) {
-          // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(property, value);
+        foundValues = setPropertyValue(metaObject, property, value) || foundValues;
+      }
+    }
+    return foundValues;
+  }
+
+  private boolean setPropertyValue(MetaObject metaObject, String property, Object value) {
+    if (value != null || configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive()) {
+      // gcode issue #377, call setter on nulls (value is not 'found')
+      metaObject.setValue(property, value);
+    }
+    return value != null;
+  }
+
+  private boolean hasParallelNestedQueries(ResultMap resultMap) throws SQLException {
+    if (parallelResultLoader == null || !resultMap.hasNestedQueries() || !isSessionWithoutUncommittedChanges()) {
+      return false;
+    }
+    return parallelNestedQueryResultMaps.computeIfAbsent(resultMap, k -> {
+      // a single nested select would only be loaded by another thread, it is worth it from two on
+      int count = 0;
+      for (ResultMapping propertyMapping : k.getPropertyResultMappings()) {
+        if (isParallelNestedQuery(propertyMapping)) {
+          count++;
         }
       }
+      return count > 1;
+    });
+  }
+
+  private boolean isSessionWithoutUncommittedChanges() throws SQLException {
+    // the other connections of the nested selects only see the same rows as the session if it cannot have changed any
+    if (sessionWithoutUncommittedChanges == null) {
+      final Connection connection = executor.getTransaction().getConnection();
+      sessionWithoutUncommittedChanges = connection.getAutoCommit() || connection.isReadOnly();
+    }
+    return sessionWithoutUncommittedChanges;
+  }
+
+  private boolean isParallelNestedQuery(ResultMapping propertyMapping) {
+    if (propertyMapping.getNestedQueryId() == null || propertyMapping.getProperty() == null || propertyMapping.isLazy()
+        || propertyMapping.getBatchSize() > 0) {
+      return false;
+    }
+    // the nested select must not load nested selects itself, as it does not see the local cache of the session and
+    // would load circular references again and again
+    for (ResultMap resultMap : configuration.getMappedStatement(propertyMapping.getNestedQueryId()).getResultMaps()) {
+      if (resultMap.hasNestedQueries() || resultMap.hasNestedResultMaps() || resultMap.getDiscriminator() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean applyParallelLoads() throws SQLException {
+    boolean foundValues = false;
+    for (ParallelLoad load : parallelLoads) {
+      foundValues = setPropertyValue(load.metaObject, load.property,
+          ParallelResultLoader.join(load.rows, load.resultLoader)) || foundValues;
     }
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping,
-      ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
+  private Object getPropertyMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject,
+      ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
     if (propertyMapping.getNestedQueryId() != null) {
-      return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
+      return getNestedQueryMappingValue(rsw.getResultSet(), metaResultObject, propertyMapping, lazyLoader,
+          columnPrefix);
     }
     if (propertyMapping.getResultSet() != null) {
-      addPendingChildRelation(rs, metaResultObject, propertyMapping); // TODO is that OK?
+      addPendingChildRelation(rsw.getResultSet(), metaResultObject, propertyMapping); // TODO is that OK?
       return DEFERRED;
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      return getColumnValue(rsw, typeHandler, column);
     }
   }
 
+  private Object getColumnValue(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String column) throws SQLException {
+    if (indexedColumnAccess) {
+      final int columnIndex = rsw.getColumnIndex(column);
+      if (columnIndex > 0) {
+        return typeHandler.getResult(rsw.getResultSet(), columnIndex);
+      }
+    }
+    return typeHandler.getResult(rsw.getResultSet(), column);
+  }
+
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap,
       MetaObject metaObject, String columnPrefix) throws SQLException {
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
@@ -579,7 +814,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = getColumnValue(rsw, mapping.typeHandler, mapping.column);
         if (value != null) {
           foundValues = true;
         }
@@ -652,22 +887,51 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     this.useConstructorMappings = false; // reset previous mapping result
     final List<Class<?>> constructorArgTypes = new ArrayList<>();
     final List<Object> constructorArgs = new ArrayList<>();
-    Object resultObject = createResultObject(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
-    if (resultObject != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
-      final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-      for (ResultMapping propertyMapping : propertyMappings) {
-        // issue gcode #109 && issue #149
-        if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
-          resultObject = configuration.getProxyFactory().createProxy(resultObject, lazyLoader, configuration,
-              objectFactory, constructorArgTypes, constructorArgs);
-          break;
-        }
+    final boolean lazy = hasLazyNestedQueries(rsw, resultMap);
+    final boolean directProxy = lazy && configuration.isDirectLazyLoadingProxyEnabled();
+    final ResultLoaderMap previousLazyProxyLoader = this.lazyProxyLoader;
+    this.lazyProxyLoader = directProxy ? lazyLoader : null;
+    Object resultObject;
+    try {
+      resultObject = createResultObject(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
+      // the loader is cleared once the result object was created as a proxy
+      if (resultObject != null && lazy && (!directProxy || this.lazyProxyLoader != null)) {
+        resultObject = configuration.getProxyFactory().createProxy(resultObject, lazyLoader, configuration,
+            objectFactory, constructorArgTypes, constructorArgs);
       }
+    } finally {
+      this.lazyProxyLoader = previousLazyProxyLoader;
     }
     this.useConstructorMappings = resultObject != null && !constructorArgTypes.isEmpty(); // set current mapping result
     return resultObject;
   }
 
+  private boolean hasLazyNestedQueries(ResultSetWrapper rsw, ResultMap resultMap) {
+    if (hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      // issue gcode #109 && issue #149
+      if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Object createLazyProxyResultObject(Class<?> resultType, List<Class<?>> constructorArgTypes,
+      List<Object> constructorArgs) {
+    if (lazyProxyLoader == null || resultType.isInterface()) {
+      return null;
+    }
+    final Object resultObject = configuration.getProxyFactory().createResultProxy(resultType, lazyProxyLoader,
+        configuration, objectFactory, constructorArgTypes, constructorArgs);
+    if (resultObject != null) {
+      lazyProxyLoader = null;
+    }
+    return resultObject;
+  }
+
   private Object createResultObject(ResultSetWrapper rsw, ResultMap resultMap, List<Class<?>> constructorArgTypes,
       List<Object> constructorArgs, String columnPrefix) throws SQLException {
     final Class<?> resultType = resultMap.getType();
@@ -680,7 +944,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs,
           columnPrefix);
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
-      return objectFactory.create(resultType);
+      final Object proxy = createLazyProxyResultObject(resultType, constructorArgTypes, constructorArgs);
+      return proxy != null ? proxy : objectFactory.create(resultType);
     } else if (shouldApplyAutomaticMappings(resultMap, false)) {
       return createByConstructorSignature(rsw, resultMap, columnPrefix, resultType, constructorArgTypes,
           constructorArgs);
@@ -704,7 +969,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getColumnValue(rsw, typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -713,7 +978,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
     }
-    return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
+    if (!foundValues) {
+      return null;
+    }
+    final Object proxy = createLazyProxyResultObject(resultType, constructorArgTypes, constructorArgs);
+    return proxy != null ? proxy : objectFactory.create(resultType, constructorArgTypes, constructorArgs);
   }
 
   private Object createByConstructorSignature(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix,
@@ -770,8 +1039,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       foundValues = applyColumnOrderBasedConstructorAutomapping(rsw, constructorArgTypes, constructorArgs, constructor,
           foundValues);
     }
-    return foundValues || configuration.isReturnInstanceForEmptyRow()
-        ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
+    if (!foundValues && !configuration.isReturnInstanceForEmptyRow()) {
+      return null;
+    }
+    final Object proxy = createLazyProxyResultObject(resultType, constructorArgTypes, constructorArgs);
+    return proxy != null ? proxy : objectFactory.create(resultType, constructorArgTypes, constructorArgs);
   }
 
   private boolean applyColumnOrderBasedConstructorAutomapping(ResultSetWrapper rsw, List<Class<?>> constructorArgTypes,
@@ -780,7 +1052,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       Class<?> parameterType = constructor.getParameterTypes()[i];
       String columnName = rsw.getColumnNames().get(i);
       TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+      Object value = getColumnValue(rsw, typeHandler, columnName);
       constructorArgTypes.add(parameterType);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
@@ -801,7 +1073,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (columnMatchesParam(columnName, paramName, columnPrefix)) {
           Class<?> paramType = param.getType();
           TypeHandler<?> typeHandler = rsw.getTypeHandler(paramType, columnName);
-          Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+          Object value = getColumnValue(rsw, typeHandler, columnName);
           constructorArgTypes.add(paramType);
           constructorArgs.add(value);
           final String mapKey = resultMap.getId() + ":" + columnPrefix;
@@ -851,7 +1123,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getColumnValue(rsw, typeHandler, columnName);
   }
 
   //
@@ -892,15 +1164,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT,
           nestedBoundSql);
       final Class<?> targetType = propertyMapping.getJavaType();
+      final NestedQueryBatch batch = getNestedQueryBatch(propertyMapping, nestedQuery);
       if (executor.isCached(nestedQuery, key)) {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
+      } else if (batch != null) {
+        if (batch.add(nestedQueryParameterObject, metaResultObject)) {
+          batch.load(configuration, executor, new ResultExtractor(configuration, objectFactory));
+        }
+        value = DEFERRED;
       } else {
         final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery,
             nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (parallelLoads != null && isParallelNestedQuery(propertyMapping)) {
+          parallelLoads.add(submitParallelLoad(metaResultObject, property, targetType, key, resultLoader));
+          value = PARALLEL;
         } else {
           value = resultLoader.loadResult();
         }
@@ -909,6 +1190,40 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private ParallelLoad submitParallelLoad(MetaObject metaResultObject, String property, Class<?> targetType,
+      CacheKey key, ResultLoader resultLoader) {
+    // rows with the same key share the result, like the rows that find it in the local cache
+    final ParallelLoad previous = parallelLoadsByKey.get(key);
+    final Future<List<Object>> rows = previous != null && previous.targetType == targetType ? previous.rows
+        : parallelResultLoader.submit(resultLoader);
+    final ParallelLoad load = new ParallelLoad(metaResultObject, property, targetType, resultLoader, rows);
+    parallelLoadsByKey.put(key, load);
+    return load;
+  }
+
+  private NestedQueryBatch getNestedQueryBatch(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+    if (nestedQueryBatches == null || propertyMapping.getBatchSize() <= 0 || propertyMapping.isLazy()
+        || propertyMapping.isCompositeResult()) {
+      return null;
+    }
+    NestedQueryBatch batch = nestedQueryBatches.get(propertyMapping);
+    if (batch == null && !nestedQueryBatches.containsKey(propertyMapping)) {
+      final BatchedNestedQuery batchedQuery = nestedQuery.getBatchedNestedQuery(propertyMapping.getForeignColumn());
+      batch = batchedQuery == null ? null : new NestedQueryBatch(batchedQuery, propertyMapping);
+      nestedQueryBatches.put(propertyMapping, batch);
+    }
+    return batch;
+  }
+
+  private void loadNestedQueryBatches() throws SQLException {
+    final ResultExtractor resultExtractor = new ResultExtractor(configuration, objectFactory);
+    for (NestedQueryBatch batch : nestedQueryBatches.values()) {
+      if (batch != null) {
+        batch.load(configuration, executor, resultExtractor);
+      }
+    }
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType,
       String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
@@ -1006,6 +1321,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     skipRows(resultSet, rowBounds);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      if (sqlTrace != null) {
+        sqlTrace.rowRead();
+      }
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
@@ -1171,7 +1489,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
+          final Object value = getColumnValue(rsw, th, column);
           if (value != null || configuration.isReturnInstanceForEmptyRow()) {
             cacheKey.update(column);
             cacheKey.update(value);
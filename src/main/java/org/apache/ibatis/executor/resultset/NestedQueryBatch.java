@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The parents whose property is loaded by a {@link BatchedNestedQuery}, collected while the rows of the parents are
+ * read.
+ */
+final class NestedQueryBatch {
+
+  private final BatchedNestedQuery query;
+  private final ResultMapping propertyMapping;
+  private final Map<Object, Parents> parents = new LinkedHashMap<>();
+
+  NestedQueryBatch(BatchedNestedQuery query, ResultMapping propertyMapping) {
+    this.query = query;
+    this.propertyMapping = propertyMapping;
+  }
+
+  /**
+   * Adds a parent.
+   *
+   * @param key
+   *          the parameter of the nested select
+   * @param metaResultObject
+   *          the parent
+   *
+   * @return true if the batch is full and should be loaded
+   */
+  boolean add(Object key, MetaObject metaResultObject) {
+    parents.computeIfAbsent(BatchedNestedQuery.normalizeKey(key), k -> new Parents(key)).metaObjects
+        .add(metaResultObject);
+    return parents.size() >= propertyMapping.getBatchSize();
+  }
+
+  /**
+   * Executes the batched query for the collected keys and sets the property of the parents. If the batched query cannot
+   * be used, and for the keys that cannot be batched, the nested select is executed for each key.
+   *
+   * @param configuration
+   *          the configuration
+   * @param executor
+   *          the executor
+   * @param resultExtractor
+   *          the extractor that converts the rows to the property type
+   *
+   * @throws SQLException
+   *           if the query fails
+   */
+  void load(Configuration configuration, Executor executor, ResultExtractor resultExtractor) throws SQLException {
+    if (parents.isEmpty()) {
+      return;
+    }
+    final List<Object> keys = new ArrayList<>(parents.size());
+    for (Map.Entry<Object, Parents> entry : parents.entrySet()) {
+      if (BatchedNestedQuery.isBatchableKey(entry.getKey())) {
+        keys.add(entry.getValue().key);
+      }
+    }
+    final Map<Object, List<Object>> rows = query.isSupported() && !keys.isEmpty() ? query.query(executor, keys) : null;
+    final String property = propertyMapping.getProperty();
+    for (Map.Entry<Object, Parents> entry : parents.entrySet()) {
+      List<Object> values = rows != null && BatchedNestedQuery.isBatchableKey(entry.getKey()) ? rows.get(entry.getKey())
+          : query.queryOne(executor, entry.getValue().key);
+      final Object value = resultExtractor.extractObjectFromList(values == null ? new ArrayList<>() : values,
+          propertyMapping.getJavaType());
+      for (MetaObject metaResultObject : entry.getValue().metaObjects) {
+        if (value != null
+            || configuration.isCallSettersOnNulls() && !metaResultObject.getSetterType(property).isPrimitive()) {
+          metaResultObject.setValue(property, value);
+        }
+      }
+    }
+    parents.clear();
+  }
+
+  private static final class Parents {
+    private final Object key;
+    private final List<MetaObject> metaObjects = new ArrayList<>();
+
+    Parents(Object key) {
+      this.key = key;
+    }
+  }
+
+}
@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The columns of a result set: their names, JDBC types and Java class names as reported by the
+ * {@link ResultSetMetaData}.
+ * <p>
+ * A shape is immutable and can be shared by all the result sets that have the same columns. It resolves column names to
+ * column indexes once and keeps the type handlers that were resolved for its columns, so these lookups are done once
+ * per shape instead of once per result set.
+ *
+ * @since 3.5.12
+ */
+public final class ResultSetShape {
+
+  private final String[] columnNames;
+  private final int[] columnTypes;
+  private final String[] classNames;
+  private final List<String> columnNameList;
+  private final List<String> classNameList;
+  private final List<JdbcType> jdbcTypeList;
+  private final ConcurrentMap<String, Integer> columnIndexes = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Map<Class<?>, TypeHandler<?>>> typeHandlers = new ConcurrentHashMap<>();
+
+  private ResultSetShape(String[] columnNames, int[] columnTypes, String[] classNames) {
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
+    this.classNames = classNames;
+    JdbcType[] jdbcTypes = new JdbcType[columnTypes.length];
+    for (int i = 0; i < columnTypes.length; i++) {
+      jdbcTypes[i] = JdbcType.forCode(columnTypes[i]);
+    }
+    this.columnNameList = Collections.unmodifiableList(Arrays.asList(columnNames));
+    this.classNameList = Collections.unmodifiableList(Arrays.asList(classNames));
+    this.jdbcTypeList = Collections.unmodifiableList(Arrays.asList(jdbcTypes));
+  }
+
+  /**
+   * Reads the shape of a result set.
+   *
+   * @param metaData
+   *          the result set meta data
+   * @param useColumnLabel
+   *          whether the column labels are used instead of the column names
+   *
+   * @return the shape
+   *
+   * @throws SQLException
+   *           if the meta data could not be read
+   */
+  public static ResultSetShape read(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    final int columnCount = metaData.getColumnCount();
+    String[] columnNames = new String[columnCount];
+    int[] columnTypes = new int[columnCount];
+    String[] classNames = new String[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      columnNames[i] = useColumnLabel ? metaData.getColumnLabel(i + 1) : metaData.getColumnName(i + 1);
+      columnTypes[i] = metaData.getColumnType(i + 1);
+      classNames[i] = metaData.getColumnClassName(i + 1);
+    }
+    return new ResultSetShape(columnNames, columnTypes, classNames);
+  }
+
+  public List<String> getColumnNames() {
+    return columnNameList;
+  }
+
+  public List<String> getClassNames() {
+    return classNameList;
+  }
+
+  public List<JdbcType> getJdbcTypes() {
+    return jdbcTypeList;
+  }
+
+  /**
+   * Returns the index of the first column with the given name, ignoring case like the JDBC column lookup does.
+   *
+   * @param columnName
+   *          the column name
+   *
+   * @return the column index starting at 1, or -1 if there is no such column
+   */
+  public int getColumnIndex(String columnName) {
+    if (columnName == null) {
+      return -1;
+    }
+    Integer index = columnIndexes.get(columnName);
+    if (index == null) {
+      index = -1;
+      for (int i = 0; i < columnNames.length; i++) {
+        if (columnNames[i].equalsIgnoreCase(columnName)) {
+          index = i + 1;
+          break;
+        }
+      }
+      columnIndexes.putIfAbsent(columnName, index);
+    }
+    return index;
+  }
+
+  TypeHandler<?> getTypeHandler(Class<?> propertyType, String columnName) {
+    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlers.get(columnName);
+    return columnHandlers == null ? null : columnHandlers.get(propertyType);
+  }
+
+  void putTypeHandler(Class<?> propertyType, String columnName, TypeHandler<?> typeHandler) {
+    Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlers.get(columnName);
+    if (columnHandlers == null) {
+      columnHandlers = new ConcurrentHashMap<>();
+      Map<Class<?>, TypeHandler<?>> existing = typeHandlers.putIfAbsent(columnName, columnHandlers);
+      if (existing != null) {
+        columnHandlers = existing;
+      }
+    }
+    columnHandlers.put(propertyType, typeHandler);
+  }
+
+  private boolean matches(String[] columnNames, int[] columnTypes, String[] classNames) {
+    return Arrays.equals(this.columnNames, columnNames) && Arrays.equals(this.columnTypes, columnTypes)
+        && Arrays.equals(this.classNames, classNames);
+  }
+
+  /**
+   * The shapes of the result sets returned by one statement, so the result sets of later executions can reuse the
+   * column indexes and type handlers resolved for earlier ones.
+   * <p>
+   * Only a few shapes are kept, a statement whose result sets keep changing their columns replaces the oldest one.
+   */
+  public static final class Cache {
+
+    private static final int MAX_SHAPES = 8;
+
+    private volatile ResultSetShape[] shapes = new ResultSetShape[0];
+
+    /**
+     * Returns the shape of a result set, reusing a cached shape with the same columns if there is one.
+     *
+     * @param metaData
+     *          the result set meta data
+     * @param useColumnLabel
+     *          whether the column labels are used instead of the column names
+     *
+     * @return the shape
+     *
+     * @throws SQLException
+     *           if the meta data could not be read
+     */
+    public ResultSetShape get(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+      ResultSetShape shape = read(metaData, useColumnLabel);
+      ResultSetShape[] current = shapes;
+      for (ResultSetShape cached : current) {
+        if (cached.matches(shape.columnNames, shape.columnTypes, shape.classNames)) {
+          return cached;
+        }
+      }
+      ResultSetShape[] updated;
+      if (current.length < MAX_SHAPES) {
+        updated = Arrays.copyOf(current, current.length + 1);
+      } else {
+        updated = new ResultSetShape[MAX_SHAPES];
+        System.arraycopy(current, 1, updated, 0, MAX_SHAPES - 1);
+      }
+      updated[updated.length - 1] = shape;
+      shapes = updated;
+      return shape;
+    }
+
+  }
+
+}
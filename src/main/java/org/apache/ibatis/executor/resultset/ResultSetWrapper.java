@@ -19,7 +19,6 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -43,23 +42,37 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
-  private final List<String> columnNames = new ArrayList<>();
-  private final List<String> classNames = new ArrayList<>();
-  private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  private final ResultSetShape shape;
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, null);
+  }
+
+  /**
+   * Creates a wrapper that reuses the shape of an earlier result set with the same columns.
+   *
+   * @param rs
+   *          the result set
+   * @param configuration
+   *          the configuration
+   * @param shapeCache
+   *          the shapes of the result sets of the statement, may be null
+   *
+   * @throws SQLException
+   *           if the result set meta data could not be read
+   *
+   * @since 3.5.12
+   */
+  public ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetShape.Cache shapeCache)
+      throws SQLException {
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
-    }
+    this.shape = shapeCache == null ? ResultSetShape.read(metaData, configuration.isUseColumnLabel())
+        : shapeCache.get(metaData, configuration.isUseColumnLabel());
   }
 
   public ResultSet getResultSet() {
@@ -67,24 +80,34 @@ public class ResultSetWrapper {
   }
 
   public List<String> getColumnNames() {
-    return this.columnNames;
+    return shape.getColumnNames();
   }
 
   public List<String> getClassNames() {
-    return Collections.unmodifiableList(classNames);
+    return shape.getClassNames();
   }
 
   public List<JdbcType> getJdbcTypes() {
-    return jdbcTypes;
+    return shape.getJdbcTypes();
   }
 
   public JdbcType getJdbcType(String columnName) {
-    for (int i = 0; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-        return jdbcTypes.get(i);
-      }
-    }
-    return null;
+    final int index = shape.getColumnIndex(columnName);
+    return index < 0 ? null : shape.getJdbcTypes().get(index - 1);
+  }
+
+  /**
+   * Returns the index of the first column with the given name, ignoring case like the JDBC column lookup does.
+   *
+   * @param columnName
+   *          the column name
+   *
+   * @return the column index starting at 1, or -1 if the result set has no such column
+   *
+   * @since 3.5.12
+   */
+  public int getColumnIndex(String columnName) {
+    return shape.getColumnIndex(columnName);
   }
 
   /**
@@ -107,14 +130,20 @@ public class ResultSetWrapper {
     } else {
       handler = columnHandlers.get(propertyType);
     }
+    if (handler == null && propertyType != null) {
+      handler = shape.getTypeHandler(propertyType, columnName);
+      if (handler != null) {
+        columnHandlers.put(propertyType, handler);
+      }
+    }
     if (handler == null) {
       JdbcType jdbcType = getJdbcType(columnName);
       handler = typeHandlerRegistry.getTypeHandler(propertyType, jdbcType);
       // Replicate logic of UnknownTypeHandler#resolveTypeHandler
       // See issue #59 comment 10
       if (handler == null || handler instanceof UnknownTypeHandler) {
-        final int index = columnNames.indexOf(columnName);
-        final Class<?> javaType = resolveClass(classNames.get(index));
+        final int index = shape.getColumnNames().indexOf(columnName);
+        final Class<?> javaType = resolveClass(shape.getClassNames().get(index));
         if (javaType != null && jdbcType != null) {
           handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
         } else if (javaType != null) {
@@ -127,6 +156,9 @@ public class ResultSetWrapper {
         handler = new ObjectTypeHandler();
       }
       columnHandlers.put(propertyType, handler);
+      if (propertyType != null) {
+        shape.putTypeHandler(propertyType, columnName, handler);
+      }
     }
     return handler;
   }
@@ -148,7 +180,7 @@ public class ResultSetWrapper {
     List<String> unmappedColumnNames = new ArrayList<>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
     final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
-    for (String columnName : columnNames) {
+    for (String columnName : shape.getColumnNames()) {
       final String upperColumnName = columnName.toUpperCase(Locale.ENGLISH);
       if (mappedColumns.contains(upperColumnName)) {
         mappedColumnNames.add(upperColumnName);
@@ -0,0 +1,275 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.SetterInvoker;
+import org.apache.ibatis.type.BooleanTypeHandler;
+import org.apache.ibatis.type.DoubleTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The mapping of a simple result map to the columns of one result set, compiled once and applied to every row.
+ * <p>
+ * Each mapped column is read by its index and written with the setter cached by the reflector, or put into the map for
+ * map results, so mapping a row needs neither column name lookups nor a {@code MetaObject}. Columns of {@code int},
+ * {@code long}, {@code double} and {@code boolean} properties that use the built-in type handlers are read and written
+ * without boxing. The automatic mappings are applied before the property mappings, in the same order as the regular
+ * mapping does.
+ *
+ * @since 3.5.12
+ */
+final class RowMappingPlan {
+
+  private final ResultSetWrapper resultSetWrapper;
+  private final Class<?> resultClass;
+  private final ColumnMapping[] columnMappings;
+
+  /**
+   * Creates a plan that cannot be applied, so the rows of the result set are mapped the regular way.
+   *
+   * @param resultSetWrapper
+   *          the result set
+   */
+  RowMappingPlan(ResultSetWrapper resultSetWrapper) {
+    this(resultSetWrapper, null, new ColumnMapping[0]);
+  }
+
+  /**
+   * Creates a plan.
+   *
+   * @param resultSetWrapper
+   *          the result set
+   * @param resultClass
+   *          the class of the result objects
+   * @param columnMappings
+   *          the mapped columns in the order they are applied
+   */
+  RowMappingPlan(ResultSetWrapper resultSetWrapper, Class<?> resultClass, ColumnMapping[] columnMappings) {
+    this.resultSetWrapper = resultSetWrapper;
+    this.resultClass = resultClass;
+    this.columnMappings = columnMappings;
+  }
+
+  boolean isFor(ResultSetWrapper rsw) {
+    return resultSetWrapper == rsw;
+  }
+
+  boolean isApplicable() {
+    return resultClass != null;
+  }
+
+  boolean isApplicableTo(Object rowValue) {
+    return rowValue.getClass() == resultClass;
+  }
+
+  /**
+   * Maps the current row of the result set to a result object.
+   *
+   * @param rs
+   *          the result set
+   * @param rowValue
+   *          the result object
+   *
+   * @return true if a not null value was found in any mapped column
+   *
+   * @throws SQLException
+   *           if a column could not be read
+   */
+  boolean apply(ResultSet rs, Object rowValue) throws SQLException {
+    boolean foundValues = false;
+    for (ColumnMapping columnMapping : columnMappings) {
+      foundValues = columnMapping.apply(rs, rowValue) || foundValues;
+    }
+    return foundValues;
+  }
+
+  private enum PrimitiveColumn {
+    INT, LONG, DOUBLE, BOOLEAN
+  }
+
+  static final class ColumnMapping {
+
+    private final int columnIndex;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final Invoker setter;
+    private final boolean callSetterOnNull;
+    private final PrimitiveColumn primitiveColumn;
+
+    /**
+     * Creates a column mapping.
+     *
+     * @param columnIndex
+     *          the index of the column, starting at 1
+     * @param typeHandler
+     *          the type handler that reads the column
+     * @param property
+     *          the property name
+     * @param setter
+     *          the setter of the property, or null to put the value into a map
+     * @param callSetterOnNull
+     *          whether null values are written as well
+     */
+    ColumnMapping(int columnIndex, TypeHandler<?> typeHandler, String property, Invoker setter,
+        boolean callSetterOnNull) {
+      this.columnIndex = columnIndex;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.setter = setter;
+      this.callSetterOnNull = callSetterOnNull;
+      this.primitiveColumn = setter instanceof SetterInvoker ? primitiveColumn(setter.getType(), typeHandler) : null;
+    }
+
+    private static PrimitiveColumn primitiveColumn(Class<?> type, TypeHandler<?> typeHandler) {
+      // only the built-in handlers are known to read the column with the matching primitive getter
+      final Class<?> handlerType = typeHandler.getClass();
+      if (type == int.class && handlerType == IntegerTypeHandler.class) {
+        return PrimitiveColumn.INT;
+      }
+      if (type == long.class && handlerType == LongTypeHandler.class) {
+        return PrimitiveColumn.LONG;
+      }
+      if (type == double.class && handlerType == DoubleTypeHandler.class) {
+        return PrimitiveColumn.DOUBLE;
+      }
+      if (type == boolean.class && handlerType == BooleanTypeHandler.class) {
+        return PrimitiveColumn.BOOLEAN;
+      }
+      return null;
+    }
+
+    /**
+     * Maps the column of the current row.
+     *
+     * @param rs
+     *          the result set
+     * @param rowValue
+     *          the result object
+     *
+     * @return true if the column is not null
+     *
+     * @throws SQLException
+     *           if the column could not be read
+     */
+    boolean apply(ResultSet rs, Object rowValue) throws SQLException {
+      final Object value;
+      if (primitiveColumn == null) {
+        value = typeHandler.getResult(rs, columnIndex);
+      } else if (setPrimitive(rs, rowValue)) {
+        return true;
+      } else {
+        value = null;
+      }
+      if (value != null || callSetterOnNull) {
+        setValue(rowValue, value);
+      }
+      return value != null;
+    }
+
+    private boolean setPrimitive(ResultSet rs, Object rowValue) {
+      final SetterInvoker setter = (SetterInvoker) this.setter;
+      try {
+        switch (primitiveColumn) {
+          case INT: {
+            final int result = rs.getInt(columnIndex);
+            if (result == 0 && rs.wasNull()) {
+              return false;
+            }
+            try {
+              setter.setInt(rowValue, result);
+            } catch (Throwable t) {
+              throw setterFailed(rowValue, result, t);
+            }
+            return true;
+          }
+          case LONG: {
+            final long result = rs.getLong(columnIndex);
+            if (result == 0 && rs.wasNull()) {
+              return false;
+            }
+            try {
+              setter.setLong(rowValue, result);
+            } catch (Throwable t) {
+              throw setterFailed(rowValue, result, t);
+            }
+            return true;
+          }
+          case DOUBLE: {
+            final double result = rs.getDouble(columnIndex);
+            if (result == 0 && rs.wasNull()) {
+              return false;
+            }
+            try {
+              setter.setDouble(rowValue, result);
+            } catch (Throwable t) {
+              throw setterFailed(rowValue, result, t);
+            }
+            return true;
+          }
+          default: {
+            final boolean result = rs.getBoolean(columnIndex);
+            if (!result && rs.wasNull()) {
+              return false;
+            }
+            try {
+              setter.setBoolean(rowValue, result);
+            } catch (Throwable t) {
+              throw setterFailed(rowValue, result, t);
+            }
+            return true;
+          }
+        }
+      } catch (SQLException e) {
+        throw new ResultMapException(
+            "Error attempting to get column #" + columnIndex + " from result set.  Cause: " + e, e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setValue(Object rowValue, Object value) {
+      if (setter == null) {
+        ((Map<String, Object>) rowValue).put(property, value);
+        return;
+      }
+      try {
+        if (setter instanceof SetterInvoker) {
+          ((SetterInvoker) setter).set(rowValue, value);
+        } else {
+          setter.invoke(rowValue, new Object[] { value });
+        }
+      } catch (Throwable t) {
+        throw setterFailed(rowValue, value, t);
+      }
+    }
+
+    private ReflectionException setterFailed(Object rowValue, Object value, Throwable t) {
+      final Throwable cause = ExceptionUtil.unwrapThrowable(t);
+      return new ReflectionException("Could not set property '" + property + "' of '" + rowValue.getClass()
+          + "' with value '" + value + "' Cause: " + cause.toString(), cause);
+    }
+  }
+
+}
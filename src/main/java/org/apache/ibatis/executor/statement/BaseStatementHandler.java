@@ -18,7 +18,9 @@ package org.apache.ibatis.executor.statement;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
@@ -27,6 +29,8 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -49,13 +53,14 @@ public abstract class BaseStatementHandler implements StatementHandler {
   protected final RowBounds rowBounds;
 
   protected BoundSql boundSql;
+  private final int pageSize;
+  protected final SqlTrace sqlTrace;
 
   protected BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject,
       RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
     this.configuration = mappedStatement.getConfiguration();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
-    this.rowBounds = rowBounds;
 
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
@@ -65,7 +70,20 @@ public abstract class BaseStatementHandler implements StatementHandler {
       boundSql = mappedStatement.getBoundSql(parameterObject);
     }
 
+    String pagedSql = getPagedSql(boundSql, rowBounds);
+    if (pagedSql != null) {
+      // the database returns only the rows of the page, so the result set handler must not skip or limit them
+      boundSql = paginate(boundSql, pagedSql);
+      this.pageSize = rowBounds.getLimit();
+      rowBounds = RowBounds.DEFAULT;
+    } else {
+      this.pageSize = RowBounds.NO_ROW_LIMIT;
+    }
+
+    this.rowBounds = rowBounds;
     this.boundSql = boundSql;
+    this.sqlTrace = SqlTrace.sample(mappedStatement);
+    boundSql.setSqlTrace(sqlTrace);
 
     this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
     this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, parameterHandler,
@@ -85,6 +103,9 @@ public abstract class BaseStatementHandler implements StatementHandler {
   @Override
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
+    if (sqlTrace != null) {
+      sqlTrace.prepared(boundSql.getSql());
+    }
     Statement statement = null;
     try {
       // 首先实例化语句，因为PREPARE和非PREPARE不同,所以留给具体子类实现
@@ -127,7 +148,39 @@ public abstract class BaseStatementHandler implements StatementHandler {
     Integer defaultFetchSize = configuration.getDefaultFetchSize();
     if (defaultFetchSize != null) {
       stmt.setFetchSize(defaultFetchSize);
+    } else if (pageSize != RowBounds.NO_ROW_LIMIT) {
+      stmt.setFetchSize(pageSize);
+    }
+  }
+
+  private String getPagedSql(BoundSql boundSql, RowBounds rowBounds) {
+    if (!configuration.isDatabasePaginationEnabled() || rowBounds == null
+        || rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT
+        || mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+        || mappedStatement.getStatementType() == StatementType.CALLABLE || mappedStatement.hasNestedResultMaps()
+        || mappedStatement.getResultSets() != null) {
+      return null;
+    }
+    Dialect dialect;
+    try {
+      dialect = configuration.getPaginationDialect();
+      if (dialect == null) {
+        dialect = configuration.resolvePaginationDialect(executor.getTransaction().getConnection());
+      }
+    } catch (SQLException e) {
+      // the rows are skipped on the client, preparing the statement will report the error
+      return null;
+    }
+    return dialect == null ? null : dialect.getPagedSql(boundSql.getSql(), rowBounds.getOffset(), rowBounds.getLimit());
+  }
+
+  private BoundSql paginate(BoundSql boundSql, String pagedSql) {
+    BoundSql pagedBoundSql = new BoundSql(configuration, pagedSql, boundSql.getParameterMappings(),
+        boundSql.getParameterObject());
+    for (Map.Entry<String, Object> additionalParameter : boundSql.getAdditionalParameters().entrySet()) {
+      pagedBoundSql.getAdditionalParameters().put(additionalParameter.getKey(), additionalParameter.getValue());
     }
+    return pagedBoundSql;
   }
 
   protected void closeStatement(Statement statement) {
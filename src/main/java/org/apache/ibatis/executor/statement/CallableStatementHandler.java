@@ -50,6 +50,9 @@ public class CallableStatementHandler extends BaseStatementHandler {
     CallableStatement cs = (CallableStatement) statement;
     cs.execute();
     int rows = cs.getUpdateCount();
+    if (sqlTrace != null) {
+      sqlTrace.rowsUpdated(rows);
+    }
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
     keyGenerator.processAfter(executor, mappedStatement, cs, parameterObject);
@@ -94,6 +97,9 @@ public class CallableStatementHandler extends BaseStatementHandler {
   public void parameterize(Statement statement) throws SQLException {
     registerOutputParameters((CallableStatement) statement);
     parameterHandler.setParameters((CallableStatement) statement);
+    if (sqlTrace != null) {
+      sqlTrace.parameterized(boundSql);
+    }
   }
 
   private void registerOutputParameters(CallableStatement cs) throws SQLException {
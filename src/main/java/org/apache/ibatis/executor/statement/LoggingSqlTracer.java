@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.StringJoiner;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * A {@link SqlTracer} that writes the statements to the statement log of each mapped statement in the same format as
+ * the JDBC logging proxies, without wrapping the connection, the statements and the result sets.
+ * <p>
+ * Unlike the proxies it does not log the column values of the result sets, and nested statements are not indented.
+ *
+ * @since 3.5.12
+ */
+public class LoggingSqlTracer implements SqlTracer {
+
+  @Override
+  public void prepared(MappedStatement mappedStatement, String sql) {
+    Log log = mappedStatement.getStatementLog();
+    if (log.isDebugEnabled()) {
+      log.debug("==>  Preparing: " + SqlSourceBuilder.removeExtraWhitespaces(sql));
+    }
+  }
+
+  @Override
+  public void parameterized(MappedStatement mappedStatement, Object[] values) {
+    Log log = mappedStatement.getStatementLog();
+    if (log.isDebugEnabled()) {
+      StringJoiner parameters = new StringJoiner(", ");
+      for (Object value : values) {
+        parameters.add(value == null ? "null" : valueString(value) + "(" + value.getClass().getSimpleName() + ")");
+      }
+      log.debug("==> Parameters: " + parameters);
+    }
+  }
+
+  @Override
+  public void rowsRead(MappedStatement mappedStatement, int rows) {
+    Log log = mappedStatement.getStatementLog();
+    if (log.isDebugEnabled()) {
+      log.debug("<==      Total: " + rows);
+    }
+  }
+
+  @Override
+  public void rowsUpdated(MappedStatement mappedStatement, int rows) {
+    Log log = mappedStatement.getStatementLog();
+    if (log.isDebugEnabled()) {
+      log.debug("<==    Updates: " + rows);
+    }
+  }
+
+  private static String valueString(Object value) {
+    if (value instanceof Array) {
+      try {
+        return ArrayUtil.toString(((Array) value).getArray());
+      } catch (SQLException e) {
+        // fall through to return value.toString()
+      }
+    }
+    return value.toString();
+  }
+
+}
@@ -47,6 +47,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
     PreparedStatement ps = (PreparedStatement) statement;
     ps.execute();
     int rows = ps.getUpdateCount();
+    if (sqlTrace != null) {
+      sqlTrace.rowsUpdated(rows);
+    }
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
     keyGenerator.processAfter(executor, mappedStatement, ps, parameterObject);
@@ -96,6 +99,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public void parameterize(Statement statement) throws SQLException {
     parameterHandler.setParameters((PreparedStatement) statement);
+    if (sqlTrace != null) {
+      sqlTrace.parameterized(boundSql);
+    }
   }
 
 }
@@ -60,6 +60,9 @@ public class SimpleStatementHandler extends BaseStatementHandler {
       statement.execute(sql);
       rows = statement.getUpdateCount();
     }
+    if (sqlTrace != null) {
+      sqlTrace.rowsUpdated(rows);
+    }
     return rows;
   }
 
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The trace of one statement execution that was picked by the sampling of the {@link SqlTracer}.
+ * <p>
+ * It is created by the statement handler and attached to the {@link BoundSql} so the result set handler of the same
+ * execution can count the rows it maps.
+ *
+ * @since 3.5.12
+ */
+public final class SqlTrace {
+
+  private final SqlTracer tracer;
+  private final MappedStatement mappedStatement;
+  private int rowCount;
+
+  private SqlTrace(SqlTracer tracer, MappedStatement mappedStatement) {
+    this.tracer = tracer;
+    this.mappedStatement = mappedStatement;
+  }
+
+  /**
+   * Starts the trace of a statement execution if SQL tracing is enabled and the execution is sampled.
+   *
+   * @param mappedStatement
+   *          the mapped statement
+   *
+   * @return the trace, or {@code null} if the execution is not traced
+   */
+  static SqlTrace sample(MappedStatement mappedStatement) {
+    Configuration configuration = mappedStatement.getConfiguration();
+    SqlTracer tracer = configuration.getSqlTracer();
+    if (tracer == null) {
+      return null;
+    }
+    double sampleRate = configuration.getSqlTraceSampleRate();
+    if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return null;
+    }
+    return new SqlTrace(tracer, mappedStatement);
+  }
+
+  void prepared(String sql) {
+    tracer.prepared(mappedStatement, sql);
+  }
+
+  void parameterized(BoundSql boundSql) {
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    Object[] values = mappedStatement.getParameterValues(boundSql, boundSql.getParameterObject());
+    int count = 0;
+    for (ParameterMapping parameterMapping : parameterMappings) {
+      if (parameterMapping.getMode() != ParameterMode.OUT) {
+        count++;
+      }
+    }
+    Object[] inValues = new Object[count];
+    for (int i = 0, j = 0; i < values.length; i++) {
+      if (parameterMappings.get(i).getMode() != ParameterMode.OUT) {
+        inValues[j++] = values[i];
+      }
+    }
+    tracer.parameterized(mappedStatement, inValues);
+  }
+
+  void rowsUpdated(int rows) {
+    tracer.rowsUpdated(mappedStatement, rows);
+  }
+
+  /**
+   * Counts a row that was mapped by the result set handler.
+   */
+  public void rowRead() {
+    rowCount++;
+  }
+
+  /**
+   * Reports the rows that were mapped by the result set handler.
+   */
+  public void rowsRead() {
+    tracer.rowsRead(mappedStatement, rowCount);
+  }
+
+}
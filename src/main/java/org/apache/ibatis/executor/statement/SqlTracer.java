@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Receives the SQL text, the bind values and the row counts of the executed statements.
+ * <p>
+ * The methods are called by the statement and result set handlers on the thread that executes the statement, in the
+ * order prepared, parameterized and rows read or rows updated. An execution that fails stops reporting at the step that
+ * failed. Implementations must be thread safe.
+ *
+ * @since 3.5.12
+ *
+ * @see org.apache.ibatis.session.Configuration#setSqlTracer(SqlTracer)
+ */
+public interface SqlTracer {
+
+  /**
+   * Called before a statement is prepared.
+   *
+   * @param mappedStatement
+   *          the mapped statement
+   * @param sql
+   *          the SQL text
+   */
+  void prepared(MappedStatement mappedStatement, String sql);
+
+  /**
+   * Called after the parameters of a prepared or callable statement have been set.
+   *
+   * @param mappedStatement
+   *          the mapped statement
+   * @param values
+   *          the values of the IN and INOUT parameters in order
+   */
+  void parameterized(MappedStatement mappedStatement, Object[] values);
+
+  /**
+   * Called after the result sets of a query have been handled.
+   *
+   * @param mappedStatement
+   *          the mapped statement
+   * @param rows
+   *          the number of rows that were mapped
+   */
+  void rowsRead(MappedStatement mappedStatement, int rows);
+
+  /**
+   * Called after an update has been executed.
+   *
+   * @param mappedStatement
+   *          the mapped statement
+   * @param rows
+   *          the update count
+   */
+  void rowsUpdated(MappedStatement mappedStatement, int rows);
+
+}
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.executor.statement.SqlTrace;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.session.Configuration;
@@ -41,6 +42,10 @@ public class BoundSql {
   private final Object parameterObject;// 运行时参数对象
   private final Map<String, Object> additionalParameters; // 额外参数，也就是for loops、bind生成的
   private final MetaObject metaParameters; // 额外参数的facade模式包装
+  private Object resolvedParameterObject;
+  private ParameterExtractionPlan resolvedParameterPlan;
+  private Object[] resolvedParameterValues;
+  private SqlTrace sqlTrace;
 
   public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings,
       Object parameterObject) {
@@ -64,12 +69,13 @@ public class BoundSql {
   }
 
   public boolean hasAdditionalParameter(String name) {
-    String paramName = new PropertyTokenizer(name).getName();
+    String paramName = PropertyTokenizer.of(name).getName();
     return additionalParameters.containsKey(paramName);
   }
 
   public void setAdditionalParameter(String name, Object value) {
     metaParameters.setValue(name, value);
+    resolvedParameterValues = null;
   }
 
   public Object getAdditionalParameter(String name) {
@@ -79,4 +85,37 @@ public class BoundSql {
   public Map<String, Object> getAdditionalParameters() {
     return additionalParameters;
   }
+
+  Object[] getResolvedParameterValues(Object parameterObject, ParameterExtractionPlan plan) {
+    return resolvedParameterObject == parameterObject && resolvedParameterPlan == plan ? resolvedParameterValues : null;
+  }
+
+  void setResolvedParameterValues(Object parameterObject, ParameterExtractionPlan plan, Object[] values) {
+    this.resolvedParameterObject = parameterObject;
+    this.resolvedParameterPlan = plan;
+    this.resolvedParameterValues = values;
+  }
+
+  /**
+   * Gets the trace of the current execution of this SQL.
+   *
+   * @return the trace, or {@code null} if the execution is not traced
+   *
+   * @since 3.5.12
+   */
+  public SqlTrace getSqlTrace() {
+    return sqlTrace;
+  }
+
+  /**
+   * Sets the trace of the current execution of this SQL.
+   *
+   * @param sqlTrace
+   *          the trace, or {@code null} if the execution is not traced
+   *
+   * @since 3.5.12
+   */
+  public void setSqlTrace(SqlTrace sqlTrace) {
+    this.sqlTrace = sqlTrace;
+  }
 }
@@ -18,15 +18,23 @@ package org.apache.ibatis.mapping;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CompactCacheKey;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.resultset.BatchedNestedQuery;
+import org.apache.ibatis.executor.resultset.ResultSetShape;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * mapper文件或者mapper接口中每个映射语句都对应一个MappedStatement实例，
@@ -35,6 +43,8 @@ import org.apache.ibatis.session.Configuration;
  */
 public final class MappedStatement {
 
+  private static final int PARAMETER_EXTRACTION_PLAN_SLOTS = 4;
+
   private String resource;
   private Configuration configuration;
   private String id;
@@ -59,6 +69,12 @@ public final class MappedStatement {
   private LanguageDriver lang;
   private String[] resultSets;
   private boolean dirtySelect;
+  private volatile CompactCacheKey.Shape cacheKeyShape;
+  private final AtomicReferenceArray<ParameterExtractionPlan> parameterExtractionPlans = new AtomicReferenceArray<>(
+      PARAMETER_EXTRACTION_PLAN_SLOTS);
+  private final AtomicInteger nextParameterExtractionPlanSlot = new AtomicInteger();
+  private final ResultSetShape.Cache resultSetShapeCache = new ResultSetShape.Cache();
+  private final ConcurrentMap<String, BatchedNestedQuery> batchedNestedQueries = new ConcurrentHashMap<>();
 
   MappedStatement() {
     // constructor disabled
@@ -319,6 +335,112 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Gets the part of the cache key that only depends on this statement and the generated SQL. The last shape is kept
+   * and reused as long as the same SQL instance is generated, which is always the case for static SQL.
+   *
+   * @param sql
+   *          the generated SQL
+   * @param environmentId
+   *          the environment id, may be null
+   *
+   * @return the shape
+   *
+   * @since 3.5.12
+   */
+  public CompactCacheKey.Shape getCacheKeyShape(String sql, String environmentId) {
+    CompactCacheKey.Shape shape = cacheKeyShape;
+    if (shape == null || !shape.isFor(sql, environmentId)) {
+      shape = new CompactCacheKey.Shape(id, sql, environmentId);
+      cacheKeyShape = shape;
+    }
+    return shape;
+  }
+
+  /**
+   * Gets the shapes of the result sets returned by this statement, so the column indexes and type handlers resolved for
+   * a result set are reused by later executions that return the same columns.
+   *
+   * @return the result set shape cache
+   *
+   * @since 3.5.12
+   */
+  public ResultSetShape.Cache getResultSetShapeCache() {
+    return resultSetShapeCache;
+  }
+
+  /**
+   * Gets the form of this statement that is executed as a nested select for several keys at once. It is created once
+   * per key column.
+   *
+   * @param keyColumn
+   *          the column of the rows that holds the key, or {@code null} to use the column that is compared with the
+   *          parameter
+   *
+   * @return the batched query, or {@code null} if this statement cannot be executed for several keys
+   *
+   * @since 3.5.12
+   */
+  public BatchedNestedQuery getBatchedNestedQuery(String keyColumn) {
+    BatchedNestedQuery query = MapUtil.computeIfAbsent(batchedNestedQueries, keyColumn == null ? "" : keyColumn,
+        k -> BatchedNestedQuery.create(this, keyColumn));
+    return query.isSupported() ? query : null;
+  }
+
+  /**
+   * Gets the values of the parameter mappings of the bound SQL. The values are resolved once per bound SQL, parameter
+   * object and parameter mapping list, so building the cache key and tracing the statement share them. They are
+   * resolved again when an additional parameter is set, or when an interceptor replaces the parameter object, the bound
+   * SQL or its parameter mappings.
+   *
+   * @param boundSql
+   *          the bound SQL
+   * @param parameterObject
+   *          the parameter object
+   *
+   * @return the values in mapping order, with null at the positions of OUT parameters. The array must not be
+   *         modified.
+   *
+   * @since 3.5.12
+   */
+  public Object[] getParameterValues(BoundSql boundSql, Object parameterObject) {
+    ParameterExtractionPlan plan = getParameterExtractionPlan(boundSql.getParameterMappings(), parameterObject);
+    Object[] values = boundSql.getResolvedParameterValues(parameterObject, plan);
+    if (values == null) {
+      values = plan.extract(boundSql, parameterObject);
+      boundSql.setResolvedParameterValues(parameterObject, plan, values);
+    }
+    return values;
+  }
+
+  /**
+   * Gets the parameter extraction plan for the given mappings and parameter object. A few plans are kept per statement,
+   * so statements that are called with different parameter types or with several mapping lists keep reusing them.
+   *
+   * @param parameterMappings
+   *          the parameter mappings
+   * @param parameterObject
+   *          the parameter object
+   *
+   * @return the plan
+   *
+   * @since 3.5.12
+   */
+  public ParameterExtractionPlan getParameterExtractionPlan(List<ParameterMapping> parameterMappings,
+      Object parameterObject) {
+    Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+    for (int i = 0; i < PARAMETER_EXTRACTION_PLAN_SLOTS; i++) {
+      ParameterExtractionPlan plan = parameterExtractionPlans.get(i);
+      if (plan != null && plan.isFor(parameterMappings, parameterType)) {
+        return plan;
+      }
+    }
+    ParameterExtractionPlan plan = new ParameterExtractionPlan(configuration, parameterMappings, parameterType);
+    parameterExtractionPlans.set(
+        Math.floorMod(nextParameterExtractionPlanSlot.getAndIncrement(), PARAMETER_EXTRACTION_PLAN_SLOTS), plan);
+    return plan;
+  }
+
   public BoundSql getBoundSql(Object parameterObject) {
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
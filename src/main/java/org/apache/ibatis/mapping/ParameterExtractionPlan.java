@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Resolves the values of a list of parameter mappings from a parameter object.
+ * <p>
+ * The plan is compiled once for a parameter mapping list and a parameter type: the decision whether the parameter
+ * object itself is the value and the root names used to look up additional parameters are computed up front. The values
+ * of one execution are resolved in a single pass that creates at most one {@link MetaObject}.
+ *
+ * @since 3.5.12
+ *
+ * @see MappedStatement#getParameterValues(BoundSql, Object)
+ */
+public final class ParameterExtractionPlan {
+
+  private static final Object[] NO_VALUES = {};
+
+  private final Configuration configuration;
+  private final List<ParameterMapping> parameterMappings;
+  private final ParameterMapping[] mappings;
+  private final Class<?> parameterType;
+  private final boolean parameterIsValue;
+  private final String[] properties;
+  private final PropertyTokenizer[] paths;
+  private final boolean[] outputs;
+  private final boolean hasOutputs;
+
+  /**
+   * Compiles a plan.
+   *
+   * @param configuration
+   *          the configuration
+   * @param parameterMappings
+   *          the parameter mappings, may be null
+   * @param parameterType
+   *          the type of the parameter object, or null if it is null
+   */
+  public ParameterExtractionPlan(Configuration configuration, List<ParameterMapping> parameterMappings,
+      Class<?> parameterType) {
+    this.configuration = configuration;
+    this.parameterMappings = parameterMappings;
+    this.parameterType = parameterType;
+    this.parameterIsValue = parameterType != null
+        && configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType);
+    int size = parameterMappings == null ? 0 : parameterMappings.size();
+    this.mappings = new ParameterMapping[size];
+    this.properties = new String[size];
+    this.paths = new PropertyTokenizer[size];
+    this.outputs = new boolean[size];
+    boolean anyOutput = false;
+    for (int i = 0; i < size; i++) {
+      ParameterMapping parameterMapping = parameterMappings.get(i);
+      mappings[i] = parameterMapping;
+      properties[i] = parameterMapping.getProperty();
+      paths[i] = PropertyTokenizer.of(properties[i]);
+      outputs[i] = parameterMapping.getMode() == ParameterMode.OUT;
+      anyOutput |= outputs[i];
+    }
+    this.hasOutputs = anyOutput;
+  }
+
+  /**
+   * Returns whether this plan was compiled for the given mappings and parameter type. The mapping list must be the same
+   * instance and still hold the same mappings, as interceptors may add or replace mappings of a bound SQL.
+   *
+   * @param parameterMappings
+   *          the parameter mappings
+   * @param parameterType
+   *          the type of the parameter object
+   *
+   * @return true if the plan can be used for them
+   */
+  public boolean isFor(List<ParameterMapping> parameterMappings, Class<?> parameterType) {
+    if (this.parameterMappings != parameterMappings || this.parameterType != parameterType) {
+      return false;
+    }
+    int size = parameterMappings == null ? 0 : parameterMappings.size();
+    if (size != mappings.length) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (parameterMappings.get(i) != mappings[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether any of the mappings is an OUT parameter.
+   *
+   * @return true if a mapping is an OUT parameter
+   */
+  public boolean hasOutputParameters() {
+    return hasOutputs;
+  }
+
+  /**
+   * Resolves the values of all mappings in the same way DefaultParameterHandler always did: additional parameters of
+   * the bound SQL first, then the parameter object itself if it has a type handler, then its properties.
+   *
+   * @param boundSql
+   *          the bound SQL that holds the additional parameters
+   * @param parameterObject
+   *          the parameter object
+   *
+   * @return the values in mapping order, with null at the positions of OUT parameters
+   */
+  public Object[] extract(BoundSql boundSql, Object parameterObject) {
+    if (properties.length == 0) {
+      return NO_VALUES;
+    }
+    Map<String, Object> additionalParameters = boundSql.getAdditionalParameters();
+    boolean hasAdditionalParameters = additionalParameters != null && !additionalParameters.isEmpty();
+    Object[] values = new Object[properties.length];
+    MetaObject metaObject = null;
+    for (int i = 0; i < properties.length; i++) {
+      if (outputs[i]) {
+        continue;
+      }
+      Object value;
+      // issue #448 ask first for additional params
+      if (hasAdditionalParameters && additionalParameters.containsKey(paths[i].getName())) {
+        value = boundSql.getAdditionalParameter(properties[i]);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (parameterIsValue) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(paths[i]);
+      }
+      values[i] = value;
+    }
+    return values;
+  }
+
+}
@@ -45,6 +45,7 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private int batchSize;
 
   ResultMapping() {
   }
@@ -132,6 +133,21 @@ public class ResultMapping {
       return this;
     }
 
+    /**
+     * Sets the number of parent rows whose nested select is executed as one query.
+     *
+     * @param batchSize
+     *          the batch size, or 0 to execute the nested select for each row
+     *
+     * @return this builder
+     *
+     * @since 3.5.12
+     */
+    public Builder batchSize(int batchSize) {
+      resultMapping.batchSize = batchSize;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -255,6 +271,21 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  /**
+   * Gets the number of parent rows whose eager nested select is executed as one query. The keys of the rows are
+   * collected and passed to a single query in which the comparison of the key column with the parameter is replaced by
+   * an {@code IN} list, and the rows of that query are distributed to the parents by the {@link #getForeignColumn()
+   * foreign column}, or by the compared column if none is set. Nested selects that may return other rows for a list of
+   * keys are still executed for each row.
+   *
+   * @return the batch size, or 0 if the nested select is executed for each row
+   *
+   * @since 3.5.12
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
   public boolean isSimple() {
     return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
   }
@@ -303,6 +334,7 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", batchSize=").append(batchSize);
     sb.append('}');
     return sb.toString();
   }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2022 the original author or authors.
+ *    Copyright 2009-2023 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -25,8 +25,13 @@ import java.util.List;
 public class InterceptorChain {
 
   private final List<Interceptor> interceptors = new ArrayList<>();
+  private boolean staticPipelineEnabled;
+  private volatile PluginPipeline pipeline;
 
   public Object pluginAll(Object target) {
+    if (staticPipelineEnabled && !interceptors.isEmpty()) {
+      return getPipeline().wrap(target);
+    }
     for (Interceptor interceptor : interceptors) {
       target = interceptor.plugin(target);
     }
@@ -35,10 +40,45 @@ public class InterceptorChain {
 
   public void addInterceptor(Interceptor interceptor) {
     interceptors.add(interceptor);
+    pipeline = null;
   }
 
   public List<Interceptor> getInterceptors() {
     return Collections.unmodifiableList(interceptors);
   }
 
+  /**
+   * Returns whether the interceptors are applied with one wrapper per target that is resolved once per target class,
+   * instead of one proxy per interceptor.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isStaticPipelineEnabled() {
+    return staticPipelineEnabled;
+  }
+
+  /**
+   * Sets whether the interceptors are applied with one wrapper per target that is resolved once per target class,
+   * instead of one proxy per interceptor.
+   *
+   * @param staticPipelineEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setStaticPipelineEnabled(boolean staticPipelineEnabled) {
+    this.staticPipelineEnabled = staticPipelineEnabled;
+  }
+
+  private PluginPipeline getPipeline() {
+    PluginPipeline current = pipeline;
+    if (current == null) {
+      current = new PluginPipeline(interceptors);
+      pipeline = current;
+    }
+    return current;
+  }
+
 }
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * An {@link Invocation} created by a {@link PluginPipeline}. {@link #proceed()} calls the next interceptor of the
+ * method, or the target after the last one, and reports exceptions the same way a chain of {@link Plugin} proxies does.
+ *
+ * @since 3.5.12
+ */
+final class PipelineInvocation extends Invocation {
+
+  private final Interceptor[] interceptors;
+  private final int index;
+  private final TargetCall targetCall;
+
+  PipelineInvocation(Object target, Method method, Object[] args, Interceptor[] interceptors, int index,
+      TargetCall targetCall) {
+    super(target, method, args);
+    this.interceptors = interceptors;
+    this.index = index;
+    this.targetCall = targetCall;
+  }
+
+  @Override
+  public Object proceed() throws InvocationTargetException, IllegalAccessException {
+    int next = index + 1;
+    if (next < interceptors.length) {
+      try {
+        return interceptors[next]
+            .intercept(new PipelineInvocation(getTarget(), getMethod(), getArgs(), interceptors, next, targetCall));
+      } catch (Throwable t) {
+        // what Method.invoke() throws when the proxy of the next interceptor throws
+        throw new InvocationTargetException(PluginPipeline.thrownByProxy(getMethod(), t));
+      }
+    }
+    try {
+      return targetCall.call(getArgs());
+    } catch (InvocationTargetException | IllegalAccessException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  /**
+   * Calls the intercepted method on the target.
+   */
+  @FunctionalInterface
+  interface TargetCall {
+    Object call(Object[] args) throws Throwable;
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.SQLException;
+
+/**
+ * Base class of the delegating wrappers a {@link PluginPipeline} creates for the statement level handlers. The
+ * interceptors of each method of the handler interface are looked up by index, so a method that is not intercepted is a
+ * plain call of the target.
+ *
+ * @param <T>
+ *          the handler interface
+ *
+ * @since 3.5.12
+ */
+abstract class PipelineTarget<T> {
+
+  protected final T target;
+  private final Method[] methods;
+  private final Interceptor[][] interceptors;
+
+  PipelineTarget(T target, PluginPipeline.TargetPlan plan, Method[] methods) {
+    this.target = target;
+    this.methods = methods;
+    this.interceptors = plan.getInterceptors(methods);
+  }
+
+  final boolean isIntercepted(int index) {
+    return interceptors[index] != null;
+  }
+
+  final Object intercept(int index, Object[] args, PipelineInvocation.TargetCall targetCall) throws Throwable {
+    Interceptor[] methodInterceptors = interceptors[index];
+    return methodInterceptors[0]
+        .intercept(new PipelineInvocation(target, methods[index], args, methodInterceptors, 0, targetCall));
+  }
+
+  /**
+   * Returns what a {@link Plugin} proxy would throw from a method that declares {@link SQLException}, or throws it if
+   * it is unchecked.
+   */
+  final SQLException toSQLException(int index, Throwable throwable) {
+    Throwable thrown = PluginPipeline.thrownByProxy(methods[index], throwable);
+    if (thrown instanceof SQLException) {
+      return (SQLException) thrown;
+    }
+    throw toUnchecked(thrown);
+  }
+
+  /**
+   * Returns what a {@link Plugin} proxy would throw from a method that does not declare checked exceptions.
+   */
+  final RuntimeException toRuntimeException(int index, Throwable throwable) {
+    return toUnchecked(PluginPipeline.thrownByProxy(methods[index], throwable));
+  }
+
+  private static RuntimeException toUnchecked(Throwable throwable) {
+    if (throwable instanceof Error) {
+      throw (Error) throwable;
+    }
+    if (throwable instanceof RuntimeException) {
+      return (RuntimeException) throwable;
+    }
+    return new UndeclaredThrowableException(throwable);
+  }
+
+  static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new PluginException("Could not find method on " + type + " named " + name + ". Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    // a Plugin proxy forwards the Object methods to the target as well
+    return target.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return target.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return target.toString();
+  }
+
+}
@@ -32,6 +32,10 @@ import org.apache.ibatis.util.MapUtil;
  */
 public class Plugin implements InvocationHandler {
 
+  // the caches are attached to the interceptor and target classes, so they do not keep their class loaders alive
+  private static final ClassValue<Map<Class<?>, Set<Method>>> signatureMaps = new SignatureMaps();
+  private static final ClassValue<ClassValue<Class<?>[]>> interfacesByInterceptor = new InterfacesByInterceptor();
+
   private final Object target;//要实现代理的对象
   private final Interceptor interceptor;// 拦截器
   private final Map<Class<?>, Set<Method>> signatureMap;
@@ -45,7 +49,7 @@ public class Plugin implements InvocationHandler {
   public static Object wrap(Object target, Interceptor interceptor) {
     Map<Class<?>, Set<Method>> signatureMap = getSignatureMap(interceptor);
     Class<?> type = target.getClass();
-    Class<?>[] interfaces = getAllInterfaces(type, signatureMap);
+    Class<?>[] interfaces = getInterfaces(interceptor, type);
     if (interfaces.length > 0) {
       return Proxy.newProxyInstance(type.getClassLoader(), interfaces, new Plugin(target, interceptor, signatureMap));
     }
@@ -70,12 +74,24 @@ public class Plugin implements InvocationHandler {
    * @param interceptor 拦截器
    * @return signatureMap
    */
-  private static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
-    Intercepts interceptsAnnotation = interceptor.getClass().getAnnotation(Intercepts.class);
+  static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
+    // the annotation of an interceptor class does not change, so it is only read once
+    return signatureMaps.get(interceptor.getClass());
+  }
+
+  /**
+   * Returns the interfaces of the target class that the interceptor intercepts, resolved once per interceptor class
+   * and target class.
+   */
+  static Class<?>[] getInterfaces(Interceptor interceptor, Class<?> type) {
+    return interfacesByInterceptor.get(interceptor.getClass()).get(type);
+  }
+
+  private static Map<Class<?>, Set<Method>> resolveSignatureMap(Class<?> interceptorType) {
+    Intercepts interceptsAnnotation = interceptorType.getAnnotation(Intercepts.class);
     // issue #251
     if (interceptsAnnotation == null) {
-      throw new PluginException(
-          "No @Intercepts annotation was found in interceptor " + interceptor.getClass().getName());
+      throw new PluginException("No @Intercepts annotation was found in interceptor " + interceptorType.getName());
     }
     Signature[] sigs = interceptsAnnotation.value();
     Map<Class<?>, Set<Method>> signatureMap = new HashMap<>();
@@ -105,4 +121,24 @@ public class Plugin implements InvocationHandler {
     return interfaces.toArray(new Class<?>[0]);
   }
 
+  private static final class SignatureMaps extends ClassValue<Map<Class<?>, Set<Method>>> {
+    @Override
+    protected Map<Class<?>, Set<Method>> computeValue(Class<?> interceptorType) {
+      return resolveSignatureMap(interceptorType);
+    }
+  }
+
+  private static final class InterfacesByInterceptor extends ClassValue<ClassValue<Class<?>[]>> {
+    @Override
+    protected ClassValue<Class<?>[]> computeValue(Class<?> interceptorType) {
+      final Map<Class<?>, Set<Method>> signatureMap = signatureMaps.get(interceptorType);
+      return new ClassValue<Class<?>[]>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type) {
+          return getAllInterfaces(type, signatureMap);
+        }
+      };
+    }
+  }
+
 }
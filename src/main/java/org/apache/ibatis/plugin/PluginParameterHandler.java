@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+
+/**
+ * A {@link ParameterHandler} that applies the interceptors of a {@link PluginPipeline}.
+ *
+ * @since 3.5.12
+ */
+final class PluginParameterHandler extends PipelineTarget<ParameterHandler> implements ParameterHandler {
+
+  private static final Method[] METHODS = { method(ParameterHandler.class, "getParameterObject"),
+      method(ParameterHandler.class, "setParameters", PreparedStatement.class) };
+  private static final int GET_PARAMETER_OBJECT = 0;
+  private static final int SET_PARAMETERS = 1;
+
+  PluginParameterHandler(ParameterHandler target, PluginPipeline.TargetPlan plan) {
+    super(target, plan, METHODS);
+  }
+
+  @Override
+  public Object getParameterObject() {
+    if (!isIntercepted(GET_PARAMETER_OBJECT)) {
+      return target.getParameterObject();
+    }
+    try {
+      return intercept(GET_PARAMETER_OBJECT, null, args -> target.getParameterObject());
+    } catch (Throwable t) {
+      throw toRuntimeException(GET_PARAMETER_OBJECT, t);
+    }
+  }
+
+  @Override
+  public void setParameters(PreparedStatement ps) throws SQLException {
+    if (!isIntercepted(SET_PARAMETERS)) {
+      target.setParameters(ps);
+      return;
+    }
+    try {
+      intercept(SET_PARAMETERS, new Object[] { ps }, args -> {
+        target.setParameters((PreparedStatement) args[0]);
+        return null;
+      });
+    } catch (Throwable t) {
+      throw toSQLException(SET_PARAMETERS, t);
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * Applies the interceptors of an {@link InterceptorChain} with one wrapper per target instead of one proxy per
+ * interceptor.
+ * <p>
+ * The interfaces a target class is wrapped with and the interceptors of each intercepted method are resolved once per
+ * target class. {@link StatementHandler}, {@link ParameterHandler} and {@link ResultSetHandler} targets are wrapped by
+ * plain delegating classes that call the target directly when a method is not intercepted, other targets by a single
+ * dynamic proxy. The interceptors of a method are called in the same order as with nested {@link Plugin} proxies, but
+ * {@link Invocation#getTarget()} returns the original target. If an interceptor overrides
+ * {@link Interceptor#plugin(Object)}, every interceptor is applied with its own {@code plugin} method.
+ *
+ * @since 3.5.12
+ */
+final class PluginPipeline {
+
+  private final List<Interceptor> interceptors;
+  private final boolean customPlugins;
+  private final Map<Class<?>, TargetPlan> plans = new ConcurrentHashMap<>();
+
+  PluginPipeline(List<Interceptor> interceptors) {
+    this.interceptors = new ArrayList<>(interceptors);
+    this.customPlugins = this.interceptors.stream().anyMatch(PluginPipeline::hasCustomPlugin);
+  }
+
+  Object wrap(Object target) {
+    if (customPlugins) {
+      for (Interceptor interceptor : interceptors) {
+        target = interceptor.plugin(target);
+      }
+      return target;
+    }
+    return MapUtil.computeIfAbsent(plans, target.getClass(), this::resolve).wrap(target);
+  }
+
+  private static boolean hasCustomPlugin(Interceptor interceptor) {
+    try {
+      return interceptor.getClass().getMethod("plugin", Object.class).getDeclaringClass() != Interceptor.class;
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+
+  private TargetPlan resolve(Class<?> type) {
+    Set<Class<?>> interfaces = new LinkedHashSet<>();
+    Map<Method, List<Interceptor>> interceptorsByMethod = new HashMap<>();
+    // the last interceptor of the chain wraps the others, so it is called first
+    for (int i = interceptors.size() - 1; i >= 0; i--) {
+      Interceptor interceptor = interceptors.get(i);
+      Map<Class<?>, Set<Method>> signatureMap = Plugin.getSignatureMap(interceptor);
+      Class<?>[] matched = Plugin.getInterfaces(interceptor, type);
+      if (matched.length == 0) {
+        continue;
+      }
+      for (Class<?> matchedInterface : matched) {
+        interfaces.add(matchedInterface);
+        for (Method method : matchedInterface.getMethods()) {
+          // the same lookup as Plugin.invoke()
+          Set<Method> methods = signatureMap.get(method.getDeclaringClass());
+          if (methods != null && methods.contains(method)) {
+            List<Interceptor> methodInterceptors = MapUtil.computeIfAbsent(interceptorsByMethod, method,
+                k -> new ArrayList<>());
+            if (!methodInterceptors.contains(interceptor)) {
+              methodInterceptors.add(interceptor);
+            }
+          }
+        }
+      }
+    }
+    Map<Method, Interceptor[]> resolved = new HashMap<>();
+    interceptorsByMethod.forEach((method, list) -> resolved.put(method, list.toArray(new Interceptor[0])));
+    return new TargetPlan(interfaces.toArray(new Class<?>[0]), resolved);
+  }
+
+  /**
+   * Returns what a {@link Plugin} proxy throws for the method when its handler throws the given throwable.
+   */
+  static Throwable thrownByProxy(Method method, Throwable throwable) {
+    Throwable thrown = throwable instanceof Exception ? ExceptionUtil.unwrapThrowable(throwable) : throwable;
+    if (thrown instanceof RuntimeException || thrown instanceof Error) {
+      return thrown;
+    }
+    for (Class<?> exceptionType : method.getExceptionTypes()) {
+      if (exceptionType.isInstance(thrown)) {
+        return thrown;
+      }
+    }
+    return new UndeclaredThrowableException(thrown);
+  }
+
+  /**
+   * The interfaces and method interceptors of one target class.
+   */
+  static final class TargetPlan {
+
+    private final Class<?>[] interfaces;
+    private final Map<Method, Interceptor[]> interceptorsByMethod;
+    private volatile Interceptor[][] indexedInterceptors;
+
+    TargetPlan(Class<?>[] interfaces, Map<Method, Interceptor[]> interceptorsByMethod) {
+      this.interfaces = interfaces;
+      this.interceptorsByMethod = interceptorsByMethod;
+    }
+
+    Object wrap(Object target) {
+      if (interfaces.length == 0) {
+        return target;
+      }
+      if (interfaces.length == 1) {
+        if (interfaces[0] == StatementHandler.class) {
+          return new PluginStatementHandler((StatementHandler) target, this);
+        }
+        if (interfaces[0] == ParameterHandler.class) {
+          return new PluginParameterHandler((ParameterHandler) target, this);
+        }
+        if (interfaces[0] == ResultSetHandler.class) {
+          return new PluginResultSetHandler((ResultSetHandler) target, this);
+        }
+      }
+      return Proxy.newProxyInstance(target.getClass().getClassLoader(), interfaces,
+          new PipelineInvocationHandler(target, this));
+    }
+
+    Interceptor[] getInterceptors(Method method) {
+      return interceptorsByMethod.get(method);
+    }
+
+    /**
+     * Returns the interceptors of the given methods by index. A plan is only used by one kind of wrapper, so the result
+     * is computed once.
+     */
+    Interceptor[][] getInterceptors(Method[] methods) {
+      Interceptor[][] result = indexedInterceptors;
+      if (result == null) {
+        result = new Interceptor[methods.length][];
+        for (int i = 0; i < methods.length; i++) {
+          result[i] = interceptorsByMethod.get(methods[i]);
+        }
+        indexedInterceptors = result;
+      }
+      return result;
+    }
+  }
+
+  private static final class PipelineInvocationHandler implements InvocationHandler {
+
+    private final Object target;
+    private final TargetPlan plan;
+
+    PipelineInvocationHandler(Object target, TargetPlan plan) {
+      this.target = target;
+      this.plan = plan;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      try {
+        Interceptor[] methodInterceptors = plan.getInterceptors(method);
+        if (methodInterceptors == null) {
+          return method.invoke(target, args);
+        }
+        return methodInterceptors[0].intercept(new PipelineInvocation(target, method, args, methodInterceptors, 0,
+            arguments -> method.invoke(target, arguments)));
+      } catch (Exception e) {
+        throw ExceptionUtil.unwrapThrowable(e);
+      }
+    }
+  }
+
+}
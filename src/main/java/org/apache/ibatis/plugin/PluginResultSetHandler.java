@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Method;
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+
+/**
+ * A {@link ResultSetHandler} that applies the interceptors of a {@link PluginPipeline}.
+ *
+ * @since 3.5.12
+ */
+final class PluginResultSetHandler extends PipelineTarget<ResultSetHandler> implements ResultSetHandler {
+
+  private static final Method[] METHODS = { method(ResultSetHandler.class, "handleResultSets", Statement.class),
+      method(ResultSetHandler.class, "handleCursorResultSets", Statement.class),
+      method(ResultSetHandler.class, "handleOutputParameters", CallableStatement.class) };
+  private static final int HANDLE_RESULT_SETS = 0;
+  private static final int HANDLE_CURSOR_RESULT_SETS = 1;
+  private static final int HANDLE_OUTPUT_PARAMETERS = 2;
+
+  PluginResultSetHandler(ResultSetHandler target, PluginPipeline.TargetPlan plan) {
+    super(target, plan, METHODS);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> List<E> handleResultSets(Statement stmt) throws SQLException {
+    if (!isIntercepted(HANDLE_RESULT_SETS)) {
+      return target.handleResultSets(stmt);
+    }
+    try {
+      return (List<E>) intercept(HANDLE_RESULT_SETS, new Object[] { stmt },
+          args -> target.handleResultSets((Statement) args[0]));
+    } catch (Throwable t) {
+      throw toSQLException(HANDLE_RESULT_SETS, t);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+    if (!isIntercepted(HANDLE_CURSOR_RESULT_SETS)) {
+      return target.handleCursorResultSets(stmt);
+    }
+    try {
+      return (Cursor<E>) intercept(HANDLE_CURSOR_RESULT_SETS, new Object[] { stmt },
+          args -> target.handleCursorResultSets((Statement) args[0]));
+    } catch (Throwable t) {
+      throw toSQLException(HANDLE_CURSOR_RESULT_SETS, t);
+    }
+  }
+
+  @Override
+  public void handleOutputParameters(CallableStatement cs) throws SQLException {
+    if (!isIntercepted(HANDLE_OUTPUT_PARAMETERS)) {
+      target.handleOutputParameters(cs);
+      return;
+    }
+    try {
+      intercept(HANDLE_OUTPUT_PARAMETERS, new Object[] { cs }, args -> {
+        target.handleOutputParameters((CallableStatement) args[0]);
+        return null;
+      });
+    } catch (Throwable t) {
+      throw toSQLException(HANDLE_OUTPUT_PARAMETERS, t);
+    }
+  }
+
+}
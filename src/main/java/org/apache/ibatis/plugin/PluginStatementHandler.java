@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * A {@link StatementHandler} that applies the interceptors of a {@link PluginPipeline}.
+ *
+ * @since 3.5.12
+ */
+final class PluginStatementHandler extends PipelineTarget<StatementHandler> implements StatementHandler {
+
+  private static final Method[] METHODS = { method(StatementHandler.class, "prepare", Connection.class, Integer.class),
+      method(StatementHandler.class, "parameterize", Statement.class),
+      method(StatementHandler.class, "batch", Statement.class),
+      method(StatementHandler.class, "update", Statement.class),
+      method(StatementHandler.class, "query", Statement.class, ResultHandler.class),
+      method(StatementHandler.class, "queryCursor", Statement.class), method(StatementHandler.class, "getBoundSql"),
+      method(StatementHandler.class, "getParameterHandler") };
+  private static final int PREPARE = 0;
+  private static final int PARAMETERIZE = 1;
+  private static final int BATCH = 2;
+  private static final int UPDATE = 3;
+  private static final int QUERY = 4;
+  private static final int QUERY_CURSOR = 5;
+  private static final int GET_BOUND_SQL = 6;
+  private static final int GET_PARAMETER_HANDLER = 7;
+
+  PluginStatementHandler(StatementHandler target, PluginPipeline.TargetPlan plan) {
+    super(target, plan, METHODS);
+  }
+
+  @Override
+  public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
+    if (!isIntercepted(PREPARE)) {
+      return target.prepare(connection, transactionTimeout);
+    }
+    try {
+      return (Statement) intercept(PREPARE, new Object[] { connection, transactionTimeout },
+          args -> target.prepare((Connection) args[0], (Integer) args[1]));
+    } catch (Throwable t) {
+      throw toSQLException(PREPARE, t);
+    }
+  }
+
+  @Override
+  public void parameterize(Statement statement) throws SQLException {
+    if (!isIntercepted(PARAMETERIZE)) {
+      target.parameterize(statement);
+      return;
+    }
+    try {
+      intercept(PARAMETERIZE, new Object[] { statement }, args -> {
+        target.parameterize((Statement) args[0]);
+        return null;
+      });
+    } catch (Throwable t) {
+      throw toSQLException(PARAMETERIZE, t);
+    }
+  }
+
+  @Override
+  public void batch(Statement statement) throws SQLException {
+    if (!isIntercepted(BATCH)) {
+      target.batch(statement);
+      return;
+    }
+    try {
+      intercept(BATCH, new Object[] { statement }, args -> {
+        target.batch((Statement) args[0]);
+        return null;
+      });
+    } catch (Throwable t) {
+      throw toSQLException(BATCH, t);
+    }
+  }
+
+  @Override
+  public int update(Statement statement) throws SQLException {
+    if (!isIntercepted(UPDATE)) {
+      return target.update(statement);
+    }
+    try {
+      return (Integer) intercept(UPDATE, new Object[] { statement }, args -> target.update((Statement) args[0]));
+    } catch (Throwable t) {
+      throw toSQLException(UPDATE, t);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
+    if (!isIntercepted(QUERY)) {
+      return target.query(statement, resultHandler);
+    }
+    try {
+      return (List<E>) intercept(QUERY, new Object[] { statement, resultHandler },
+          args -> target.query((Statement) args[0], (ResultHandler) args[1]));
+    } catch (Throwable t) {
+      throw toSQLException(QUERY, t);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+    if (!isIntercepted(QUERY_CURSOR)) {
+      return target.queryCursor(statement);
+    }
+    try {
+      return (Cursor<E>) intercept(QUERY_CURSOR, new Object[] { statement },
+          args -> target.queryCursor((Statement) args[0]));
+    } catch (Throwable t) {
+      throw toSQLException(QUERY_CURSOR, t);
+    }
+  }
+
+  @Override
+  public BoundSql getBoundSql() {
+    if (!isIntercepted(GET_BOUND_SQL)) {
+      return target.getBoundSql();
+    }
+    try {
+      return (BoundSql) intercept(GET_BOUND_SQL, null, args -> target.getBoundSql());
+    } catch (Throwable t) {
+      throw toRuntimeException(GET_BOUND_SQL, t);
+    }
+  }
+
+  @Override
+  public ParameterHandler getParameterHandler() {
+    if (!isIntercepted(GET_PARAMETER_HANDLER)) {
+      return target.getParameterHandler();
+    }
+    try {
+      return (ParameterHandler) intercept(GET_PARAMETER_HANDLER, null, args -> target.getParameterHandler());
+    } catch (Throwable t) {
+      throw toRuntimeException(GET_PARAMETER_HANDLER, t);
+    }
+  }
+
+}
@@ -17,7 +17,10 @@ package org.apache.ibatis.reflection;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
+import org.apache.ibatis.reflection.invoker.ReflectionInvokerFactory;
 import org.apache.ibatis.util.MapUtil;
 
 /**
@@ -32,8 +35,22 @@ public class DefaultReflectorFactory implements ReflectorFactory {
    *  class类 对应的反射对象容器
    */
   private final ConcurrentMap<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<>();
+  private final Function<Class<?>, Reflector> reflectorCreator;
 
   public DefaultReflectorFactory() {
+    this(new ReflectionInvokerFactory());
+  }
+
+  /**
+   * Creates a factory whose reflectors use the given factory to create the property invokers.
+   *
+   * @param invokerFactory
+   *          the invoker factory
+   *
+   * @since 3.5.12
+   */
+  public DefaultReflectorFactory(InvokerFactory invokerFactory) {
+    this.reflectorCreator = type -> new Reflector(type, invokerFactory);
   }
 
   @Override
@@ -50,9 +67,9 @@ public class DefaultReflectorFactory implements ReflectorFactory {
   public Reflector findForClass(Class<?> type) {
     if (classCacheEnabled) {
       // synchronized (type) removed see issue #461
-      return MapUtil.computeIfAbsent(reflectorMap, type, Reflector::new);
+      return MapUtil.computeIfAbsent(reflectorMap, type, reflectorCreator);
     }
-    return new Reflector(type);
+    return reflectorCreator.apply(type);
   }
 
 }
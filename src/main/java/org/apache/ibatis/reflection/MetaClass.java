@@ -71,30 +71,56 @@ public class MetaClass {
   }
 
   public Class<?> getSetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    return getSetterType(PropertyTokenizer.of(name));
+  }
+
+  /**
+   * Gets the setter type of a property path.
+   *
+   * @param prop
+   *          the property path
+   *
+   * @return the setter type
+   *
+   * @since 3.5.12
+   */
+  public Class<?> getSetterType(PropertyTokenizer prop) {
     if (prop.hasNext()) {
       MetaClass metaProp = metaClassForProperty(prop.getName());
-      return metaProp.getSetterType(prop.getChildren());
+      return metaProp.getSetterType(prop.next());
     }
     return reflector.getSetterType(prop.getName());
   }
 
   public Class<?> getGetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    return getGetterType(PropertyTokenizer.of(name));
+  }
+
+  /**
+   * Gets the getter type of a property path.
+   *
+   * @param prop
+   *          the property path
+   *
+   * @return the getter type
+   *
+   * @since 3.5.12
+   */
+  public Class<?> getGetterType(PropertyTokenizer prop) {
     if (prop.hasNext()) {
       MetaClass metaProp = metaClassForProperty(prop);
-      return metaProp.getGetterType(prop.getChildren());
+      return metaProp.getGetterType(prop.next());
     }
     // issue #506. Resolve the type inside a Collection Object
-    return getGetterType(prop);
+    return getIndexedGetterType(prop);
   }
 
   private MetaClass metaClassForProperty(PropertyTokenizer prop) {
-    Class<?> propType = getGetterType(prop);
+    Class<?> propType = getIndexedGetterType(prop);
     return MetaClass.forClass(propType, reflectorFactory);
   }
 
-  private Class<?> getGetterType(PropertyTokenizer prop) {
+  private Class<?> getIndexedGetterType(PropertyTokenizer prop) {
     Class<?> type = reflector.getGetterType(prop.getName());
     if (prop.getIndex() != null && Collection.class.isAssignableFrom(type)) {
       Type returnType = getGenericGetterType(prop.getName());
@@ -135,26 +161,52 @@ public class MetaClass {
   }
 
   public boolean hasSetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    return hasSetter(PropertyTokenizer.of(name));
+  }
+
+  /**
+   * Returns whether a property path has a setter.
+   *
+   * @param prop
+   *          the property path
+   *
+   * @return true if the path has a setter
+   *
+   * @since 3.5.12
+   */
+  public boolean hasSetter(PropertyTokenizer prop) {
     if (!prop.hasNext()) {
       return reflector.hasSetter(prop.getName());
     }
     if (reflector.hasSetter(prop.getName())) {
       MetaClass metaProp = metaClassForProperty(prop.getName());
-      return metaProp.hasSetter(prop.getChildren());
+      return metaProp.hasSetter(prop.next());
     } else {
       return false;
     }
   }
 
   public boolean hasGetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    return hasGetter(PropertyTokenizer.of(name));
+  }
+
+  /**
+   * Returns whether a property path has a getter.
+   *
+   * @param prop
+   *          the property path
+   *
+   * @return true if the path has a getter
+   *
+   * @since 3.5.12
+   */
+  public boolean hasGetter(PropertyTokenizer prop) {
     if (!prop.hasNext()) {
       return reflector.hasGetter(prop.getName());
     }
     if (reflector.hasGetter(prop.getName())) {
       MetaClass metaProp = metaClassForProperty(prop);
-      return metaProp.hasGetter(prop.getChildren());
+      return metaProp.hasGetter(prop.next());
     } else {
       return false;
     }
@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.GetterInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.reflection.wrapper.CollectionWrapper;
@@ -35,6 +37,8 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
  */
 public class MetaObject {
 
+  private static final Object[] NO_ARGUMENTS = {};
+
   private final Object originalObject;// 原始对象
   private final ObjectWrapper objectWrapper;// 对象包装类，含对象元信息
   private final ObjectFactory objectFactory;// 对象创建工厂
@@ -114,40 +118,96 @@ public class MetaObject {
   }
 
   public Object getValue(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    return getValue(PropertyTokenizer.of(name));
+  }
+
+  /**
+   * Gets the value of a property. The intermediate values of a nested path are read directly when they are plain beans,
+   * without creating a MetaObject for each of them.
+   *
+   * @param prop
+   *          the property path
+   *
+   * @return the value
+   *
+   * @since 3.5.12
+   */
+  public Object getValue(PropertyTokenizer prop) {
     if (!prop.hasNext()) {
       return objectWrapper.get(prop);
     }
-    MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
-    if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
-      return null;
-    } else {
-      return metaValue.getValue(prop.getChildren());
-    }
+    Object value = objectWrapper.get(prop.getIndexedProperty());
+    return value == null ? null : getNestedValue(value, prop.next());
   }
 
   public void setValue(String name, Object value) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    setValue(PropertyTokenizer.of(name), value);
+  }
+
+  /**
+   * Sets the value of a property, instantiating the intermediate values of a nested path if they are null.
+   *
+   * @param prop
+   *          the property path
+   * @param value
+   *          the value
+   *
+   * @since 3.5.12
+   */
+  public void setValue(PropertyTokenizer prop, Object value) {
     if (prop.hasNext()) {
-      MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
+      MetaObject metaValue = metaObjectForProperty(prop.getIndexedProperty());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
         if (value == null) {
           // don't instantiate child path if value is null
           return;
         }
-        metaValue = objectWrapper.instantiatePropertyValue(name, prop, objectFactory);
+        metaValue = objectWrapper.instantiatePropertyValue(prop.getFullname(), prop, objectFactory);
       }
-      metaValue.setValue(prop.getChildren(), value);
+      metaValue.setValue(prop.next(), value);
     } else {
       objectWrapper.set(prop, value);
     }
   }
 
   public MetaObject metaObjectForProperty(String name) {
-    Object value = getValue(name);
+    return metaObjectForProperty(PropertyTokenizer.of(name));
+  }
+
+  private MetaObject metaObjectForProperty(PropertyTokenizer prop) {
+    Object value = getValue(prop);
     return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
   }
 
+  private Object getNestedValue(Object object, PropertyTokenizer prop) {
+    if (prop.getIndex() != null || object instanceof ObjectWrapper || object instanceof Map
+        || object instanceof Collection || objectWrapperFactory.hasWrapperFor(object)) {
+      return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory).getValue(prop);
+    }
+    Object value = getBeanProperty(object, prop.getName());
+    return value == null || !prop.hasNext() ? value : getNestedValue(value, prop.next());
+  }
+
+  private Object getBeanProperty(Object object, String name) {
+    // same as BeanWrapper#getBeanProperty()
+    try {
+      Invoker method = reflectorFactory.findForClass(object.getClass()).getGetInvoker(name);
+      try {
+        if (method instanceof GetterInvoker) {
+          return ((GetterInvoker) method).get(object);
+        }
+        return method.invoke(object, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException(
+          "Could not get property '" + name + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+    }
+  }
+
   public ObjectWrapper getObjectWrapper() {
     return objectWrapper;
   }
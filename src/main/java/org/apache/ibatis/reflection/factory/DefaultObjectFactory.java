@@ -16,7 +16,6 @@
 package org.apache.ibatis.reflection.factory;
 
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,10 +27,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.apache.ibatis.reflection.ReflectionException;
-import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * @author Clinton Begin
@@ -40,6 +41,11 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
   private static final long serialVersionUID = -8855120656740914948L;
 
+  /**
+   * The constructors that were used, by type and constructor argument types.
+   */
+  private transient volatile ConcurrentMap<Class<?>, ConcurrentMap<List<Class<?>>, Instantiator>> instantiators;
+
   @Override
   public <T> T create(Class<T> type) {
     return create(type, null, null);
@@ -55,29 +61,10 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
   private <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
     try {
-      Constructor<T> constructor;
       if (constructorArgTypes == null || constructorArgs == null) {
-        constructor = type.getDeclaredConstructor();
-        try {
-          return constructor.newInstance();
-        } catch (IllegalAccessException e) {
-          if (Reflector.canControlMemberAccessible()) {
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-          }
-          throw e;
-        }
-      }
-      constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]));
-      try {
-        return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-      } catch (IllegalAccessException e) {
-        if (Reflector.canControlMemberAccessible()) {
-          constructor.setAccessible(true);
-          return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-        }
-        throw e;
+        return type.cast(getInstantiator(type, Collections.emptyList()).newInstance(Collections.emptyList()));
       }
+      return type.cast(getInstantiator(type, constructorArgTypes).newInstance(constructorArgs));
     } catch (Exception e) {
       String argTypes = Optional.ofNullable(constructorArgTypes).orElseGet(Collections::emptyList).stream()
           .map(Class::getSimpleName).collect(Collectors.joining(","));
@@ -88,6 +75,24 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     }
   }
 
+  private Instantiator getInstantiator(Class<?> type, List<Class<?>> constructorArgTypes) throws NoSuchMethodException {
+    ConcurrentMap<Class<?>, ConcurrentMap<List<Class<?>>, Instantiator>> instantiators = this.instantiators;
+    if (instantiators == null) {
+      // a race only creates a cache that is dropped
+      instantiators = new ConcurrentHashMap<>();
+      this.instantiators = instantiators;
+    }
+    ConcurrentMap<List<Class<?>>, Instantiator> typeInstantiators = MapUtil.computeIfAbsent(instantiators, type,
+        k -> new ConcurrentHashMap<>());
+    Instantiator instantiator = typeInstantiators.get(constructorArgTypes);
+    if (instantiator == null) {
+      instantiator = Instantiator.of(type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0])));
+      // the caller may reuse the list of types
+      typeInstantiators.putIfAbsent(new ArrayList<>(constructorArgTypes), instantiator);
+    }
+    return instantiator;
+  }
+
   protected Class<?> resolveInterface(Class<?> type) {
     Class<?> classToCreate;
     if (type == List.class || type == Collection.class || type == Iterable.class) {
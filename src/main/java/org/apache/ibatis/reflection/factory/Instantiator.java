@@ -0,0 +1,183 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.factory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Creates instances of a class with a constructor that was resolved once.
+ * <p>
+ * Constructors without parameters are bound to a {@link Supplier} generated by the {@link LambdaMetafactory}, other
+ * constructors are called through a method handle that takes the arguments as an array. Arguments that do not have the
+ * exact type of the parameter, which core reflection widens or rejects, are passed to the constructor with core
+ * reflection, so both ways behave the same. Constructors that cannot be accessed with a method handle are always called
+ * with core reflection, and so are all constructors when a security manager does not allow to
+ * {@link Reflector#canControlMemberAccessible() suppress access checks}.
+ *
+ * @since 3.5.12
+ */
+abstract class Instantiator {
+
+  private static final Object[] NO_ARGS = {};
+
+  /**
+   * Creates an instance.
+   *
+   * @param args
+   *          the constructor arguments
+   *
+   * @return the new instance
+   *
+   * @throws Exception
+   *           the exceptions of {@link Constructor#newInstance(Object...)}
+   */
+  abstract Object newInstance(List<Object> args) throws Exception;
+
+  static Instantiator of(Constructor<?> constructor) {
+    final Instantiator fallback = new ReflectionInstantiator(constructor);
+    if (!Reflector.canControlMemberAccessible()) {
+      return fallback;
+    }
+    final Lookup lookup = MethodHandles.lookup();
+    final MethodHandle handle;
+    try {
+      if (!isPublic(constructor)) {
+        constructor.setAccessible(true);
+      }
+      handle = lookup.unreflectConstructor(constructor);
+    } catch (Throwable t) {
+      return fallback;
+    }
+    if (constructor.getParameterCount() == 0 && isPublic(constructor)) {
+      try {
+        return createSupplier(lookup, constructor, handle, fallback);
+      } catch (Throwable t) {
+        // the class is not visible to the generated supplier, the method handle still works
+      }
+    }
+    return new HandleInstantiator(handle, fallback);
+  }
+
+  private static boolean isPublic(Constructor<?> constructor) {
+    return Modifier.isPublic(constructor.getModifiers())
+        && Modifier.isPublic(constructor.getDeclaringClass().getModifiers());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Instantiator createSupplier(Lookup lookup, Constructor<?> constructor, MethodHandle handle,
+      Instantiator fallback) throws Throwable {
+    final CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+        MethodType.methodType(Object.class), handle, MethodType.methodType(constructor.getDeclaringClass()));
+    return new SupplierInstantiator((Supplier<Object>) site.getTarget().invoke(), fallback);
+  }
+
+  private static final class ReflectionInstantiator extends Instantiator {
+    private final Constructor<?> constructor;
+
+    ReflectionInstantiator(Constructor<?> constructor) {
+      this.constructor = constructor;
+    }
+
+    @Override
+    Object newInstance(List<Object> args) throws Exception {
+      final Object[] values = args.isEmpty() ? NO_ARGS : args.toArray();
+      try {
+        return constructor.newInstance(values);
+      } catch (IllegalAccessException e) {
+        if (Reflector.canControlMemberAccessible()) {
+          constructor.setAccessible(true);
+          return constructor.newInstance(values);
+        }
+        throw e;
+      }
+    }
+  }
+
+  private static final class SupplierInstantiator extends Instantiator {
+    private final Supplier<Object> supplier;
+    private final Instantiator fallback;
+
+    SupplierInstantiator(Supplier<Object> supplier, Instantiator fallback) {
+      this.supplier = supplier;
+      this.fallback = fallback;
+    }
+
+    @Override
+    Object newInstance(List<Object> args) throws Exception {
+      if (!args.isEmpty()) {
+        return fallback.newInstance(args);
+      }
+      try {
+        return supplier.get();
+      } catch (Throwable t) {
+        throw new InvocationTargetException(t);
+      }
+    }
+  }
+
+  private static final class HandleInstantiator extends Instantiator {
+    private final MethodHandle handle;
+    private final Class<?>[] wrapperTypes;
+    private final boolean[] primitives;
+    private final Instantiator fallback;
+
+    HandleInstantiator(MethodHandle handle, Instantiator fallback) {
+      final MethodType type = handle.type();
+      final int parameterCount = type.parameterCount();
+      this.handle = handle.asSpreader(Object[].class, parameterCount)
+          .asType(MethodType.methodType(Object.class, Object[].class));
+      this.wrapperTypes = type.wrap().parameterArray();
+      this.primitives = new boolean[parameterCount];
+      for (int i = 0; i < parameterCount; i++) {
+        primitives[i] = type.parameterType(i).isPrimitive();
+      }
+      this.fallback = fallback;
+    }
+
+    @Override
+    Object newInstance(List<Object> args) throws Exception {
+      if (args.size() != wrapperTypes.length) {
+        return fallback.newInstance(args);
+      }
+      final Object[] values = args.isEmpty() ? NO_ARGS : args.toArray();
+      for (int i = 0; i < values.length; i++) {
+        final Object value = values[i];
+        if (value == null ? primitives[i] : !wrapperTypes[i].isInstance(value)) {
+          // let core reflection widen or reject the value
+          return fallback.newInstance(args);
+        }
+      }
+      try {
+        return handle.invokeExact(values);
+      } catch (Throwable t) {
+        throw new InvocationTargetException(t);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * An {@link Invoker} that reads a property without an argument array.
+ *
+ * @since 3.5.12
+ */
+public interface GetterInvoker extends Invoker {
+
+  /**
+   * Reads the property.
+   *
+   * @param target
+   *          the object to read from
+   *
+   * @return the property value
+   *
+   * @throws Throwable
+   *           the exception thrown by the getter, it is not wrapped
+   */
+  Object get(Object target) throws Throwable;
+
+  @Override
+  default Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    try {
+      return get(target);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+}
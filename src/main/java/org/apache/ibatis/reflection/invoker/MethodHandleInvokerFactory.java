@@ -0,0 +1,381 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * An {@link InvokerFactory} that creates invokers based on method handles.
+ * <p>
+ * Getter and setter methods are bound to functional interfaces generated by the {@link LambdaMetafactory}, so once the
+ * JIT compiler has inlined them, reading or writing a property is a direct call. Setters of {@code int}, {@code long}
+ * and {@code double} properties are bound to the primitive consumer interfaces, and setters of {@code boolean}
+ * properties to a method handle, so they support the primitive variants of {@link SetterInvoker} without boxing. Fields
+ * are accessed through method handles. Members that cannot be accessed this way, for example in modules that are not
+ * open to MyBatis, get the invokers of {@link ReflectionInvokerFactory}. As the method handles of private members
+ * bypass the access checks, all members get the reflection based invokers when a security manager does not allow to
+ * {@link Reflector#canControlMemberAccessible() suppress access checks}.
+ * <p>
+ * Values that do not have the exact type of the property, which core reflection widens or rejects, are passed to a
+ * reflection based invoker, so both factories behave the same.
+ *
+ * @since 3.5.12
+ */
+public class MethodHandleInvokerFactory implements InvokerFactory {
+
+  private static final int ALLOWED_MODES = MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED
+      | MethodHandles.Lookup.PACKAGE | MethodHandles.Lookup.PUBLIC;
+  private static final Method privateLookupInMethod;
+  private static final Constructor<Lookup> lookupConstructor;
+
+  static {
+    Method privateLookupIn;
+    try {
+      privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+    } catch (NoSuchMethodException e) {
+      privateLookupIn = null;
+    }
+    privateLookupInMethod = privateLookupIn;
+
+    Constructor<Lookup> lookup = null;
+    if (privateLookupInMethod == null) {
+      // JDK 1.8
+      try {
+        lookup = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+        lookup.setAccessible(true);
+      } catch (Exception e) {
+        lookup = null;
+      }
+    }
+    lookupConstructor = lookup;
+  }
+
+  private final InvokerFactory fallbackFactory = new ReflectionInvokerFactory();
+
+  @Override
+  public Invoker createMethodInvoker(Method method) {
+    final Invoker fallback = fallbackFactory.createMethodInvoker(method);
+    if (!Reflector.canControlMemberAccessible()) {
+      return fallback;
+    }
+    try {
+      final Lookup lookup = privateLookupIn(method.getDeclaringClass());
+      final MethodHandle handle = lookup.unreflect(method);
+      if (method.getParameterCount() == 0) {
+        return createGetter(lookup, method, handle);
+      }
+      return createSetter(lookup, handle, fallback);
+    } catch (Throwable t) {
+      return fallback;
+    }
+  }
+
+  @Override
+  public Invoker createGetFieldInvoker(Field field) {
+    final Invoker fallback = fallbackFactory.createGetFieldInvoker(field);
+    if (!Reflector.canControlMemberAccessible()) {
+      return fallback;
+    }
+    try {
+      final MethodHandle handle = privateLookupIn(field.getDeclaringClass()).unreflectGetter(field);
+      return new HandleGetter(field, handle.asType(MethodType.methodType(Object.class, Object.class)));
+    } catch (Throwable t) {
+      return fallback;
+    }
+  }
+
+  @Override
+  public Invoker createSetFieldInvoker(Field field) {
+    final Invoker fallback = fallbackFactory.createSetFieldInvoker(field);
+    if (!Reflector.canControlMemberAccessible()) {
+      return fallback;
+    }
+    try {
+      final MethodHandle handle = privateLookupIn(field.getDeclaringClass()).unreflectSetter(field);
+      return new HandleSetter(handle.asType(MethodType.methodType(void.class, Object.class, Object.class)), fallback);
+    } catch (Throwable t) {
+      return fallback;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Invoker createGetter(Lookup lookup, Method method, MethodHandle handle) throws Throwable {
+    final MethodType instantiatedType = MethodType.methodType(wrap(method.getReturnType()),
+        handle.type().parameterType(0));
+    final CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+        MethodType.methodType(Object.class, Object.class), handle, instantiatedType);
+    return new FunctionGetter(method, (Function<Object, Object>) site.getTarget().invoke());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Invoker createSetter(Lookup lookup, MethodHandle handle, Invoker fallback) throws Throwable {
+    final Class<?> targetType = handle.type().parameterType(0);
+    final Class<?> type = handle.type().parameterType(1);
+    if (type == int.class) {
+      return new IntSetter((ObjIntConsumer<Object>) bindSetter(lookup, handle, ObjIntConsumer.class, targetType, type),
+          fallback);
+    }
+    if (type == long.class) {
+      return new LongSetter(
+          (ObjLongConsumer<Object>) bindSetter(lookup, handle, ObjLongConsumer.class, targetType, type), fallback);
+    }
+    if (type == double.class) {
+      return new DoubleSetter(
+          (ObjDoubleConsumer<Object>) bindSetter(lookup, handle, ObjDoubleConsumer.class, targetType, type), fallback);
+    }
+    if (type == boolean.class) {
+      // there is no primitive consumer interface for boolean
+      return new BooleanSetter(handle.asType(MethodType.methodType(void.class, Object.class, boolean.class)), fallback);
+    }
+    return new ConsumerSetter(
+        (BiConsumer<Object, Object>) bindSetter(lookup, handle, BiConsumer.class, targetType, wrap(type)), fallback);
+  }
+
+  private Object bindSetter(Lookup lookup, MethodHandle handle, Class<?> functionalInterface, Class<?> targetType,
+      Class<?> valueType) throws Throwable {
+    final Class<?> samValueType = valueType.isPrimitive() ? valueType : Object.class;
+    final CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(functionalInterface),
+        MethodType.methodType(void.class, Object.class, samValueType), handle,
+        MethodType.methodType(void.class, targetType, valueType));
+    return site.getTarget().invoke();
+  }
+
+  /**
+   * Creates a lookup with private access to the given class.
+   *
+   * @param declaringClass
+   *          the class whose members are looked up
+   *
+   * @return the lookup
+   *
+   * @throws Exception
+   *           if the class is not open to MyBatis
+   */
+  private static Lookup privateLookupIn(Class<?> declaringClass) throws Exception {
+    if (privateLookupInMethod != null) {
+      return (Lookup) privateLookupInMethod.invoke(null, declaringClass, MethodHandles.lookup());
+    }
+    if (lookupConstructor != null) {
+      return lookupConstructor.newInstance(declaringClass, ALLOWED_MODES);
+    }
+    throw new IllegalStateException("Cannot create a private lookup in " + declaringClass);
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+  // the getters extend the reflection based invokers so the generic type of the member can still be resolved
+
+  private static final class FunctionGetter extends MethodInvoker implements GetterInvoker {
+    private final Function<Object, Object> function;
+
+    FunctionGetter(Method method, Function<Object, Object> function) {
+      super(method);
+      this.function = function;
+    }
+
+    @Override
+    public Object get(Object target) {
+      return function.apply(target);
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+      return GetterInvoker.super.invoke(target, args);
+    }
+  }
+
+  private static final class HandleGetter extends GetFieldInvoker implements GetterInvoker {
+    private final MethodHandle handle;
+
+    HandleGetter(Field field, MethodHandle handle) {
+      super(field);
+      this.handle = handle;
+    }
+
+    @Override
+    public Object get(Object target) throws Throwable {
+      return handle.invokeExact(target);
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) {
+      try {
+        return handle.invokeExact(target);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not read the field of " + target.getClass() + ". Cause: " + t, t);
+      }
+    }
+  }
+
+  private abstract static class FallbackSetter implements SetterInvoker {
+    private final Invoker fallback;
+    private final Class<?> wrapperType;
+    private final boolean primitive;
+
+    FallbackSetter(Invoker fallback) {
+      this.fallback = fallback;
+      this.wrapperType = wrap(fallback.getType());
+      this.primitive = fallback.getType().isPrimitive();
+    }
+
+    @Override
+    public void set(Object target, Object value) throws Throwable {
+      if (value == null ? !primitive : wrapperType.isInstance(value)) {
+        setExact(target, value);
+      } else {
+        // let core reflection widen or reject the value
+        try {
+          fallback.invoke(target, new Object[] { value });
+        } catch (InvocationTargetException e) {
+          throw e.getTargetException();
+        }
+      }
+    }
+
+    abstract void setExact(Object target, Object value) throws Throwable;
+
+    @Override
+    public Class<?> getType() {
+      return fallback.getType();
+    }
+  }
+
+  private static final class HandleSetter extends FallbackSetter {
+    private final MethodHandle handle;
+
+    HandleSetter(MethodHandle handle, Invoker fallback) {
+      super(fallback);
+      this.handle = handle;
+    }
+
+    @Override
+    void setExact(Object target, Object value) throws Throwable {
+      handle.invokeExact(target, value);
+    }
+  }
+
+  private static final class ConsumerSetter extends FallbackSetter {
+    private final BiConsumer<Object, Object> consumer;
+
+    ConsumerSetter(BiConsumer<Object, Object> consumer, Invoker fallback) {
+      super(fallback);
+      this.consumer = consumer;
+    }
+
+    @Override
+    void setExact(Object target, Object value) {
+      consumer.accept(target, value);
+    }
+  }
+
+  private static final class IntSetter extends FallbackSetter {
+    private final ObjIntConsumer<Object> consumer;
+
+    IntSetter(ObjIntConsumer<Object> consumer, Invoker fallback) {
+      super(fallback);
+      this.consumer = consumer;
+    }
+
+    @Override
+    void setExact(Object target, Object value) {
+      consumer.accept(target, (Integer) value);
+    }
+
+    @Override
+    public void setInt(Object target, int value) {
+      consumer.accept(target, value);
+    }
+  }
+
+  private static final class LongSetter extends FallbackSetter {
+    private final ObjLongConsumer<Object> consumer;
+
+    LongSetter(ObjLongConsumer<Object> consumer, Invoker fallback) {
+      super(fallback);
+      this.consumer = consumer;
+    }
+
+    @Override
+    void setExact(Object target, Object value) {
+      consumer.accept(target, (Long) value);
+    }
+
+    @Override
+    public void setLong(Object target, long value) {
+      consumer.accept(target, value);
+    }
+  }
+
+  private static final class DoubleSetter extends FallbackSetter {
+    private final ObjDoubleConsumer<Object> consumer;
+
+    DoubleSetter(ObjDoubleConsumer<Object> consumer, Invoker fallback) {
+      super(fallback);
+      this.consumer = consumer;
+    }
+
+    @Override
+    void setExact(Object target, Object value) {
+      consumer.accept(target, (Double) value);
+    }
+
+    @Override
+    public void setDouble(Object target, double value) {
+      consumer.accept(target, value);
+    }
+  }
+
+  private static final class BooleanSetter extends FallbackSetter {
+    private final MethodHandle handle;
+
+    BooleanSetter(MethodHandle handle, Invoker fallback) {
+      super(fallback);
+      this.handle = handle;
+    }
+
+    @Override
+    void setExact(Object target, Object value) throws Throwable {
+      handle.invokeExact(target, (boolean) (Boolean) value);
+    }
+
+    @Override
+    public void setBoolean(Object target, boolean value) throws Throwable {
+      handle.invokeExact(target, value);
+    }
+  }
+
+}
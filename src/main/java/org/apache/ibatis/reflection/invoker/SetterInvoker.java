@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * An {@link Invoker} that writes a property without an argument array.
+ * <p>
+ * The primitive variants allow writing a primitive property without boxing the value. Their default implementations box
+ * the value and call {@link #set(Object, Object)}.
+ *
+ * @since 3.5.12
+ */
+public interface SetterInvoker extends Invoker {
+
+  /**
+   * Writes the property.
+   *
+   * @param target
+   *          the object to write to
+   * @param value
+   *          the property value
+   *
+   * @throws Throwable
+   *           the exception thrown by the setter, it is not wrapped
+   */
+  void set(Object target, Object value) throws Throwable;
+
+  default void setInt(Object target, int value) throws Throwable {
+    set(target, value);
+  }
+
+  default void setLong(Object target, long value) throws Throwable {
+    set(target, value);
+  }
+
+  default void setDouble(Object target, double value) throws Throwable {
+    set(target, value);
+  }
+
+  default void setBoolean(Object target, boolean value) throws Throwable {
+    set(target, value);
+  }
+
+  @Override
+  default Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    try {
+      set(target, args[0]);
+      return null;
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+}
@@ -16,21 +16,47 @@
 package org.apache.ibatis.reflection.property;
 
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 类属性解析工具， 支持全路径引用
+ * <p>
+ * Tokenizers returned by {@link #of(String)} are shared per expression and have their children parsed in advance, so
+ * walking a path with them does not allocate.
+ *
  * @author Clinton Begin
  */
 public class PropertyTokenizer implements Iterator<PropertyTokenizer> {
-  private String name;
+
+  /**
+   * The prefix of the item names that foreach binds per iteration and execution.
+   *
+   * @since 3.5.12
+   */
+  public static final String FOREACH_ITEM_PREFIX = "__frch_";
+
+  private static final int MAX_INTERNED_PATHS = 4096;
+  private static final ConcurrentMap<String, PropertyTokenizer> internedPaths = new ConcurrentHashMap<>();
+
+  private final String fullname;
+  private final String name;
   private final String indexedName;
-  private String index;
+  private final String index;
   private final String children;
+  private final PropertyTokenizer next;
+  private final PropertyTokenizer indexedProperty;
 
   /**
    * @param fullname  org.apache.ibatis.session.Configuration
    */
   public PropertyTokenizer(String fullname) {
+    this(fullname, false);
+  }
+
+  private PropertyTokenizer(String fullname, boolean interned) {
+    this.fullname = fullname;
+    String name;
     int delim = fullname.indexOf('.');
     if (delim > -1) {
       name = fullname.substring(0, delim);
@@ -44,9 +70,73 @@ public class PropertyTokenizer implements Iterator<PropertyTokenizer> {
     if (delim > -1) {
       index = name.substring(delim + 1, name.length() - 1);
       name = name.substring(0, delim);
+    } else {
+      index = null;
+    }
+    this.name = name;
+    if (interned && children != null) {
+      next = of(children);
+      indexedProperty = of(indexedName);
+    } else {
+      next = null;
+      indexedProperty = children == null ? this : null;
     }
   }
 
+  /**
+   * Returns the shared tokenizer of a property expression.
+   * <p>
+   * The tokenizers are interned up to a fixed number of expressions. Once that number is reached, the interned
+   * tokenizers are kept and other expressions are parsed every time. The item names generated by foreach are numbered
+   * per execution and are never used again, so they are always parsed instead of using up the interned expressions.
+   *
+   * @param fullname
+   *          the property expression, e.g. {@code order.items[0].name}
+   *
+   * @return the tokenizer
+   *
+   * @since 3.5.12
+   */
+  public static PropertyTokenizer of(String fullname) {
+    if (fullname.startsWith(FOREACH_ITEM_PREFIX)) {
+      return new PropertyTokenizer(fullname, true);
+    }
+    PropertyTokenizer prop = internedPaths.get(fullname);
+    if (prop == null) {
+      prop = new PropertyTokenizer(fullname, true);
+      if (internedPaths.size() >= MAX_INTERNED_PATHS) {
+        return prop;
+      }
+      PropertyTokenizer existing = internedPaths.putIfAbsent(fullname, prop);
+      if (existing != null) {
+        prop = existing;
+      }
+    }
+    return prop;
+  }
+
+  /**
+   * Returns the whole expression of this tokenizer.
+   *
+   * @return the expression
+   *
+   * @since 3.5.12
+   */
+  public String getFullname() {
+    return fullname;
+  }
+
+  /**
+   * Returns a tokenizer for the first element of the expression including its index, without the children.
+   *
+   * @return the tokenizer for {@link #getIndexedName()}
+   *
+   * @since 3.5.12
+   */
+  public PropertyTokenizer getIndexedProperty() {
+    return indexedProperty != null ? indexedProperty : new PropertyTokenizer(indexedName);
+  }
+
   public String getName() {
     return name;
   }
@@ -70,7 +160,7 @@ public class PropertyTokenizer implements Iterator<PropertyTokenizer> {
 
   @Override
   public PropertyTokenizer next() {
-    return new PropertyTokenizer(children);
+    return next != null ? next : new PropertyTokenizer(children);
   }
 
   @Override
@@ -23,7 +23,9 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectionException;
 import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.GetterInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.SetterInvoker;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 
 /**
@@ -78,7 +80,7 @@ public class BeanWrapper extends BaseWrapper {
 
   @Override
   public Class<?> getSetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.of(name);
     if (!prop.hasNext()) {
       return metaClass.getSetterType(name);
     }
@@ -92,7 +94,7 @@ public class BeanWrapper extends BaseWrapper {
 
   @Override
   public Class<?> getGetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.of(name);
     if (!prop.hasNext()) {
       return metaClass.getGetterType(name);
     }
@@ -106,7 +108,7 @@ public class BeanWrapper extends BaseWrapper {
 
   @Override
   public boolean hasSetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.of(name);
     if (!prop.hasNext()) {
       return metaClass.hasSetter(name);
     }
@@ -124,7 +126,7 @@ public class BeanWrapper extends BaseWrapper {
 
   @Override
   public boolean hasGetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.of(name);
     if (!prop.hasNext()) {
       return metaClass.hasGetter(name);
     }
@@ -160,6 +162,9 @@ public class BeanWrapper extends BaseWrapper {
     try {
       Invoker method = metaClass.getGetInvoker(prop.getName());
       try {
+        if (method instanceof GetterInvoker) {
+          return ((GetterInvoker) method).get(object);
+        }
         return method.invoke(object, NO_ARGUMENTS);
       } catch (Throwable t) {
         throw ExceptionUtil.unwrapThrowable(t);
@@ -175,9 +180,12 @@ public class BeanWrapper extends BaseWrapper {
   private void setBeanProperty(PropertyTokenizer prop, Object object, Object value) {
     try {
       Invoker method = metaClass.getSetInvoker(prop.getName());
-      Object[] params = { value };
       try {
-        method.invoke(object, params);
+        if (method instanceof SetterInvoker) {
+          ((SetterInvoker) method).set(object, value);
+        } else {
+          method.invoke(object, new Object[] { value });
+        }
       } catch (Throwable t) {
         throw ExceptionUtil.unwrapThrowable(t);
       }
@@ -0,0 +1,614 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * A test expression of a dynamic SQL element that is compiled to a tree of nodes, so it can be evaluated without OGNL.
+ * <p>
+ * Only a subset of the OGNL syntax is supported: property paths, the {@code size()}, {@code isEmpty()} and
+ * {@code length()} methods, {@code null}, boolean, integer and string literals, the comparison operators and the
+ * logical operators. {@link #compile(String, ReflectorFactory)} returns null for any other expression. Operand types
+ * for which the result could differ from OGNL, e.g. a number compared with a string, are detected when the expression
+ * is evaluated, and {@link #getValue(Object)} then throws a {@link FallbackException} so the caller can evaluate the
+ * expression with OGNL instead.
+ *
+ * @since 3.5.12
+ */
+final class CompiledExpression {
+
+  private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("and", "or", "not", "eq", "neq", "lt", "gt",
+      "lte", "gte", "in", "instanceof", "shl", "shr", "ushr", "band", "bor", "xor", "new", "true", "false", "null"));
+  private static final Set<String> MAP_PSEUDO_PROPERTIES = new HashSet<>(
+      Arrays.asList("size", "keys", "keySet", "values", "isEmpty"));
+  private static final Object[] NO_ARGUMENTS = {};
+
+  private final String expression;
+  private final Node root;
+
+  private CompiledExpression(String expression, Node root) {
+    this.expression = expression;
+    this.root = root;
+  }
+
+  /**
+   * Compiles an expression.
+   *
+   * @param expression
+   *          the OGNL expression
+   * @param reflectorFactory
+   *          the reflector factory used to read bean properties
+   *
+   * @return the compiled expression, or null if the expression uses syntax that is not supported
+   */
+  static CompiledExpression compile(String expression, ReflectorFactory reflectorFactory) {
+    if (expression == null) {
+      return null;
+    }
+    Node root = new Parser(expression, reflectorFactory).parse();
+    return root == null ? null : new CompiledExpression(expression, root);
+  }
+
+  String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Evaluates the expression.
+   *
+   * @param bindings
+   *          the bindings of the dynamic context
+   *
+   * @return the same value OGNL returns for the expression
+   *
+   * @throws FallbackException
+   *           if the expression has to be evaluated with OGNL
+   */
+  Object getValue(Object bindings) {
+    return root.getValue(bindings);
+  }
+
+  /**
+   * Thrown when a compiled expression cannot be evaluated exactly like OGNL would evaluate it.
+   */
+  static final class FallbackException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    static final FallbackException INSTANCE = new FallbackException();
+
+    private FallbackException() {
+      super("The expression must be evaluated with OGNL", null, false, false);
+    }
+  }
+
+  private interface Node {
+    Object getValue(Object bindings);
+  }
+
+  private static final class Literal implements Node {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      return value;
+    }
+  }
+
+  /**
+   * A variable of the dynamic context, looked up like {@link DynamicContext.ContextAccessor} does.
+   */
+  private static final class Variable implements Node {
+    private final String name;
+
+    Variable(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      if (!(bindings instanceof DynamicContext.ContextMap)) {
+        throw FallbackException.INSTANCE;
+      }
+      Map<String, Object> map = (Map<String, Object>) bindings;
+      Object result;
+      try {
+        result = map.get(name);
+      } catch (RuntimeException e) {
+        throw FallbackException.INSTANCE;
+      }
+      if (result != null || map.containsKey(name)) {
+        return result;
+      }
+      Object parameterObject = map.get(DynamicContext.PARAMETER_OBJECT_KEY);
+      if (parameterObject instanceof Map) {
+        return ((Map<?, ?>) parameterObject).get(name);
+      }
+      return null;
+    }
+  }
+
+  private static final class Property implements Node {
+    private final Node target;
+    private final String name;
+    private final ReflectorFactory reflectorFactory;
+
+    Property(Node target, String name, ReflectorFactory reflectorFactory) {
+      this.target = target;
+      this.name = name;
+      this.reflectorFactory = reflectorFactory;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      Object object = target.getValue(bindings);
+      if (object instanceof Map) {
+        if (MAP_PSEUDO_PROPERTIES.contains(name)) {
+          throw FallbackException.INSTANCE;
+        }
+        return ((Map<?, ?>) object).get(name);
+      }
+      if (object == null || object instanceof Collection || object instanceof Iterator || object instanceof Enumeration
+          || object.getClass().isArray()) {
+        throw FallbackException.INSTANCE;
+      }
+      try {
+        Reflector reflector = reflectorFactory.findForClass(object.getClass());
+        if (!reflector.hasGetter(name)) {
+          throw FallbackException.INSTANCE;
+        }
+        return reflector.getGetInvoker(name).invoke(object, NO_ARGUMENTS);
+      } catch (FallbackException e) {
+        throw e;
+      } catch (Throwable t) {
+        throw FallbackException.INSTANCE;
+      }
+    }
+  }
+
+  private static final class MethodCall implements Node {
+    private final Node target;
+    private final String name;
+
+    MethodCall(Node target, String name) {
+      this.target = target;
+      this.name = name;
+    }
+
+    static boolean isSupported(String name) {
+      return "size".equals(name) || "isEmpty".equals(name) || "length".equals(name);
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      Object object = target.getValue(bindings);
+      if ("size".equals(name)) {
+        if (object instanceof Collection) {
+          return ((Collection<?>) object).size();
+        }
+        if (object instanceof Map) {
+          return ((Map<?, ?>) object).size();
+        }
+      } else if ("isEmpty".equals(name)) {
+        if (object instanceof Collection) {
+          return ((Collection<?>) object).isEmpty();
+        }
+        if (object instanceof Map) {
+          return ((Map<?, ?>) object).isEmpty();
+        }
+        if (object instanceof String) {
+          return ((String) object).isEmpty();
+        }
+      } else if (object instanceof CharSequence) {
+        return ((CharSequence) object).length();
+      }
+      throw FallbackException.INSTANCE;
+    }
+  }
+
+  private static final class Not implements Node {
+    private final Node operand;
+
+    Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      Object value = operand.getValue(bindings);
+      if (value == null) {
+        return Boolean.TRUE;
+      }
+      if (value instanceof Boolean) {
+        return (Boolean) value ? Boolean.FALSE : Boolean.TRUE;
+      }
+      throw FallbackException.INSTANCE;
+    }
+  }
+
+  private static final class And implements Node {
+    private final Node left;
+    private final Node right;
+
+    And(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      // like OGNL, return the first operand that is false or else the last operand
+      Object value = left.getValue(bindings);
+      if (value == null || Boolean.FALSE.equals(value)) {
+        return value;
+      }
+      if (!(value instanceof Boolean)) {
+        throw FallbackException.INSTANCE;
+      }
+      return right.getValue(bindings);
+    }
+  }
+
+  private static final class Or implements Node {
+    private final Node left;
+    private final Node right;
+
+    Or(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      // like OGNL, return the first operand that is true or else the last operand
+      Object value = left.getValue(bindings);
+      if (Boolean.TRUE.equals(value)) {
+        return value;
+      }
+      if (value != null && !(value instanceof Boolean)) {
+        throw FallbackException.INSTANCE;
+      }
+      return right.getValue(bindings);
+    }
+  }
+
+  private static final class Equality implements Node {
+    private final Node left;
+    private final Node right;
+    private final boolean negated;
+
+    Equality(Node left, Node right, boolean negated) {
+      this.left = left;
+      this.right = right;
+      this.negated = negated;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      Object leftValue = left.getValue(bindings);
+      Object rightValue = right.getValue(bindings);
+      boolean equal;
+      if (leftValue == null || rightValue == null) {
+        equal = leftValue == rightValue;
+      } else if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        equal = ((Number) leftValue).longValue() == ((Number) rightValue).longValue();
+      } else if (leftValue instanceof String && rightValue instanceof String
+          || leftValue instanceof Boolean && rightValue instanceof Boolean) {
+        equal = leftValue.equals(rightValue);
+      } else {
+        throw FallbackException.INSTANCE;
+      }
+      return equal != negated ? Boolean.TRUE : Boolean.FALSE;
+    }
+  }
+
+  private static final class Comparison implements Node {
+    private final Node left;
+    private final Node right;
+    private final String operator;
+
+    Comparison(Node left, Node right, String operator) {
+      this.left = left;
+      this.right = right;
+      this.operator = operator;
+    }
+
+    @Override
+    public Object getValue(Object bindings) {
+      Object leftValue = left.getValue(bindings);
+      Object rightValue = right.getValue(bindings);
+      int result;
+      if (leftValue != null && rightValue != null && isIntegral(leftValue) && isIntegral(rightValue)) {
+        result = Long.compare(((Number) leftValue).longValue(), ((Number) rightValue).longValue());
+      } else if (leftValue instanceof String && rightValue instanceof String) {
+        result = ((String) leftValue).compareTo((String) rightValue);
+      } else {
+        throw FallbackException.INSTANCE;
+      }
+      switch (operator) {
+        case "<":
+          return result < 0;
+        case "<=":
+          return result <= 0;
+        case ">":
+          return result > 0;
+        default:
+          return result >= 0;
+      }
+    }
+  }
+
+  private static boolean isIntegral(Object value) {
+    Class<?> type = value.getClass();
+    return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+  }
+
+  /**
+   * A recursive descent parser for the supported subset, following the operator precedence of OGNL.
+   */
+  private static final class Parser {
+
+    private static final int IDENTIFIER = 0;
+    private static final int NUMBER = 1;
+    private static final int STRING = 2;
+    private static final int SYMBOL = 3;
+
+    private final String expression;
+    private final ReflectorFactory reflectorFactory;
+    private int position;
+    private String token;
+    private int tokenType;
+
+    Parser(String expression, ReflectorFactory reflectorFactory) {
+      this.expression = expression;
+      this.reflectorFactory = reflectorFactory;
+    }
+
+    Node parse() {
+      try {
+        next();
+        Node node = parseOr();
+        return token == null ? node : null;
+      } catch (FallbackException e) {
+        return null;
+      }
+    }
+
+    private Node parseOr() {
+      Node node = parseAnd();
+      while (isOperator("||", "or")) {
+        next();
+        node = new Or(node, parseAnd());
+      }
+      return node;
+    }
+
+    private Node parseAnd() {
+      Node node = parseEquality();
+      while (isOperator("&&", "and")) {
+        next();
+        node = new And(node, parseEquality());
+      }
+      return node;
+    }
+
+    private Node parseEquality() {
+      Node node = parseComparison();
+      while (true) {
+        if (isOperator("==", "eq")) {
+          next();
+          node = new Equality(node, parseComparison(), false);
+        } else if (isOperator("!=", "neq")) {
+          next();
+          node = new Equality(node, parseComparison(), true);
+        } else {
+          return node;
+        }
+      }
+    }
+
+    private Node parseComparison() {
+      Node node = parseUnary();
+      while (true) {
+        String operator;
+        if (isOperator("<", "lt")) {
+          operator = "<";
+        } else if (isOperator("<=", "lte")) {
+          operator = "<=";
+        } else if (isOperator(">", "gt")) {
+          operator = ">";
+        } else if (isOperator(">=", "gte")) {
+          operator = ">=";
+        } else {
+          return node;
+        }
+        next();
+        node = new Comparison(node, parseUnary(), operator);
+      }
+    }
+
+    private Node parseUnary() {
+      if (isOperator("!", "not")) {
+        next();
+        return new Not(parseUnary());
+      }
+      return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+      if (token == null) {
+        throw FallbackException.INSTANCE;
+      }
+      Node node;
+      if (isSymbol("(")) {
+        next();
+        node = parseOr();
+        expectSymbol(")");
+        return checkNoNavigation(node);
+      }
+      if (tokenType == NUMBER) {
+        if (token.length() > 1 && token.charAt(0) == '0') {
+          // an octal literal
+          throw FallbackException.INSTANCE;
+        }
+        try {
+          node = new Literal(Integer.valueOf(token));
+        } catch (NumberFormatException e) {
+          throw FallbackException.INSTANCE;
+        }
+        next();
+        return checkNoNavigation(node);
+      }
+      if (tokenType == STRING) {
+        node = new Literal(token);
+        next();
+        return checkNoNavigation(node);
+      }
+      if (tokenType != IDENTIFIER) {
+        throw FallbackException.INSTANCE;
+      }
+      if ("null".equals(token) || "true".equals(token) || "false".equals(token)) {
+        node = new Literal("null".equals(token) ? null : Boolean.valueOf(token));
+        next();
+        return checkNoNavigation(node);
+      }
+      node = new Variable(identifier());
+      while (isSymbol(".")) {
+        next();
+        String name = identifier();
+        if (isSymbol("(")) {
+          next();
+          expectSymbol(")");
+          if (!MethodCall.isSupported(name)) {
+            throw FallbackException.INSTANCE;
+          }
+          node = new MethodCall(node, name);
+        } else {
+          node = new Property(node, name, reflectorFactory);
+        }
+      }
+      if (isSymbol("(")) {
+        // a method of the root object
+        throw FallbackException.INSTANCE;
+      }
+      return node;
+    }
+
+    private Node checkNoNavigation(Node node) {
+      if (isSymbol(".")) {
+        throw FallbackException.INSTANCE;
+      }
+      return node;
+    }
+
+    private String identifier() {
+      if (tokenType != IDENTIFIER || KEYWORDS.contains(token)) {
+        throw FallbackException.INSTANCE;
+      }
+      String name = token;
+      next();
+      return name;
+    }
+
+    private void expectSymbol(String symbol) {
+      if (!isSymbol(symbol)) {
+        throw FallbackException.INSTANCE;
+      }
+      next();
+    }
+
+    private boolean isSymbol(String symbol) {
+      return token != null && tokenType == SYMBOL && token.equals(symbol);
+    }
+
+    private boolean isOperator(String symbol, String keyword) {
+      return token != null
+          && (tokenType == SYMBOL ? token.equals(symbol) : tokenType == IDENTIFIER && token.equals(keyword));
+    }
+
+    private void next() {
+      int length = expression.length();
+      while (position < length && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+      if (position >= length) {
+        token = null;
+        return;
+      }
+      int start = position;
+      char c = expression.charAt(position);
+      if (Character.isJavaIdentifierStart(c)) {
+        while (position < length && Character.isJavaIdentifierPart(expression.charAt(position))) {
+          position++;
+        }
+        setToken(IDENTIFIER, expression.substring(start, position));
+      } else if (c >= '0' && c <= '9') {
+        while (position < length && expression.charAt(position) >= '0' && expression.charAt(position) <= '9') {
+          position++;
+        }
+        if (position < length
+            && (Character.isJavaIdentifierPart(expression.charAt(position)) || expression.charAt(position) == '.')) {
+          // a suffixed or decimal literal
+          throw FallbackException.INSTANCE;
+        }
+        setToken(NUMBER, expression.substring(start, position));
+      } else if (c == '\'' || c == '"') {
+        int end = expression.indexOf(c, start + 1);
+        if (end < 0 || expression.indexOf('\\', start + 1) >= 0 && expression.indexOf('\\', start + 1) < end) {
+          throw FallbackException.INSTANCE;
+        }
+        if (c == '\'' && end - start == 2) {
+          // a character literal
+          throw FallbackException.INSTANCE;
+        }
+        position = end + 1;
+        setToken(STRING, expression.substring(start + 1, end));
+      } else {
+        String twoChars = position + 1 < length ? expression.substring(position, position + 2) : "";
+        if ("==".equals(twoChars) || "!=".equals(twoChars) || "<=".equals(twoChars) || ">=".equals(twoChars)
+            || "&&".equals(twoChars) || "||".equals(twoChars)) {
+          position += 2;
+          setToken(SYMBOL, twoChars);
+        } else if ("().<>!".indexOf(c) >= 0) {
+          position++;
+          setToken(SYMBOL, String.valueOf(c));
+        } else {
+          throw FallbackException.INSTANCE;
+        }
+      }
+    }
+
+    private void setToken(int tokenType, String token) {
+      this.tokenType = tokenType;
+      this.token = token;
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2022 the original author or authors.
+ *    Copyright 2009-2023 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,9 +15,19 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -28,6 +38,9 @@ public class DynamicSqlSource implements SqlSource {
 
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private final ConcurrentMap<String, ParsedSql> parsedSqlCache = new ConcurrentHashMap<>();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
@@ -38,12 +51,153 @@ public class DynamicSqlSource implements SqlSource {
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    BoundSql boundSql;
+    int cacheSize = configuration.getDynamicSqlCacheSize();
+    if (cacheSize > 0) {
+      boundSql = getCachedBoundSql(context, parameterType, parameterObject, cacheSize);
+    } else {
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+      boundSql = sqlSource.getBoundSql(parameterObject);
+    }
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  /**
+   * Returns how many times the parsed form of the generated SQL was reused.
+   *
+   * @return the number of cache hits
+   *
+   * @since 3.5.12
+   */
+  public long getCacheHitCount() {
+    return cacheHits.sum();
+  }
+
+  /**
+   * Returns how many times the generated SQL had to be parsed while the cache was enabled.
+   *
+   * @return the number of cache misses
+   *
+   * @since 3.5.12
+   */
+  public long getCacheMissCount() {
+    return cacheMisses.sum();
+  }
+
+  /**
+   * Returns the ratio of cache hits to all lookups.
+   *
+   * @return the hit ratio between 0 and 1, or 0 if the cache was never used
+   *
+   * @since 3.5.12
+   */
+  public double getCacheHitRatio() {
+    long hits = cacheHits.sum();
+    long total = hits + cacheMisses.sum();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  private BoundSql getCachedBoundSql(DynamicContext context, Class<?> parameterType, Object parameterObject,
+      int cacheSize) {
+    String originalSql = context.getSql();
+    Map<String, Object> bindings = context.getBindings();
+    MetaObject metaParameters = configuration.newMetaObject(bindings);
+    ParsedSql parsedSql = parsedSqlCache.get(originalSql);
+    if (parsedSql != null && parsedSql.isFor(parameterType, bindings, metaParameters)) {
+      parsedSql.referenced = true;
+      cacheHits.increment();
+      return parsedSql.sqlSource.getBoundSql(parameterObject);
+    }
+    cacheMisses.increment();
+    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    SqlSource sqlSource = sqlSourceParser.parse(originalSql, parameterType, bindings);
+    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    if (parsedSql == null && parsedSqlCache.size() >= cacheSize) {
+      evictParsedSql();
+    }
+    parsedSqlCache.put(originalSql,
+        new ParsedSql(sqlSource, parameterType, boundSql.getParameterMappings(), bindings, metaParameters));
+    return boundSql;
+  }
+
+  /**
+   * Removes one parsed SQL text with the clock algorithm: texts that were reused since the last sweep get a second
+   * chance, the first text that was not is removed.
+   */
+  private void evictParsedSql() {
+    for (int sweep = 0; sweep < 2; sweep++) {
+      for (Iterator<ParsedSql> it = parsedSqlCache.values().iterator(); it.hasNext();) {
+        ParsedSql parsedSql = it.next();
+        if (!parsedSql.referenced) {
+          it.remove();
+          return;
+        }
+        parsedSql.referenced = false;
+      }
+    }
+  }
+
+  /**
+   * The parsed form of one generated SQL text. The types of the parameter mappings that are resolved from the
+   * additional parameters depend on their values, e.g. the items of a foreach, so they are kept and compared as well.
+   * The mappings that are resolved from the parameter object only depend on its type. Which mappings are resolved from
+   * the additional parameters is decided once, a reuse only compares their types and the number of bindings.
+   */
+  private static final class ParsedSql {
+
+    private final SqlSource sqlSource;
+    private final Class<?> parameterType;
+    private final int bindingCount;
+    private final String[] properties;
+    private final Class<?>[] bindingTypes;
+    private volatile boolean referenced;
+
+    ParsedSql(SqlSource sqlSource, Class<?> parameterType, List<ParameterMapping> parameterMappings,
+        Map<String, Object> bindings, MetaObject metaParameters) {
+      this.sqlSource = sqlSource;
+      this.parameterType = parameterType;
+      this.bindingCount = bindings.size();
+      List<String> boundProperties = new ArrayList<>();
+      List<Class<?>> types = new ArrayList<>();
+      if (parameterMappings != null) {
+        for (ParameterMapping parameterMapping : parameterMappings) {
+          Class<?> type = bindingType(parameterMapping.getProperty(), bindings, metaParameters);
+          if (type != null) {
+            boundProperties.add(parameterMapping.getProperty());
+            types.add(type);
+          }
+        }
+      }
+      this.properties = boundProperties.toArray(new String[0]);
+      this.bindingTypes = types.toArray(new Class<?>[0]);
+    }
+
+    boolean isFor(Class<?> parameterType, Map<String, Object> bindings, MetaObject metaParameters) {
+      if (this.parameterType != parameterType || bindingCount != bindings.size()) {
+        return false;
+      }
+      for (int i = 0; i < properties.length; i++) {
+        if (bindingTypes[i] != bindingType(properties[i], bindings, metaParameters)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static Class<?> bindingType(String property, Map<String, Object> bindings, MetaObject metaParameters) {
+      if (property.indexOf('.') < 0 && property.indexOf('[') < 0) {
+        // the common case, e.g. a foreach item, is read from the bindings directly
+        if (!bindings.containsKey(property)) {
+          return null;
+        }
+        Object value = bindings.get(property);
+        return value == null ? Object.class : value.getClass();
+      }
+      return metaParameters.hasGetter(property) ? metaParameters.getGetterType(property) : null;
+    }
+  }
+
 }
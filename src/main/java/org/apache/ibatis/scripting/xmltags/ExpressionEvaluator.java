@@ -29,7 +29,25 @@ import org.apache.ibatis.builder.BuilderException;
 public class ExpressionEvaluator {
 
   public boolean evaluateBoolean(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    return toBoolean(OgnlCache.getValue(expression, parameterObject));
+  }
+
+  /**
+   * Evaluates a compiled expression, falling back to OGNL when the compiled expression cannot evaluate it.
+   *
+   * @since 3.5.12
+   */
+  boolean evaluateBoolean(CompiledExpression expression, Object parameterObject) {
+    Object value;
+    try {
+      value = expression.getValue(parameterObject);
+    } catch (CompiledExpression.FallbackException e) {
+      value = OgnlCache.getValue(expression.getExpression(), parameterObject);
+    }
+    return toBoolean(value);
+  }
+
+  private boolean toBoolean(Object value) {
     if (value instanceof Boolean) {
       return (Boolean) value;
     }
@@ -15,17 +15,22 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.session.Configuration;
 
 /**
  * @author Clinton Begin
  */
 public class ForEachSqlNode implements SqlNode {
-  public static final String ITEM_PREFIX = "__frch_";
+  public static final String ITEM_PREFIX = PropertyTokenizer.FOREACH_ITEM_PREFIX;
 
   private final ExpressionEvaluator evaluator;
   private final String collectionExpression;
@@ -37,6 +42,7 @@ public class ForEachSqlNode implements SqlNode {
   private final String item;
   private final String index;
   private final Configuration configuration;
+  private final Template template;
 
   /**
    * @deprecated Since 3.5.9, use the
@@ -63,6 +69,7 @@ public class ForEachSqlNode implements SqlNode {
     this.index = index;
     this.item = item;
     this.configuration = configuration;
+    this.template = configuration.isFastForEachEnabled() ? Template.parse(contents, index, item) : null;
   }
 
   @Override
@@ -73,6 +80,9 @@ public class ForEachSqlNode implements SqlNode {
     if (iterable == null || !iterable.iterator().hasNext()) {
       return true;
     }
+    if (template != null) {
+      return applyTemplate(context, iterable);
+    }
     boolean first = true;
     applyOpen(context);
     int i = 0;
@@ -107,6 +117,40 @@ public class ForEachSqlNode implements SqlNode {
     return true;
   }
 
+  private boolean applyTemplate(DynamicContext context, Iterable<?> iterable) {
+    boolean first = true;
+    applyOpen(context);
+    int i = 0;
+    for (Object o : iterable) {
+      int uniqueNumber = context.getUniqueNumber();
+      Object key;
+      Object value;
+      if (o instanceof Map.Entry) {
+        Map.Entry<?, ?> mapEntry = (Map.Entry<?, ?>) o;
+        key = mapEntry.getKey();
+        value = mapEntry.getValue();
+      } else {
+        key = i;
+        value = o;
+      }
+      if (template.usesIndex) {
+        context.bind(itemizeItem(index, uniqueNumber), key);
+      }
+      if (template.usesItem) {
+        context.bind(itemizeItem(item, uniqueNumber), value);
+      }
+      boolean prefixApplied = template.apply(context, first || separator == null ? "" : separator, uniqueNumber);
+      if (first) {
+        first = !prefixApplied;
+      }
+      i++;
+    }
+    applyClose(context);
+    context.getBindings().remove(item);
+    context.getBindings().remove(index);
+    return true;
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -187,6 +231,117 @@ public class ForEachSqlNode implements SqlNode {
 
   }
 
+  /**
+   * The pre-parsed body of a foreach that only contains static text. The placeholders that refer to the item or the
+   * index are rewritten once, so each element only appends the text with its unique number instead of creating filtered
+   * contexts and parsing the text again. Only the itemized names that the text refers to are bound.
+   */
+  private static final class Template {
+    private static final char SLOT = '\u0000';
+
+    private final List<Fragment> fragments;
+    private final boolean usesItem;
+    private final boolean usesIndex;
+
+    private Template(List<Fragment> fragments, boolean usesItem, boolean usesIndex) {
+      this.fragments = fragments;
+      this.usesItem = usesItem;
+      this.usesIndex = usesIndex;
+    }
+
+    static Template parse(SqlNode contents, String index, String item) {
+      List<String> texts = new ArrayList<>();
+      if (item == null || !collectStaticTexts(contents, texts)) {
+        return null;
+      }
+      Pattern itemPattern = Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+      Pattern indexPattern = index == null ? null : Pattern.compile("^\\s*" + index + "(?![^.,:\\s])");
+      List<Fragment> fragments = new ArrayList<>();
+      boolean usesItem = false;
+      boolean usesIndex = false;
+      for (String text : texts) {
+        if (text.indexOf(SLOT) >= 0) {
+          return null;
+        }
+        List<String> slots = new ArrayList<>();
+        GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
+          Matcher matcher = itemPattern.matcher(content);
+          if (matcher.find()) {
+            slots.add(item);
+          } else if (indexPattern != null && (matcher = indexPattern.matcher(content)).find()) {
+            slots.add(index);
+          } else {
+            return "#{" + content + "}";
+          }
+          return "#{" + SLOT + content.substring(matcher.end()) + "}";
+        });
+        String parsed = parser.parse(text);
+        usesItem |= slots.contains(item);
+        usesIndex |= index != null && slots.contains(index);
+        fragments.add(new Fragment(parsed.split(String.valueOf(SLOT), -1), slots.toArray(new String[0]),
+            text.trim().length() > 0));
+      }
+      return new Template(fragments, usesItem, usesIndex);
+    }
+
+    private static boolean collectStaticTexts(SqlNode node, List<String> texts) {
+      if (node.getClass() == StaticTextSqlNode.class) {
+        texts.add(((StaticTextSqlNode) node).getText());
+        return true;
+      }
+      if (node.getClass() == MixedSqlNode.class) {
+        for (SqlNode child : ((MixedSqlNode) node).getContents()) {
+          if (!collectStaticTexts(child, texts)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Appends the text for one element like the regular mode does, including the separator before the first text that
+     * is not blank.
+     *
+     * @return true if the prefix was applied
+     */
+    boolean apply(DynamicContext context, String prefix, int uniqueNumber) {
+      boolean prefixApplied = false;
+      for (Fragment fragment : fragments) {
+        if (!prefixApplied && fragment.notBlank) {
+          context.appendSql(prefix);
+          prefixApplied = true;
+        }
+        context.appendSql(fragment.render(uniqueNumber));
+      }
+      return prefixApplied;
+    }
+  }
+
+  private static final class Fragment {
+    private final String[] literals;
+    private final String[] slots;
+    private final boolean notBlank;
+
+    Fragment(String[] literals, String[] slots, boolean notBlank) {
+      this.literals = literals;
+      this.slots = slots;
+      this.notBlank = notBlank;
+    }
+
+    String render(int uniqueNumber) {
+      if (slots.length == 0) {
+        return literals[0];
+      }
+      StringBuilder builder = new StringBuilder(literals[0]);
+      for (int i = 0; i < slots.length; i++) {
+        builder.append(ITEM_PREFIX).append(slots[i]).append('_').append(uniqueNumber).append(literals[i + 1]);
+      }
+      return builder.toString();
+    }
+  }
+
   private class PrefixedContext extends DynamicContext {
     private final DynamicContext delegate;
     private final String prefix;
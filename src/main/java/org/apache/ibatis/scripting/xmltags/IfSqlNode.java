@@ -15,23 +15,40 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.session.Configuration;
+
 /**
  * @author Clinton Begin
  */
 public class IfSqlNode implements SqlNode {
   private final ExpressionEvaluator evaluator;
   private final String test;
+  private final CompiledExpression compiledTest;
   private final SqlNode contents;
 
   public IfSqlNode(SqlNode contents, String test) {
+    this(null, contents, test);
+  }
+
+  /**
+   * Creates an if node whose test expression is compiled when {@link Configuration#isCompiledTestExpressionsEnabled()}
+   * is set.
+   *
+   * @since 3.5.12
+   */
+  public IfSqlNode(Configuration configuration, SqlNode contents, String test) {
     this.test = test;
     this.contents = contents;
     this.evaluator = new ExpressionEvaluator();
+    this.compiledTest = configuration != null && configuration.isCompiledTestExpressionsEnabled()
+        ? CompiledExpression.compile(test, configuration.getReflectorFactory()) : null;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
-    if (evaluator.evaluateBoolean(test, context.getBindings())) {
+    boolean matched = compiledTest == null ? evaluator.evaluateBoolean(test, context.getBindings())
+        : evaluator.evaluateBoolean(compiledTest, context.getBindings());
+    if (matched) {
       contents.apply(context);
       return true;
     }
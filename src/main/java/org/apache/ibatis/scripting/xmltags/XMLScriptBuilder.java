@@ -230,7 +230,7 @@ public class XMLScriptBuilder extends BaseBuilder {
       MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
       // 获取if属性的值，将值设置为IfSqlNode的属性，便于运行时解析
       String test = nodeToHandle.getStringAttribute("test");
-      IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test);
+      IfSqlNode ifSqlNode = new IfSqlNode(configuration, mixedSqlNode, test);
       targetContents.add(ifSqlNode);
     }
   }
@@ -15,6 +15,8 @@
  */
 package org.apache.ibatis.session;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +30,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
+import javax.sql.DataSource;
+
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
 import org.apache.ibatis.builder.IncompleteElementException;
@@ -39,16 +43,22 @@ import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.loader.ParallelResultLoader;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
@@ -56,6 +66,7 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.SqlTracer;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -101,6 +112,11 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public class Configuration {
 
+  /**
+   * Marks the data sources of databases without a known dialect, as the map of detected dialects cannot hold nulls.
+   */
+  private static final Dialect UNKNOWN_DIALECT = (sql, offset, limit) -> null;
+
   protected Environment environment;// 数据源 、事务管理器
 
   protected boolean safeRowBoundsEnabled;
@@ -117,6 +133,21 @@ public class Configuration {
   protected boolean shrinkWhitespacesInSql;
   protected boolean nullableOnForEach;
   protected boolean argNameBasedConstructorAutoMapping;
+  protected boolean compiledRowMappingEnabled;
+  protected int dynamicSqlCacheSize;
+  protected boolean compiledTestExpressionsEnabled;
+  protected boolean fastForEachEnabled;
+  protected SqlTracer sqlTracer;
+  protected double sqlTraceSampleRate = 1.0;
+  protected boolean indexedColumnAccessEnabled;
+  protected boolean databasePaginationEnabled;
+  protected Dialect paginationDialect;
+  protected boolean directLazyLoadingProxyEnabled;
+  protected int parallelNestedQueryThreads;
+  protected ParallelResultLoader parallelResultLoader;
+  protected int batchFlushStatementRows;
+  protected int batchFlushPendingRows;
+  protected long batchFlushPendingBytes;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -168,6 +199,7 @@ public class Configuration {
 
   protected final Set<String> loadedResources = new HashSet<>();// 存储已加载的mapper xml文件路径
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
+  protected final Map<DataSource, Dialect> detectedPaginationDialects = new ConcurrentHashMap<>();
 
   protected final Collection<XMLStatementBuilder> incompleteStatements = new LinkedList<>();
   /*
@@ -212,6 +244,8 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
@@ -219,6 +253,9 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
+    typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+    typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+
     typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
     typeAliasRegistry.registerAlias("RAW", RawLanguageDriver.class);
 
@@ -357,6 +394,479 @@ public class Configuration {
     this.argNameBasedConstructorAutoMapping = argNameBasedConstructorAutoMapping;
   }
 
+  /**
+   * Returns whether the rows of simple result maps are mapped with a mapping that is compiled once per result set.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isCompiledRowMappingEnabled() {
+    return compiledRowMappingEnabled;
+  }
+
+  /**
+   * Sets whether the rows of simple result maps are mapped with a mapping that is compiled once per result set. The
+   * compiled mapping reads the columns by index and writes the properties with cached setters. Result maps it does not
+   * support are mapped the regular way.
+   *
+   * @param compiledRowMappingEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+    this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+  }
+
+  /**
+   * Returns the maximum number of parsed SQL texts that each dynamic SQL statement keeps.
+   * <p>
+   * Default is {@code 0}, which disables the cache.
+   *
+   * @return the maximum number of parsed SQL texts per statement
+   *
+   * @since 3.5.12
+   */
+  public int getDynamicSqlCacheSize() {
+    return dynamicSqlCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of parsed SQL texts that each dynamic SQL statement keeps. When the generated SQL and the
+   * parameter type are the same as in an earlier call, the {@code #{}} placeholders are not parsed again and the
+   * parameter mappings are reused. When the cache is full, a text that was not reused recently is replaced.
+   *
+   * @param dynamicSqlCacheSize
+   *          the maximum number of parsed SQL texts per statement, {@code 0} disables the cache
+   *
+   * @since 3.5.12
+   */
+  public void setDynamicSqlCacheSize(int dynamicSqlCacheSize) {
+    this.dynamicSqlCacheSize = dynamicSqlCacheSize;
+  }
+
+  /**
+   * Returns whether the test expressions of the if and when elements of dynamic SQL are compiled.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isCompiledTestExpressionsEnabled() {
+    return compiledTestExpressionsEnabled;
+  }
+
+  /**
+   * Sets whether the test expressions of the if and when elements of dynamic SQL are compiled when the statement is
+   * built. Compiled expressions support property paths, null checks, comparisons, the {@code size()},
+   * {@code isEmpty()} and {@code length()} methods and the logical operators, and they are evaluated without OGNL.
+   * Other expressions and operand types are evaluated with OGNL.
+   *
+   * @param compiledTestExpressionsEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setCompiledTestExpressionsEnabled(boolean compiledTestExpressionsEnabled) {
+    this.compiledTestExpressionsEnabled = compiledTestExpressionsEnabled;
+  }
+
+  /**
+   * Returns whether foreach elements whose body only contains static text render their body from a pre-parsed
+   * template.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isFastForEachEnabled() {
+    return fastForEachEnabled;
+  }
+
+  /**
+   * Sets whether foreach elements whose body only contains static text render their body from a pre-parsed template.
+   * The placeholders of the body are rewritten once when the statement is built instead of once per element, and only
+   * the item and index names that the body refers to are bound. Other foreach elements are rendered the regular way.
+   *
+   * @param fastForEachEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setFastForEachEnabled(boolean fastForEachEnabled) {
+    this.fastForEachEnabled = fastForEachEnabled;
+  }
+
+  /**
+   * Returns whether the interceptors are applied with one wrapper per target instead of one proxy per interceptor.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isStaticPluginPipelineEnabled() {
+    return interceptorChain.isStaticPipelineEnabled();
+  }
+
+  /**
+   * Sets whether the interceptors are applied with one wrapper per target instead of one proxy per interceptor. The
+   * interceptors of each method are resolved once per target class, and statement, parameter and result set handlers
+   * are wrapped without a dynamic proxy. The interceptors are called in the same order, but
+   * {@link org.apache.ibatis.plugin.Invocation#getTarget()} returns the original target instead of the proxy created
+   * for the previous interceptor.
+   *
+   * @param staticPluginPipelineEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setStaticPluginPipelineEnabled(boolean staticPluginPipelineEnabled) {
+    interceptorChain.setStaticPipelineEnabled(staticPluginPipelineEnabled);
+  }
+
+  /**
+   * Gets the tracer that is notified of the executed SQL statements.
+   *
+   * @return the SQL tracer, or {@code null} if SQL tracing is disabled
+   *
+   * @since 3.5.12
+   */
+  public SqlTracer getSqlTracer() {
+    return sqlTracer;
+  }
+
+  /**
+   * Sets the tracer that is notified of the SQL text, the bind values and the row counts of the executed statements.
+   * The tracer is called by the statement and result set handlers, and the JDBC connection of a traced execution is not
+   * wrapped in the logging proxies.
+   *
+   * @param sqlTracer
+   *          the SQL tracer, or {@code null} to disable SQL tracing
+   *
+   * @since 3.5.12
+   *
+   * @see org.apache.ibatis.executor.statement.LoggingSqlTracer
+   */
+  public void setSqlTracer(SqlTracer sqlTracer) {
+    this.sqlTracer = sqlTracer;
+  }
+
+  /**
+   * Gets the fraction of statement executions that are traced.
+   * <p>
+   * Default is {@code 1.0}.
+   *
+   * @return the sample rate between {@code 0.0} and {@code 1.0}
+   *
+   * @since 3.5.12
+   */
+  public double getSqlTraceSampleRate() {
+    return sqlTraceSampleRate;
+  }
+
+  /**
+   * Sets the fraction of statement executions that are traced by the {@link #getSqlTracer() SQL tracer}. Whether an
+   * execution is traced is decided once when its statement handler is created, so a traced execution reports all of
+   * its events.
+   *
+   * @param sqlTraceSampleRate
+   *          the sample rate between {@code 0.0} and {@code 1.0}
+   *
+   * @since 3.5.12
+   */
+  public void setSqlTraceSampleRate(double sqlTraceSampleRate) {
+    if (sqlTraceSampleRate < 0.0 || sqlTraceSampleRate > 1.0) {
+      throw new IllegalArgumentException(
+          "The SQL trace sample rate must be between 0.0 and 1.0 but was " + sqlTraceSampleRate);
+    }
+    this.sqlTraceSampleRate = sqlTraceSampleRate;
+  }
+
+  /**
+   * Returns whether the result set handler reads the columns by index instead of by name.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isIndexedColumnAccessEnabled() {
+    return indexedColumnAccessEnabled;
+  }
+
+  /**
+   * Sets whether the result set handler reads the columns by index instead of by name. The column names of the
+   * mappings are resolved to indexes once per result set shape, and the values are read with
+   * {@link org.apache.ibatis.type.TypeHandler#getResult(java.sql.ResultSet, int)}, so all type handlers that are used
+   * for results must implement it. Columns that are not in the result set are still read by name.
+   *
+   * @param indexedColumnAccessEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setIndexedColumnAccessEnabled(boolean indexedColumnAccessEnabled) {
+    this.indexedColumnAccessEnabled = indexedColumnAccessEnabled;
+  }
+
+  /**
+   * Returns whether the row bounds of queries are applied by the database.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isDatabasePaginationEnabled() {
+    return databasePaginationEnabled;
+  }
+
+  /**
+   * Sets whether the row bounds of queries are applied by the database. The SQL of a query with row bounds is rewritten
+   * by the {@link #getPaginationDialect() pagination dialect}, or by the dialect of the database product reported by
+   * the JDBC driver if none is set, so the rows before the offset are not sent to the client. Queries with nested
+   * result maps or multiple result sets, callable statements, queries that already page or lock their rows and
+   * databases without a known dialect still skip the rows while reading the result set.
+   *
+   * @param databasePaginationEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setDatabasePaginationEnabled(boolean databasePaginationEnabled) {
+    this.databasePaginationEnabled = databasePaginationEnabled;
+  }
+
+  /**
+   * Gets the dialect used for database pagination.
+   *
+   * @return the dialect, or {@code null} if the dialect is resolved from the database product
+   *
+   * @since 3.5.12
+   */
+  public Dialect getPaginationDialect() {
+    return paginationDialect;
+  }
+
+  /**
+   * Sets the dialect used for database pagination instead of the dialect of the database product.
+   *
+   * @param paginationDialect
+   *          the dialect, or {@code null} to resolve the dialect from the database product
+   *
+   * @since 3.5.12
+   */
+  public void setPaginationDialect(Dialect paginationDialect) {
+    this.paginationDialect = paginationDialect;
+  }
+
+  /**
+   * Returns the dialect that pages the queries run on a connection. Unless a {@link #getPaginationDialect() pagination
+   * dialect} is set, the dialect is resolved from the database product of the connection, which is read only once for
+   * the data source of the environment.
+   *
+   * @param connection
+   *          a connection of the environment
+   *
+   * @return the dialect, or {@code null} if the database is not known
+   *
+   * @throws SQLException
+   *           if the database product could not be read
+   *
+   * @since 3.5.12
+   */
+  public Dialect resolvePaginationDialect(Connection connection) throws SQLException {
+    if (paginationDialect != null) {
+      return paginationDialect;
+    }
+    DataSource dataSource = environment == null ? null : environment.getDataSource();
+    if (dataSource == null) {
+      return Dialect.forDatabaseProductName(connection.getMetaData().getDatabaseProductName());
+    }
+    Dialect dialect = detectedPaginationDialects.get(dataSource);
+    if (dialect == null) {
+      dialect = Dialect.forDatabaseProductName(connection.getMetaData().getDatabaseProductName());
+      detectedPaginationDialects.put(dataSource, dialect == null ? UNKNOWN_DIALECT : dialect);
+    }
+    return dialect == UNKNOWN_DIALECT ? null : dialect;
+  }
+
+  /**
+   * Returns whether result objects with lazy loaded properties are created directly as proxies.
+   * <p>
+   * Default is {@code false}.
+   *
+   * @return If enabled, {@code true}
+   *
+   * @since 3.5.12
+   */
+  public boolean isDirectLazyLoadingProxyEnabled() {
+    return directLazyLoadingProxyEnabled;
+  }
+
+  /**
+   * Sets whether result objects with lazy loaded properties are created directly as proxies by the
+   * {@link #getProxyFactory() proxy factory}, instead of being created by the object factory and copied to a proxy.
+   * The object factory is not used for these result objects. Proxy factories that do not support this still copy the
+   * result objects.
+   *
+   * @param directLazyLoadingProxyEnabled
+   *          If enabled, set to {@code true}
+   *
+   * @since 3.5.12
+   */
+  public void setDirectLazyLoadingProxyEnabled(boolean directLazyLoadingProxyEnabled) {
+    this.directLazyLoadingProxyEnabled = directLazyLoadingProxyEnabled;
+  }
+
+  /**
+   * Gets the maximum number of threads that load eager nested selects concurrently.
+   * <p>
+   * Default is {@code 0}.
+   *
+   * @return the maximum number of threads, {@code 0} if eager nested selects are loaded one after another
+   *
+   * @since 3.5.12
+   */
+  public int getParallelNestedQueryThreads() {
+    return parallelNestedQueryThreads;
+  }
+
+  /**
+   * Sets the maximum number of threads that load eager nested selects concurrently. When a result map has more than one
+   * eager nested select that does not load nested selects itself, the nested selects of a row are loaded at the same
+   * time, each on its own connection of the environment's data source, and the row is completed once all of them are
+   * loaded. As the separate connections do not see uncommitted changes, this only applies to sessions whose connection
+   * is read-only or in auto-commit mode. A nested select is loaded by the session itself when all the threads are busy,
+   * when a pooled data source has no free connection, or when no thread got a connection for it by the time the row is
+   * completed.
+   *
+   * @param parallelNestedQueryThreads
+   *          the maximum number of threads, {@code 0} disables concurrent loading
+   *
+   * @since 3.5.12
+   */
+  public void setParallelNestedQueryThreads(int parallelNestedQueryThreads) {
+    if (parallelResultLoader != null) {
+      parallelResultLoader.shutdown();
+    }
+    this.parallelNestedQueryThreads = parallelNestedQueryThreads;
+    this.parallelResultLoader = parallelNestedQueryThreads > 0 ? new ParallelResultLoader(parallelNestedQueryThreads)
+        : null;
+  }
+
+  /**
+   * Gets the loader of concurrently loaded eager nested selects.
+   *
+   * @return the loader, or {@code null} if eager nested selects are loaded one after another
+   *
+   * @see #setParallelNestedQueryThreads(int)
+   *
+   * @since 3.5.12
+   */
+  public ParallelResultLoader getParallelResultLoader() {
+    return parallelResultLoader;
+  }
+
+  /**
+   * Gets the number of rows of one batched statement after which the batch executor flushes the pending statements.
+   * <p>
+   * Default is {@code 0}.
+   *
+   * @return the number of rows, {@code 0} if not limited
+   *
+   * @since 3.5.12
+   */
+  public int getBatchFlushStatementRows() {
+    return batchFlushStatementRows;
+  }
+
+  /**
+   * Sets the number of rows of one batched statement after which the batch executor flushes the pending statements. The
+   * pending statements are executed in order, their generated keys are set and their statements and parameter objects
+   * are released. The update counts are kept and returned by the next flush.
+   *
+   * @param batchFlushStatementRows
+   *          the number of rows, {@code 0} if not limited
+   *
+   * @see #setBatchFlushPendingRows(int)
+   * @see #setBatchFlushPendingBytes(long)
+   *
+   * @since 3.5.12
+   */
+  public void setBatchFlushStatementRows(int batchFlushStatementRows) {
+    this.batchFlushStatementRows = batchFlushStatementRows;
+  }
+
+  /**
+   * Gets the number of pending rows of all batched statements after which the batch executor flushes the pending
+   * statements.
+   * <p>
+   * Default is {@code 0}.
+   *
+   * @return the number of rows, {@code 0} if not limited
+   *
+   * @since 3.5.12
+   */
+  public int getBatchFlushPendingRows() {
+    return batchFlushPendingRows;
+  }
+
+  /**
+   * Sets the number of pending rows of all batched statements after which the batch executor flushes the pending
+   * statements.
+   *
+   * @param batchFlushPendingRows
+   *          the number of rows, {@code 0} if not limited
+   *
+   * @see #setBatchFlushStatementRows(int)
+   *
+   * @since 3.5.12
+   */
+  public void setBatchFlushPendingRows(int batchFlushPendingRows) {
+    this.batchFlushPendingRows = batchFlushPendingRows;
+  }
+
+  /**
+   * Gets the estimated size of the parameter values of the pending rows after which the batch executor flushes the
+   * pending statements.
+   * <p>
+   * Default is {@code 0}.
+   *
+   * @return the size in bytes, {@code 0} if not limited
+   *
+   * @since 3.5.12
+   */
+  public long getBatchFlushPendingBytes() {
+    return batchFlushPendingBytes;
+  }
+
+  /**
+   * Sets the estimated size of the parameter values of the pending rows after which the batch executor flushes the
+   * pending statements. Strings count two bytes per character, byte arrays their length and other values eight bytes.
+   *
+   * @param batchFlushPendingBytes
+   *          the size in bytes, {@code 0} if not limited
+   *
+   * @see #setBatchFlushStatementRows(int)
+   *
+   * @since 3.5.12
+   */
+  public void setBatchFlushPendingBytes(long batchFlushPendingBytes) {
+    this.batchFlushPendingBytes = batchFlushPendingBytes;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -20,8 +20,6 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Supplier;
 
 import org.apache.ibatis.io.Resources;
@@ -107,19 +105,16 @@ public class UnknownTypeHandler extends BaseTypeHandler<Object> {
 
   private TypeHandler<?> resolveTypeHandler(ResultSet rs, String column) {
     try {
-      Map<String, Integer> columnIndexLookup;
-      columnIndexLookup = new HashMap<>();
       ResultSetMetaData rsmd = rs.getMetaData();
-      int count = rsmd.getColumnCount();
       boolean useColumnLabel = config.isUseColumnLabel();
-      for (int i = 1; i <= count; i++) {
-        String name = useColumnLabel ? rsmd.getColumnLabel(i) : rsmd.getColumnName(i);
-        columnIndexLookup.put(name, i);
-      }
-      Integer columnIndex = columnIndexLookup.get(column);
       TypeHandler<?> handler = null;
-      if (columnIndex != null) {
-        handler = resolveTypeHandler(rsmd, columnIndex);
+      // the last column with the name wins, search backwards instead of building a lookup map on every call
+      for (int i = rsmd.getColumnCount(); i >= 1; i--) {
+        String name = useColumnLabel ? rsmd.getColumnLabel(i) : rsmd.getColumnName(i);
+        if (name != null && name.equals(column)) {
+          handler = resolveTypeHandler(rsmd, i);
+          break;
+        }
       }
       if (handler == null || handler instanceof UnknownTypeHandler) {
         handler = OBJECT_TYPE_HANDLER;
@@ -41,6 +41,7 @@ import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
 import org.apache.ibatis.domain.blog.mappers.BlogMapper;
@@ -48,6 +49,7 @@ import org.apache.ibatis.domain.blog.mappers.NestedBlogMapper;
 import org.apache.ibatis.domain.jpetstore.Cart;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.statement.LoggingSqlTracer;
 import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
@@ -111,6 +113,22 @@ class XmlConfigBuilderTest {
       assertThat(config.isArgNameBasedConstructorAutoMapping()).isFalse();
       assertThat(config.getDefaultSqlProviderType()).isNull();
       assertThat(config.isNullableOnForEach()).isFalse();
+      assertThat(config.isCompiledRowMappingEnabled()).isFalse();
+      assertThat(config.getDynamicSqlCacheSize()).isZero();
+      assertThat(config.isCompiledTestExpressionsEnabled()).isFalse();
+      assertThat(config.isFastForEachEnabled()).isFalse();
+      assertThat(config.isStaticPluginPipelineEnabled()).isFalse();
+      assertThat(config.getSqlTracer()).isNull();
+      assertThat(config.getSqlTraceSampleRate()).isEqualTo(1.0);
+      assertThat(config.isIndexedColumnAccessEnabled()).isFalse();
+      assertThat(config.isDatabasePaginationEnabled()).isFalse();
+      assertThat(config.getPaginationDialect()).isNull();
+      assertThat(config.isDirectLazyLoadingProxyEnabled()).isFalse();
+      assertThat(config.getParallelNestedQueryThreads()).isZero();
+      assertThat(config.getParallelResultLoader()).isNull();
+      assertThat(config.getBatchFlushStatementRows()).isZero();
+      assertThat(config.getBatchFlushPendingRows()).isZero();
+      assertThat(config.getBatchFlushPendingBytes()).isZero();
     }
   }
 
@@ -217,6 +235,22 @@ class XmlConfigBuilderTest {
       assertThat(config.isArgNameBasedConstructorAutoMapping()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
       assertThat(config.isNullableOnForEach()).isTrue();
+      assertThat(config.isCompiledRowMappingEnabled()).isTrue();
+      assertThat(config.getDynamicSqlCacheSize()).isEqualTo(64);
+      assertThat(config.isCompiledTestExpressionsEnabled()).isTrue();
+      assertThat(config.isFastForEachEnabled()).isTrue();
+      assertThat(config.isStaticPluginPipelineEnabled()).isTrue();
+      assertThat(config.getSqlTracer()).isInstanceOf(LoggingSqlTracer.class);
+      assertThat(config.getSqlTraceSampleRate()).isEqualTo(0.25);
+      assertThat(config.isIndexedColumnAccessEnabled()).isTrue();
+      assertThat(config.isDatabasePaginationEnabled()).isTrue();
+      assertThat(config.getPaginationDialect()).isInstanceOf(OffsetFetchDialect.class);
+      assertThat(config.isDirectLazyLoadingProxyEnabled()).isTrue();
+      assertThat(config.getParallelNestedQueryThreads()).isEqualTo(8);
+      assertThat(config.getParallelResultLoader()).isNotNull();
+      assertThat(config.getBatchFlushStatementRows()).isEqualTo(1000);
+      assertThat(config.getBatchFlushPendingRows()).isEqualTo(5000);
+      assertThat(config.getBatchFlushPendingBytes()).isEqualTo(16777216L);
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -16,12 +16,14 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -361,6 +363,105 @@ class DynamicSqlSourceTest extends BaseDataTest {
     Assertions.assertEquals("id=", sql);
   }
 
+  @Test
+  void shouldReuseParsedSqlWhenCacheIsEnabled() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(16);
+    DynamicSqlSource source = new DynamicSqlSource(configuration,
+        mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"), new ForEachSqlNode(configuration,
+            mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(", ")", ",")));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2 }));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("array", new Integer[] { 3, 4 }));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? )", second.getSql());
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(3, second.getAdditionalParameter("__frch_item_0"));
+    assertEquals(1, source.getCacheHitCount());
+    assertEquals(1, source.getCacheMissCount());
+    assertEquals(0.5, source.getCacheHitRatio());
+
+    source.getBoundSql(Collections.singletonMap("array", new Integer[] { 1, 2, 3 }));
+    assertEquals(1, source.getCacheHitCount());
+    assertEquals(2, source.getCacheMissCount());
+  }
+
+  @Test
+  void shouldNotReuseParsedSqlWhenBindingTypesDiffer() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(16);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new ForEachSqlNode(configuration,
+        mixedContents(new TextSqlNode("#{item}")), "array", null, "item", "(", ")", ",")));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("array", new Object[] { 1 }));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("array", new Object[] { "one" }));
+    assertEquals(Integer.class, first.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, second.getParameterMappings().get(0).getJavaType());
+    assertEquals(0, source.getCacheHitCount());
+    assertEquals(2, source.getCacheMissCount());
+  }
+
+  @Test
+  void shouldNotCacheMoreSqlThanConfigured() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(1);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(new TextSqlNode("SELECT * FROM BLOG"),
+        new IfSqlNode(mixedContents(new TextSqlNode("WHERE ID = #{id}")), "id != null")));
+    source.getBoundSql(new Bean(null));
+    source.getBoundSql(new Bean("1"));
+    source.getBoundSql(new Bean("2"));
+    source.getBoundSql(new Bean(null));
+    assertEquals(1, source.getCacheHitCount());
+    assertEquals(3, source.getCacheMissCount());
+  }
+
+  @Test
+  void shouldCacheNewSqlWhenCacheIsFull() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(1);
+    DynamicSqlSource source = new DynamicSqlSource(configuration,
+        mixedContents(new TextSqlNode("SELECT * FROM ${table} WHERE ID = #{id}")));
+    source.getBoundSql(table("BLOG"));
+    source.getBoundSql(table("POST"));
+    source.getBoundSql(table("POST"));
+    assertEquals(1, source.getCacheHitCount());
+    assertEquals(2, source.getCacheMissCount());
+  }
+
+  @Test
+  void shouldKeepReusedSqlWhenCacheIsFull() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(2);
+    DynamicSqlSource source = new DynamicSqlSource(configuration,
+        mixedContents(new TextSqlNode("SELECT * FROM ${table} WHERE ID = #{id}")));
+    source.getBoundSql(table("BLOG"));
+    source.getBoundSql(table("POST"));
+    source.getBoundSql(table("BLOG"));
+    // POST was not reused, so it makes room for AUTHOR
+    source.getBoundSql(table("AUTHOR"));
+    source.getBoundSql(table("BLOG"));
+    source.getBoundSql(table("AUTHOR"));
+    assertEquals(3, source.getCacheHitCount());
+    assertEquals(3, source.getCacheMissCount());
+    source.getBoundSql(table("POST"));
+    assertEquals(4, source.getCacheMissCount());
+  }
+
+  private static Map<String, Object> table(String table) {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("table", table);
+    parameter.put("id", 1);
+    return parameter;
+  }
+
+  @Test
+  void shouldNotCountLookupsWhenCacheIsDisabled() {
+    DynamicSqlSource source = new DynamicSqlSource(new Configuration(),
+        mixedContents(new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+    source.getBoundSql(new Bean("1"));
+    source.getBoundSql(new Bean("1"));
+    assertEquals(0, source.getCacheHitCount());
+    assertEquals(0, source.getCacheMissCount());
+    assertEquals(0, source.getCacheHitRatio());
+  }
+
   public static class Bean {
     public String id;
 
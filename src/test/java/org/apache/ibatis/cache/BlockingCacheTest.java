@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldNotLockOnHit() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject("key"));
+    assertEquals(1, cache.getPendingLoadCount());
+    cache.putObject("key", "value");
+    assertEquals(0, cache.getPendingLoadCount());
+
+    assertEquals("value", cache.getObject("key"));
+    assertEquals(0, cache.getPendingLoadCount());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void shouldHandValueToWaitingReaders() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject("key"));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Object>> readers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        readers.add(executor.submit(() -> cache.getObject("key")));
+      }
+      waitForWaiters(cache, 4);
+      cache.putObject("key", "value");
+      for (Future<Object> reader : readers) {
+        assertEquals("value", reader.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, cache.getMissCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldPassLoadToWaitingReaderWhenOwnerGivesUp() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject("key"));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> reader = executor.submit(() -> cache.getObject("key"));
+      waitForWaiters(cache, 1);
+      cache.removeObject("key");
+      assertNull(reader.get(5, TimeUnit.SECONDS));
+      assertEquals(2, cache.getMissCount());
+      assertEquals(1, cache.getPendingLoadCount());
+      cache.removeObject("key");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLoadOnceForConcurrentMisses() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> readers = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        readers.add(executor.submit(() -> {
+          start.await();
+          return cache.computeIfAbsent("key", key -> {
+            loads.incrementAndGet();
+            sleep(50);
+            return "value";
+          });
+        }));
+      }
+      start.countDown();
+      for (Future<Object> reader : readers) {
+        assertEquals("value", reader.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(0, cache.getPendingLoadCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldReleaseLockWhenLoaderFails() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("key", key -> {
+      throw new IllegalStateException("failed");
+    }));
+    assertEquals(0, cache.getPendingLoadCount());
+    assertNull(cache.computeIfAbsent("key", key -> null));
+    assertEquals(0, cache.getPendingLoadCount());
+  }
+
+  @Test
+  void shouldDetectStuckLoadsAndTimeouts() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(200);
+    cache.setStuckLoadThreshold(50);
+    assertNull(cache.getObject("key"));
+
+    assertThrows(CacheException.class, () -> cache.getObject("key"));
+    assertEquals(1, cache.getTimeoutCount());
+    assertEquals(1, cache.getStuckLoadCount());
+    assertEquals(1, cache.getWaitCount());
+    cache.removeObject("key");
+  }
+
+  private static void waitForWaiters(BlockingCache cache, int waiters) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (cache.getWaitCount() < waiters && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(waiters, cache.getWaitCount());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
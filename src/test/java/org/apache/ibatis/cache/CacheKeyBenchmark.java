@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares building and looking up a {@link CacheKey} with a {@link CompactCacheKey}. Not run by the test suite, run
+ * {@link #main(String[])} from the test classpath with a profiler such as {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+  private static final String ID = "org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogsByAuthorAndTitle";
+  private static final String SQL = "select * from blog where author_id = ? and title like ? order by id";
+  private static final String ENVIRONMENT_ID = "development";
+
+  private final CompactCacheKey.Shape shape = new CompactCacheKey.Shape(ID, SQL, ENVIRONMENT_ID);
+  private final Map<CacheKey, Object> cache = new HashMap<>();
+  private int authorId;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < 1000; i++) {
+      cache.put(cacheKey(i, "title%"), i);
+    }
+    authorId = 500;
+  }
+
+  @Benchmark
+  public CacheKey createCacheKey() {
+    return cacheKey(authorId, "title%");
+  }
+
+  @Benchmark
+  public CacheKey createCompactCacheKey() {
+    return compactCacheKey(authorId, "title%");
+  }
+
+  @Benchmark
+  public Object lookupCacheKey() {
+    return cache.get(cacheKey(authorId, "title%"));
+  }
+
+  @Benchmark
+  public Object lookupCompactCacheKey() {
+    return cache.get(compactCacheKey(authorId, "title%"));
+  }
+
+  private static CacheKey cacheKey(int authorId, String title) {
+    CacheKey key = new CacheKey();
+    key.update(ID);
+    key.update(0);
+    key.update(Integer.MAX_VALUE);
+    key.update(SQL);
+    key.update(authorId);
+    key.update(title);
+    key.update(ENVIRONMENT_ID);
+    return key;
+  }
+
+  private CompactCacheKey compactCacheKey(int authorId, String title) {
+    return new CompactCacheKey(shape, 0, Integer.MAX_VALUE, new Object[] { authorId, title });
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(CacheKeyBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
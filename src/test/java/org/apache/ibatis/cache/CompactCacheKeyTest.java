@@ -0,0 +1,112 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+class CompactCacheKeyTest {
+
+  private static final CompactCacheKey.Shape SHAPE = new CompactCacheKey.Shape("selectById",
+      "select * from users where id = ? and name = ?", "development");
+
+  @Test
+  void shouldBeEqualToSequentiallyUpdatedCacheKey() {
+    CompactCacheKey compactKey = new CompactCacheKey(SHAPE, 0, Integer.MAX_VALUE, new Object[] { 1, null });
+    CacheKey key = new CacheKey(new Object[] { "selectById", 0, Integer.MAX_VALUE,
+        "select * from users where id = ? and name = ?", 1, null, "development" });
+    assertEquals(compactKey, key);
+    assertEquals(key, compactKey);
+    assertEquals(key.hashCode(), compactKey.hashCode());
+    assertEquals(key.toString(), compactKey.toString());
+    assertEquals(key.getUpdateCount(), compactKey.getUpdateCount());
+  }
+
+  @Test
+  void shouldBeEqualToCacheKeyWithoutEnvironment() {
+    CompactCacheKey.Shape shape = new CompactCacheKey.Shape("selectById", "select 1", null);
+    CompactCacheKey compactKey = new CompactCacheKey(shape, 10, 20, new Object[] { new byte[] { 1 } });
+    CacheKey key = new CacheKey(new Object[] { "selectById", 10, 20, "select 1", new byte[] { 1 } });
+    assertEquals(compactKey, key);
+    assertEquals(key, compactKey);
+    assertEquals(key.hashCode(), compactKey.hashCode());
+    assertEquals(key.toString(), compactKey.toString());
+  }
+
+  @Test
+  void shouldCompareKeysWithDifferentShapeInstances() {
+    CompactCacheKey key1 = new CompactCacheKey(SHAPE, 0, 10, new Object[] { 1, "a" });
+    CompactCacheKey key2 = new CompactCacheKey(
+        new CompactCacheKey.Shape("selectById", "select * from users where id = ? and name = ?", "development"), 0, 10,
+        new Object[] { 1, "a" });
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertNotEquals(key1, new CompactCacheKey(SHAPE, 0, 10, new Object[] { 1, "b" }));
+    assertNotEquals(key1, new CompactCacheKey(SHAPE, 1, 10, new Object[] { 1, "a" }));
+    assertNotEquals(key1, new CompactCacheKey(new CompactCacheKey.Shape("selectById", "select 1", "development"), 0, 10,
+        new Object[] { 1, "a" }));
+    assertNotEquals(key1,
+        new CompactCacheKey(
+            new CompactCacheKey.Shape("selectById", "select * from users where id = ? and name = ?", "test"), 0, 10,
+            new Object[] { 1, "a" }));
+  }
+
+  @Test
+  void shouldKeepObjectsUpdatedAfterConstruction() {
+    CompactCacheKey compactKey = new CompactCacheKey(SHAPE, 0, 10, new Object[] { 1, "a" });
+    compactKey.update("extra");
+    CacheKey key = new CacheKey(new Object[] { "selectById", 0, 10, "select * from users where id = ? and name = ?", 1,
+        "a", "development", "extra" });
+    assertEquals(compactKey, key);
+    assertEquals(key, compactKey);
+    assertEquals(key.hashCode(), compactKey.hashCode());
+    assertEquals(key.toString(), compactKey.toString());
+
+    CompactCacheKey other = new CompactCacheKey(SHAPE, 0, 10, new Object[] { 1, "a" });
+    other.update("other");
+    assertNotEquals(compactKey, other);
+  }
+
+  @Test
+  void shouldCloneAndSerialize() throws Exception {
+    CompactCacheKey key = new CompactCacheKey(SHAPE, 0, 10, new Object[] { 1, "a" });
+    key.update("extra");
+    CompactCacheKey clone = key.clone();
+    assertNotSame(key, clone);
+    assertEquals(key, clone);
+    clone.update("more");
+    assertNotEquals(key, clone);
+    assertEquals(key, serialize(key));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T serialize(T object) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new ObjectOutputStream(baos).writeObject(object);
+
+    ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+    return (T) new ObjectInputStream(bais).readObject();
+  }
+
+}
@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentCacheTest {
+
+  @Test
+  void shouldKeepEntriesWithinSize() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+    }
+    assertTrue(cache.getSize() <= 100);
+    assertEquals(1000 - cache.getSize(), cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldKeepFrequentlyReadEntries() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(100);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 50; i++) {
+        assertEquals(i, cache.getObject(i));
+      }
+    }
+    // a scan of keys that are read once must not push out the frequently read ones
+    for (int i = 1000; i < 2000; i++) {
+      cache.getObject(i);
+      cache.putObject(i, i);
+      assertEquals(i % 50, cache.getObject(i % 50));
+    }
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldKeepSerializedEntriesWithinMaximumWeight() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setMaximumWeight(100_000);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, new byte[1000]);
+    }
+    assertTrue(cache.getWeight() <= 100_000);
+    assertTrue(cache.getSize() <= 100);
+    assertTrue(cache.getSize() > 50);
+  }
+
+  @Test
+  void shouldWeighCollectionsByRowCount() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setMaximumWeight(10_000);
+    cache.setEstimatedRowSize(10);
+    cache.putObject("small", Arrays.asList(1, 2, 3));
+    assertEquals(30, cache.getWeight());
+    cache.putObject("single", "value");
+    assertEquals(40, cache.getWeight());
+
+    // larger than the whole budget
+    cache.putObject("huge", Collections.nCopies(2000, 1));
+    assertNull(cache.getObject("huge"));
+    assertEquals(40, cache.getWeight());
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldCountHitsAndMisses() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.putObject("key", "value");
+    cache.putObject("missed", null);
+    assertEquals("value", cache.getObject("key"));
+    assertNull(cache.getObject("other"));
+    assertNull(cache.getObject("missed"));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldReplaceItem() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(10);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject("key", i);
+    }
+    assertEquals(99, cache.getObject("key"));
+    assertEquals(1, cache.getSize());
+    assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(256);
+    cache.setShards(4);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int offset = t * 1000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 5000; i++) {
+            int key = offset + i % 1000;
+            if (cache.getObject(key) == null) {
+              cache.putObject(key, key);
+            }
+            if (i % 97 == 0) {
+              cache.removeObject(key);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(cache.getSize() <= 256);
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+}
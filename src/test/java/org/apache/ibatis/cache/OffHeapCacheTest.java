@@ -0,0 +1,192 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffHeapCacheTest {
+
+  private static final Path OPEN_FILES = Paths.get("/proc/self/fd");
+
+  @Test
+  void shouldStoreBytesOffHeap() {
+    OffHeapCache cache = new OffHeapCache("default");
+    byte[] value = { 1, 2, 3 };
+    cache.putObject("key", value);
+    byte[] cached = (byte[]) cache.getObject("key");
+    assertArrayEquals(value, cached);
+    assertNotSameArray(value, cached);
+    assertEquals(1, cache.getSize());
+    assertEquals(1, cache.getHitCount());
+    assertNull(cache.getObject("other"));
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void shouldRejectObjectsThatAreNotSerialized() {
+    OffHeapCache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject("key", "value"));
+  }
+
+  @Test
+  void shouldTreatNullAsNoEntry() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject("key", new byte[10]);
+    cache.putObject("key", null);
+    assertNull(cache.getObject("key"));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntryOfSizeClass() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(1024);
+    cache.setSlabSize(1024);
+    // one slab of sixteen 64 byte chunks
+    for (int i = 0; i < 16; i++) {
+      cache.putObject(i, new byte[] { (byte) i });
+    }
+    assertNotNull(cache.getObject(0));
+    cache.putObject(16, new byte[] { 16 });
+    assertEquals(16, cache.getSize());
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  void shouldReassignSlabToSizeClassWithoutSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(2048);
+    cache.setSlabSize(1024);
+    for (int i = 0; i < 32; i++) {
+      cache.putObject(i, new byte[] { (byte) i });
+    }
+    byte[] large = new byte[1000];
+    Arrays.fill(large, (byte) 7);
+    cache.putObject("large", large);
+    assertArrayEquals(large, (byte[]) cache.getObject("large"));
+    assertEquals(17, cache.getSize());
+    assertEquals(16, cache.getEvictionCount());
+    assertEquals(2048, cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldNotCacheValuesLargerThanSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    cache.putObject("key", new byte[2000]);
+    assertNull(cache.getObject("key"));
+  }
+
+  @Test
+  void shouldReuseSlabsAfterClear() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(1024);
+    cache.setSlabSize(1024);
+    cache.putObject("small", new byte[1]);
+    cache.clear();
+    assertNull(cache.getObject("small"));
+    cache.putObject("large", new byte[1000]);
+    assertNotNull(cache.getObject("large"));
+    assertEquals(1024, cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldStoreSlabsInMappedFile(@TempDir File directory) {
+    OffHeapCache cache = new OffHeapCache("default");
+    File file = new File(directory, "cache.bin");
+    cache.setFile(file.getPath());
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    byte[] value = { 4, 5, 6 };
+    cache.putObject("key", value);
+    assertArrayEquals(value, (byte[]) cache.getObject("key"));
+    assertTrue(file.length() >= 1024);
+  }
+
+  @Test
+  void shouldReleaseFileWhenClosed(@TempDir File directory) throws IOException {
+    assumeTrue(Files.isDirectory(OPEN_FILES), "open files are only listed on Linux");
+    OffHeapCache cache = new OffHeapCache("default");
+    File file = new File(directory, "cache.bin");
+    cache.setFile(file.getPath());
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    cache.putObject("key", new byte[] { 1 });
+    assertEquals(1, countOpenHandles(file));
+
+    cache.close();
+    assertEquals(0, countOpenHandles(file));
+    assertEquals(0, cache.getSize());
+
+    // a closed cache reopens its file when it is used again
+    cache.putObject("key", new byte[] { 2 });
+    assertArrayEquals(new byte[] { 2 }, (byte[]) cache.getObject("key"));
+    assertEquals(1, countOpenHandles(file));
+    cache.close();
+    assertEquals(0, countOpenHandles(file));
+  }
+
+  @Test
+  void shouldSerializeObjectsWhenBuilt() {
+    Cache cache = new CacheBuilder("default").implementation(OffHeapCache.class).readWrite(false).build();
+    List<String> value = Arrays.asList("a", "b");
+    cache.putObject("key", value);
+    assertEquals(value, cache.getObject("key"));
+  }
+
+  private static long countOpenHandles(File file) throws IOException {
+    Path path = file.toPath().toRealPath();
+    try (Stream<Path> descriptors = Files.list(OPEN_FILES)) {
+      return descriptors.filter(descriptor -> {
+        try {
+          return path.equals(Files.readSymbolicLink(descriptor));
+        } catch (IOException e) {
+          // closed while listing
+          return false;
+        }
+      }).count();
+    }
+  }
+
+  private static void assertNotSameArray(byte[] expected, byte[] actual) {
+    actual[0]++;
+    assertEquals(1, expected[0]);
+  }
+
+}
@@ -19,8 +19,18 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.junit.jupiter.api.Test;
 
@@ -40,6 +50,38 @@ class ScheduledCacheTest {
     assertEquals(0, cache.getSize());
   }
 
+  @Test
+  void shouldClearOnlyOnceWhenThreadsFindTheCacheStale() throws Exception {
+    AtomicInteger clears = new AtomicInteger();
+    ScheduledCache cache = new ScheduledCache(new ConcurrentCacheStub("DefaultCache", clears)) {
+      {
+        lastClear = 0;
+      }
+    };
+    cache.setClearInterval(60000);
+    cache.putObject(0, 0);
+
+    int threads = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return cache.getObject(0);
+        }));
+      }
+      start.countDown();
+      for (Future<Object> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, clears.get());
+  }
+
   @Test
   void shouldRemoveItemOnDemand() {
     Cache cache = new PerpetualCache("DefaultCache");
@@ -68,4 +110,19 @@ class ScheduledCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  private static class ConcurrentCacheStub extends ConcurrentCache {
+    private final AtomicInteger clears;
+
+    ConcurrentCacheStub(String id, AtomicInteger clears) {
+      super(id);
+      this.clears = clears;
+    }
+
+    @Override
+    public void clear() {
+      clears.incrementAndGet();
+      super.clear();
+    }
+  }
+
 }
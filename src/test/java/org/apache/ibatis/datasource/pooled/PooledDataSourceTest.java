@@ -25,8 +25,12 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -155,4 +159,411 @@ class PooledDataSourceTest {
     assertEquals(0, poolState.getActiveConnectionCount());
     assertEquals(0, poolState.getIdleConnectionCount());
   }
+
+  @Test
+  void shouldBlockUntilConnectionIsAvailableInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMaximumCheckoutTime(20000);
+
+    List<Connection> connections = new ArrayList<>();
+    CountDownLatch latch = new CountDownLatch(1);
+
+    for (int i = 0; i < dataSource.getPoolMaximumActiveConnections(); i++) {
+      connections.add(dataSource.getConnection());
+    }
+
+    new Thread(() -> {
+      try {
+        dataSource.getConnection();
+        latch.countDown();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }).start();
+
+    assertFalse(latch.await(1000, TimeUnit.MILLISECONDS));
+    connections.get(0).close();
+    assertTrue(latch.await(1000, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldEnsureCorrectIdleConnectionCountInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMaximumActiveConnections(10);
+    dataSource.setPoolMaximumIdleConnections(5);
+
+    PoolState poolState = dataSource.getPoolState();
+    List<Connection> connections = new ArrayList<>();
+
+    for (int i = 0; i < dataSource.getPoolMaximumActiveConnections(); i++) {
+      connections.add(dataSource.getConnection());
+    }
+
+    assertEquals(0, poolState.getIdleConnectionCount());
+    assertEquals(10, poolState.getActiveConnectionCount());
+
+    for (int i = 0; i < dataSource.getPoolMaximumActiveConnections(); i++) {
+      connections.get(i).close();
+    }
+
+    assertEquals(dataSource.getPoolMaximumIdleConnections(), poolState.getIdleConnectionCount());
+    assertEquals(0, poolState.getActiveConnectionCount());
+
+    for (int i = 0; i < dataSource.getPoolMaximumIdleConnections(); i++) {
+      dataSource.getConnection();
+    }
+
+    assertEquals(0, poolState.getIdleConnectionCount());
+    assertEquals(5, poolState.getActiveConnectionCount());
+  }
+
+  @Test
+  void connectionShouldBeAvailableAfterMaximumCheckoutTimeInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMaximumCheckoutTime(1000);
+    dataSource.setPoolTimeToWait(500);
+
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < dataSource.getPoolMaximumActiveConnections(); i++) {
+      connections.add(dataSource.getConnection());
+    }
+
+    CountDownLatch latch = new CountDownLatch(1);
+    new Thread(() -> {
+      try {
+        dataSource.getConnection();
+        latch.countDown();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }).start();
+
+    assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+    assertEquals(1, dataSource.getPoolState().getClaimedOverdueConnectionCount());
+
+    // the claimed connection is no longer usable and must not be returned to the pool
+    int idleBefore = dataSource.getPoolState().getIdleConnectionCount();
+    for (Connection connection : connections) {
+      connection.close();
+    }
+    assertEquals(1, dataSource.getPoolState().getBadConnectionCount());
+    assertEquals(idleBefore + dataSource.getPoolMaximumIdleConnections(),
+        dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void forceCloseAllShouldRemoveAllActiveAndIdleConnectionInConcurrentCheckoutMode() throws SQLException {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMaximumActiveConnections(10);
+    dataSource.setPoolMaximumIdleConnections(5);
+
+    PoolState poolState = dataSource.getPoolState();
+    List<Connection> connections = new ArrayList<>();
+
+    for (int i = 0; i < dataSource.getPoolMaximumActiveConnections(); i++) {
+      connections.add(dataSource.getConnection());
+    }
+
+    for (int i = 0; i < dataSource.getPoolMaximumIdleConnections(); i++) {
+      connections.get(i).close();
+    }
+
+    assertEquals(5, poolState.getActiveConnectionCount());
+    assertEquals(5, poolState.getIdleConnectionCount());
+
+    dataSource.forceCloseAll();
+
+    assertEquals(0, poolState.getActiveConnectionCount());
+    assertEquals(0, poolState.getIdleConnectionCount());
+    assertFalse(isUsable(connections.get(9)));
+  }
+
+  @Test
+  void shouldKeepExactStatisticsUnderContentionInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMaximumActiveConnections(4);
+    dataSource.setPoolMaximumIdleConnections(4);
+
+    int threads = 16;
+    int iterations = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < iterations; j++) {
+            try (Connection connection = dataSource.getConnection()) {
+              connection.getAutoCommit();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    PoolState poolState = dataSource.getPoolState();
+    assertEquals(threads * iterations, poolState.getRequestCount());
+    // requests served from idle connections take less than a millisecond, but still add to the request time
+    assertTrue(poolState.accumulatedRequestTime.sum() > 0);
+    assertEquals(0, poolState.getBadConnectionCount());
+    assertEquals(0, poolState.getActiveConnectionCount());
+    assertTrue(poolState.getIdleConnectionCount() <= 4);
+  }
+
+  private static boolean isUsable(Connection connection) {
+    try {
+      connection.getAutoCommit();
+      return true;
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  @Test
+  void shouldReturnConnectionWhileAnotherConnectionIsBeingCreated() throws Exception {
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    UnpooledDataSource slowDataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver",
+        "jdbc:hsqldb:mem:multipledrivers", "sa", "") {
+      @Override
+      public Connection getConnection() throws SQLException {
+        if (creating.getCount() == 0) {
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        creating.countDown();
+        return super.getConnection();
+      }
+    };
+    dataSource = new PooledDataSource(slowDataSource);
+
+    Connection first = dataSource.getConnection();
+    CountDownLatch created = new CountDownLatch(1);
+    new Thread(() -> {
+      try {
+        dataSource.getConnection();
+        created.countDown();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }).start();
+
+    assertFalse(created.await(200, TimeUnit.MILLISECONDS));
+    // the pool lock is not held while the second connection is being opened
+    first.close();
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertEquals(1, created.getCount());
+    release.countDown();
+    assertTrue(created.await(5000, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldWaitWhileOnlyConnectionIsBeingCreated() throws Exception {
+    UnpooledDataSource slowDataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver",
+        "jdbc:hsqldb:mem:multipledrivers", "sa", "") {
+      @Override
+      public Connection getConnection() throws SQLException {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getConnection();
+      }
+    };
+    dataSource = new PooledDataSource(slowDataSource);
+    dataSource.setPoolMaximumActiveConnections(1);
+
+    int threads = 4;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<Void> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertEquals(1, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldFillPoolUpToMinimumIdleConnections() throws Exception {
+    dataSource.setPoolMinimumIdle(3);
+    Connection connection = dataSource.getConnection();
+
+    PoolState poolState = dataSource.getPoolState();
+    awaitIdleConnectionCount(poolState, 3);
+    assertEquals(1, poolState.getActiveConnectionCount());
+
+    dataSource.getConnection();
+    awaitIdleConnectionCount(poolState, 3);
+    assertEquals(2, poolState.getActiveConnectionCount());
+    connection.close();
+  }
+
+  @Test
+  void shouldFillPoolUpToMinimumIdleConnectionsInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolMinimumIdle(3);
+    dataSource.getConnection();
+
+    PoolState poolState = dataSource.getPoolState();
+    awaitIdleConnectionCount(poolState, 3);
+    assertEquals(1, poolState.getActiveConnectionCount());
+  }
+
+  private static void awaitIdleConnectionCount(PoolState poolState, int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (poolState.getIdleConnectionCount() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, poolState.getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldCloseConnectionsPastMaximumLifetimeWhenReturned() throws Exception {
+    dataSource.setPoolMaximumLifetime(200);
+    Connection connection = dataSource.getConnection();
+    Thread.sleep(300);
+    connection.close();
+    assertEquals(0, dataSource.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldRetireIdleConnectionsInBackground() throws Exception {
+    dataSource.setPoolValidationInterval(50);
+    dataSource.setPoolIdleTimeout(100);
+    dataSource.setPoolMinimumIdle(1);
+
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    for (Connection connection : connections) {
+      connection.close();
+    }
+
+    PoolState poolState = dataSource.getPoolState();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (poolState.getIdleConnectionCount() > 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, poolState.getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldDiscardBrokenIdleConnectionsInBackground() throws Exception {
+    dataSource.setPoolValidationInterval(50);
+    dataSource.getConnection().close();
+
+    PoolState poolState = dataSource.getPoolState();
+    assertEquals(1, poolState.getIdleConnectionCount());
+    poolState.idleConnections.get(0).getRealConnection().close();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (poolState.getBadConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, poolState.getBadConnectionCount());
+    assertEquals(0, poolState.getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldValidateIdleConnectionsInBatches() throws Exception {
+    dataSource.setPoolMaximumIdleConnections(8);
+    dataSource.setPoolValidationInterval(50);
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    for (Connection connection : connections) {
+      connection.close();
+    }
+    PoolState poolState = dataSource.getPoolState();
+    assertEquals(8, poolState.getIdleConnectionCount());
+    // the most recently returned connection is validated last
+    poolState.idleConnections.get(7).getRealConnection().close();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (poolState.getBadConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+      assertTrue(poolState.getIdleConnectionCount() >= 6);
+      Thread.sleep(5);
+    }
+    assertEquals(1, poolState.getBadConnectionCount());
+    assertEquals(7, poolState.getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldDiscardBrokenIdleConnectionsInBackgroundInConcurrentCheckoutMode() throws Exception {
+    dataSource.setPoolConcurrentCheckoutEnabled(true);
+    dataSource.setPoolValidationInterval(50);
+    Connection connection = dataSource.getConnection();
+    Connection realConnection = PooledDataSource.unwrapConnection(connection);
+    connection.close();
+
+    PoolState poolState = dataSource.getPoolState();
+    assertEquals(1, poolState.getIdleConnectionCount());
+    realConnection.close();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (poolState.getBadConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, poolState.getBadConnectionCount());
+    assertEquals(0, poolState.getIdleConnectionCount());
+    assertTrue(dataSource.getConnection().isValid(1));
+  }
+
+  @Test
+  void shouldRecordPoolMetrics() throws Exception {
+    InMemoryPoolMetrics metrics = new InMemoryPoolMetrics();
+    dataSource.setPoolMetrics(metrics);
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+
+    Connection connection = dataSource.getConnection();
+    assertEquals(1, metrics.getActiveConnectionCount());
+    connection.close();
+    // idle connections are only pinged once they have not been used for more than poolPingConnectionsNotUsedFor (0)
+    PooledConnection idleConnection = dataSource.getPoolState().idleConnections.get(0);
+    idleConnection.setLastUsedTimestamp(idleConnection.getLastUsedTimestamp() - 1000);
+    dataSource.getConnection().close();
+
+    assertEquals(2, metrics.getAcquireTime().getCount());
+    assertEquals(2, metrics.getCheckoutTime().getCount());
+    assertEquals(1, metrics.getCreationTime().getCount());
+    assertTrue(metrics.getValidationTime().getCount() > 0);
+    assertEquals(0, metrics.getFailedValidationCount());
+    assertEquals(0, metrics.getWaitTime().getCount());
+    assertEquals(1, metrics.getIdleConnectionCount());
+    assertEquals(0, metrics.getPendingConnectionCount());
+  }
+
+  @Test
+  void shouldCreatePoolMetricsByType() {
+    dataSource.setPoolMetricsType(InMemoryPoolMetrics.class.getName());
+    assertTrue(dataSource.getPoolMetrics() instanceof InMemoryPoolMetrics);
+  }
+
 }
@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DialectTest {
+
+  @ParameterizedTest
+  @CsvSource({ "H2, LimitOffsetDialect", "HSQL Database Engine, LimitOffsetDialect", "Apache Derby, OffsetFetchDialect",
+      "PostgreSQL, LimitOffsetDialect", "MySQL, LimitOffsetDialect", "MariaDB, LimitOffsetDialect" })
+  void shouldResolveDialectOfDatabaseProduct(String productName, String dialectName) {
+    assertThat(Dialect.forDatabaseProductName(productName).getClass().getSimpleName()).isEqualTo(dialectName);
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "Oracle", "Microsoft SQL Server", "h2", "Sybase H2 Gateway", "''" })
+  void shouldNotResolveUnknownDatabase(String productName) {
+    assertThat(Dialect.forDatabaseProductName(productName)).isNull();
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "20, 10, select * from item LIMIT 10 OFFSET 20", "0, 10, select * from item LIMIT 10",
+      "20, 2147483647, select * from item LIMIT 2147483647 OFFSET 20" })
+  void shouldPageWithLimitOffset(int offset, int limit, String expected) {
+    assertThat(new LimitOffsetDialect().getPagedSql("select * from item", offset, limit)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "20, 10, select * from item OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY",
+      "0, 10, select * from item FETCH NEXT 10 ROWS ONLY", "20, 2147483647, select * from item OFFSET 20 ROWS" })
+  void shouldPageWithOffsetFetch(int offset, int limit, String expected) {
+    assertThat(new OffsetFetchDialect().getPagedSql("select * from item", offset, limit)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "select * from item;", "select * from item ; \n", "select * from item -- all items",
+      "select * from item /* all items */", "select * from item; -- all items\n" })
+  void shouldPageBeforeTerminatorAndTrailingComments(String sql) {
+    assertThat(new LimitOffsetDialect().getPagedSql(sql, 20, 10)).isEqualTo("select * from item LIMIT 10 OFFSET 20");
+    assertThat(new OffsetFetchDialect().getPagedSql(sql, 20, 10))
+        .isEqualTo("select * from item OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "select * from item where name = '--' and note = '/*'",
+      "select * from item where name = 'it''s;'", "select * from item -- comment\nwhere id > 1" })
+  void shouldKeepCommentsAndTerminatorsInsideTheQuery(String sql) {
+    assertThat(new LimitOffsetDialect().getPagedSql(sql, 0, 10)).isEqualTo(sql + " LIMIT 10");
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "H2, false", "PostgreSQL, false", "MySQL, true", "MariaDB, true" })
+  void shouldOnlyTreatBackslashesAsEscapesForMySql(String productName, boolean backslashEscapes) {
+    String sql = "select * from item where name = 'it\\'s;'";
+    assertThat(Dialect.forDatabaseProductName(productName).getPagedSql(sql, 0, 10))
+        .isEqualTo(backslashEscapes ? sql + " LIMIT 10" : null);
+    assertThat(Dialect.forDatabaseProductName(productName).getPagedSql("select * from item where path = 'C:\\'", 0, 10))
+        .isEqualTo(backslashEscapes ? null : "select * from item where path = 'C:\\' LIMIT 10");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "select * from item for update", "select * from item FOR SHARE",
+      "select * from item lock in share mode", "select * from item limit 5", "select * from item order by id offset 5",
+      "select * from item fetch first 5 rows only", "select * from item; delete from item",
+      "select * from item where name = 'unterminated", "select * from item /* unterminated" })
+  void shouldNotPageQueriesThatCannotBePagedSafely(String sql) {
+    assertThat(new LimitOffsetDialect().getPagedSql(sql, 20, 10)).isNull();
+    assertThat(new OffsetFetchDialect().getPagedSql(sql, 20, 10)).isNull();
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.statement.SqlTracer;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class PaginationTest {
+
+  private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+  private final List<String> executedSql = new CopyOnWriteArrayList<>();
+  private final List<Integer> rowsRead = new CopyOnWriteArrayList<>();
+
+  interface ItemMapper {
+    @Select("select id from item order by id")
+    List<Integer> selectIds(RowBounds rowBounds);
+
+    @Select("select id from item order by id; -- ordered by id")
+    List<Integer> selectIdsWithTrailingComment(RowBounds rowBounds);
+
+    @Select("select id from item order by id limit 20")
+    List<Integer> selectFirstIds(RowBounds rowBounds);
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "hsqldb, org.hsqldb.jdbcDriver, jdbc:hsqldb:mem:pagination", "h2, org.h2.Driver, jdbc:h2:mem:pagination",
+      "derby, org.apache.derby.jdbc.EmbeddedDriver, jdbc:derby:memory:pagination" })
+  void shouldFetchOnlyTheRowsOfThePage(String databaseId, String driver, String url) throws SQLException {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, driver, url);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ItemMapper mapper = sqlSession.getMapper(ItemMapper.class);
+      assertThat(mapper.selectIds(new RowBounds(10, 5))).containsExactly(11, 12, 13, 14, 15);
+      assertThat(mapper.selectIds(new RowBounds(20, RowBounds.NO_ROW_LIMIT))).containsExactly(21, 22, 23, 24, 25);
+      assertThat(mapper.selectIds(new RowBounds(0, 3))).containsExactly(1, 2, 3);
+    }
+    assertThat(executedSql).hasSize(3)
+        .allSatisfy(sql -> assertThat(sql).isNotEqualTo("select id from item order by id"));
+    assertThat(rowsRead).containsExactly(5, 5, 3);
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "hsqldb, org.hsqldb.jdbcDriver, jdbc:hsqldb:mem:pagination" })
+  void shouldPageBeforeTrailingComment(String databaseId, String driver, String url) throws SQLException {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, driver, url);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ItemMapper mapper = sqlSession.getMapper(ItemMapper.class);
+      assertThat(mapper.selectIdsWithTrailingComment(new RowBounds(10, 5))).containsExactly(11, 12, 13, 14, 15);
+    }
+    assertThat(executedSql).containsExactly("select id from item order by id LIMIT 5 OFFSET 10");
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "hsqldb, org.hsqldb.jdbcDriver, jdbc:hsqldb:mem:pagination" })
+  void shouldSkipRowsWhenTheQueryIsAlreadyLimited(String databaseId, String driver, String url) throws SQLException {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, driver, url);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ItemMapper mapper = sqlSession.getMapper(ItemMapper.class);
+      assertThat(mapper.selectFirstIds(new RowBounds(10, 5))).containsExactly(11, 12, 13, 14, 15);
+    }
+    assertThat(executedSql).containsExactly("select id from item order by id limit 20");
+  }
+
+  @ParameterizedTest
+  @CsvSource({ "hsqldb, org.hsqldb.jdbcDriver, jdbc:hsqldb:mem:pagination" })
+  void shouldNotPageWithoutRowBounds(String databaseId, String driver, String url) throws SQLException {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory(databaseId, driver, url);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ItemMapper mapper = sqlSession.getMapper(ItemMapper.class);
+      assertThat(mapper.selectIds(RowBounds.DEFAULT)).hasSize(25);
+    }
+    assertThat(executedSql).containsExactly("select id from item order by id");
+  }
+
+  @Test
+  void shouldReadTheDatabaseProductOncePerDataSource() throws SQLException {
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getDatabaseProductName()).thenReturn("MySQL", "Oracle");
+
+    Configuration configuration = new Configuration(
+        new Environment("development", new JdbcTransactionFactory(), mock(DataSource.class)));
+    Dialect dialect = configuration.resolvePaginationDialect(connection);
+    assertThat(dialect).isInstanceOf(LimitOffsetDialect.class);
+    assertThat(configuration.resolvePaginationDialect(connection)).isSameAs(dialect);
+
+    Configuration unknownDatabaseConfiguration = new Configuration(
+        new Environment("development", new JdbcTransactionFactory(), mock(DataSource.class)));
+    assertThat(unknownDatabaseConfiguration.resolvePaginationDialect(connection)).isNull();
+    assertThat(unknownDatabaseConfiguration.resolvePaginationDialect(connection)).isNull();
+    verify(metaData, times(2)).getDatabaseProductName();
+  }
+
+  private SqlSessionFactory createSqlSessionFactory(String databaseId, String driver, String url) throws SQLException {
+    String databaseUrl = url + DATABASE_COUNT.incrementAndGet();
+    if ("derby".equals(databaseId)) {
+      databaseUrl += ";create=true";
+    } else if ("h2".equals(databaseId)) {
+      databaseUrl += ";DB_CLOSE_DELAY=-1";
+    }
+    DataSource dataSource = new UnpooledDataSource(driver, databaseUrl, "sa", "");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("create table item (id int primary key)");
+      for (int i = 1; i <= 25; i++) {
+        statement.execute("insert into item (id) values (" + i + ")");
+      }
+    }
+    Configuration configuration = new Configuration(
+        new Environment("development", new JdbcTransactionFactory(), dataSource));
+    configuration.setDatabasePaginationEnabled(true);
+    configuration.setSqlTracer(new SqlTracer() {
+      @Override
+      public void prepared(MappedStatement mappedStatement, String sql) {
+        executedSql.add(sql);
+      }
+
+      @Override
+      public void parameterized(MappedStatement mappedStatement, Object[] values) {
+        // not needed
+      }
+
+      @Override
+      public void rowsRead(MappedStatement mappedStatement, int rows) {
+        rowsRead.add(rows);
+      }
+
+      @Override
+      public void rowsUpdated(MappedStatement mappedStatement, int rows) {
+        // not needed
+      }
+    });
+    configuration.addMapper(ItemMapper.class);
+    return new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+}
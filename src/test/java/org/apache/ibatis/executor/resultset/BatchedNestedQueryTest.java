@@ -0,0 +1,99 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BatchedNestedQueryTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @ParameterizedTest
+  @ValueSource(strings = { "select * from author where id = ?", "SELECT a.id, a.name FROM author a WHERE a.id = ?",
+      "select id, name from author as a where a.id=? order by name desc, id",
+      "select name, id from author\n  where id = ?\n" })
+  void shouldBatchSimpleSelects(String sql) {
+    assertThat(BatchedNestedQuery.create(statement(sql), null).isSupported()).isTrue();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "select * from author where id = ? limit 1",
+      "select * from author where id = ? fetch first 1 rows only", "select top 1 * from author where id = ?",
+      "select * from author where id = ? or name is null", "select * from author where (id = ? or id = 0)",
+      "select author_id, count(*) from post where author_id = ? group by author_id",
+      "select * from author where id = ? and name = 'x'", "select * from author a join post p on 1=1 where a.id = ?",
+      "select * from author, post where author.id = ?", "select * from author where id = ?;",
+      "select * from author where id = ? -- comment", "select * from author where id = ? for update",
+      "select distinct * from author where id = ?", "select * from author where id = ? order by lower(name)",
+      "select name from author where id = ?", "select name as id from author where author_id = ?",
+      "select author_id as id, name from author where id = ?" })
+  void shouldNotBatchOtherSelects(String sql) {
+    assertThat(BatchedNestedQuery.create(statement(sql), null).isSupported()).isFalse();
+  }
+
+  @Test
+  void shouldTrustExplicitKeyColumn() {
+    assertThat(BatchedNestedQuery.create(statement("select name, blog_id from post where blog_id = ?"), "blog_id")
+        .isSupported()).isTrue();
+    assertThat(BatchedNestedQuery.create(statement("select name from post where blog_id = ?"), "blog_id").isSupported())
+        .isTrue();
+  }
+
+  @Test
+  void shouldMatchNumbersByValue() {
+    assertThat(BatchedNestedQuery.normalizeKey(1)).isEqualTo(BatchedNestedQuery.normalizeKey(1L))
+        .isEqualTo(BatchedNestedQuery.normalizeKey((short) 1))
+        .isEqualTo(BatchedNestedQuery.normalizeKey(BigInteger.ONE))
+        .isEqualTo(BatchedNestedQuery.normalizeKey(new BigDecimal("1.00")))
+        .isEqualTo(BatchedNestedQuery.normalizeKey(1.0d));
+    assertThat(BatchedNestedQuery.normalizeKey(new BigDecimal("1.50")))
+        .isEqualTo(BatchedNestedQuery.normalizeKey(1.5d));
+    assertThat(BatchedNestedQuery.normalizeKey("1")).isEqualTo("1");
+  }
+
+  @Test
+  void shouldOnlyBatchNumericKeys() {
+    assertThat(BatchedNestedQuery.isBatchableKey(BatchedNestedQuery.normalizeKey(1))).isTrue();
+    assertThat(BatchedNestedQuery.isBatchableKey(BatchedNestedQuery.normalizeKey(1.5d))).isTrue();
+    assertThat(BatchedNestedQuery.isBatchableKey(BatchedNestedQuery.normalizeKey(Double.NaN))).isFalse();
+    assertThat(BatchedNestedQuery.isBatchableKey(BatchedNestedQuery.normalizeKey("1"))).isFalse();
+  }
+
+  private MappedStatement statement(String sql) {
+    ResultMap resultMap = new ResultMap.Builder(configuration, "author", Map.class, new ArrayList<>()).build();
+    ParameterMapping parameterMapping = new ParameterMapping.Builder(configuration, "id", Object.class).build();
+    return new MappedStatement.Builder(configuration, "selectAuthor",
+        new StaticSqlSource(configuration, sql, Collections.singletonList(parameterMapping)), SqlCommandType.SELECT)
+            .resultMaps(Collections.singletonList(resultMap)).build();
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ResultSetShapeTest {
+
+  @Mock
+  private ResultSetMetaData rsmd;
+
+  @Test
+  void shouldResolveColumnIndexIgnoringCase() throws SQLException {
+    mockColumns(Types.INTEGER, "id", "name", "NAME");
+    ResultSetShape shape = ResultSetShape.read(rsmd, true);
+
+    assertThat(shape.getColumnNames()).containsExactly("id", "name", "NAME");
+    assertThat(shape.getJdbcTypes()).containsOnly(JdbcType.INTEGER);
+    assertThat(shape.getColumnIndex("ID")).isEqualTo(1);
+    assertThat(shape.getColumnIndex("Name")).isEqualTo(2);
+    assertThat(shape.getColumnIndex("missing")).isEqualTo(-1);
+    assertThat(shape.getColumnIndex(null)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldReuseShapeWithSameColumns() throws SQLException {
+    ResultSetShape.Cache cache = new ResultSetShape.Cache();
+    mockColumns(Types.INTEGER, "id", "name");
+    ResultSetShape first = cache.get(rsmd, true);
+    ResultSetShape second = cache.get(rsmd, true);
+    assertThat(second).isSameAs(first);
+
+    mockColumns(Types.VARCHAR, "id", "name");
+    ResultSetShape third = cache.get(rsmd, true);
+    assertThat(third).isNotSameAs(first);
+    assertThat(cache.get(rsmd, true)).isSameAs(third);
+  }
+
+  @Test
+  void shouldKeepLimitedNumberOfShapes() throws SQLException {
+    ResultSetShape.Cache cache = new ResultSetShape.Cache();
+    mockColumns(Types.INTEGER, "column0");
+    ResultSetShape oldest = cache.get(rsmd, true);
+    for (int i = 1; i <= 8; i++) {
+      mockColumns(Types.INTEGER, "column" + i);
+      cache.get(rsmd, true);
+    }
+    mockColumns(Types.INTEGER, "column0");
+    assertThat(cache.get(rsmd, true)).isNotSameAs(oldest);
+  }
+
+  private void mockColumns(int type, String... labels) throws SQLException {
+    when(rsmd.getColumnCount()).thenReturn(labels.length);
+    for (int i = 0; i < labels.length; i++) {
+      when(rsmd.getColumnLabel(i + 1)).thenReturn(labels[i]);
+      when(rsmd.getColumnType(i + 1)).thenReturn(type);
+      when(rsmd.getColumnClassName(i + 1)).thenReturn(type == Types.INTEGER ? "java.lang.Integer" : "java.lang.String");
+    }
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SqlTracerTest extends BaseDataTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  private final RecordingSqlTracer tracer = new RecordingSqlTracer();
+
+  @BeforeAll
+  static void setup() throws Exception {
+    createBlogDataSource();
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/builder/MapperConfig.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @AfterEach
+  void resetTracer() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setSqlTracer(null);
+    configuration.setSqlTraceSampleRate(1.0);
+  }
+
+  @Test
+  void shouldTraceQuery() {
+    sqlSessionFactory.getConfiguration().setSqlTracer(tracer);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Author author = session.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101);
+      assertThat(author.getId()).isEqualTo(101);
+    }
+    assertThat(tracer.events).hasSize(3);
+    assertThat(tracer.events.get(0)).startsWith("prepared selectAuthor select");
+    assertThat(tracer.events.get(1)).isEqualTo("parameterized selectAuthor [101]");
+    assertThat(tracer.events.get(2)).isEqualTo("rowsRead selectAuthor 1");
+  }
+
+  @Test
+  void shouldTraceUpdate() {
+    sqlSessionFactory.getConfiguration().setSqlTracer(tracer);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Author author = session.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101);
+      author.setEmail("new@email.com");
+      assertThat(session.update("org.apache.ibatis.domain.blog.mappers.AuthorMapper.updateAuthor", author))
+          .isEqualTo(1);
+      session.rollback(true);
+    }
+    assertThat(tracer.events).hasSize(6);
+    assertThat(tracer.events.get(3)).startsWith("prepared updateAuthor update Author");
+    assertThat(tracer.events.get(4)).startsWith("parameterized updateAuthor [jim, ********, new@email.com, ");
+    assertThat(tracer.events.get(5)).isEqualTo("rowsUpdated updateAuthor 1");
+  }
+
+  @Test
+  void shouldNotTraceExecutionsThatAreNotSampled() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setSqlTracer(tracer);
+    configuration.setSqlTraceSampleRate(0.0);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Author author = session.selectOne("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", 101);
+      assertThat(author.getId()).isEqualTo(101);
+    }
+    assertThat(tracer.events).isEmpty();
+  }
+
+  @Test
+  void shouldOnlyBypassLoggingProxiesForTracedExecutions() throws SQLException {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setSqlTracer(tracer);
+    MappedStatement ms = configuration
+        .getMappedStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor");
+    Log statementLog = mock(Log.class);
+    when(statementLog.isDebugEnabled()).thenReturn(true);
+    Connection connection = mock(Connection.class);
+    Transaction transaction = mock(Transaction.class);
+    when(transaction.getConnection()).thenReturn(connection);
+    ConnectionExecutor executor = new ConnectionExecutor(configuration, transaction);
+
+    BoundSql tracedSql = ms.getBoundSql(101);
+    tracedSql.setSqlTrace(SqlTrace.sample(ms));
+    assertThat(executor.connection(statementLog, handler(tracedSql))).isSameAs(connection);
+
+    BoundSql sampledOutSql = ms.getBoundSql(101);
+    assertThat(Proxy.isProxyClass(executor.connection(statementLog, handler(sampledOutSql)).getClass())).isTrue();
+  }
+
+  private static StatementHandler handler(BoundSql boundSql) {
+    StatementHandler handler = mock(StatementHandler.class);
+    when(handler.getBoundSql()).thenReturn(boundSql);
+    return handler;
+  }
+
+  private static class ConnectionExecutor extends SimpleExecutor {
+
+    ConnectionExecutor(Configuration configuration, Transaction transaction) {
+      super(configuration, transaction);
+    }
+
+    Connection connection(Log statementLog, StatementHandler handler) throws SQLException {
+      return getConnection(statementLog, handler);
+    }
+  }
+
+  private static class RecordingSqlTracer implements SqlTracer {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void prepared(MappedStatement mappedStatement, String sql) {
+      record("prepared", mappedStatement, sql.trim().replaceAll("\\s+", " "));
+    }
+
+    @Override
+    public void parameterized(MappedStatement mappedStatement, Object[] values) {
+      record("parameterized", mappedStatement, Arrays.toString(values));
+    }
+
+    @Override
+    public void rowsRead(MappedStatement mappedStatement, int rows) {
+      record("rowsRead", mappedStatement, rows);
+    }
+
+    @Override
+    public void rowsUpdated(MappedStatement mappedStatement, int rows) {
+      record("rowsUpdated", mappedStatement, rows);
+    }
+
+    private void record(String event, MappedStatement mappedStatement, Object value) {
+      String id = mappedStatement.getId();
+      events.add(event + " " + id.substring(id.lastIndexOf('.') + 1) + " " + value);
+    }
+  }
+
+}
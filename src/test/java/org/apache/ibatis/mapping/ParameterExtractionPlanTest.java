@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class ParameterExtractionPlanTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldResolveValuesInMappingOrder() {
+    List<ParameterMapping> mappings = Arrays.asList(mapping("id", ParameterMode.IN), mapping("name", ParameterMode.OUT),
+        mapping("items[1]", ParameterMode.IN), mapping("author.name", ParameterMode.IN));
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 1);
+    parameter.put("name", "ignored");
+    Map<String, Object> author = new HashMap<>();
+    author.put("name", "jim");
+    parameter.put("author", author);
+    BoundSql boundSql = new BoundSql(configuration, "sql", mappings, parameter);
+    boundSql.setAdditionalParameter("items", Arrays.asList("a", "b"));
+
+    ParameterExtractionPlan plan = new ParameterExtractionPlan(configuration, mappings, parameter.getClass());
+
+    assertTrue(plan.hasOutputParameters());
+    assertArrayEquals(new Object[] { 1, null, "b", "jim" }, plan.extract(boundSql, parameter));
+  }
+
+  @Test
+  void shouldUseParameterObjectWithTypeHandlerAsValue() {
+    List<ParameterMapping> mappings = Arrays.asList(mapping("id", ParameterMode.IN),
+        mapping("other", ParameterMode.IN));
+    BoundSql boundSql = new BoundSql(configuration, "sql", mappings, 5);
+
+    ParameterExtractionPlan plan = new ParameterExtractionPlan(configuration, mappings, Integer.class);
+
+    assertFalse(plan.hasOutputParameters());
+    assertArrayEquals(new Object[] { 5, 5 }, plan.extract(boundSql, 5));
+    assertArrayEquals(new Object[] { null, null }, plan.extract(boundSql, null));
+  }
+
+  @Test
+  void shouldShareValuesAndPlanPerStatement() {
+    List<ParameterMapping> mappings = Arrays.asList(mapping("id", ParameterMode.IN));
+    MappedStatement ms = new MappedStatement.Builder(configuration, "select",
+        new StaticSqlSource(configuration, "select", mappings), SqlCommandType.SELECT).build();
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 1);
+
+    BoundSql boundSql = ms.getBoundSql(parameter);
+    Object[] values = ms.getParameterValues(boundSql, parameter);
+    assertArrayEquals(new Object[] { 1 }, values);
+    assertSame(values, ms.getParameterValues(boundSql, parameter));
+    assertSame(ms.getParameterExtractionPlan(mappings, parameter),
+        ms.getParameterExtractionPlan(ms.getBoundSql(parameter).getParameterMappings(), new HashMap<>()));
+
+    boundSql.setAdditionalParameter("id", 2);
+    Object[] updated = ms.getParameterValues(boundSql, parameter);
+    assertNotSame(values, updated);
+    assertArrayEquals(new Object[] { 2 }, updated);
+  }
+
+  @Test
+  void shouldResolveValuesAgainWhenMappingsChange() {
+    List<ParameterMapping> mappings = new ArrayList<>();
+    mappings.add(mapping("id", ParameterMode.IN));
+    MappedStatement ms = new MappedStatement.Builder(configuration, "select",
+        new StaticSqlSource(configuration, "select", mappings), SqlCommandType.SELECT).build();
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 1);
+    parameter.put("name", "jim");
+    BoundSql boundSql = ms.getBoundSql(parameter);
+    assertArrayEquals(new Object[] { 1 }, ms.getParameterValues(boundSql, parameter));
+
+    // an interceptor adds a mapping to the bound SQL
+    boundSql.getParameterMappings().add(mapping("name", ParameterMode.IN));
+
+    assertArrayEquals(new Object[] { 1, "jim" }, ms.getParameterValues(boundSql, parameter));
+  }
+
+  @Test
+  void shouldResolveValuesAgainWhenParameterObjectIsReplaced() {
+    List<ParameterMapping> mappings = Arrays.asList(mapping("id", ParameterMode.IN));
+    MappedStatement ms = new MappedStatement.Builder(configuration, "select",
+        new StaticSqlSource(configuration, "select", mappings), SqlCommandType.SELECT).build();
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 1);
+    BoundSql boundSql = ms.getBoundSql(parameter);
+    Object[] values = ms.getParameterValues(boundSql, parameter);
+    assertArrayEquals(new Object[] { 1 }, values);
+    assertSame(values, ms.getParameterValues(boundSql, parameter));
+
+    // an interceptor replaces the parameter object after the cache key was built
+    Map<String, Object> replaced = new HashMap<>();
+    replaced.put("id", 2);
+
+    assertArrayEquals(new Object[] { 2 }, ms.getParameterValues(boundSql, replaced));
+  }
+
+  @Test
+  void shouldKeepPlansForSeveralParameterTypes() {
+    List<ParameterMapping> mappings = Arrays.asList(mapping("id", ParameterMode.IN));
+    MappedStatement ms = new MappedStatement.Builder(configuration, "select",
+        new StaticSqlSource(configuration, "select", mappings), SqlCommandType.SELECT).build();
+
+    ParameterExtractionPlan mapPlan = ms.getParameterExtractionPlan(mappings, new HashMap<>());
+    ParameterExtractionPlan integerPlan = ms.getParameterExtractionPlan(mappings, 1);
+
+    assertNotSame(mapPlan, integerPlan);
+    assertSame(mapPlan, ms.getParameterExtractionPlan(mappings, new HashMap<>()));
+    assertSame(integerPlan, ms.getParameterExtractionPlan(mappings, 2));
+  }
+
+  private ParameterMapping mapping(String property, ParameterMode mode) {
+    return new ParameterMapping.Builder(configuration, property, Object.class).mode(mode).build();
+  }
+
+}
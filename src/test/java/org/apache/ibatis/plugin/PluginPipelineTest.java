@@ -0,0 +1,236 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+class PluginPipelineTest {
+
+  @Test
+  void shouldCallInterceptorsInTheSameOrderAsNestedProxies() {
+    for (boolean staticPipeline : new boolean[] { false, true }) {
+      List<String> calls = new ArrayList<>();
+      InterceptorChain chain = chain(staticPipeline, new RecordingMapInterceptor("first", calls),
+          new RecordingMapInterceptor("second", calls));
+      @SuppressWarnings("unchecked")
+      Map<String, String> map = (Map<String, String>) chain.pluginAll(new HashMap<>());
+      map.put("key", "value");
+      assertEquals("value", map.get("key"));
+      assertEquals("[second, first]", calls.toString());
+    }
+  }
+
+  @Test
+  void shouldWrapStatementHandlerWithoutProxy() throws SQLException {
+    List<String> calls = new ArrayList<>();
+    StubStatementHandler target = new StubStatementHandler();
+    StatementHandler handler = (StatementHandler) chain(true, new UpdateInterceptor(calls, 1),
+        new UpdateInterceptor(calls, 10)).pluginAll(target);
+    assertFalse(Proxy.isProxyClass(handler.getClass()));
+    assertEquals(111, handler.update(null));
+    assertEquals("[10, 1]", calls.toString());
+    assertSame(target.boundSql, handler.getBoundSql());
+  }
+
+  @Test
+  void shouldReturnTargetWhenNoInterceptorApplies() {
+    StubStatementHandler target = new StubStatementHandler();
+    assertSame(target, chain(true, new RecordingMapInterceptor("map", new ArrayList<>())).pluginAll(target));
+  }
+
+  @Test
+  void shouldReportExceptionsLikeNestedProxies() {
+    for (boolean staticPipeline : new boolean[] { false, true }) {
+      StubStatementHandler target = new StubStatementHandler();
+      target.failure = new SQLException("target");
+      List<Throwable> seen = new ArrayList<>();
+      StatementHandler handler = (StatementHandler) chain(staticPipeline, new FailingInterceptor(null, seen),
+          new FailingInterceptor(null, seen)).pluginAll(target);
+      assertSame(target.failure, assertThrows(SQLException.class, () -> handler.update(null)));
+      assertEquals(2, seen.size());
+      assertTrue(seen.get(0) instanceof InvocationTargetException);
+      assertSame(target.failure, ((InvocationTargetException) seen.get(1)).getTargetException());
+
+      StatementHandler failing = (StatementHandler) chain(staticPipeline,
+          new FailingInterceptor(new IOException("undeclared"), new ArrayList<>()))
+              .pluginAll(new StubStatementHandler());
+      assertTrue(assertThrows(UndeclaredThrowableException.class, () -> failing.update(null))
+          .getUndeclaredThrowable() instanceof IOException);
+    }
+  }
+
+  @Test
+  void shouldUseRegularPluginsWhenPluginMethodIsOverridden() {
+    List<String> calls = new ArrayList<>();
+    InterceptorChain chain = chain(true, new RecordingMapInterceptor("regular", calls),
+        new CustomPluginInterceptor(calls));
+    @SuppressWarnings("unchecked")
+    Map<String, String> map = (Map<String, String>) chain.pluginAll(new HashMap<>());
+    assertTrue(Proxy.isProxyClass(map.getClass()));
+    map.get("key");
+    assertEquals("[custom, regular]", calls.toString());
+  }
+
+  private InterceptorChain chain(boolean staticPipeline, Interceptor... interceptors) {
+    InterceptorChain chain = new InterceptorChain();
+    chain.setStaticPipelineEnabled(staticPipeline);
+    for (Interceptor interceptor : interceptors) {
+      chain.addInterceptor(interceptor);
+    }
+    return chain;
+  }
+
+  @Intercepts({ @Signature(type = Map.class, method = "get", args = { Object.class }) })
+  static class RecordingMapInterceptor implements Interceptor {
+    private final String name;
+    private final List<String> calls;
+
+    RecordingMapInterceptor(String name, List<String> calls) {
+      this.name = name;
+      this.calls = calls;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      calls.add(name);
+      return invocation.proceed();
+    }
+  }
+
+  @Intercepts({ @Signature(type = Map.class, method = "get", args = { Object.class }) })
+  static class CustomPluginInterceptor extends RecordingMapInterceptor {
+    CustomPluginInterceptor(List<String> calls) {
+      super("custom", calls);
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+  }
+
+  @Intercepts({ @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }) })
+  static class UpdateInterceptor implements Interceptor {
+    private final List<String> calls;
+    private final int increment;
+
+    UpdateInterceptor(List<String> calls, int increment) {
+      this.calls = calls;
+      this.increment = increment;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      calls.add(String.valueOf(increment));
+      return (Integer) invocation.proceed() + increment;
+    }
+  }
+
+  @Intercepts({ @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }) })
+  static class FailingInterceptor implements Interceptor {
+    private final Exception exception;
+    private final List<Throwable> seen;
+
+    FailingInterceptor(Exception exception, List<Throwable> seen) {
+      this.exception = exception;
+      this.seen = seen;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      if (exception != null) {
+        throw exception;
+      }
+      try {
+        return invocation.proceed();
+      } catch (InvocationTargetException e) {
+        seen.add(e);
+        throw e;
+      }
+    }
+  }
+
+  static class StubStatementHandler implements StatementHandler {
+    private final BoundSql boundSql = new BoundSql(new Configuration(), "SELECT 1", null, null);
+    private SQLException failure;
+
+    @Override
+    public Statement prepare(Connection connection, Integer transactionTimeout) {
+      return null;
+    }
+
+    @Override
+    public void parameterize(Statement statement) {
+    }
+
+    @Override
+    public void batch(Statement statement) {
+    }
+
+    @Override
+    public int update(Statement statement) throws SQLException {
+      if (failure != null) {
+        throw failure;
+      }
+      return 100;
+    }
+
+    @Override
+    public <E> List<E> query(Statement statement, ResultHandler resultHandler) {
+      return null;
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(Statement statement) {
+      return null;
+    }
+
+    @Override
+    public BoundSql getBoundSql() {
+      return boundSql;
+    }
+
+    @Override
+    public ParameterHandler getParameterHandler() {
+      return null;
+    }
+  }
+
+}
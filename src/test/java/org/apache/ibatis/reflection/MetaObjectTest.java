@@ -29,10 +29,13 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Blog;
 import org.apache.ibatis.domain.blog.Section;
 import org.apache.ibatis.domain.misc.CustomBeanWrapper;
 import org.apache.ibatis.domain.misc.CustomBeanWrapperFactory;
 import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
 import org.junit.jupiter.api.Test;
 
 class MetaObjectTest {
@@ -259,6 +262,46 @@ class MetaObjectTest {
     assertNull(metaMap.getValue("phone.home"));
   }
 
+  @Test
+  void shouldGetAndSetDeeplyNestedPropertyWithTokenizer() {
+    RichType rich = new RichType();
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    PropertyTokenizer prop = PropertyTokenizer.of("richType.richType.richProperty");
+    assertNull(meta.getValue(prop));
+    meta.setValue(prop, "foo");
+    assertEquals("foo", meta.getValue(prop));
+    assertEquals("foo", rich.getRichType().getRichType().getRichProperty());
+  }
+
+  @Test
+  void shouldGetNestedValuesThroughMapsAndLists() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    rich.getRichType().getRichMap().put("key", "value");
+    rich.getRichType().getRichList().add("item");
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    assertEquals("value", meta.getValue("richType.richMap.key"));
+    assertEquals("item", meta.getValue("richType.richList[1]"));
+  }
+
+  @Test
+  void shouldUseObjectWrapperFactoryForNestedValues() {
+    Blog blog = new Blog(1, "title", new Author(1, "user", "pass", "email", "bio", null), null);
+    MetaObject meta = MetaObject.forObject(blog, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        new CustomBeanWrapperFactory() {
+          @Override
+          public ObjectWrapper getWrapperFor(MetaObject metaObject, Object object) {
+            return new CustomBeanWrapper(metaObject, object) {
+              @Override
+              public Object get(PropertyTokenizer prop) {
+                return "wrapped " + super.get(prop);
+              }
+            };
+          }
+        }, new DefaultReflectorFactory());
+    assertEquals("wrapped user", meta.getValue("author.username"));
+  }
+
   @Test
   void shouldNotUseObjectWrapperFactoryByDefault() {
     MetaObject meta = SystemMetaObject.forObject(new Author());
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.reflection.factory;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -62,6 +63,51 @@ class DefaultObjectFactoryTest {
     }
   }
 
+  @Test
+  void createClassWithCachedConstructor() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    List<Class<?>> constructorArgTypes = new ArrayList<>(Arrays.asList(String.class, Integer.class));
+    TestClass first = defaultObjectFactory.create(TestClass.class, constructorArgTypes, Arrays.asList("foo", 1));
+    constructorArgTypes.set(1, int.class);
+    TestClass second = defaultObjectFactory.create(TestClass.class, Arrays.asList(String.class, Integer.class),
+        Arrays.asList("bar", null));
+
+    Assertions.assertEquals("foo", first.myString);
+    Assertions.assertEquals((Integer) 1, first.myInteger);
+    Assertions.assertEquals("bar", second.myString);
+    Assertions.assertNull(second.myInteger);
+  }
+
+  @Test
+  void createClassWithPrivateConstructors() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    PrivateTestClass noArgs = defaultObjectFactory.create(PrivateTestClass.class);
+    PrivateTestClass withArgs = defaultObjectFactory.create(PrivateTestClass.class,
+        Arrays.asList(long.class, String.class), Arrays.asList(3, "foo"));
+
+    Assertions.assertEquals(0L, noArgs.myLong);
+    Assertions.assertEquals(3L, withArgs.myLong);
+    Assertions.assertEquals("foo", withArgs.myString);
+  }
+
+  @Test
+  void createClassRejectsInvalidValuesLikeReflection() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    List<Class<?>> constructorArgTypes = Arrays.asList(long.class, String.class);
+
+    ReflectionException nullPrimitive = Assertions.assertThrows(ReflectionException.class,
+        () -> defaultObjectFactory.create(PrivateTestClass.class, constructorArgTypes, Arrays.asList(null, "foo")));
+    Assertions.assertTrue(nullPrimitive.getCause() instanceof IllegalArgumentException);
+    ReflectionException wrongCount = Assertions.assertThrows(ReflectionException.class,
+        () -> defaultObjectFactory.create(PrivateTestClass.class, constructorArgTypes, Arrays.asList(1L)));
+    Assertions.assertTrue(wrongCount.getCause() instanceof IllegalArgumentException);
+    ReflectionException thrown = Assertions.assertThrows(ReflectionException.class,
+        () -> defaultObjectFactory.create(PrivateTestClass.class, constructorArgTypes, Arrays.asList(-1L, "foo")));
+    Assertions.assertTrue(thrown.getCause() instanceof InvocationTargetException);
+    Assertions.assertTrue(
+        ((InvocationTargetException) thrown.getCause()).getTargetException() instanceof IllegalStateException);
+  }
+
   @Test
   void createHashMap() {
     DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
@@ -95,4 +141,21 @@ class DefaultObjectFactoryTest {
     Set set = defaultObjectFactory.create(Set.class);
     Assertions.assertTrue(set instanceof HashSet, " set should be HashSet");
   }
+
+  static class PrivateTestClass {
+    final long myLong;
+    final String myString;
+
+    private PrivateTestClass() {
+      this(0L, null);
+    }
+
+    private PrivateTestClass(long myLong, String myString) {
+      if (myLong < 0) {
+        throw new IllegalStateException("negative");
+      }
+      this.myLong = myLong;
+      this.myString = myString;
+    }
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.MethodHandleReflectorFactory;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class MethodHandleInvokerFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+
+  @Test
+  void shouldGenerateAccessorsForMethods() throws Throwable {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+
+    assertThat(reflector.getSetInvoker("name")).isInstanceOf(SetterInvoker.class);
+    assertThat(reflector.getGetInvoker("name")).isInstanceOf(GetterInvoker.class);
+    ((SetterInvoker) reflector.getSetInvoker("name")).set(bean, "John");
+    ((SetterInvoker) reflector.getSetInvoker("count")).setInt(bean, 3);
+    ((SetterInvoker) reflector.getSetInvoker("total")).setLong(bean, 4L);
+    ((SetterInvoker) reflector.getSetInvoker("ratio")).setDouble(bean, 0.5);
+    ((SetterInvoker) reflector.getSetInvoker("active")).setBoolean(bean, true);
+
+    assertThat(((GetterInvoker) reflector.getGetInvoker("name")).get(bean)).isEqualTo("John");
+    assertThat(reflector.getGetInvoker("count").invoke(bean, new Object[0])).isEqualTo(3);
+    assertThat(reflector.getGetInvoker("total").invoke(bean, new Object[0])).isEqualTo(4L);
+    assertThat(reflector.getGetInvoker("ratio").invoke(bean, new Object[0])).isEqualTo(0.5);
+    assertThat(reflector.getGetInvoker("active").invoke(bean, new Object[0])).isEqualTo(true);
+    assertThat(reflector.getSetInvoker("count").getType()).isEqualTo(int.class);
+    assertThat(reflector.getGetInvoker("name").getType()).isEqualTo(String.class);
+  }
+
+  @Test
+  void shouldGenerateAccessorsForFields() throws Throwable {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+
+    ((SetterInvoker) reflector.getSetInvoker("code")).set(bean, "X1");
+    assertThat(((GetterInvoker) reflector.getGetInvoker("code")).get(bean)).isEqualTo("X1");
+  }
+
+  @Test
+  void shouldConvertValuesLikeCoreReflection() throws Throwable {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+    SetterInvoker total = (SetterInvoker) reflector.getSetInvoker("total");
+
+    total.set(bean, 7);
+    assertThat(bean.getTotal()).isEqualTo(7L);
+    assertThatThrownBy(() -> total.set(bean, null)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> total.set(bean, "7")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldNotWrapExceptionsOfAccessors() {
+    SetterInvoker setter = (SetterInvoker) reflectorFactory.findForClass(Bean.class).getSetInvoker("failing");
+    assertThatThrownBy(() -> setter.set(new Bean(), "value")).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldAccessNonPublicClasses() throws Throwable {
+    Reflector reflector = reflectorFactory.findForClass(PrivateBean.class);
+    PrivateBean bean = new PrivateBean();
+
+    ((SetterInvoker) reflector.getSetInvoker("value")).set(bean, "v");
+    assertThat(((GetterInvoker) reflector.getGetInvoker("value")).get(bean)).isEqualTo("v");
+  }
+
+  @Test
+  void shouldResolveGenericGetterTypes() {
+    MetaClass metaClass = MetaClass.forClass(Bean.class, reflectorFactory);
+    assertThat(metaClass.getGetterType("names[0]")).isEqualTo(String.class);
+  }
+
+  @Test
+  void shouldBeUsedByMetaObject() {
+    Bean bean = new Bean();
+    MetaObject metaObject = MetaObject.forObject(bean, new DefaultObjectFactory(), new DefaultObjectWrapperFactory(),
+        reflectorFactory);
+
+    metaObject.setValue("name", "Jane");
+    metaObject.setValue("count", 5);
+    assertThat(metaObject.getValue("name")).isEqualTo("Jane");
+    assertThat(metaObject.getValue("count")).isEqualTo(5);
+    assertThatThrownBy(() -> metaObject.setValue("failing", "value")).isInstanceOf(ReflectionException.class)
+        .hasMessageContaining("Could not set property 'failing'");
+  }
+
+  public static class Bean {
+    private String name;
+    private int count;
+    private long total;
+    private double ratio;
+    private boolean active;
+    private String code;
+    private List<String> names = new ArrayList<>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public long getTotal() {
+      return total;
+    }
+
+    public void setTotal(long total) {
+      this.total = total;
+    }
+
+    public double getRatio() {
+      return ratio;
+    }
+
+    public void setRatio(double ratio) {
+      this.ratio = ratio;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public List<String> getNames() {
+      return names;
+    }
+
+    public void setFailing(String failing) {
+      throw new IllegalStateException("failing");
+    }
+  }
+
+  private static class PrivateBean {
+    private String value;
+
+    private String getValue() {
+      return value;
+    }
+
+    private void setValue(String value) {
+      this.value = value;
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.property;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PropertyTokenizerTest {
+
+  @Test
+  void shouldTokenizeNestedIndexedPath() {
+    PropertyTokenizer prop = new PropertyTokenizer("order.items[0].name");
+
+    assertThat(prop.getName()).isEqualTo("order");
+    assertThat(prop.getIndex()).isNull();
+    assertThat(prop.getChildren()).isEqualTo("items[0].name");
+    assertThat(prop.getFullname()).isEqualTo("order.items[0].name");
+
+    PropertyTokenizer child = prop.next();
+    assertThat(child.getName()).isEqualTo("items");
+    assertThat(child.getIndex()).isEqualTo("0");
+    assertThat(child.getIndexedName()).isEqualTo("items[0]");
+    assertThat(child.getIndexedProperty().getFullname()).isEqualTo("items[0]");
+    assertThat(child.getIndexedProperty().hasNext()).isFalse();
+    assertThat(child.next().getName()).isEqualTo("name");
+    assertThat(child.next().hasNext()).isFalse();
+  }
+
+  @Test
+  void shouldShareInternedTokenizers() {
+    PropertyTokenizer prop = PropertyTokenizer.of("order.customer.address.city");
+
+    assertThat(PropertyTokenizer.of("order.customer.address.city")).isSameAs(prop);
+    assertThat(prop.next()).isSameAs(PropertyTokenizer.of("customer.address.city")).isSameAs(prop.next());
+    assertThat(prop.getIndexedProperty()).isSameAs(PropertyTokenizer.of("order"));
+    assertThat(prop.next().next().next().getName()).isEqualTo("city");
+  }
+
+  @Test
+  void shouldNotInternForEachItemNames() {
+    PropertyTokenizer prop = PropertyTokenizer.of("__frch_item_1.name");
+
+    assertThat(PropertyTokenizer.of("__frch_item_1.name")).isNotSameAs(prop);
+    assertThat(prop.getIndexedProperty().getName()).isEqualTo("__frch_item_1");
+    assertThat(prop.next()).isSameAs(PropertyTokenizer.of("name"));
+  }
+
+  @Test
+  void shouldReturnItselfAsIndexedPropertyWithoutChildren() {
+    PropertyTokenizer prop = new PropertyTokenizer("items[1]");
+    assertThat(prop.getIndexedProperty()).isSameAs(prop);
+  }
+
+}
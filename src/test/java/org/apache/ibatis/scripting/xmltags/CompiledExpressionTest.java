@@ -0,0 +1,170 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CompiledExpressionTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @ParameterizedTest
+  @ValueSource(strings = { "name != null", "name != null and name != ''", "name == 'Steve'", "name eq \"Steve\"",
+      "id == null", "id != null && id > 10", "count >= 4", "count lt 100", "count <= 3", "count == 3", "count gt 3",
+      "tags != null and tags.size() > 0", "tags.isEmpty()", "!tags.isEmpty()", "not flag", "flag or name == null",
+      "!flag || count > 1", "name.length() > 4", "nested.name == 'inner'", "nested.nested == null",
+      "attributes.color == 'red'", "attributes.missing == null", "(id != null or flag) and count > 2", "true", "false",
+      "null", "_parameter != null", "_databaseId == null", "flag == true", "count != 4", "name >= 'Adam'" })
+  void shouldEvaluateLikeOgnl(String expression) {
+    CompiledExpression compiled = CompiledExpression.compile(expression, configuration.getReflectorFactory());
+    assertNotNull(compiled);
+    Map<String, Object> bindings = bindings(new Bean("Steve", null, 3, true));
+    assertEquals(OgnlCache.getValue(expression, bindings), compiled.getValue(bindings));
+    bindings = bindings(new Bean("Bob", 200, 4, false));
+    assertEquals(OgnlCache.getValue(expression, bindings), compiled.getValue(bindings));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "name.toUpperCase() == 'STEVE'", "count + 1 > 3", "tags[0] == 'a'", "name == 'S'",
+      "count > 1.5", "count > 1L", "#this != null", "@java.lang.Math@max(1, 2) > 1", "size() > 0",
+      "name instanceof String", "flag ? true : false", "count in {1, 2}", "name == 'it\\'s'", "id = 3", "id >", "(name",
+      "name.", "010 == count", "null.name", "-1 < count", "count & 1" })
+  void shouldNotCompileUnsupportedExpressions(String expression) {
+    assertNull(CompiledExpression.compile(expression, configuration.getReflectorFactory()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "id != ''", "id == name", "attributes.size == 1", "tags.size == 2", "name and flag", "!name",
+      "nested.name.length() == nested.nested.name", "status == 'ACTIVE'", "count > name", "missing == null" })
+  void shouldFallBackForOperandsThatOgnlMayEvaluateDifferently(String expression) {
+    CompiledExpression compiled = CompiledExpression.compile(expression, configuration.getReflectorFactory());
+    assertNotNull(compiled);
+    Map<String, Object> bindings = bindings(new Bean("Steve", 1, 3, true));
+    assertThrows(CompiledExpression.FallbackException.class, () -> compiled.getValue(bindings));
+  }
+
+  @Test
+  void shouldReadPropertiesOfMapParameter() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "Steve");
+    parameter.put("ids", Arrays.asList(1, 2));
+    Map<String, Object> bindings = bindings(parameter);
+    CompiledExpression compiled = CompiledExpression.compile("name == 'Steve' and ids.size() == 2 and other == null",
+        configuration.getReflectorFactory());
+    assertEquals(Boolean.TRUE, compiled.getValue(bindings));
+  }
+
+  @Test
+  void shouldEvaluateWithOgnlWhenCompiledExpressionFallsBack() {
+    ExpressionEvaluator evaluator = new ExpressionEvaluator();
+    CompiledExpression compiled = CompiledExpression.compile("id != null and id != ''",
+        configuration.getReflectorFactory());
+    assertEquals(true, evaluator.evaluateBoolean(compiled, bindings(new Bean("Steve", 1, 3, true))));
+    assertEquals(false, evaluator.evaluateBoolean(compiled, bindings(new Bean("Steve", null, 3, true))));
+  }
+
+  @Test
+  void shouldCompileIfNodeTestsWhenEnabled() {
+    Configuration configuration = new Configuration();
+    configuration.setCompiledTestExpressionsEnabled(true);
+    IfSqlNode ifSqlNode = new IfSqlNode(configuration, new StaticTextSqlNode("WHERE NAME = #{name}"),
+        "name != null and name.length() > 0");
+    DynamicContext context = new DynamicContext(configuration, new Bean("Steve", null, 0, false));
+    assertEquals(true, ifSqlNode.apply(context));
+    assertEquals("WHERE NAME = #{name}", context.getSql());
+    context = new DynamicContext(configuration, new Bean("", null, 0, false));
+    assertEquals(false, ifSqlNode.apply(context));
+    assertEquals("", context.getSql());
+  }
+
+  private Map<String, Object> bindings(Object parameter) {
+    return new DynamicContext(configuration, parameter).getBindings();
+  }
+
+  enum Status {
+    ACTIVE
+  }
+
+  public static class Bean {
+    private final String name;
+    private final Integer id;
+    private final int count;
+    private final boolean flag;
+    private final List<String> tags = Arrays.asList("a", "b");
+    private final Map<String, String> attributes = Collections.singletonMap("color", "red");
+    private final Status status = Status.ACTIVE;
+    private final Bean nested;
+
+    Bean(String name, Integer id, int count, boolean flag) {
+      this(name, id, count, flag, new Bean("inner", 1, 1, false, null));
+    }
+
+    private Bean(String name, Integer id, int count, boolean flag, Bean nested) {
+      this.name = name;
+      this.id = id;
+      this.count = count;
+      this.flag = flag;
+      this.nested = nested;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public boolean isFlag() {
+      return flag;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public Map<String, String> getAttributes() {
+      return attributes;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    public Bean getNested() {
+      return nested;
+    }
+  }
+
+}
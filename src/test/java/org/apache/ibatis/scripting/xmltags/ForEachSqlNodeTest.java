@@ -0,0 +1,153 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class ForEachSqlNodeTest {
+
+  @Test
+  void shouldRenderInListLikeRegularMode() {
+    assertSameBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2, 3)), "list", null, "id", "ID IN (", ")",
+        ",", new StaticTextSqlNode("#{id}"));
+  }
+
+  @Test
+  void shouldRenderMultiRowInsertLikeRegularMode() {
+    Map<String, Object> row1 = new HashMap<>();
+    row1.put("id", 1);
+    row1.put("name", "one");
+    Map<String, Object> row2 = new HashMap<>();
+    row2.put("id", 2);
+    row2.put("name", "two");
+    assertSameBoundSql(Collections.singletonMap("rows", Arrays.asList(row1, row2)), "rows", "i", "row", "VALUES", null,
+        ",", new StaticTextSqlNode("(#{ row.id }, #{row.name,jdbcType=VARCHAR}, #{i}, #{other}, \\#{row})"));
+  }
+
+  @Test
+  void shouldRenderMapEntriesAndMultipleTextsLikeRegularMode() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("map", map);
+    parameter.put("other", 3);
+    assertSameBoundSql(parameter, "map", "key", "value", "(", ")", " OR ",
+        new MixedSqlNode(Arrays.asList(new StaticTextSqlNode("  "), new StaticTextSqlNode("K = #{key} AND"),
+            new StaticTextSqlNode("V = #{value}"))));
+    assertSameBoundSql(parameter, "map", "key", "value", null, null, null,
+        new MixedSqlNode(Arrays.asList(new StaticTextSqlNode("#{key}"), new StaticTextSqlNode(" "))));
+  }
+
+  @Test
+  void shouldRenderBlankBodyLikeRegularMode() {
+    assertSameBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)), "list", null, "id", "(", ")", ",",
+        new StaticTextSqlNode(" "));
+  }
+
+  @Test
+  void shouldRenderNestedForEachLikeRegularMode() {
+    Map<String, Object> group1 = new HashMap<>();
+    group1.put("name", "a");
+    group1.put("ids", Arrays.asList(1, 2));
+    Map<String, Object> group2 = new HashMap<>();
+    group2.put("name", "b");
+    group2.put("ids", Arrays.asList(3));
+    List<Map<String, Object>> groups = Arrays.asList(group1, group2);
+    Configuration regular = new Configuration();
+    Configuration fast = new Configuration();
+    fast.setFastForEachEnabled(true);
+    BoundSql expected = new DynamicSqlSource(regular,
+        new ForEachSqlNode(regular,
+            new ForEachSqlNode(regular, new StaticTextSqlNode("#{inner} + #{outer.name}"), "outer.ids", null, null,
+                "inner", "(", ")", ","),
+            "groups", null, null, "outer", null, null, " OR ")).getBoundSql(Collections.singletonMap("groups", groups));
+    BoundSql actual = new DynamicSqlSource(fast,
+        new ForEachSqlNode(fast,
+            new ForEachSqlNode(fast, new StaticTextSqlNode("#{inner} + #{outer.name}"), "outer.ids", null, null,
+                "inner", "(", ")", ","),
+            "groups", null, null, "outer", null, null, " OR ")).getBoundSql(Collections.singletonMap("groups", groups));
+    assertSameBoundSql(expected, actual);
+  }
+
+  @Test
+  void shouldNotBindUnreferencedNames() {
+    Configuration configuration = new Configuration();
+    configuration.setFastForEachEnabled(true);
+    BoundSql boundSql = new DynamicSqlSource(configuration,
+        new ForEachSqlNode(configuration, new StaticTextSqlNode("#{id}"), "list", null, "i", "id", "(", ")", ","))
+            .getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    assertEquals("(  ? , ? )", boundSql.getSql());
+    assertEquals(2, boundSql.getAdditionalParameter("__frch_id_1"));
+    assertFalse(boundSql.hasAdditionalParameter("__frch_i_0"));
+    assertFalse(boundSql.hasAdditionalParameter("id"));
+  }
+
+  @Test
+  void shouldUseRegularModeForDynamicBody() {
+    Configuration configuration = new Configuration();
+    configuration.setFastForEachEnabled(true);
+    BoundSql boundSql = new DynamicSqlSource(configuration, new ForEachSqlNode(configuration,
+        new IfSqlNode(new StaticTextSqlNode("#{id}"), "id > 1"), "list", null, null, "id", "(", ")", ","))
+            .getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2, 3)));
+    assertEquals("(  ? , ? )", boundSql.getSql());
+    assertEquals(Arrays.asList("__frch_id_1", "__frch_id_2"), properties(boundSql));
+  }
+
+  private void assertSameBoundSql(Object parameter, String collection, String index, String item, String open,
+      String close, String separator, SqlNode contents) {
+    Configuration regular = new Configuration();
+    Configuration fast = new Configuration();
+    fast.setFastForEachEnabled(true);
+    BoundSql expected = new DynamicSqlSource(regular,
+        new ForEachSqlNode(regular, contents, collection, null, index, item, open, close, separator))
+            .getBoundSql(parameter);
+    BoundSql actual = new DynamicSqlSource(fast,
+        new ForEachSqlNode(fast, contents, collection, null, index, item, open, close, separator))
+            .getBoundSql(parameter);
+    assertSameBoundSql(expected, actual);
+  }
+
+  private void assertSameBoundSql(BoundSql expected, BoundSql actual) {
+    assertEquals(expected.getSql(), actual.getSql());
+    assertEquals(properties(expected), properties(actual));
+    for (ParameterMapping parameterMapping : expected.getParameterMappings()) {
+      String property = parameterMapping.getProperty();
+      if (expected.hasAdditionalParameter(property)) {
+        assertEquals(expected.getAdditionalParameter(property), actual.getAdditionalParameter(property));
+      }
+    }
+  }
+
+  private List<String> properties(BoundSql boundSql) {
+    return boundSql.getParameterMappings().stream().map(ParameterMapping::getProperty).collect(Collectors.toList());
+  }
+
+}
@@ -16,6 +16,8 @@
 package org.apache.ibatis.submitted.batch_keys;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.Reader;
 import java.sql.Connection;
@@ -23,9 +25,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
@@ -149,6 +154,88 @@ class BatchKeysTest {
     }
   }
 
+  @Test
+  void testAutoFlushByStatementRows() {
+    sqlSessionFactory.getConfiguration().setBatchFlushStatementRows(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper userMapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        User user = new User(null, "User" + i);
+        userMapper.insertIdentity(user);
+        users.add(user);
+      }
+      // the first four rows are flushed with their generated keys, the last one is pending
+      assertEquals(Integer.valueOf(0), users.get(0).getId());
+      assertEquals(Integer.valueOf(3), users.get(3).getId());
+      assertNull(users.get(4).getId());
+
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(Integer.valueOf(4), users.get(4).getId());
+      assertEquals(3, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      assertEquals(2, results.get(1).getUpdateCounts().length);
+      assertEquals(1, results.get(2).getUpdateCounts().length);
+      // the parameter objects of auto-flushed batches are released
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+      assertEquals(Collections.singletonList(users.get(4)), results.get(2).getParameterObjects());
+      assertTrue(sqlSession.flushStatements().isEmpty());
+      sqlSession.commit();
+    }
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.selectList("selectIdentity");
+      Assertions.assertEquals(5, users.size());
+    }
+  }
+
+  @Test
+  void testAutoFlushByPendingRowsOfSeveralStatements() {
+    sqlSessionFactory.getConfiguration().setBatchFlushPendingRows(3);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper userMapper = sqlSession.getMapper(Mapper.class);
+      User user1 = new User(null, "Pocoyo");
+      userMapper.insert(user1);
+      User user2 = new User(null, "Valentina");
+      userMapper.insertIdentity(user2);
+      assertNull(user1.getId());
+      User user3 = new User(null, "Pato");
+      userMapper.insertIdentity(user3);
+      assertEquals(Integer.valueOf(50), user1.getId());
+      assertEquals(Integer.valueOf(0), user2.getId());
+      assertEquals(Integer.valueOf(1), user3.getId());
+
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals("org.apache.ibatis.submitted.batch_keys.Mapper.insert", results.get(0).getMappedStatement().getId());
+      assertEquals(2, results.get(1).getUpdateCounts().length);
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void testAutoFlushByPendingBytes() {
+    sqlSessionFactory.getConfiguration().setBatchFlushPendingBytes(10);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper userMapper = sqlSession.getMapper(Mapper.class);
+      User user1 = new User(null, "Pocoyo");
+      userMapper.insertIdentity(user1);
+      // 12 bytes for the six characters
+      assertEquals(Integer.valueOf(0), user1.getId());
+      User user2 = new User(null, "Val");
+      userMapper.insertIdentity(user2);
+      assertNull(user2.getId());
+      sqlSession.flushStatements();
+      assertEquals(Integer.valueOf(1), user2.getId());
+      sqlSession.rollback();
+    }
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.selectList("selectIdentity");
+      Assertions.assertEquals(0, users.size());
+    }
+  }
+
   @Test
   void testInsertMapperNoBatchJdbc3() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
@@ -0,0 +1,215 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchedNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final SqlRecorder recorder = new SqlRecorder();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/batch_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_nested_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void clearRecordedSql() {
+    recorder.sqls.clear();
+  }
+
+  @Test
+  void shouldLoadAssociationsAndCollectionsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrders();
+      assertEquals(6, orders.size());
+
+      // the customer ids are read as Long and the order's customer_id as Integer
+      assertEquals("Alice", orders.get(0).getCustomer().getName());
+      assertEquals("Bob", orders.get(1).getCustomer().getName());
+      assertEquals("Alice", orders.get(2).getCustomer().getName());
+      assertEquals("Carol", orders.get(3).getCustomer().getName());
+      assertNull(orders.get(4).getCustomer());
+      assertNull(orders.get(5).getCustomer());
+
+      assertEquals("apple,pear", products(orders.get(0)));
+      assertEquals("plum", products(orders.get(1)));
+      assertEquals("", products(orders.get(2)));
+      // identical rows are kept, like the rows of the nested select of each order
+      assertEquals("fig,fig", products(orders.get(3)));
+      assertEquals("", products(orders.get(4)));
+      assertEquals("", products(orders.get(5)));
+    }
+    // 1 query for the orders, 1 for the lines and 3 for the customer ids 1, 2 | 1, 3 | 99
+    assertEquals(5, recorder.sqls.size());
+    assertEquals(2, count(" IN (?, ?)"));
+    assertEquals(1, count(" IN (?)"));
+    assertEquals(1, count(" IN (?, ?, ?, ?, ?, ?)"));
+  }
+
+  @Test
+  void shouldLoadAnnotatedCollectionsInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersAnnotated();
+      assertEquals(6, orders.size());
+      assertEquals("apple,pear", products(orders.get(0)));
+      assertEquals("plum", products(orders.get(1)));
+      assertEquals("", products(orders.get(2)));
+      assertEquals("fig,fig", products(orders.get(3)));
+    }
+    assertEquals(2, recorder.sqls.size());
+  }
+
+  @Test
+  void shouldLoadRowByRowWithResultHandler() {
+    List<Order> orders = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getOrders(context -> orders.add(context.getResultObject()));
+    }
+    assertEquals(6, orders.size());
+    assertEquals("Alice", orders.get(0).getCustomer().getName());
+    assertEquals("apple,pear", products(orders.get(0)));
+    assertTrue(recorder.sqls.stream().noneMatch(sql -> sql.contains(" IN (")));
+  }
+
+  @Test
+  void shouldLoadRowByRowWhenNestedSelectIsDynamic() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersWithDynamicSelect();
+      assertEquals(6, orders.size());
+      assertEquals("Alice", orders.get(0).getCustomer().getName());
+      assertEquals("Carol", orders.get(3).getCustomer().getName());
+      assertNull(orders.get(4).getCustomer());
+    }
+    assertTrue(recorder.sqls.stream().noneMatch(sql -> sql.contains(" IN (")));
+  }
+
+  @Test
+  void shouldLoadRowByRowWhenNestedSelectLimitsRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersWithFirstLine();
+      assertEquals("apple", products(orders.get(0)));
+      assertEquals("plum", products(orders.get(1)));
+      assertEquals("", products(orders.get(2)));
+      assertEquals("fig", products(orders.get(3)));
+    }
+    assertTrue(recorder.sqls.stream().noneMatch(sql -> sql.contains(" IN (")));
+  }
+
+  @Test
+  void shouldLoadRowByRowWhenKeyColumnIsNotReturned() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersWithUnkeyedLines();
+      assertEquals("apple,pear", products(orders.get(0)));
+      assertEquals("plum", products(orders.get(1)));
+      assertEquals("", products(orders.get(2)));
+      assertEquals("fig,fig", products(orders.get(3)));
+    }
+    // the batched query is tried once, then each order is loaded on its own
+    assertEquals(1, count(" IN ("));
+    assertEquals(8, recorder.sqls.size());
+  }
+
+  @Test
+  void shouldLoadRowByRowWhenKeysAreNotNumbers() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersWithCustomerByCode();
+      // the codes are compared ignoring case by the database
+      assertEquals("Alice", orders.get(0).getCustomer().getName());
+      assertEquals("Bob", orders.get(1).getCustomer().getName());
+      assertEquals("Alice", orders.get(2).getCustomer().getName());
+      assertEquals("Carol", orders.get(3).getCustomer().getName());
+      assertNull(orders.get(4).getCustomer());
+      assertNull(orders.get(5).getCustomer());
+    }
+    assertTrue(recorder.sqls.stream().noneMatch(sql -> sql.contains(" IN (")));
+  }
+
+  @Test
+  void shouldLoadRowByRowWhenRowsHaveKeysThatWereNotAskedFor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = mapper.getOrdersWithNotes();
+      // the database matches the numbers with the padded texts of the notes
+      assertEquals("gift", products(orders.get(0)));
+      assertEquals("", products(orders.get(1)));
+      assertEquals("rush", products(orders.get(3)));
+    }
+    // the batched query is tried once, then each order is loaded on its own
+    assertEquals(1, count(" IN ("));
+    assertEquals(8, recorder.sqls.size());
+  }
+
+  private static String products(Order order) {
+    return order.getLines().stream().map(OrderLine::getProduct).collect(Collectors.joining(","));
+  }
+
+  private static long count(String fragment) {
+    return recorder.sqls.stream().filter(sql -> sql.contains(fragment)).count();
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class SqlRecorder implements Interceptor {
+
+    final List<String> sqls = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Many;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+
+public interface Mapper {
+
+  List<Order> getOrders();
+
+  void getOrders(ResultHandler<Order> handler);
+
+  List<Order> getOrdersWithDynamicSelect();
+
+  List<Order> getOrdersWithFirstLine();
+
+  List<Order> getOrdersWithUnkeyedLines();
+
+  List<Order> getOrdersWithCustomerByCode();
+
+  List<Order> getOrdersWithNotes();
+
+  @Select("select * from orders order by id")
+  @Results({ @Result(property = "id", column = "id", id = true),
+      @Result(property = "lines", column = "id", many = @Many(select = "getLines", batchSize = 10)) })
+  List<Order> getOrdersAnnotated();
+
+  List<OrderLine> getLines(Integer orderId);
+
+}
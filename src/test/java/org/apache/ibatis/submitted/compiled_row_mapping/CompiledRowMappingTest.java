@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.MethodHandleReflectorFactory;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CompiledRowMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapping/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetSettings() {
+    sqlSessionFactory.getConfiguration().setCompiledRowMappingEnabled(true);
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(false);
+    sqlSessionFactory.getConfiguration().setReflectorFactory(new DefaultReflectorFactory());
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { true, false })
+  void shouldMapPropertyAndAutomaticMappings(boolean compiled) {
+    sqlSessionFactory.getConfiguration().setCompiledRowMappingEnabled(compiled);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users).hasSize(2);
+      assertThat(users.get(0)).extracting(User::getId, User::getName, User::getAge, User::getEmail).containsExactly(1,
+          "User1", 30, "user1@example.com");
+      assertThat(users.get(1)).extracting(User::getId, User::getName, User::getAge, User::getEmail).containsExactly(2,
+          "User2", 0, null);
+    }
+  }
+
+  @Test
+  void shouldNotCallPrimitiveSettersOnNulls() {
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users.get(1).getAge()).isZero();
+      assertThat(users.get(1).getEmail()).isNull();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { true, false })
+  void shouldMapPrimitivesWithSpecializedSetters(boolean callSettersOnNulls) {
+    sqlSessionFactory.getConfiguration().setReflectorFactory(new MethodHandleReflectorFactory());
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(callSettersOnNulls);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUserScores();
+      assertThat(users.get(0)).extracting(User::getAge, User::getScore, User::getRating, User::isActive)
+          .containsExactly(30, 5000000000L, 4.5, true);
+      assertThat(users.get(1)).extracting(User::getAge, User::getScore, User::getRating, User::isActive)
+          .containsExactly(0, 0L, 0.0, false);
+    }
+  }
+
+  @Test
+  void shouldFallBackForNestedProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithAddress();
+      assertThat(users.get(0).getName()).isEqualTo("User1");
+      assertThat(users.get(0).getAddress().getCity()).isEqualTo("Tokyo");
+      assertThat(users.get(1).getAddress()).isNull();
+    }
+  }
+
+  @Test
+  void shouldMapMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUserMaps();
+      assertThat(users.get(0)).containsEntry("ID", 1).containsEntry("USER_NAME", "User1").containsEntry("EMAIL",
+          "user1@example.com");
+      assertThat(users.get(1)).containsOnlyKeys("ID", "USER_NAME");
+    }
+  }
+
+  @Test
+  void shouldPutNullsIntoMapsIfCallSettersOnNullsEnabled() {
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUserMaps();
+      assertThat(users.get(1)).containsOnlyKeys("ID", "USER_NAME", "EMAIL").containsEntry("EMAIL", null);
+    }
+  }
+
+}
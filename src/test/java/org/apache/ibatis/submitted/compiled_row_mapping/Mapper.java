@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Results({ @Result(property = "name", column = "user_name") })
+  @Select("select id, user_name, age, email from users order by id")
+  List<User> getUsers();
+
+  @Results({ @Result(property = "name", column = "user_name"), @Result(property = "address.city", column = "city") })
+  @Select("select id, user_name, city from users order by id")
+  List<User> getUsersWithAddress();
+
+  @Select("select id, age, score, rating, active from users order by id")
+  List<User> getUserScores();
+
+  @Select("select id, user_name, email from users order by id")
+  List<Map<String, Object>> getUserMaps();
+
+}
@@ -179,4 +179,36 @@ class LazyPropertiesTest {
       assertEquals(1, user.setterCounter);
     }
   }
+
+  @Test
+  void shouldCreateResultObjectDirectlyAsProxy_Javassist() {
+    shouldCreateResultObjectDirectlyAsProxy(new JavassistProxyFactory());
+  }
+
+  @Tag("RequireIllegalAccess")
+  @Test
+  void shouldCreateResultObjectDirectlyAsProxy_Cglib() {
+    shouldCreateResultObjectDirectlyAsProxy(new CglibProxyFactory());
+  }
+
+  private void shouldCreateResultObjectDirectlyAsProxy(ProxyFactory proxyFactory) {
+    Configuration config = sqlSessionFactory.getConfiguration();
+    config.setProxyFactory(proxyFactory);
+    config.setAggressiveLazyLoading(false);
+    config.setDirectLazyLoadingProxyEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      assertEquals(User.class, user.getClass().getSuperclass());
+      assertEquals(Integer.valueOf(1), user.getId());
+      assertEquals("User1", user.getName());
+      assertEquals(0, user.setterCounter);
+      assertNotNull(user.getLazy1());
+      assertEquals(1, user.setterCounter, "Should NOT load other lazy properties.");
+      user.toString();
+      assertEquals(3, user.setterCounter);
+      user.getLazy2();
+      assertEquals(3, user.setterCounter);
+    }
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2009-2023 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_select;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static final ThreadRecorder recorder = new ThreadRecorder();
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create an SqlSessionFactory
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().addInterceptor(recorder);
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_nested_select/CreateDB.sql");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    sqlSessionFactory.getConfiguration().setParallelNestedQueryThreads(0);
+  }
+
+  @BeforeEach
+  void clearRecordedThreads() {
+    recorder.threads.clear();
+  }
+
+  @Test
+  void shouldLoadIndependentNestedSelectsConcurrently() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.getBlogs();
+      assertEquals(4, blogs.size());
+
+      assertEquals("Alice", blogs.get(0).getAuthor().getName());
+      assertEquals("Bob", blogs.get(1).getAuthor().getName());
+      assertSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+      assertEquals("Carol", blogs.get(3).getAuthor().getName());
+      assertNull(blogs.get(0).getAuthor().getBlogs());
+
+      assertEquals("nice,great", contents(blogs.get(0)));
+      assertEquals("meh", contents(blogs.get(1)));
+      assertEquals("", contents(blogs.get(2)));
+      assertEquals("wow", contents(blogs.get(3)));
+    }
+    // 1 query for the blogs, 4 for the comments and 3 for the distinct authors
+    assertEquals(8, recorder.threads.size());
+    assertEquals(Thread.currentThread().getName(), recorder.threads.get(0));
+    assertTrue(recorder.threads.stream().anyMatch(name -> name.startsWith("ParallelResultLoader-")));
+  }
+
+  @Test
+  void shouldPutConcurrentlyLoadedRowsIntoTheLocalCache() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.getBlogs();
+      assertEquals(8, recorder.threads.size());
+
+      List<Comment> comments = sqlSession.selectList("getComments", blogs.get(0).getId());
+      Author author = sqlSession.selectOne("getAuthor", blogs.get(1).getAuthor().getId());
+
+      assertSame(blogs.get(0).getComments().get(0), comments.get(0));
+      assertSame(blogs.get(1).getAuthor(), author);
+      assertEquals(8, recorder.threads.size());
+    }
+  }
+
+  @Test
+  void shouldLoadOnTheSessionThreadWhenNoConnectionIsLeft() {
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment()
+        .getDataSource();
+    int maximumConnections = dataSource.getPoolMaximumActiveConnections();
+    // the connection of the session is the only one
+    dataSource.setPoolMaximumActiveConnections(1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.getBlogs();
+      assertEquals(4, blogs.size());
+      assertEquals("wow", contents(blogs.get(3)));
+    } finally {
+      dataSource.setPoolMaximumActiveConnections(maximumConnections);
+    }
+    assertEquals(8, recorder.threads.size());
+    String sessionThread = Thread.currentThread().getName();
+    assertTrue(recorder.threads.stream().allMatch(sessionThread::equals));
+  }
+
+  @Test
+  void shouldLoadNestedSelectsWithNestedSelectsOnTheSessionThread() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.getBlogsWithAuthorBlogs();
+      assertEquals(4, blogs.size());
+
+      Author alice = blogs.get(0).getAuthor();
+      assertEquals("Alice", alice.getName());
+      assertEquals(2, alice.getBlogs().size());
+      assertSame(alice, alice.getBlogs().get(1).getAuthor());
+      assertEquals("wow", contents(blogs.get(3)));
+    }
+    String sessionThread = Thread.currentThread().getName();
+    assertTrue(recorder.threads.stream().allMatch(sessionThread::equals));
+  }
+
+  @Test
+  void shouldLoadOnTheSessionThreadWhenTheSessionMayHaveUncommittedChanges() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.insert("insertComment", 2);
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.getBlogs();
+      assertEquals(4, blogs.size());
+      assertEquals("meh,new", contents(blogs.get(1)));
+    }
+    String sessionThread = Thread.currentThread().getName();
+    assertTrue(recorder.threads.stream().allMatch(sessionThread::equals));
+  }
+
+  private static String contents(Blog blog) {
+    return blog.getComments().stream().map(Comment::getContent).collect(Collectors.joining(","));
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class ThreadRecorder implements Interceptor {
+
+    final List<String> threads = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      threads.add(Thread.currentThread().getName());
+      return invocation.proceed();
+    }
+  }
+
+}
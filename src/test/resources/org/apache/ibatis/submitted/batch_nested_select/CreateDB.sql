@@ -0,0 +1,64 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table order_notes if exists;
+drop table order_lines if exists;
+drop table orders if exists;
+drop table customers if exists;
+
+create table customers (
+  id bigint,
+  code varchar_ignorecase(20),
+  name varchar(20)
+);
+
+create table orders (
+  id int,
+  customer_id int,
+  customer_code varchar(20)
+);
+
+create table order_lines (
+  id int,
+  order_id int,
+  product varchar(20)
+);
+
+create table order_notes (
+  order_ref varchar(10),
+  note varchar(20)
+);
+
+insert into customers (id, code, name) values (1, 'ALICE', 'Alice');
+insert into customers (id, code, name) values (2, 'bob', 'Bob');
+insert into customers (id, code, name) values (3, 'Carol', 'Carol');
+
+insert into orders (id, customer_id, customer_code) values (1, 1, 'alice');
+insert into orders (id, customer_id, customer_code) values (2, 2, 'BOB');
+insert into orders (id, customer_id, customer_code) values (3, 1, 'Alice');
+insert into orders (id, customer_id, customer_code) values (4, 3, 'Carol');
+insert into orders (id, customer_id, customer_code) values (5, 99, 'dave');
+insert into orders (id, customer_id, customer_code) values (6, null, null);
+
+insert into order_lines (id, order_id, product) values (1, 1, 'apple');
+insert into order_lines (id, order_id, product) values (2, 1, 'pear');
+insert into order_lines (id, order_id, product) values (3, 2, 'plum');
+insert into order_lines (id, order_id, product) values (4, 4, 'fig');
+insert into order_lines (id, order_id, product) values (5, 4, 'fig');
+
+insert into order_notes (order_ref, note) values ('1 ', 'gift');
+insert into order_notes (order_ref, note) values ('4', 'rush');
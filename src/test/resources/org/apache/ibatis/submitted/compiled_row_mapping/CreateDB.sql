@@ -0,0 +1,31 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table users if exists;
+
+create table users (
+  id int,
+  user_name varchar(20),
+  age int,
+  email varchar(40),
+  city varchar(20),
+  score bigint,
+  rating double,
+  active boolean
+);
+
+insert into users (id, user_name, age, email, city, score, rating, active) values(1, 'User1', 30, 'user1@example.com', 'Tokyo', 5000000000, 4.5, true);
+insert into users (id, user_name, age, email, city, score, rating, active) values(2, 'User2', null, null, null, null, null, null);
@@ -0,0 +1,52 @@
+--
+--    Copyright 2009-2023 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       https://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table comments if exists;
+drop table blogs if exists;
+drop table authors if exists;
+
+create table authors (
+  id int,
+  name varchar(20),
+  country_id int
+);
+
+create table blogs (
+  id int,
+  title varchar(20),
+  author_id int
+);
+
+create table comments (
+  id int,
+  blog_id int,
+  content varchar(20)
+);
+
+insert into authors (id, name, country_id) values (1, 'Alice', 1);
+insert into authors (id, name, country_id) values (2, 'Bob', 1);
+insert into authors (id, name, country_id) values (3, 'Carol', 1);
+
+insert into blogs (id, title, author_id) values (1, 'first', 1);
+insert into blogs (id, title, author_id) values (2, 'second', 2);
+insert into blogs (id, title, author_id) values (3, 'third', 1);
+insert into blogs (id, title, author_id) values (4, 'fourth', 3);
+
+insert into comments (id, blog_id, content) values (1, 1, 'nice');
+insert into comments (id, blog_id, content) values (2, 1, 'great');
+insert into comments (id, blog_id, content) values (3, 2, 'meh');
+insert into comments (id, blog_id, content) values (4, 4, 'wow');